@@ -0,0 +1,28 @@
+-- Migration Script: V24 - Durable Workflow Timers
+-- Timers that resume paused executions (wait_duration, wait_until_date, event timeouts).
+-- Stored once in the common schema for all tenants so a single indexed scan finds
+-- every timer entering the in-memory horizon.
+
+USE common;
+
+-- ============================================================================
+-- 1. WORKFLOW TIMERS TABLE
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS workflow_timers (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tenant_id VARCHAR(100) NOT NULL COMMENT 'Tenant schema owning the execution',
+    execution_id BIGINT NOT NULL COMMENT 'Paused workflow execution',
+    node_id VARCHAR(100) NOT NULL COMMENT 'Node key the execution is paused at',
+    timer_type VARCHAR(50) NOT NULL COMMENT 'DELAY, EVENT_TIMEOUT',
+    due_at TIMESTAMP(3) NOT NULL COMMENT 'When the timer fires',
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' COMMENT 'PENDING, FIRED, CANCELLED',
+    payload JSON COMMENT 'Extra data handed to the resumed execution',
+
+    created_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3),
+    fired_at TIMESTAMP(3) NULL,
+
+    INDEX idx_status_due (status, due_at),
+    INDEX idx_execution (tenant_id, execution_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Durable timers for paused workflow executions';
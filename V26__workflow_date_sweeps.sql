@@ -0,0 +1,35 @@
+-- Migration Script: V26 - Date-Based Trigger Sweeps
+-- One row per active date_based workflow. The sweeper scans each workflow's module table
+-- with a range predicate on the date column and keeps a (date, id) high-water mark here,
+-- so every sweep only reads rows that became eligible since the previous one.
+--
+-- Module tables should carry an index on (<date column>, id) for the scan to stay a range read.
+
+USE common;
+
+-- ============================================================================
+-- 1. WORKFLOW DATE SWEEPS TABLE
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS workflow_date_sweeps (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tenant_id VARCHAR(100) NOT NULL COMMENT 'Tenant schema',
+    workflow_id BIGINT NOT NULL COMMENT 'Workflow in the tenant schema',
+    table_name VARCHAR(100) NOT NULL COMMENT 'Module table scanned',
+    date_column VARCHAR(100) NOT NULL COMMENT 'Date column the trigger is relative to',
+    offset_days INT NOT NULL DEFAULT 0 COMMENT 'Signed offset: negative = before the date',
+
+    -- High-water mark: last (date, id) already dispatched
+    high_water_date DATETIME(3) NOT NULL,
+    high_water_id BIGINT NOT NULL DEFAULT 0,
+
+    -- Lease so only one instance sweeps a workflow at a time
+    locked_by VARCHAR(100) NULL,
+    locked_until TIMESTAMP(3) NULL,
+    last_swept_at TIMESTAMP(3) NULL,
+    created_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3),
+
+    UNIQUE KEY uk_tenant_workflow (tenant_id, workflow_id),
+    INDEX idx_locked_until (locked_until)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Sweep state for date-based workflow triggers';
@@ -0,0 +1,28 @@
+-- Migration Script: V27 - Event Correlation Subscriptions
+-- One row per execution paused in wait_for_event. Incoming events are matched on
+-- (tenant, event type, correlation key) through an in-memory hash index loaded from
+-- this table, so an event never scans paused executions.
+
+USE common;
+
+-- ============================================================================
+-- 1. WORKFLOW EVENT SUBSCRIPTIONS TABLE
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS workflow_event_subscriptions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tenant_id VARCHAR(100) NOT NULL COMMENT 'Tenant schema owning the execution',
+    execution_id BIGINT NOT NULL COMMENT 'Paused workflow execution',
+    node_id VARCHAR(100) NOT NULL COMMENT 'wait_for_event node the execution is paused at',
+    event_type VARCHAR(100) NOT NULL COMMENT 'email_opened, form_submit, ...',
+    correlation_key VARCHAR(255) NOT NULL COMMENT 'Value identifying the awaited event, e.g. record id',
+    status VARCHAR(20) NOT NULL DEFAULT 'WAITING' COMMENT 'WAITING, MATCHED, CANCELLED',
+
+    created_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3),
+    matched_at TIMESTAMP(3) NULL,
+
+    INDEX idx_status_id (status, id),
+    INDEX idx_correlation (tenant_id, event_type, correlation_key, status),
+    INDEX idx_execution (tenant_id, execution_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Executions waiting for a correlated event';
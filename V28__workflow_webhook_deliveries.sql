@@ -0,0 +1,42 @@
+-- Migration Script: V28 - Outbound Webhook Delivery Queue
+-- Webhooks sent in queued mode are written here and delivered by a background
+-- poller, independent of the execution that produced them. Failed deliveries are
+-- retried with exponential backoff and jitter and end up DEAD after the last attempt.
+-- Rows with a batch_key are posted together as one JSON array. Credentials are never
+-- stored in clear text: authentication headers are kept encrypted in encrypted_secrets.
+
+USE common;
+
+-- ============================================================================
+-- 1. WORKFLOW WEBHOOK DELIVERIES TABLE
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS workflow_webhook_deliveries (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tenant_id VARCHAR(100) NOT NULL COMMENT 'Tenant schema that queued the webhook',
+    execution_id BIGINT NULL COMMENT 'Workflow execution that queued the webhook, if any',
+    url VARCHAR(2048) NOT NULL COMMENT 'Destination URL',
+    headers TEXT NULL COMMENT 'Non-secret request headers as JSON',
+    encrypted_secrets TEXT NULL COMMENT 'Credential headers as AES-GCM encrypted JSON, applied at send time',
+    payload MEDIUMTEXT NOT NULL COMMENT 'JSON body (one array element when batched)',
+    batch_key VARCHAR(64) NULL COMMENT 'Deliveries with the same key may be posted as one array',
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' COMMENT 'PENDING, IN_FLIGHT, DELIVERED, DEAD',
+    attempts INT NOT NULL DEFAULT 0,
+    max_attempts INT NOT NULL,
+    next_attempt_at TIMESTAMP(3) NOT NULL COMMENT 'Earliest time of the next attempt',
+
+    claim_token VARCHAR(64) NULL COMMENT 'Poll round that holds the row while IN_FLIGHT',
+    locked_until TIMESTAMP(3) NULL COMMENT 'IN_FLIGHT rows past this time are returned to PENDING',
+
+    last_status_code INT NULL,
+    last_error VARCHAR(1000) NULL,
+
+    created_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3),
+    delivered_at TIMESTAMP(3) NULL,
+
+    INDEX idx_status_next_attempt (status, next_attempt_at, id),
+    INDEX idx_claim_token (claim_token),
+    INDEX idx_status_locked (status, locked_until),
+    INDEX idx_tenant_status (tenant_id, status, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Persistent outbound webhook queue';
@@ -0,0 +1,36 @@
+-- Migration Script: V29 - Lead Assignment Counters
+-- Shared state for lead assignment across service instances. Round-robin
+-- counters are leased out in blocks: an instance advances next_value by a block
+-- size with a conditional update and hands out the block locally, so every
+-- counter value is used exactly once cluster-wide. Open-lead counts per rep are
+-- checkpointed as deltas and re-read by every instance for least-loaded selection.
+
+USE common;
+
+-- ============================================================================
+-- 1. ROUND-ROBIN COUNTERS
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS workflow_assignment_counters (
+    tenant_id VARCHAR(100) NOT NULL,
+    counter_key VARCHAR(255) NOT NULL COMMENT 'Team key of the round-robin pool',
+    next_value BIGINT NOT NULL DEFAULT 0 COMMENT 'First counter value not yet leased to an instance',
+    updated_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+
+    PRIMARY KEY (tenant_id, counter_key)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Round-robin lead assignment counters';
+
+-- ============================================================================
+-- 2. REP WORKLOAD
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS workflow_assignment_workload (
+    tenant_id VARCHAR(100) NOT NULL,
+    user_id BIGINT NOT NULL,
+    open_leads BIGINT NOT NULL DEFAULT 0 COMMENT 'Leads assigned and not yet closed',
+    updated_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+
+    PRIMARY KEY (tenant_id, user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Open leads per rep for workload-based assignment';
@@ -0,0 +1,53 @@
+-- Migration Script: V30 - Workflow Approvals
+-- Approval requests raised by approval nodes, with one assignment row per
+-- approver. The approver inbox reads workflow_approval_assignments through the
+-- (tenant_id, approver_id, status, created_at, approval_id) index and pages by
+-- keyset on (created_at, approval_id), so inbox queries touch only the rows of
+-- the page however much approval history a tenant accumulates.
+
+USE common;
+
+-- ============================================================================
+-- 1. WORKFLOW APPROVALS TABLE
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS workflow_approvals (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tenant_id VARCHAR(100) NOT NULL COMMENT 'Tenant schema of the execution',
+    execution_id BIGINT NOT NULL COMMENT 'Workflow execution paused on the approval',
+    node_id VARCHAR(100) NOT NULL COMMENT 'Approval node within the workflow',
+    approval_type VARCHAR(20) NOT NULL COMMENT 'SINGLE, REVIEW, PARALLEL, MULTI_STEP',
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' COMMENT 'PENDING, APPROVED, REJECTED, CANCELLED',
+    current_step INT NOT NULL DEFAULT 0 COMMENT 'Active step of a multi-step approval',
+    step_count INT NOT NULL DEFAULT 1,
+    required_approvals INT NOT NULL COMMENT 'Approvals needed to complete the active step',
+    request_data MEDIUMTEXT NULL COMMENT 'Request payload shown to approvers, as JSON',
+
+    requested_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3),
+    expires_at TIMESTAMP(3) NULL,
+    resolved_at TIMESTAMP(3) NULL,
+
+    INDEX idx_tenant_execution (tenant_id, execution_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Workflow approval requests';
+
+-- ============================================================================
+-- 2. APPROVER ASSIGNMENTS TABLE
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS workflow_approval_assignments (
+    approval_id BIGINT NOT NULL,
+    approver_id BIGINT NOT NULL,
+    tenant_id VARCHAR(100) NOT NULL,
+    step INT NOT NULL DEFAULT 0,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' COMMENT 'WAITING, PENDING, APPROVED, REJECTED, SKIPPED',
+    comments TEXT NULL,
+    created_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3) COMMENT 'When the request reached the approver inbox',
+    responded_at TIMESTAMP(3) NULL,
+
+    PRIMARY KEY (approval_id, approver_id, step),
+    INDEX idx_approver_inbox (tenant_id, approver_id, status, created_at, approval_id),
+    CONSTRAINT fk_approval_assignments_approval FOREIGN KEY (approval_id)
+        REFERENCES workflow_approvals (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Approvers of each workflow approval request';
@@ -0,0 +1,33 @@
+-- Migration Script: V31 - Approval Quorum Counters
+-- Votes on the active step are counted on the approval row itself. Every vote is
+-- an atomic increment, and the quorum ("all" or "any N of M") is checked by one
+-- conditional UPDATE that can move the row out of PENDING only once, so exactly
+-- one approver's request resumes the execution however many vote at the same time.
+
+USE common;
+
+-- ============================================================================
+-- 1. QUORUM STATE ON WORKFLOW APPROVALS
+-- ============================================================================
+
+ALTER TABLE workflow_approvals
+ADD COLUMN IF NOT EXISTS step_approvers INT NOT NULL DEFAULT 0
+  COMMENT 'Approvers assigned to the active step' AFTER required_approvals;
+
+ALTER TABLE workflow_approvals
+ADD COLUMN IF NOT EXISTS approved_count INT NOT NULL DEFAULT 0
+  COMMENT 'Approvals received on the active step' AFTER step_approvers;
+
+ALTER TABLE workflow_approvals
+ADD COLUMN IF NOT EXISTS rejected_count INT NOT NULL DEFAULT 0
+  COMMENT 'Rejections received on the active step' AFTER approved_count;
+
+-- Approvals created before this migration: count the votes already cast
+UPDATE workflow_approvals p
+SET p.step_approvers = (SELECT COUNT(*) FROM workflow_approval_assignments a
+                        WHERE a.approval_id = p.id AND a.step = p.current_step),
+    p.approved_count = (SELECT COUNT(*) FROM workflow_approval_assignments a
+                        WHERE a.approval_id = p.id AND a.step = p.current_step AND a.status = 'APPROVED'),
+    p.rejected_count = (SELECT COUNT(*) FROM workflow_approval_assignments a
+                        WHERE a.approval_id = p.id AND a.step = p.current_step AND a.status = 'REJECTED')
+WHERE p.status = 'PENDING';
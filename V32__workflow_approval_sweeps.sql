@@ -0,0 +1,46 @@
+-- Migration Script: V32 - Approval Expiry and Reminders
+-- A background sweeper reminds approvers of pending approvals and expires or
+-- escalates approvals past their deadline. Only approvals whose node sets a
+-- timeout or escalation have a deadline; an escalation restarts it with the
+-- node's own timeout. It reads only due rows through the
+-- (status, next_reminder_at) and (status, expires_at) indexes. Expiries and
+-- escalations are claimed a batch at a time by one UPDATE tagged with a claim
+-- token, reminders by a compare-and-set on next_reminder_at, so its cost follows
+-- the number of approvals that are due rather than the number pending.
+
+USE common;
+
+-- ============================================================================
+-- 1. REMINDER, ESCALATION AND CLAIM COLUMNS
+-- ============================================================================
+
+ALTER TABLE workflow_approvals
+ADD COLUMN IF NOT EXISTS timeout_minutes INT NULL
+  COMMENT 'Deadline from the request, and again from an escalation; NULL for none' AFTER expires_at;
+
+ALTER TABLE workflow_approvals
+ADD COLUMN IF NOT EXISTS next_reminder_at TIMESTAMP(3) NULL
+  COMMENT 'When pending approvers are next reminded; NULL once decided' AFTER timeout_minutes;
+
+ALTER TABLE workflow_approvals
+ADD COLUMN IF NOT EXISTS reminder_interval_minutes INT NULL
+  COMMENT 'Minutes between reminders; NULL for no reminders' AFTER next_reminder_at;
+
+ALTER TABLE workflow_approvals
+ADD COLUMN IF NOT EXISTS escalate_to VARCHAR(1000) NULL
+  COMMENT 'Comma-separated approvers added to the active step when it expires' AFTER reminder_interval_minutes;
+
+ALTER TABLE workflow_approvals
+ADD COLUMN IF NOT EXISTS escalated_at TIMESTAMP(3) NULL AFTER escalate_to;
+
+ALTER TABLE workflow_approvals
+ADD COLUMN IF NOT EXISTS claim_token VARCHAR(64) NULL
+  COMMENT 'Sweep round that last expired or escalated the row' AFTER escalated_at;
+
+-- ============================================================================
+-- 2. INDEXES FOR THE SWEEPER
+-- ============================================================================
+
+CREATE INDEX idx_approvals_status_expires ON workflow_approvals (status, expires_at, id);
+CREATE INDEX idx_approvals_status_reminder ON workflow_approvals (status, next_reminder_at, id);
+CREATE INDEX idx_approvals_claim_token ON workflow_approvals (claim_token);
@@ -0,0 +1,40 @@
+-- Migration Script: V33 - List Membership and Record Tags
+-- Lists and tags are stored as narrow join rows keyed by their composite primary
+-- key, so adding the same record or tag twice is a no-op. Bulk adds are written as
+-- multi-row INSERT IGNORE statements, one per batch of records, and a list's
+-- record ids are read back in primary key order to build the membership cache.
+
+USE common;
+
+-- ============================================================================
+-- 1. LIST MEMBERSHIP
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS workflow_list_members (
+    tenant_id VARCHAR(100) NOT NULL,
+    list_id VARCHAR(100) NOT NULL,
+    record_id VARCHAR(100) NOT NULL,
+    record_type VARCHAR(50) NOT NULL,
+    added_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+
+    PRIMARY KEY (tenant_id, list_id, record_id),
+    INDEX idx_list_members_record (tenant_id, record_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Records added to lists by workflows';
+
+-- ============================================================================
+-- 2. RECORD TAGS
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS workflow_record_tags (
+    tenant_id VARCHAR(100) NOT NULL,
+    record_type VARCHAR(50) NOT NULL,
+    record_id VARCHAR(100) NOT NULL,
+    tag_name VARCHAR(100) NOT NULL,
+    tag_data JSON NULL,
+    added_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+
+    PRIMARY KEY (tenant_id, record_type, record_id, tag_name),
+    INDEX idx_record_tags_tag (tenant_id, tag_name, record_type)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Tags added to records by workflows';
@@ -0,0 +1,24 @@
+-- Migration Script: V34 - In-App Notifications
+-- In-app notifications fanned out by workflows. A batch of recipients is written
+-- with one multi-row insert per chunk; each user's inbox is read newest first.
+
+USE common;
+
+-- ============================================================================
+-- 1. WORKFLOW NOTIFICATIONS TABLE
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS workflow_notifications (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tenant_id VARCHAR(100) NOT NULL,
+    user_id BIGINT NOT NULL,
+    title VARCHAR(500) NULL,
+    message TEXT NULL,
+    type VARCHAR(50) NOT NULL DEFAULT 'INFO',
+    data JSON NULL,
+    is_read BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+
+    INDEX idx_user_inbox (tenant_id, user_id, is_read, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='In-app notifications sent by workflows';
@@ -23,31 +23,57 @@ public class ApprovalController {
     private ApprovalService approvalService;
 
     /**
-     * Get all pending approvals for a user
-     * GET /api/workflows/approvals/pending
+     * Get a page of a user's approval inbox, newest first
+     * GET /api/workflows/approvals/pending?userId=..&cursor=..&limit=..
+     * status defaults to PENDING; pass the returned nextCursor to get the next page
      */
     @GetMapping("/pending")
-    public ResponseEntity<List<Map<String, Object>>> getPendingApprovals(
-            @RequestParam Long userId) {
+    public ResponseEntity<Map<String, Object>> getPendingApprovals(
+            @RequestHeader(value = "X-Tenant-ID", defaultValue = "default") String tenantId,
+            @RequestParam Long userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         log.info("Getting pending approvals for user: {}", userId);
         try {
-            List<Map<String, Object>> approvals = approvalService.getPendingApprovals(userId);
-            return ResponseEntity.ok(approvals);
+            Map<String, Object> page = approvalService.getApproverInbox(tenantId, userId, status, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Failed to get pending approvals", e);
             return ResponseEntity.status(500).build();
         }
     }
 
+    /**
+     * Get the number of approvals waiting on a user
+     * GET /api/workflows/approvals/pending/count?userId=..
+     */
+    @GetMapping("/pending/count")
+    public ResponseEntity<Map<String, Object>> getPendingCount(
+            @RequestHeader(value = "X-Tenant-ID", defaultValue = "default") String tenantId,
+            @RequestParam Long userId) {
+        try {
+            long count = approvalService.getPendingCount(tenantId, userId);
+            return ResponseEntity.ok(Map.of("userId", userId, "pendingCount", count));
+        } catch (Exception e) {
+            log.error("Failed to get pending approval count", e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
     /**
      * Get approval by ID
      * GET /api/workflows/approvals/{id}
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getApproval(@PathVariable Long id) {
+    public ResponseEntity<Map<String, Object>> getApproval(
+            @RequestHeader(value = "X-Tenant-ID", defaultValue = "default") String tenantId,
+            @PathVariable Long id) {
         log.info("Getting approval: {}", id);
         try {
-            Map<String, Object> approval = approvalService.getApproval(id);
+            Map<String, Object> approval = approvalService.getApproval(tenantId, id);
             return ResponseEntity.ok(approval);
         } catch (Exception e) {
             log.error("Failed to get approval", e);
@@ -61,6 +87,7 @@ public class ApprovalController {
      */
     @PostMapping("/{id}/approve")
     public ResponseEntity<Map<String, Object>> approveWorkflow(
+            @RequestHeader(value = "X-Tenant-ID", defaultValue = "default") String tenantId,
             @PathVariable Long id,
             @RequestBody Map<String, Object> approvalData) {
         log.info("Approving workflow approval: {}", id);
@@ -68,7 +95,7 @@ public class ApprovalController {
             Long userId = ((Number) approvalData.get("userId")).longValue();
             String comments = (String) approvalData.get("comments");
             
-            Map<String, Object> approved = approvalService.approve(id, userId, comments);
+            Map<String, Object> approved = approvalService.approve(tenantId, id, userId, comments);
             return ResponseEntity.ok(approved);
         } catch (Exception e) {
             log.error("Failed to approve workflow", e);
@@ -82,6 +109,7 @@ public class ApprovalController {
      */
     @PostMapping("/{id}/reject")
     public ResponseEntity<Map<String, Object>> rejectWorkflow(
+            @RequestHeader(value = "X-Tenant-ID", defaultValue = "default") String tenantId,
             @PathVariable Long id,
             @RequestBody Map<String, Object> rejectionData) {
         log.info("Rejecting workflow approval: {}", id);
@@ -89,7 +117,7 @@ public class ApprovalController {
             Long userId = ((Number) rejectionData.get("userId")).longValue();
             String reason = (String) rejectionData.get("reason");
             
-            Map<String, Object> rejected = approvalService.reject(id, userId, reason);
+            Map<String, Object> rejected = approvalService.reject(tenantId, id, userId, reason);
             return ResponseEntity.ok(rejected);
         } catch (Exception e) {
             log.error("Failed to reject workflow", e);
@@ -103,10 +131,11 @@ public class ApprovalController {
      */
     @GetMapping("/executions/{executionId}")
     public ResponseEntity<List<Map<String, Object>>> getExecutionApprovals(
+            @RequestHeader(value = "X-Tenant-ID", defaultValue = "default") String tenantId,
             @PathVariable Long executionId) {
         log.info("Getting approvals for execution: {}", executionId);
         try {
-            List<Map<String, Object>> approvals = approvalService.getExecutionApprovals(executionId);
+            List<Map<String, Object>> approvals = approvalService.getExecutionApprovals(tenantId, executionId);
             return ResponseEntity.ok(approvals);
         } catch (Exception e) {
             log.error("Failed to get execution approvals", e);
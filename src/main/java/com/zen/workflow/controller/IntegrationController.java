@@ -1,7 +1,10 @@
 package com.zen.workflow.controller;
 
 import com.zen.workflow.dto.IntegrationDTO;
+import com.zen.workflow.dto.WebhookDeliveryDTO;
+import com.zen.workflow.service.EndpointResilienceService;
 import com.zen.workflow.service.IntegrationService;
+import com.zen.workflow.service.WebhookDeliveryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -23,6 +26,12 @@ public class IntegrationController {
     @Autowired
     private IntegrationService integrationService;
 
+    @Autowired
+    private EndpointResilienceService endpointResilienceService;
+
+    @Autowired
+    private WebhookDeliveryService webhookDeliveryService;
+
     /**
      * Get all integrations
      * GET /api/workflows/integrations
@@ -138,4 +147,41 @@ public class IntegrationController {
             return ResponseEntity.status(500).build();
         }
     }
+
+    /**
+     * Circuit breaker and bulkhead state of outbound endpoints
+     * GET /api/workflows/integrations/endpoints/health
+     */
+    @GetMapping("/endpoints/health")
+    public ResponseEntity<List<Map<String, Object>>> getEndpointHealth(
+            @RequestHeader(value = "X-Tenant-ID", required = false) String tenantId) {
+        return ResponseEntity.ok(endpointResilienceService.getEndpointHealth(tenantId));
+    }
+
+    /**
+     * Dead-lettered webhook deliveries, newest first
+     * GET /api/workflows/integrations/deliveries/dead
+     */
+    @GetMapping("/deliveries/dead")
+    public ResponseEntity<List<WebhookDeliveryDTO>> getDeadDeliveries(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(webhookDeliveryService.getDeadLetters(tenantId, beforeId, Math.min(limit, 500)));
+    }
+
+    /**
+     * Requeue a dead-lettered webhook delivery
+     * POST /api/workflows/integrations/deliveries/{id}/retry
+     */
+    @PostMapping("/deliveries/{id}/retry")
+    public ResponseEntity<Map<String, Object>> retryDelivery(
+            @PathVariable Long id,
+            @RequestHeader("X-Tenant-ID") String tenantId) {
+        boolean requeued = webhookDeliveryService.retryDeadLetter(tenantId, id);
+        if (!requeued) {
+            return ResponseEntity.status(404).build();
+        }
+        return ResponseEntity.ok(Map.of("success", true, "deliveryId", id));
+    }
 }
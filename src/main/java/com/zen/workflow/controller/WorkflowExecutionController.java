@@ -1,6 +1,7 @@
 package com.zen.workflow.controller;
 
 import com.zen.workflow.dto.WorkflowExecutionDTO;
+import com.zen.workflow.service.BulkRetryService;
 import com.zen.workflow.service.WorkflowExecutionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +9,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +25,9 @@ public class WorkflowExecutionController {
     @Autowired
     private WorkflowExecutionService executionService;
 
+    @Autowired
+    private BulkRetryService bulkRetryService;
+
     /**
      * Get all executions
      * GET /api/workflows/executions
@@ -125,10 +130,12 @@ public class WorkflowExecutionController {
      * POST /api/workflows/executions/{id}/cancel
      */
     @PostMapping("/{id}/cancel")
-    public ResponseEntity<Void> cancelExecution(@PathVariable Long id) {
+    public ResponseEntity<Void> cancelExecution(
+            @PathVariable Long id,
+            @RequestHeader("X-Tenant-ID") String tenantId) {
         log.info("Cancelling execution: {}", id);
         try {
-            executionService.cancelExecution(id);
+            executionService.cancelExecution(id, tenantId);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             log.error("Failed to cancel execution", e);
@@ -141,17 +148,74 @@ public class WorkflowExecutionController {
      * POST /api/workflows/executions/{id}/retry
      */
     @PostMapping("/{id}/retry")
-    public ResponseEntity<WorkflowExecutionDTO> retryExecution(@PathVariable Long id) {
+    public ResponseEntity<WorkflowExecutionDTO> retryExecution(
+            @PathVariable Long id,
+            @RequestHeader("X-Tenant-ID") String tenantId) {
         log.info("Retrying execution: {}", id);
         try {
-            WorkflowExecutionDTO retried = executionService.retryExecution(id);
-            return ResponseEntity.ok(retried);
+            return ResponseEntity.ok(executionService.retryExecution(id, tenantId));
         } catch (Exception e) {
             log.error("Failed to retry execution", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Retry all failed executions of a workflow in a time window
+     * POST /api/workflows/executions/bulk-retry
+     * 
+     * Request body:
+     * {
+     *   "workflowId": 12,
+     *   "from": "2026-10-18T09:00:00",
+     *   "to": "2026-10-18T11:30:00"
+     * }
+     */
+    @PostMapping("/bulk-retry")
+    public ResponseEntity<Map<String, Object>> startBulkRetry(
+            @RequestBody Map<String, Object> request,
+            @RequestHeader("X-Tenant-ID") String tenantId) {
+        try {
+            Long workflowId = request.get("workflowId") != null ? Long.valueOf(request.get("workflowId").toString()) : null;
+            LocalDateTime from = request.get("from") != null ? LocalDateTime.parse(request.get("from").toString()) : null;
+            LocalDateTime to = request.get("to") != null ? LocalDateTime.parse(request.get("to").toString()) : null;
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(bulkRetryService.start(tenantId, workflowId, from, to));
+        } catch (Exception e) {
+            log.error("Failed to start bulk retry", e);
+            return ResponseEntity.badRequest().body(Map.of("success", false, "error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Progress of a bulk retry
+     * GET /api/workflows/executions/bulk-retry/{jobId}
+     */
+    @GetMapping("/bulk-retry/{jobId}")
+    public ResponseEntity<Map<String, Object>> getBulkRetry(
+            @PathVariable String jobId,
+            @RequestHeader("X-Tenant-ID") String tenantId) {
+        try {
+            return ResponseEntity.ok(bulkRetryService.getStatus(tenantId, jobId));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Stop submitting further retries of a bulk retry
+     * POST /api/workflows/executions/bulk-retry/{jobId}/cancel
+     */
+    @PostMapping("/bulk-retry/{jobId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelBulkRetry(
+            @PathVariable String jobId,
+            @RequestHeader("X-Tenant-ID") String tenantId) {
+        try {
+            return ResponseEntity.ok(bulkRetryService.cancel(tenantId, jobId));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     /**
      * Get execution history for a workflow
      * GET /api/workflows/{workflowId}/executions
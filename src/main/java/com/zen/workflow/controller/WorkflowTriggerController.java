@@ -1,5 +1,6 @@
 package com.zen.workflow.controller;
 
+import com.zen.workflow.service.EventCorrelationService;
 import com.zen.workflow.service.WorkflowTriggerService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +22,9 @@ public class WorkflowTriggerController {
     @Autowired
     private WorkflowTriggerService triggerService;
 
+    @Autowired
+    private EventCorrelationService eventCorrelationService;
+
     /**
      * Trigger workflows based on module and event type
      * POST /api/workflows/trigger
@@ -56,6 +60,13 @@ public class WorkflowTriggerController {
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
+            if (executedCount == WorkflowTriggerService.COALESCED) {
+                // Workflows run once the record's burst of updates is over
+                response.put("executedWorkflows", 0);
+                response.put("coalesced", true);
+                response.put("message", "Update queued for coalescing");
+                return ResponseEntity.accepted().body(response);
+            }
             response.put("executedWorkflows", executedCount);
             response.put("message", executedCount + " workflow(s) triggered");
             
@@ -74,6 +85,47 @@ public class WorkflowTriggerController {
         }
     }
 
+    /**
+     * Deliver an event to executions waiting for it (wait_for_event)
+     * POST /api/workflows/events
+     * 
+     * Request body:
+     * {
+     *   "eventType": "email_opened",
+     *   "correlationKey": "123",
+     *   "eventData": { "emailId": 456 }
+     * }
+     */
+    @PostMapping("/events")
+    public ResponseEntity<Map<String, Object>> publishEvent(
+            @RequestBody Map<String, Object> request,
+            @RequestHeader("X-Tenant-ID") String tenantId) {
+        
+        String eventType = (String) request.get("eventType");
+        Object correlationKey = request.get("correlationKey");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> eventData = (Map<String, Object>) request.get("eventData");
+        
+        try {
+            int resumed = eventCorrelationService.publish(tenantId, eventType,
+                correlationKey != null ? correlationKey.toString() : null, eventData);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("resumedExecutions", resumed);
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            log.error("❌ Failed to publish event {}: {}", eventType, e.getMessage(), e);
+            
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", e.getMessage());
+            
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+
     /**
      * Health check for workflow trigger endpoint
      * GET /api/workflows/trigger/health
@@ -0,0 +1,23 @@
+package com.zen.workflow.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Queued webhook as shown to API clients - request headers are left out
+ */
+@Data
+public class WebhookDeliveryDTO {
+    private Long id;
+    private Long executionId;
+    private String url;
+    private String payload;
+    private String status;
+    private int attempts;
+    private int maxAttempts;
+    private LocalDateTime nextAttemptAt;
+    private Integer lastStatusCode;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime deliveredAt;
+}
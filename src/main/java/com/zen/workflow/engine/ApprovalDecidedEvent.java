@@ -0,0 +1,17 @@
+package com.zen.workflow.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published once per approval, by the request whose vote decided it
+ */
+@Getter
+@AllArgsConstructor
+public class ApprovalDecidedEvent {
+    private final String tenantId;
+    private final Long executionId;
+    private final String nodeId;
+    private final Long approvalId;
+    private final String status;
+}
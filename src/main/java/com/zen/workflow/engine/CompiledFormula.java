@@ -0,0 +1,548 @@
+package com.zen.workflow.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A formula parsed once into an expression tree, so it can be evaluated against many
+ * variable maps without re-parsing. Function calls are bound to their
+ * {@link FormulaFunction} and arity and literal argument types are checked when the
+ * formula is compiled; variables are only known at evaluation time.
+ *
+ * Grammar, lowest precedence first:
+ * <pre>
+ *   or      := and ("||" and)*
+ *   and     := eq ("&&" eq)*
+ *   eq      := cmp (("==" | "!=") cmp)*
+ *   cmp     := add ((">" | "<" | ">=" | "<=") add)*
+ *   add     := mul (("+" | "-") mul)*
+ *   mul     := unary (("*" | "/") unary)*
+ *   unary   := ("!" | "-") unary | primary
+ *   primary := number | "string" | 'string' | true | false | null | {{path}}
+ *            | name "(" [or ("," or)*] ")" | "(" or ")"
+ * </pre>
+ */
+public class CompiledFormula {
+
+    private interface Expr {
+        Object eval(Map<String, Object> variables);
+
+        default Class<?> type() {
+            return Object.class;
+        }
+    }
+
+    private final String source;
+    private final Expr root;
+
+    private CompiledFormula(String source, Expr root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * @param functions function lookup by name, consulted only while compiling
+     * @throws IllegalArgumentException on a syntax error, unknown function or bad argument
+     */
+    public static CompiledFormula compile(String formula, Function<String, FormulaFunction> functions) {
+        if (formula == null || formula.trim().isEmpty()) {
+            throw new IllegalArgumentException("Formula is empty");
+        }
+        Parser parser = new Parser(formula, functions);
+        Expr root = parser.parseOr();
+        parser.skipWhitespace();
+        if (parser.pos < formula.length()) {
+            throw parser.error("Unexpected '" + formula.charAt(parser.pos) + "'");
+        }
+        return new CompiledFormula(formula, root);
+    }
+
+    public Object evaluate(Map<String, Object> variables) {
+        return root.eval(variables);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    // Expression nodes
+
+    private static final class Literal implements Expr {
+        private final Object value;
+
+        Literal(Object value) {
+            this.value = value;
+        }
+
+        public Object eval(Map<String, Object> variables) {
+            return value;
+        }
+
+        public Class<?> type() {
+            if (value instanceof Number) return Number.class;
+            if (value instanceof Boolean) return Boolean.class;
+            return value instanceof String ? String.class : Object.class;
+        }
+    }
+
+    private static final class Variable implements Expr {
+        private final String[] path;
+
+        Variable(String path) {
+            this.path = path.split("\\.");
+        }
+
+        public Object eval(Map<String, Object> variables) {
+            Object current = variables;
+            for (String part : path) {
+                if (!(current instanceof Map)) {
+                    return null;
+                }
+                current = ((Map<?, ?>) current).get(part);
+            }
+            return current;
+        }
+    }
+
+    private static final class Call implements Expr {
+        private final FormulaFunction function;
+        private final Expr[] args;
+
+        Call(FormulaFunction function, Expr[] args) {
+            this.function = function;
+            this.args = args;
+        }
+
+        public Object eval(Map<String, Object> variables) {
+            Object[] values = new Object[args.length];
+            for (int i = 0; i < args.length; i++) {
+                values[i] = args[i].eval(variables);
+            }
+            return function.invoke(values);
+        }
+
+        public Class<?> type() {
+            return function.getReturnType();
+        }
+    }
+
+    private static final class Not implements Expr {
+        private final Expr operand;
+
+        Not(Expr operand) {
+            this.operand = operand;
+        }
+
+        public Object eval(Map<String, Object> variables) {
+            return !toBoolean(operand.eval(variables));
+        }
+
+        public Class<?> type() {
+            return Boolean.class;
+        }
+    }
+
+    private static final class Negate implements Expr {
+        private final Expr operand;
+
+        Negate(Expr operand) {
+            this.operand = operand;
+        }
+
+        public Object eval(Map<String, Object> variables) {
+            Object value = operand.eval(variables);
+            if (value instanceof Long) {
+                return -(Long) value;
+            }
+            if (value instanceof Number) {
+                return -((Number) value).doubleValue();
+            }
+            throw new RuntimeException("Cannot negate non-numeric value");
+        }
+
+        public Class<?> type() {
+            return Number.class;
+        }
+    }
+
+    private static final class And implements Expr {
+        private final Expr left;
+        private final Expr right;
+
+        And(Expr left, Expr right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        public Object eval(Map<String, Object> variables) {
+            return toBoolean(left.eval(variables)) && toBoolean(right.eval(variables));
+        }
+
+        public Class<?> type() {
+            return Boolean.class;
+        }
+    }
+
+    private static final class Or implements Expr {
+        private final Expr left;
+        private final Expr right;
+
+        Or(Expr left, Expr right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        public Object eval(Map<String, Object> variables) {
+            return toBoolean(left.eval(variables)) || toBoolean(right.eval(variables));
+        }
+
+        public Class<?> type() {
+            return Boolean.class;
+        }
+    }
+
+    private interface Operator {
+        Object apply(Object left, Object right);
+    }
+
+    /**
+     * Operator chosen by the parser, so evaluation does no dispatch on the operator text
+     */
+    private static final class Binary implements Expr {
+        private final Operator operator;
+        private final Class<?> type;
+        private final Expr left;
+        private final Expr right;
+
+        Binary(Operator operator, Class<?> type, Expr left, Expr right) {
+            this.operator = operator;
+            this.type = type;
+            this.left = left;
+            this.right = right;
+        }
+
+        public Object eval(Map<String, Object> variables) {
+            return operator.apply(left.eval(variables), right.eval(variables));
+        }
+
+        public Class<?> type() {
+            return type;
+        }
+    }
+
+    private static Expr binary(String operator, Expr left, Expr right) {
+        switch (operator) {
+            case "+":
+                boolean bothNumbers = left.type() == Number.class && right.type() == Number.class;
+                return new Binary(CompiledFormula::add, bothNumbers ? Number.class : Object.class, left, right);
+            case "-":
+                return new Binary((l, r) -> numeric(l, r, "subtract", (a, b) -> a - b), Number.class, left, right);
+            case "*":
+                return new Binary((l, r) -> numeric(l, r, "multiply", (a, b) -> a * b), Number.class, left, right);
+            case "/":
+                return new Binary((l, r) -> numeric(l, r, "divide", CompiledFormula::divide), Number.class, left, right);
+            case "==":
+                return new Binary((l, r) -> equal(l, r), Boolean.class, left, right);
+            case "!=":
+                return new Binary((l, r) -> !equal(l, r), Boolean.class, left, right);
+            case ">":
+                return new Binary((l, r) -> compare(l, r) > 0, Boolean.class, left, right);
+            case "<":
+                return new Binary((l, r) -> compare(l, r) < 0, Boolean.class, left, right);
+            case ">=":
+                return new Binary((l, r) -> compare(l, r) >= 0, Boolean.class, left, right);
+            case "<=":
+                return new Binary((l, r) -> compare(l, r) <= 0, Boolean.class, left, right);
+            default:
+                throw new IllegalStateException("Unknown operator " + operator);
+        }
+    }
+
+    private static Object add(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return ((Number) left).doubleValue() + ((Number) right).doubleValue();
+        }
+        return (left != null ? left.toString() : "") + (right != null ? right.toString() : "");
+    }
+
+    private static double divide(double dividend, double divisor) {
+        if (divisor == 0) {
+            throw new RuntimeException("Division by zero");
+        }
+        return dividend / divisor;
+    }
+
+    private interface DoubleOperator {
+        double apply(double a, double b);
+    }
+
+    private static double numeric(Object left, Object right, String verb, DoubleOperator operator) {
+        if (left instanceof Number && right instanceof Number) {
+            return operator.apply(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        throw new RuntimeException("Cannot " + verb + " non-numeric values");
+    }
+
+    private static boolean equal(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        if (left instanceof Number && right instanceof Number) {
+            return ((Number) left).doubleValue() == ((Number) right).doubleValue();
+        }
+        return left.equals(right);
+    }
+
+    private static int compare(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        throw new RuntimeException("Cannot compare non-numeric values");
+    }
+
+    private static boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue() != 0;
+        }
+        if (value instanceof String) {
+            return !value.toString().isEmpty();
+        }
+        return value != null;
+    }
+
+    // Recursive descent parser
+
+    private static final class Parser {
+        private final String text;
+        private final Function<String, FormulaFunction> functions;
+        private int pos;
+
+        Parser(String text, Function<String, FormulaFunction> functions) {
+            this.text = text;
+            this.functions = functions;
+        }
+
+        Expr parseOr() {
+            Expr expr = parseAnd();
+            while (match("||")) {
+                expr = new Or(expr, parseAnd());
+            }
+            return expr;
+        }
+
+        private Expr parseAnd() {
+            Expr expr = parseEquality();
+            while (match("&&")) {
+                expr = new And(expr, parseEquality());
+            }
+            return expr;
+        }
+
+        private Expr parseEquality() {
+            Expr expr = parseComparison();
+            while (true) {
+                if (match("==")) {
+                    expr = binary("==", expr, parseComparison());
+                } else if (match("!=")) {
+                    expr = binary("!=", expr, parseComparison());
+                } else {
+                    return expr;
+                }
+            }
+        }
+
+        private Expr parseComparison() {
+            Expr expr = parseAdditive();
+            while (true) {
+                String operator = match(">=") ? ">=" : match("<=") ? "<=" : match(">") ? ">" : match("<") ? "<" : null;
+                if (operator == null) {
+                    return expr;
+                }
+                expr = binary(operator, expr, parseAdditive());
+            }
+        }
+
+        private Expr parseAdditive() {
+            Expr expr = parseMultiplicative();
+            while (true) {
+                if (match("+")) {
+                    expr = binary("+", expr, parseMultiplicative());
+                } else if (match("-")) {
+                    expr = binary("-", expr, parseMultiplicative());
+                } else {
+                    return expr;
+                }
+            }
+        }
+
+        private Expr parseMultiplicative() {
+            Expr expr = parseUnary();
+            while (true) {
+                if (match("*")) {
+                    expr = binary("*", expr, parseUnary());
+                } else if (match("/")) {
+                    expr = binary("/", expr, parseUnary());
+                } else {
+                    return expr;
+                }
+            }
+        }
+
+        private Expr parseUnary() {
+            if (peek() == '!' && !lookingAt("!=")) {
+                pos++;
+                return new Not(parseUnary());
+            }
+            if (match("-")) {
+                return new Negate(parseUnary());
+            }
+            return parsePrimary();
+        }
+
+        private Expr parsePrimary() {
+            char c = peek();
+            if (c == '(') {
+                pos++;
+                Expr expr = parseOr();
+                expect(")");
+                return expr;
+            }
+            if (c == '"' || c == '\'') {
+                return new Literal(parseString(c));
+            }
+            if (Character.isDigit(c) || c == '.') {
+                return new Literal(parseNumber());
+            }
+            if (lookingAt("{{")) {
+                int end = text.indexOf("}}", pos + 2);
+                if (end < 0) {
+                    throw error("Unclosed {{");
+                }
+                String path = text.substring(pos + 2, end).trim();
+                pos = end + 2;
+                return new Variable(path);
+            }
+            if (Character.isLetter(c) || c == '_') {
+                return parseName();
+            }
+            throw error(pos < text.length() ? "Unexpected '" + c + "'" : "Unexpected end of formula");
+        }
+
+        private Expr parseName() {
+            int start = pos;
+            while (pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) {
+                pos++;
+            }
+            String name = text.substring(start, pos);
+            if (peek() != '(') {
+                switch (name) {
+                    case "true":
+                        return new Literal(true);
+                    case "false":
+                        return new Literal(false);
+                    case "null":
+                        return new Literal(null);
+                    default:
+                        throw error("Unknown name '" + name + "'");
+                }
+            }
+            pos++;
+
+            List<Expr> args = new ArrayList<>();
+            if (peek() != ')') {
+                do {
+                    args.add(parseOr());
+                } while (match(","));
+            }
+            expect(")");
+            return bind(name, args);
+        }
+
+        private Expr bind(String name, List<Expr> args) {
+            FormulaFunction function = functions.apply(name);
+            if (function == null) {
+                throw error("Unknown function " + name);
+            }
+            if (args.size() != function.getArity()) {
+                throw error("Function " + name + " takes " + function.getArity() + " arguments but got " + args.size());
+            }
+            for (int i = 0; i < args.size(); i++) {
+                Class<?> argumentType = args.get(i).type();
+                if (!function.accepts(i, argumentType)) {
+                    throw error("Function " + name + " expects " + function.getParameterType(i).getSimpleName()
+                        + " for " + function.getParameterName(i) + " but got " + argumentType.getSimpleName());
+                }
+            }
+            return new Call(function, args.toArray(new Expr[0]));
+        }
+
+        private String parseString(char quote) {
+            StringBuilder value = new StringBuilder();
+            pos++;
+            while (pos < text.length() && text.charAt(pos) != quote) {
+                char c = text.charAt(pos++);
+                if (c == '\\' && pos < text.length()) {
+                    c = text.charAt(pos++);
+                }
+                value.append(c);
+            }
+            if (pos >= text.length()) {
+                throw error("Unclosed string");
+            }
+            pos++;
+            return value.toString();
+        }
+
+        private Number parseNumber() {
+            int start = pos;
+            while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            String number = text.substring(start, pos);
+            try {
+                return number.contains(".") ? (Number) Double.parseDouble(number) : (Number) Long.parseLong(number);
+            } catch (NumberFormatException e) {
+                throw error("Invalid number " + number);
+            }
+        }
+
+        void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private char peek() {
+            skipWhitespace();
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+
+        private boolean lookingAt(String token) {
+            skipWhitespace();
+            return text.startsWith(token, pos);
+        }
+
+        private boolean match(String token) {
+            if (lookingAt(token)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!match(token)) {
+                throw error("Expected '" + token + "'");
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " in formula: " + text);
+        }
+    }
+}
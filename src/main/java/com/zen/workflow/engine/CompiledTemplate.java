@@ -0,0 +1,125 @@
+package com.zen.workflow.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {{variable}} template split once into literal text and variable paths, so it
+ * can be rendered for many recipients without re-scanning the template.
+ * Paths are looked up in each scope in turn. Null values render as ""; a path found
+ * in no scope renders as "" too, or is left as written when the template keeps
+ * unresolved placeholders.
+ */
+public class CompiledTemplate {
+
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{\\{([^}]+)\\}\\}");
+    private static final Object MISSING = new Object();
+
+    private final String source;
+    private final List<String> literals;   // literals.size() == paths.size() + 1
+    private final List<String[]> paths;
+    private final List<String> placeholders;
+    private final boolean keepUnresolved;
+
+    private CompiledTemplate(String source, List<String> literals, List<String[]> paths, List<String> placeholders,
+                             boolean keepUnresolved) {
+        this.source = source;
+        this.literals = literals;
+        this.paths = paths;
+        this.placeholders = placeholders;
+        this.keepUnresolved = keepUnresolved;
+    }
+
+    public static CompiledTemplate compile(String template) {
+        return compile(template, false);
+    }
+
+    /**
+     * @param keepUnresolved leave placeholders found in no scope as written instead of dropping them
+     */
+    public static CompiledTemplate compile(String template, boolean keepUnresolved) {
+        List<String> literals = new ArrayList<>();
+        List<String[]> paths = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        if (template == null) {
+            literals.add("");
+            return new CompiledTemplate(null, literals, paths, placeholders, keepUnresolved);
+        }
+
+        Matcher matcher = VARIABLE_PATTERN.matcher(template);
+        int last = 0;
+        while (matcher.find()) {
+            literals.add(template.substring(last, matcher.start()));
+            paths.add(matcher.group(1).trim().split("\\."));
+            placeholders.add(matcher.group());
+            last = matcher.end();
+        }
+        literals.add(template.substring(last));
+        return new CompiledTemplate(template, literals, paths, placeholders, keepUnresolved);
+    }
+
+    /**
+     * Render against the given scopes, first match wins
+     */
+    @SafeVarargs
+    public final String render(Map<String, Object>... scopes) {
+        if (source == null) {
+            return null;
+        }
+        if (paths.isEmpty()) {
+            return source;
+        }
+
+        StringBuilder result = new StringBuilder(source.length() + 32);
+        for (int i = 0; i < paths.size(); i++) {
+            result.append(literals.get(i));
+            Object value = lookup(paths.get(i), scopes);
+            if (value == MISSING) {
+                if (keepUnresolved) {
+                    result.append(placeholders.get(i));
+                }
+            } else if (value != null) {
+                result.append(value);
+            }
+        }
+        result.append(literals.get(paths.size()));
+        return result.toString();
+    }
+
+    public boolean hasVariables() {
+        return !paths.isEmpty();
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * The first non-null value, null if the path is only present with a null value, or MISSING
+     */
+    private Object lookup(String[] path, Map<String, Object>[] scopes) {
+        boolean present = false;
+        for (Map<String, Object> scope : scopes) {
+            if (scope == null) {
+                continue;
+            }
+            Object current = scope;
+            boolean found = true;
+            for (String part : path) {
+                if (!(current instanceof Map) || !((Map<?, ?>) current).containsKey(part)) {
+                    found = false;
+                    break;
+                }
+                current = ((Map<?, ?>) current).get(part);
+            }
+            if (current != null && found) {
+                return current;
+            }
+            present |= found;
+        }
+        return present ? null : MISSING;
+    }
+}
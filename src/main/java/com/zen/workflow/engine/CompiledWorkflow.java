@@ -0,0 +1,168 @@
+package com.zen.workflow.engine;
+
+import com.zen.workflow.model.NodeConfig;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Parsed, immutable form of a workflow definition.
+ *
+ * Node configs are shared between executions, so {@link #getNode(String)} hands
+ * out a deep copy - handlers resolve {{variables}} into their config maps in place.
+ */
+@Getter
+public class CompiledWorkflow {
+
+    public static final String NEXT = "next";
+
+    private final Long workflowId;
+    private final Integer version;
+    private final String moduleType;
+    private final String triggerType;
+    private final String startNodeId;
+    private final Map<String, NodeConfig> nodes;
+    private final Map<String, RetryPolicy> retryPolicies;
+
+    private CompiledWorkflow(Long workflowId, Integer version, String moduleType, String triggerType,
+                             String startNodeId, Map<String, NodeConfig> nodes, Map<String, RetryPolicy> retryPolicies) {
+        this.workflowId = workflowId;
+        this.version = version;
+        this.moduleType = moduleType;
+        this.triggerType = triggerType;
+        this.startNodeId = startNodeId;
+        this.nodes = Collections.unmodifiableMap(nodes);
+        this.retryPolicies = Collections.unmodifiableMap(retryPolicies);
+    }
+
+    /**
+     * Build from the "nodes" array of a workflow config.
+     * The first trigger node is the entry point, falling back to the first node.
+     */
+    @SuppressWarnings("unchecked")
+    public static CompiledWorkflow compile(Long workflowId, Integer version, String moduleType,
+                                           String triggerType, Map<String, Object> workflowConfig) {
+        Map<String, NodeConfig> nodes = new LinkedHashMap<>();
+        Map<String, RetryPolicy> retryPolicies = new HashMap<>();
+        String startNodeId = null;
+
+        Object nodeList = workflowConfig != null ? workflowConfig.get("nodes") : null;
+        if (nodeList instanceof List) {
+            for (Object item : (List<?>) nodeList) {
+                if (!(item instanceof Map)) {
+                    continue;
+                }
+                Map<String, Object> nodeMap = (Map<String, Object>) item;
+                NodeConfig node = new NodeConfig();
+                node.setId((String) nodeMap.get("id"));
+                node.setType((String) nodeMap.get("type"));
+                node.setSubtype((String) nodeMap.get("subtype"));
+                node.setLabel((String) nodeMap.get("label"));
+                node.setConfig((Map<String, Object>) nodeMap.get("config"));
+                node.setConnections((Map<String, Object>) nodeMap.get("connections"));
+                node.setPosition((Map<String, Object>) nodeMap.get("position"));
+
+                if (node.getId() == null) {
+                    continue;
+                }
+                nodes.put(node.getId(), node);
+
+                RetryPolicy retryPolicy = RetryPolicy.from(node.getConfig());
+                if (retryPolicy != null) {
+                    retryPolicies.put(node.getId(), retryPolicy);
+                }
+
+                if (startNodeId == null && "trigger".equals(node.getType())) {
+                    startNodeId = node.getId();
+                }
+            }
+        }
+
+        if (startNodeId == null && !nodes.isEmpty()) {
+            startNodeId = nodes.keySet().iterator().next();
+        }
+
+        return new CompiledWorkflow(workflowId, version, moduleType, triggerType, startNodeId, nodes, retryPolicies);
+    }
+
+    /**
+     * Get a private copy of a node for one execution
+     */
+    public NodeConfig getNode(String nodeId) {
+        NodeConfig node = nodes.get(nodeId);
+        if (node == null) {
+            return null;
+        }
+        NodeConfig copy = new NodeConfig();
+        copy.setId(node.getId());
+        copy.setType(node.getType());
+        copy.setSubtype(node.getSubtype());
+        copy.setLabel(node.getLabel());
+        copy.setConfig(deepCopy(node.getConfig()));
+        copy.setConnections(node.getConnections());
+        copy.setPosition(node.getPosition());
+        return copy;
+    }
+
+    /**
+     * Retry policy declared on a node, or null if failures are final
+     */
+    public RetryPolicy getRetryPolicy(String nodeId) {
+        return retryPolicies.get(nodeId);
+    }
+
+    public boolean hasNode(String nodeId) {
+        return nodes.containsKey(nodeId);
+    }
+
+    /**
+     * Whether the node declares a connection for the branch itself, not through the "next" fallback
+     */
+    public boolean hasConnection(String nodeId, String branch) {
+        NodeConfig node = nodes.get(nodeId);
+        return node != null && node.getConnections() != null && node.getConnections().containsKey(branch);
+    }
+
+    /**
+     * Follow a node's connection for the given branch ("next", "true", "false",
+     * "approved", "timeout", ...). Branches the node does not declare fall back to "next";
+     * a declared branch with a null target ends the workflow.
+     */
+    public String nextNodeId(String nodeId, String branch) {
+        NodeConfig node = nodes.get(nodeId);
+        if (node == null || node.getConnections() == null) {
+            return null;
+        }
+        Map<String, Object> connections = node.getConnections();
+        String key = branch != null && connections.containsKey(branch) ? branch : NEXT;
+        Object target = connections.get(key);
+        return target != null ? target.toString() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> deepCopy(Map<String, Object> source) {
+        if (source == null) {
+            return null;
+        }
+        Map<String, Object> copy = new HashMap<>(source.size());
+        for (Map.Entry<String, Object> entry : source.entrySet()) {
+            copy.put(entry.getKey(), deepCopyValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object deepCopyValue(Object value) {
+        if (value instanceof Map) {
+            return deepCopy((Map<String, Object>) value);
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>(((List<?>) value).size());
+            for (Object item : (List<?>) value) {
+                list.add(deepCopyValue(item));
+            }
+            return list;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,134 @@
+package com.zen.workflow.engine;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A function callable from formulas, e.g. capitalize({{lead.name}}).
+ * Parameter types are checked against the arguments when a formula is compiled and
+ * arguments are coerced to them before each call. Supported types are String,
+ * Number, Boolean, List, Map and Object (anything).
+ */
+public final class FormulaFunction {
+
+    @FunctionalInterface
+    public interface Body {
+        Object apply(Object[] args) throws Exception;
+    }
+
+    private final String name;
+    private final String[] parameterNames;
+    private final Class<?>[] parameterTypes;
+    private final Class<?> returnType;
+    private final Body body;
+
+    private FormulaFunction(String name, String[] parameterNames, Class<?>[] parameterTypes,
+                            Class<?> returnType, Body body) {
+        this.name = name;
+        this.parameterNames = parameterNames;
+        this.parameterTypes = parameterTypes;
+        this.returnType = returnType;
+        this.body = body;
+    }
+
+    /**
+     * @param parameters name and type pairs, e.g. "text", String.class, "length", Number.class
+     */
+    public static FormulaFunction of(String name, Class<?> returnType, Body body, Object... parameters) {
+        if (parameters.length % 2 != 0) {
+            throw new IllegalArgumentException("Parameters of " + name + " must be name and type pairs");
+        }
+        String[] names = new String[parameters.length / 2];
+        Class<?>[] types = new Class<?>[parameters.length / 2];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = (String) parameters[2 * i];
+            types[i] = checkType(name, (Class<?>) parameters[2 * i + 1]);
+        }
+        return new FormulaFunction(name, names, types, checkType(name, returnType), body);
+    }
+
+    public Object invoke(Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            args[i] = coerce(args[i], i);
+        }
+        try {
+            return body.apply(args);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Function " + name + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Call with named parameters, as custom_function nodes do
+     */
+    public Object invoke(Map<String, Object> parameters) {
+        Object[] args = new Object[parameterNames.length];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = parameters.get(parameterNames[i]);
+        }
+        return invoke(args);
+    }
+
+    /**
+     * Whether a value of the given static type can be passed as the parameter.
+     * Object on either side is only known at run time; anything converts to String.
+     */
+    public boolean accepts(int index, Class<?> argumentType) {
+        Class<?> type = parameterTypes[index];
+        return type == Object.class || type == String.class || argumentType == Object.class
+            || type.isAssignableFrom(argumentType);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getArity() {
+        return parameterTypes.length;
+    }
+
+    public String getParameterName(int index) {
+        return parameterNames[index];
+    }
+
+    public Class<?> getParameterType(int index) {
+        return parameterTypes[index];
+    }
+
+    public Class<?> getReturnType() {
+        return returnType;
+    }
+
+    private Object coerce(Object value, int index) {
+        Class<?> type = parameterTypes[index];
+        if (value == null || type == Object.class || type.isInstance(value)) {
+            return value;
+        }
+        if (type == String.class) {
+            return value.toString();
+        }
+        if (type == Number.class && value instanceof String) {
+            try {
+                String text = ((String) value).trim();
+                return text.contains(".") ? (Object) Double.parseDouble(text) : (Object) Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        if (type == Boolean.class && value instanceof String) {
+            return Boolean.parseBoolean(((String) value).trim());
+        }
+        throw new RuntimeException("Function " + name + " expects " + type.getSimpleName() + " for "
+            + parameterNames[index] + " but got " + value.getClass().getSimpleName());
+    }
+
+    private static Class<?> checkType(String name, Class<?> type) {
+        if (type != String.class && type != Number.class && type != Boolean.class
+                && type != List.class && type != Map.class && type != Object.class) {
+            throw new IllegalArgumentException("Unsupported type " + type.getSimpleName() + " in function " + name);
+        }
+        return type;
+    }
+}
@@ -0,0 +1,145 @@
+package com.zen.workflow.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel for the near-term timer window.
+ *
+ * Level 0 has {@code wheelSize} slots of {@code tickMs}; every higher level has
+ * {@code wheelSize} slots each spanning a full rotation of the level below. Adding
+ * and expiring a timer is O(1); timers in higher levels are cascaded down once per
+ * level as their slot comes round. Timers fire at most one tick late, never early.
+ *
+ * Not a scheduler by itself - the owner calls {@link #advance(long)} on every tick.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long[] levelTickMs;
+    private final List<Entry<T>>[][] buckets;
+    private final List<Entry<T>> ready = new ArrayList<>();
+
+    private long currentTime;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, int levels, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 1 || levels <= 0) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levelTickMs = new long[levels];
+        this.buckets = new List[levels][wheelSize];
+
+        long levelTick = tickMs;
+        for (int level = 0; level < levels; level++) {
+            levelTickMs[level] = levelTick;
+            for (int slot = 0; slot < wheelSize; slot++) {
+                buckets[level][slot] = new ArrayList<>();
+            }
+            levelTick *= wheelSize;
+        }
+        this.currentTime = startMs - (startMs % tickMs);
+    }
+
+    /**
+     * Add a timer.
+     *
+     * @return false if the due time is beyond the span of the wheel; the caller
+     *         should keep the timer elsewhere and add it again later
+     */
+    public synchronized boolean add(T item, long dueAtMs) {
+        if (!place(new Entry<>(item, dueAtMs))) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Move the wheel forward to {@code nowMs}, returning every timer that is now due
+     */
+    public synchronized List<T> advance(long nowMs) {
+        List<T> due = new ArrayList<>();
+
+        while (currentTime + tickMs <= nowMs) {
+            currentTime += tickMs;
+
+            // Expire the level-0 slot for the tick that just elapsed
+            int expired = (int) (((currentTime - tickMs) / tickMs) % wheelSize);
+            List<Entry<T>> expiredBucket = buckets[0][expired];
+            if (!expiredBucket.isEmpty()) {
+                buckets[0][expired] = new ArrayList<>();
+                for (Entry<T> entry : expiredBucket) {
+                    due.add(entry.item);
+                }
+                size -= expiredBucket.size();
+            }
+
+            // Then cascade higher levels whose slot boundary was just reached; this
+            // must come after the expiry, which frees the slot cascaded timers may reuse
+            for (int level = 1; level < levelTickMs.length; level++) {
+                if (currentTime % levelTickMs[level] != 0) {
+                    break;
+                }
+                int slot = (int) ((currentTime / levelTickMs[level]) % wheelSize);
+                List<Entry<T>> bucket = buckets[level][slot];
+                if (!bucket.isEmpty()) {
+                    buckets[level][slot] = new ArrayList<>();
+                    for (Entry<T> entry : bucket) {
+                        place(entry);
+                    }
+                }
+            }
+        }
+
+        if (!ready.isEmpty()) {
+            for (Entry<T> entry : ready) {
+                due.add(entry.item);
+            }
+            size -= ready.size();
+            ready.clear();
+        }
+
+        return due;
+    }
+
+    /**
+     * Time covered by the wheel from the current tick
+     */
+    public long getSpanMs() {
+        return levelTickMs[levelTickMs.length - 1] * wheelSize;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private boolean place(Entry<T> entry) {
+        if (entry.dueAtMs < currentTime) {
+            ready.add(entry);
+            return true;
+        }
+        for (int level = 0; level < levelTickMs.length; level++) {
+            if (entry.dueAtMs < currentTime + levelTickMs[level] * wheelSize) {
+                int slot = (int) ((entry.dueAtMs / levelTickMs[level]) % wheelSize);
+                buckets[level][slot].add(entry);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final long dueAtMs;
+
+        private Entry(T item, long dueAtMs) {
+            this.item = item;
+            this.dueAtMs = dueAtMs;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.zen.workflow.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary min-heap of long keys by long priority, with a key index so that a key's
+ * priority can be changed or the key removed in O(log n). Ties go to the smaller
+ * key, which keeps selection deterministic across instances.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class IndexedMinHeap {
+
+    private long[] keys = new long[16];
+    private long[] priorities = new long[16];
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long key) {
+        return positions.containsKey(key);
+    }
+
+    /**
+     * Insert the key, or move it to its new priority if already present
+     */
+    public void put(long key, long priority) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            long previous = priorities[position];
+            priorities[position] = priority;
+            if (priority < previous) {
+                siftUp(position);
+            } else {
+                siftDown(position);
+            }
+            return;
+        }
+
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        keys[size] = key;
+        priorities[size] = priority;
+        positions.put(key, size);
+        siftUp(size++);
+    }
+
+    /**
+     * Key with the lowest priority; the heap must not be empty
+     */
+    public long peekKey() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return keys[0];
+    }
+
+    public long peekPriority() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return priorities[0];
+    }
+
+    public void remove(long key) {
+        Integer position = positions.remove(key);
+        if (position == null) {
+            return;
+        }
+        size--;
+        if (position == size) {
+            return;
+        }
+        keys[position] = keys[size];
+        priorities[position] = priorities[size];
+        positions.put(keys[position], position);
+        siftDown(position);
+        siftUp(positions.get(keys[position]));
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!less(position, parent)) {
+                break;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int left = 2 * position + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left + 1 < size && less(left + 1, left) ? left + 1 : left;
+            if (!less(smallest, position)) {
+                break;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private boolean less(int a, int b) {
+        return priorities[a] < priorities[b] || (priorities[a] == priorities[b] && keys[a] < keys[b]);
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        long priority = priorities[a];
+        keys[a] = keys[b];
+        priorities[a] = priorities[b];
+        keys[b] = key;
+        priorities[b] = priority;
+        positions.put(keys[a], a);
+        positions.put(keys[b], b);
+    }
+}
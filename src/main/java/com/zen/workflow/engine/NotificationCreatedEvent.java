@@ -0,0 +1,18 @@
+package com.zen.workflow.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Published once per user after a notification batch is stored, for real-time
+ * delivery to users who are connected
+ */
+@Getter
+@AllArgsConstructor
+public class NotificationCreatedEvent {
+    private final String tenantId;
+    private final Long userId;
+    private final Map<String, Object> notification;
+}
@@ -0,0 +1,142 @@
+package com.zen.workflow.engine;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compact set of record ids for membership checks. Numeric ids, the common case,
+ * are kept in an open-addressing table of primitive longs (about 12 bytes per id,
+ * O(1) lookups, no boxing); any other id goes to a plain string set.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class RecordIdSet {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final double MAX_LOAD = 0.7;
+
+    private long[] slots;
+    private int numericSize;
+    private final Set<String> others = new HashSet<>();
+
+    public RecordIdSet() {
+        this(16);
+    }
+
+    public RecordIdSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD) + 1) - 1) << 1;
+        slots = new long[capacity];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    public boolean contains(String recordId) {
+        long id = parse(recordId);
+        if (id == EMPTY) {
+            return recordId != null && others.contains(recordId);
+        }
+        for (int i = index(id); ; i = (i + 1) & (slots.length - 1)) {
+            if (slots[i] == id) {
+                return true;
+            }
+            if (slots[i] == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    public boolean add(String recordId) {
+        long id = parse(recordId);
+        if (id == EMPTY) {
+            return recordId != null && others.add(recordId);
+        }
+        if (numericSize + 1 > slots.length * MAX_LOAD) {
+            resize(slots.length << 1);
+        }
+        int i = index(id);
+        while (slots[i] != EMPTY) {
+            if (slots[i] == id) {
+                return false;
+            }
+            i = (i + 1) & (slots.length - 1);
+        }
+        slots[i] = id;
+        numericSize++;
+        return true;
+    }
+
+    public boolean remove(String recordId) {
+        long id = parse(recordId);
+        if (id == EMPTY) {
+            return recordId != null && others.remove(recordId);
+        }
+        int mask = slots.length - 1;
+        int i = index(id);
+        while (slots[i] != id) {
+            if (slots[i] == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        // Backward-shift deletion keeps every probe chain unbroken without tombstones
+        int gap = i;
+        for (int j = (gap + 1) & mask; slots[j] != EMPTY; j = (j + 1) & mask) {
+            int home = index(slots[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                slots[gap] = slots[j];
+                gap = j;
+            }
+        }
+        slots[gap] = EMPTY;
+        numericSize--;
+        return true;
+    }
+
+    public int size() {
+        return numericSize + others.size();
+    }
+
+    private void resize(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        Arrays.fill(slots, EMPTY);
+        for (long id : old) {
+            if (id != EMPTY) {
+                int i = index(id);
+                while (slots[i] != EMPTY) {
+                    i = (i + 1) & (capacity - 1);
+                }
+                slots[i] = id;
+            }
+        }
+    }
+
+    private int index(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (slots.length - 1);
+    }
+
+    /**
+     * The id as a long if it is a canonical decimal ("42", not "042" or "+42"), else EMPTY
+     */
+    private static long parse(String recordId) {
+        if (recordId == null || recordId.isEmpty() || recordId.length() > 18) {
+            return EMPTY;
+        }
+        int start = recordId.charAt(0) == '-' ? 1 : 0;
+        if (start == recordId.length() || (recordId.charAt(start) == '0' && recordId.length() > start + 1)
+                || (start == 1 && recordId.equals("-0"))) {
+            return EMPTY;
+        }
+        long value = 0;
+        for (int i = start; i < recordId.length(); i++) {
+            char c = recordId.charAt(i);
+            if (c < '0' || c > '9') {
+                return EMPTY;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return start == 1 ? -value : value;
+    }
+}
@@ -0,0 +1,178 @@
+package com.zen.workflow.engine;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Retry policy of a node, read from the "retry" block of its config:
+ *
+ * <pre>
+ * "retry": {
+ *   "maxAttempts": 4,              // total attempts, first one included
+ *   "delaySeconds": 10,            // delay before the first retry
+ *   "backoff": "EXPONENTIAL",      // FIXED, LINEAR or EXPONENTIAL
+ *   "multiplier": 2,
+ *   "maxDelaySeconds": 3600,
+ *   "jitter": 0.2,                 // +/- fraction of each delay
+ *   "retryOn": ["timed out", "HTTP 5\\d\\d"],   // regexes on the error; empty = any error
+ *   "abortOn": ["HTTP 4\\d\\d"]
+ * }
+ * </pre>
+ */
+@Getter
+public class RetryPolicy {
+
+    public enum Backoff { FIXED, LINEAR, EXPONENTIAL }
+
+    private final int maxAttempts;
+    private final long initialDelayMs;
+    private final Backoff backoff;
+    private final double multiplier;
+    private final long maxDelayMs;
+    private final double jitter;
+    private final List<Pattern> retryOn;
+    private final List<Pattern> abortOn;
+
+    public RetryPolicy(int maxAttempts, long initialDelayMs, Backoff backoff, double multiplier, long maxDelayMs,
+                       double jitter, List<Pattern> retryOn, List<Pattern> abortOn) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialDelayMs = Math.max(0, initialDelayMs);
+        this.backoff = backoff != null ? backoff : Backoff.EXPONENTIAL;
+        this.multiplier = multiplier > 0 ? multiplier : 2.0;
+        this.maxDelayMs = Math.max(this.initialDelayMs, maxDelayMs);
+        this.jitter = Math.min(Math.max(jitter, 0), 1);
+        this.retryOn = retryOn != null ? retryOn : List.of();
+        this.abortOn = abortOn != null ? abortOn : List.of();
+    }
+
+    /**
+     * Policy from a node config, or null if the node has no "retry" block
+     */
+    @SuppressWarnings("unchecked")
+    public static RetryPolicy from(Map<String, Object> nodeConfig) {
+        Object retry = nodeConfig != null ? nodeConfig.get("retry") : null;
+        if (!(retry instanceof Map)) {
+            return null;
+        }
+        Map<String, Object> config = (Map<String, Object>) retry;
+        if (Boolean.FALSE.equals(config.get("enabled"))) {
+            return null;
+        }
+
+        return new RetryPolicy(
+            number(config.get("maxAttempts"), 3).intValue(),
+            (long) (number(config.get("delaySeconds"), 10).doubleValue() * 1000),
+            backoff(config.get("backoff")),
+            number(config.get("multiplier"), 2).doubleValue(),
+            (long) (number(config.get("maxDelaySeconds"), 3600).doubleValue() * 1000),
+            number(config.get("jitter"), 0.2).doubleValue(),
+            patterns(config.get("retryOn")),
+            patterns(config.get("abortOn")));
+    }
+
+    /**
+     * Whether to try again after the given number of failed attempts
+     */
+    public boolean shouldRetry(int failedAttempts, String error) {
+        if (failedAttempts >= maxAttempts) {
+            return false;
+        }
+        String message = error != null ? error : "";
+        for (Pattern pattern : abortOn) {
+            if (pattern.matcher(message).find()) {
+                return false;
+            }
+        }
+        if (retryOn.isEmpty()) {
+            return true;
+        }
+        for (Pattern pattern : retryOn) {
+            if (pattern.matcher(message).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Delay before the next attempt after the given number of failed attempts
+     */
+    public long delayMs(int failedAttempts) {
+        int retry = Math.max(failedAttempts, 1);
+        double delay;
+        switch (backoff) {
+            case FIXED:
+                delay = initialDelayMs;
+                break;
+            case LINEAR:
+                delay = (double) initialDelayMs * retry;
+                break;
+            default:
+                delay = initialDelayMs * Math.pow(multiplier, retry - 1);
+        }
+        delay = Math.min(delay, maxDelayMs);
+
+        if (jitter > 0 && delay > 0) {
+            double spread = delay * jitter;
+            delay += ThreadLocalRandom.current().nextDouble(-spread, spread);
+        }
+        return Math.max(0, Math.min((long) delay, maxDelayMs));
+    }
+
+    private static Number number(Object value, Number defaultValue) {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.toString());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    private static Backoff backoff(Object value) {
+        Backoff backoff = parseBackoff(value);
+        return backoff != null ? backoff : Backoff.EXPONENTIAL;
+    }
+
+    /**
+     * Backoff named by a config value, case-insensitive, or null if missing or unknown
+     */
+    public static Backoff parseBackoff(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Backoff.valueOf(value.toString().trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static List<Pattern> patterns(Object value) {
+        List<Pattern> patterns = new ArrayList<>();
+        if (!(value instanceof List)) {
+            return patterns;
+        }
+        for (Object item : (List<?>) value) {
+            if (item == null) {
+                continue;
+            }
+            try {
+                patterns.add(Pattern.compile(item.toString(), Pattern.CASE_INSENSITIVE));
+            } catch (PatternSyntaxException e) {
+                patterns.add(Pattern.compile(Pattern.quote(item.toString()), Pattern.CASE_INSENSITIVE));
+            }
+        }
+        return patterns;
+    }
+}
@@ -0,0 +1,98 @@
+package com.zen.workflow.engine;
+
+import com.zen.entities.tenant.Workflow;
+import com.zen.workflow.config.TenantContext;
+import com.zen.workflow.model.ExecutionContext;
+import com.zen.workflow.repository.WorkflowRepository;
+import com.zen.workflow.service.WorkflowScheduleService;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Quartz job that runs one scheduled/recurring workflow.
+ * Runs on the Quartz thread, so the scheduler thread pool bounds how many
+ * scheduled workflows execute at once.
+ */
+@Slf4j
+@DisallowConcurrentExecution
+public class ScheduledWorkflowJob implements Job {
+
+    @Autowired
+    private WorkflowRepository workflowRepository;
+
+    @Autowired
+    private WorkflowExecutionEngine executionEngine;
+
+    @Autowired
+    private WorkflowScheduleService scheduleService;
+
+    @Value("${workflow.schedule.max-catch-up-minutes:60}")
+    private long maxCatchUpMinutes;
+
+    @Override
+    public void execute(JobExecutionContext jobContext) {
+        JobDataMap data = jobContext.getMergedJobDataMap();
+        String tenantId = data.getString(WorkflowScheduleService.JOB_TENANT_ID);
+        Long workflowId = data.getLong(WorkflowScheduleService.JOB_WORKFLOW_ID);
+
+        // Catch-up limit: after a long outage, don't run fires that are long stale
+        Date scheduledFireTime = jobContext.getScheduledFireTime();
+        long lateMs = System.currentTimeMillis() - scheduledFireTime.getTime();
+        if (lateMs > maxCatchUpMinutes * 60_000) {
+            log.warn("Skipping fire of workflow {} (tenant {}) scheduled at {}: {} ms late",
+                workflowId, tenantId, scheduledFireTime, lateMs);
+            return;
+        }
+
+        String previousTenant = TenantContext.getCurrentTenant();
+        TenantContext.setCurrentTenant(tenantId);
+        try {
+            Workflow workflow = workflowRepository.findById(workflowId).orElse(null);
+            if (workflow == null || !Boolean.TRUE.equals(workflow.getIsActive())) {
+                log.info("Workflow {} (tenant {}) is gone or inactive, removing its schedule", workflowId, tenantId);
+                scheduleService.unschedule(tenantId, workflowId);
+                return;
+            }
+
+            Map<String, Object> triggerData = new HashMap<>();
+            triggerData.put(WorkflowScheduleService.SCHEDULED_FIRE_TIME, format(scheduledFireTime));
+            triggerData.put("firedAt", format(jobContext.getFireTime()));
+            if (jobContext.getNextFireTime() != null) {
+                triggerData.put("nextFireTime", format(jobContext.getNextFireTime()));
+            }
+
+            ExecutionContext context = new ExecutionContext();
+            context.setWorkflowId(workflowId);
+            context.setTenantId(tenantId);
+            context.setTriggerData(triggerData);
+
+            executionEngine.executeWorkflow(workflowId, context);
+
+        } catch (Exception e) {
+            log.error("Scheduled run of workflow {} (tenant {}) failed: {}", workflowId, tenantId, e.getMessage(), e);
+        } finally {
+            if (previousTenant != null) {
+                TenantContext.setCurrentTenant(previousTenant);
+            } else {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    private String format(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())
+            .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+}
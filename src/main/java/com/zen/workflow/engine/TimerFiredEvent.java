@@ -0,0 +1,14 @@
+package com.zen.workflow.engine;
+
+import com.zen.workflow.model.WorkflowTimer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published once a durable timer has been claimed by this instance
+ */
+@Getter
+@AllArgsConstructor
+public class TimerFiredEvent {
+    private final WorkflowTimer timer;
+}
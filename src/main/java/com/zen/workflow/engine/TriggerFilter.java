@@ -0,0 +1,327 @@
+package com.zen.workflow.engine;
+
+import com.zen.workflow.model.NodeConfig;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Pre-compiled trigger filter evaluated against incoming record data before a
+ * workflow execution is started.
+ *
+ * Built once per workflow version from the trigger node config:
+ * <pre>
+ * {
+ *   "watchFields": ["status", "owner"],
+ *   "guards": [ { "field": "status", "operator": "in", "value": ["Qualified", "Won"] } ]
+ * }
+ * </pre>
+ * field_changed / status_changed / stage_changed triggers also contribute their
+ * "field" (defaulting to status / stage) to the watched fields.
+ * Equality and in-list guards compare numbers by value, so 5 matches "5" and 5.0.
+ */
+public final class TriggerFilter {
+
+    private final Integer version;
+    private final String[] watchFields;
+    private final Guard[] guards;
+
+    private TriggerFilter(Integer version, String[] watchFields, Guard[] guards) {
+        this.version = version;
+        this.watchFields = watchFields;
+        this.guards = guards;
+    }
+
+    /**
+     * Filter that lets every event through, stamped with the workflow version
+     */
+    public static TriggerFilter acceptAll(Integer version) {
+        return new TriggerFilter(version, new String[0], new Guard[0]);
+    }
+
+    /**
+     * Compile the filter from the trigger node of a compiled workflow definition
+     */
+    public static TriggerFilter compile(CompiledWorkflow workflow) {
+        NodeConfig triggerNode = workflow.getNodes().get(workflow.getStartNodeId());
+        if (triggerNode == null || !"trigger".equals(triggerNode.getType())) {
+            return acceptAll(workflow.getVersion());
+        }
+        return compile(triggerNode, workflow.getVersion());
+    }
+
+    /**
+     * Compile the filter from a trigger node
+     */
+    @SuppressWarnings("unchecked")
+    public static TriggerFilter compile(NodeConfig triggerNode, Integer version) {
+        Map<String, Object> config = triggerNode.getConfig();
+        if (config == null) {
+            config = Collections.emptyMap();
+        }
+
+        Set<String> fields = new LinkedHashSet<>();
+        Object watch = config.get("watchFields");
+        if (watch instanceof Collection) {
+            for (Object field : (Collection<?>) watch) {
+                fields.add(String.valueOf(field));
+            }
+        }
+
+        String subtype = triggerNode.getSubtype();
+        if ("field_changed".equals(subtype) || "status_changed".equals(subtype) || "stage_changed".equals(subtype)) {
+            Object field = config.get("field");
+            if (field != null) {
+                fields.add(field.toString());
+            } else if ("status_changed".equals(subtype)) {
+                fields.add("status");
+            } else if ("stage_changed".equals(subtype)) {
+                fields.add("stage");
+            }
+        }
+
+        List<Guard> guards = new ArrayList<>();
+        Object guardConfig = config.get("guards");
+        if (guardConfig instanceof Collection) {
+            for (Object guard : (Collection<?>) guardConfig) {
+                if (guard instanceof Map) {
+                    guards.add(Guard.compile((Map<String, Object>) guard));
+                }
+            }
+        }
+
+        return new TriggerFilter(version, fields.toArray(new String[0]), guards.toArray(new Guard[0]));
+    }
+
+    /**
+     * Check the record data against the watched fields and guards.
+     * Record data without change information passes the field check, so callers
+     * that do not send changedFields/previousValues keep the old behaviour.
+     */
+    public boolean matches(Map<String, Object> recordData) {
+        if (recordData == null) {
+            return watchFields.length == 0 && guards.length == 0;
+        }
+        return matchesWatchedFields(recordData) && matchesGuards(recordData);
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public boolean isAcceptAll() {
+        return watchFields.length == 0 && guards.length == 0;
+    }
+
+    private boolean matchesWatchedFields(Map<String, Object> recordData) {
+        if (watchFields.length == 0) {
+            return true;
+        }
+
+        Object changed = recordData.get("changedFields");
+        if (changed instanceof Collection) {
+            Collection<?> changedFields = (Collection<?>) changed;
+            for (String field : watchFields) {
+                if (changedFields.contains(field)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Object previous = recordData.get("previousValues");
+        if (previous instanceof Map) {
+            Map<?, ?> previousValues = (Map<?, ?>) previous;
+            for (String field : watchFields) {
+                if (previousValues.containsKey(field)
+                        && !Objects.equals(previousValues.get(field), recordData.get(field))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    private boolean matchesGuards(Map<String, Object> recordData) {
+        for (Guard guard : guards) {
+            if (!guard.test(recordData)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private enum Operator {
+        EQUALS, NOT_EQUALS, IN, NOT_IN, CONTAINS,
+        GREATER_THAN, LESS_THAN, GREATER_THAN_OR_EQUAL, LESS_THAN_OR_EQUAL,
+        IS_NULL, IS_NOT_NULL, IS_EMPTY, IS_NOT_EMPTY;
+
+        static Operator of(String operator) {
+            if (operator == null) {
+                return EQUALS;
+            }
+            switch (operator) {
+                case "==": return EQUALS;
+                case "!=": return NOT_EQUALS;
+                case ">": return GREATER_THAN;
+                case "<": return LESS_THAN;
+                case ">=": return GREATER_THAN_OR_EQUAL;
+                case "<=": return LESS_THAN_OR_EQUAL;
+                default: return Operator.valueOf(operator.toUpperCase());
+            }
+        }
+    }
+
+    /**
+     * Single guard with its operand normalised at compile time
+     */
+    private static final class Guard {
+        private final String[] path;
+        private final Operator operator;
+        private final String text;
+        private final String key;
+        private final double number;
+        private final Set<String> values;
+
+        private Guard(String[] path, Operator operator, String text, double number, Set<String> values) {
+            this.path = path;
+            this.operator = operator;
+            this.text = text;
+            this.key = canonical(text);
+            this.number = number;
+            this.values = values;
+        }
+
+        static Guard compile(Map<String, Object> config) {
+            String field = (String) config.get("field");
+            if (field == null || field.isEmpty()) {
+                throw new IllegalArgumentException("Trigger guard must specify field");
+            }
+            Operator operator = Operator.of((String) config.get("operator"));
+            Object value = config.get("value");
+
+            Set<String> values = null;
+            if (operator == Operator.IN || operator == Operator.NOT_IN) {
+                values = new HashSet<>();
+                if (value instanceof Collection) {
+                    for (Object v : (Collection<?>) value) {
+                        values.add(canonical(String.valueOf(v)));
+                    }
+                } else if (value != null) {
+                    for (String v : value.toString().split(",")) {
+                        values.add(canonical(v.trim()));
+                    }
+                }
+            }
+
+            double number = Double.NaN;
+            if (value instanceof Number) {
+                number = ((Number) value).doubleValue();
+            } else if (value != null) {
+                try {
+                    number = Double.parseDouble(value.toString());
+                } catch (NumberFormatException e) {
+                    // Not numeric - only string operators apply
+                }
+            }
+
+            return new Guard(field.split("\\."), operator, value != null ? value.toString() : null, number, values);
+        }
+
+        boolean test(Map<String, Object> recordData) {
+            Object actual = resolve(recordData);
+
+            switch (operator) {
+                case IS_NULL:
+                    return actual == null;
+                case IS_NOT_NULL:
+                    return actual != null;
+                case IS_EMPTY:
+                    return actual == null || actual.toString().isEmpty();
+                case IS_NOT_EMPTY:
+                    return actual != null && !actual.toString().isEmpty();
+                default:
+                    break;
+            }
+
+            if (actual == null) {
+                return operator == Operator.NOT_EQUALS || operator == Operator.NOT_IN;
+            }
+
+            switch (operator) {
+                case EQUALS:
+                    return canonical(actual).equals(key);
+                case NOT_EQUALS:
+                    return !canonical(actual).equals(key);
+                case IN:
+                    return values.contains(canonical(actual));
+                case NOT_IN:
+                    return !values.contains(canonical(actual));
+                case CONTAINS:
+                    return text != null && actual.toString().contains(text);
+                case GREATER_THAN:
+                    return compare(actual) > 0;
+                case LESS_THAN:
+                    return compare(actual) < 0;
+                case GREATER_THAN_OR_EQUAL:
+                    return compare(actual) >= 0;
+                case LESS_THAN_OR_EQUAL:
+                    return compare(actual) <= 0;
+                default:
+                    return false;
+            }
+        }
+
+        private Object resolve(Map<String, Object> recordData) {
+            Object current = recordData;
+            for (String part : path) {
+                if (!(current instanceof Map)) {
+                    return null;
+                }
+                current = ((Map<?, ?>) current).get(part);
+            }
+            return current;
+        }
+
+        private int compare(Object actual) {
+            double value;
+            if (actual instanceof Number) {
+                value = ((Number) actual).doubleValue();
+            } else {
+                try {
+                    value = Double.parseDouble(actual.toString());
+                } catch (NumberFormatException e) {
+                    return text != null ? actual.toString().compareTo(text) : 0;
+                }
+            }
+            if (Double.isNaN(number)) {
+                return text != null ? actual.toString().compareTo(text) : 0;
+            }
+            return Double.compare(value, number);
+        }
+
+        /**
+         * Equality key: numbers (and numeric strings) by value, everything else as text
+         */
+        private static String canonical(Object value) {
+            if (value == null) {
+                return null;
+            }
+            BigDecimal number = toNumber(value.toString().trim());
+            return number != null ? "n:" + number.stripTrailingZeros().toPlainString() : "s:" + value;
+        }
+
+        private static BigDecimal toNumber(String text) {
+            if (text.isEmpty() || !Character.isDigit(text.charAt(text.length() - 1))) {
+                return null;
+            }
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
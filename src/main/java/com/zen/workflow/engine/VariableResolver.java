@@ -33,6 +33,22 @@ public class VariableResolver {
         return result.toString();
     }
 
+    /**
+     * Resolve a value that may be a single placeholder: "{{items}}" returns the variable
+     * itself (a list stays a list), anything else is resolved as a string template
+     */
+    public Object resolveValue(Object value, ExecutionContext context) {
+        if (!(value instanceof String)) {
+            return value;
+        }
+        String template = ((String) value).trim();
+        Matcher matcher = VARIABLE_PATTERN.matcher(template);
+        if (matcher.matches()) {
+            return resolveVariablePath(matcher.group(1).trim(), context);
+        }
+        return resolve((String) value, context);
+    }
+
     /**
      * Resolve a variable path like "user.name" or "lead.email"
      */
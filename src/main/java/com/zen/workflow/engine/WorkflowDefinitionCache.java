@@ -0,0 +1,84 @@
+package com.zen.workflow.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zen.entities.tenant.Workflow;
+import com.zen.workflow.repository.WorkflowRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of compiled workflow definitions, keyed by tenant and workflow id.
+ * An entry is recompiled when the stored workflow version changes.
+ */
+@Slf4j
+@Component
+public class WorkflowDefinitionCache {
+
+    @Autowired
+    private WorkflowRepository workflowRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, CompiledWorkflow> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * Get the compiled definition for a workflow, compiling it if missing or stale.
+     * A cached definition is checked against the stored version only; the workflow
+     * itself (and its config JSON) is loaded just to compile it.
+     */
+    public CompiledWorkflow get(String tenantId, Long workflowId) {
+        CompiledWorkflow cached = compiled.get(tenantId + ":" + workflowId);
+        if (cached != null) {
+            Integer version = workflowRepository.findVersionById(workflowId)
+                .orElseThrow(() -> new RuntimeException("Workflow not found: " + workflowId));
+            if (Objects.equals(cached.getVersion(), version)) {
+                return cached;
+            }
+        }
+
+        Workflow workflow = workflowRepository.findById(workflowId)
+            .orElseThrow(() -> new RuntimeException("Workflow not found: " + workflowId));
+        return get(tenantId, workflow);
+    }
+
+    /**
+     * Get the compiled definition for an already loaded workflow
+     */
+    @SuppressWarnings("unchecked")
+    public CompiledWorkflow get(String tenantId, Workflow workflow) {
+        String key = tenantId + ":" + workflow.getId();
+        CompiledWorkflow cached = compiled.get(key);
+        if (cached != null && Objects.equals(cached.getVersion(), workflow.getVersion())) {
+            return cached;
+        }
+
+        Map<String, Object> config;
+        try {
+            config = workflow.getWorkflowConfig() != null
+                ? objectMapper.readValue(workflow.getWorkflowConfig(), Map.class)
+                : null;
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid workflow config for workflow " + workflow.getId(), e);
+        }
+
+        CompiledWorkflow result = CompiledWorkflow.compile(workflow.getId(), workflow.getVersion(),
+            workflow.getModuleType(), workflow.getTriggerType(), config);
+        compiled.put(key, result);
+
+        log.info("Compiled workflow {} v{} ({} nodes)", workflow.getId(), workflow.getVersion(), result.getNodes().size());
+        return result;
+    }
+
+    /**
+     * Drop a cached definition, e.g. after the workflow was deleted
+     */
+    public void evict(String tenantId, Long workflowId) {
+        compiled.remove(tenantId + ":" + workflowId);
+    }
+}
@@ -1,29 +1,672 @@
 package com.zen.workflow.engine;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zen.entities.tenant.WorkflowExecution;
+import com.zen.entities.tenant.WorkflowExecutionLog;
+import com.zen.workflow.config.TenantContext;
+import com.zen.workflow.handler.NodeHandlerFactory;
 import com.zen.workflow.model.ExecutionContext;
 import com.zen.workflow.model.ExecutionResult;
 import com.zen.workflow.model.NodeConfig;
+import com.zen.workflow.model.WorkflowApproval;
+import com.zen.workflow.model.WorkflowTimer;
+import com.zen.workflow.repository.WorkflowExecutionLogRepository;
+import com.zen.workflow.repository.WorkflowExecutionRepository;
+import com.zen.workflow.service.EventCorrelationService;
+import com.zen.workflow.service.WorkflowTimerService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * Core workflow execution engine
+ * Core workflow execution engine.
+ *
+ * Walks the node graph from the trigger node, following each node's connections.
+ * When a handler pauses (delay, wait for event, approval) the context is checkpointed
+ * into the execution row and, if the handler returned resumeAt/timeoutAt, a durable
+ * timer is scheduled; event waits are also registered for correlation.
+ * {@link #resumeExecution} continues from the paused node's successor.
+ *
+ * A failed node with a retry policy is not failed at once: the execution is paused
+ * and a RETRY timer re-runs the same node after the policy's backoff delay.
+ *
+ * {@link #executeSubflow} runs another workflow in-process as a child execution. A
+ * child that pauses during a synchronous call pauses its parent too, and resumes the
+ * parent with the mapped outputs when it completes (or on "error" when it fails).
  */
 @Slf4j
 @Component
 public class WorkflowExecutionEngine {
-    
+
+    public static final String CURRENT_NODE_ID = "currentNodeId";
+    public static final String WORKFLOW_VERSION = "workflowVersion";
+    public static final String BRANCH_TIMEOUT = "timeout";
+    public static final String RETRY_ATTEMPTS = "retryAttempts";
+    public static final String BRANCH_ERROR = "error";
+    public static final String CALL_DEPTH = "callDepth";
+    public static final String PARENT_EXECUTION_ID = "parentExecutionId";
+    public static final String PARENT_NODE_ID = "parentNodeId";
+    public static final String RETURN_MAPPING = "returnMapping";
+
+    private static final String SUSPENDED = "suspended";
+
+    private static final int MAX_STEPS = 500;
+
+    @Autowired
+    @Lazy
+    private NodeHandlerFactory handlerFactory;
+
+    @Autowired
+    private WorkflowDefinitionCache definitionCache;
+
+    @Autowired
+    private WorkflowExecutionRepository executionRepository;
+
+    @Autowired
+    private WorkflowExecutionLogRepository logRepository;
+
+    @Autowired
+    private WorkflowTimerService timerService;
+
+    @Autowired
+    private EventCorrelationService eventCorrelationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("workflowExecutor")
+    private Executor workflowExecutor;
+
+    @Value("${workflow.subflow.max-depth:10}")
+    private int maxCallDepth;
+
+    @Value("${workflow.approval.resume-wait-ms:30000}")
+    private long approvalResumeWaitMs;
+
     public ExecutionResult executeNode(NodeConfig node, ExecutionContext context) {
         log.info("Executing node: {} ({})", node.getId(), node.getType());
-        
-        // Node execution logic will be implemented here
-        return ExecutionResult.success();
+        return handlerFactory.getHandler(node).execute(node, context);
     }
-    
+
     public ExecutionResult executeWorkflow(Long workflowId, ExecutionContext context) {
         log.info("Executing workflow: {}", workflowId);
-        
-        // Workflow execution logic will be implemented here
-        return ExecutionResult.success();
+
+        String previousTenant = TenantContext.getCurrentTenant();
+        if (context.getTenantId() != null) {
+            TenantContext.setCurrentTenant(context.getTenantId());
+        }
+        try {
+            CompiledWorkflow workflow = definitionCache.get(context.getTenantId(), workflowId);
+            if (workflow.getStartNodeId() == null) {
+                return ExecutionResult.failed("Workflow has no nodes: " + workflowId);
+            }
+
+            WorkflowExecution execution = new WorkflowExecution();
+            execution.setWorkflowId(workflowId);
+            execution.setExecutionKey(UUID.randomUUID().toString());
+            execution.setTriggerType(workflow.getTriggerType());
+            execution.setEntityType(workflow.getModuleType());
+            execution.setEntityId(resolveEntityId(context.getTriggerData()));
+            execution.setStatus("RUNNING");
+            execution.setStartedAt(LocalDateTime.now());
+            execution.setContextData("{}");
+            execution = executionRepository.save(execution);
+
+            context.setWorkflowId(workflowId);
+            context.setExecutionId(execution.getId());
+            logExecution(execution.getId(), "INFO", "Workflow execution started");
+
+            return run(workflow, execution, workflow.getStartNodeId(), context);
+        } finally {
+            restoreTenant(previousTenant);
+        }
+    }
+
+    /**
+     * Run another workflow as a child of the current execution, in-process on the
+     * caller's thread, with its compiled definition from the shared cache.
+     *
+     * @param input         variables the child starts with, also its trigger data
+     * @param returnMapping parent variable -> child variable; when given and the child
+     *                      pauses, the parent is resumed with these values once the child finishes
+     */
+    public ExecutionResult executeSubflow(Long workflowId, ExecutionContext parent, Map<String, Object> input,
+                                          Map<String, Object> returnMapping) {
+        int depth = callDepth(parent) + 1;
+        if (depth > maxCallDepth) {
+            return ExecutionResult.failed("Subflow call depth " + depth + " exceeds the limit of " + maxCallDepth
+                + " at workflow " + workflowId);
+        }
+
+        ExecutionContext child = new ExecutionContext();
+        child.setTenantId(parent.getTenantId());
+        child.setTriggerData(new HashMap<>(input));
+        child.getVariables().putAll(input);
+        child.getMetadata().put(CALL_DEPTH, depth);
+        child.getMetadata().put(PARENT_EXECUTION_ID, parent.getExecutionId());
+        if (returnMapping != null) {
+            child.getMetadata().put(PARENT_NODE_ID, parent.getMetadata().get(CURRENT_NODE_ID));
+            child.getMetadata().put(RETURN_MAPPING, returnMapping);
+        }
+
+        ExecutionResult result = executeWorkflow(workflowId, child);
+        if (child.getExecutionId() != null && !result.getOutput().containsKey("executionId")) {
+            Map<String, Object> output = new HashMap<>(result.getOutput());
+            output.put("executionId", child.getExecutionId());
+            result.setOutput(output);
+        }
+        return result;
+    }
+
+    /**
+     * Child variables picked out by a parent variable -> child variable mapping
+     */
+    public static Map<String, Object> mapOutputs(Map<String, Object> childVariables, Map<String, Object> mapping) {
+        Map<String, Object> mapped = new HashMap<>();
+        if (mapping == null || childVariables == null) {
+            return mapped;
+        }
+        for (Map.Entry<String, Object> entry : mapping.entrySet()) {
+            if (entry.getValue() != null) {
+                mapped.put(entry.getKey(), childVariables.get(entry.getValue().toString()));
+            }
+        }
+        return mapped;
+    }
+
+    /**
+     * Continue a paused execution after the node it paused at.
+     *
+     * @param branch     connection to follow from the paused node ("next", "timeout", ...)
+     * @param resumeData values merged into the context variables before continuing
+     */
+    public ExecutionResult resumeExecution(String tenantId, Long executionId, String pausedNodeId,
+                                           String branch, Map<String, Object> resumeData) {
+        return continueExecution(tenantId, executionId, pausedNodeId, branch, resumeData, false, false, false);
+    }
+
+    /**
+     * Run the node a paused execution stopped at again, e.g. after a retry delay
+     */
+    public ExecutionResult retryNode(String tenantId, Long executionId, String nodeId) {
+        return continueExecution(tenantId, executionId, nodeId, null, null, true, false, false);
+    }
+
+    /**
+     * Retry a failed execution from the node that failed, with the context it had
+     * at that point. Nodes that already completed are not run again.
+     */
+    public ExecutionResult retryFailedExecution(String tenantId, Long executionId) {
+        String previousTenant = TenantContext.getCurrentTenant();
+        if (tenantId != null) {
+            TenantContext.setCurrentTenant(tenantId);
+        }
+        try {
+            WorkflowExecution execution = executionRepository.findById(executionId)
+                .orElseThrow(() -> new RuntimeException("Execution not found: " + executionId));
+            ExecutionContext context = objectMapper.readValue(execution.getContextData(), ExecutionContext.class);
+            String failedNodeId = (String) context.getMetadata().get(CURRENT_NODE_ID);
+            if (failedNodeId == null) {
+                return ExecutionResult.failed("Execution " + executionId + " has no checkpoint to retry from");
+            }
+
+            if (executionRepository.markRetrying(executionId) == 0) {
+                log.info("Execution {} is not failed any more, skipping retry", executionId);
+                return ExecutionResult.failed("Execution is not failed: " + executionId);
+            }
+            execution.setStatus("RUNNING");
+            execution.setErrorMessage(null);
+            execution.setCompletedAt(null);
+
+            context.setTenantId(tenantId);
+            context.setExecutionId(executionId);
+            clearFailures(context, failedNodeId);
+
+            CompiledWorkflow workflow = definitionCache.get(tenantId, execution.getWorkflowId());
+            logExecution(executionId, "INFO", "Retrying failed execution from node " + failedNodeId);
+            return run(workflow, execution, failedNodeId, context);
+
+        } catch (Exception e) {
+            log.error("Failed to retry execution {}: {}", executionId, e.getMessage(), e);
+            return ExecutionResult.failed(e.getMessage());
+        } finally {
+            restoreTenant(previousTenant);
+        }
+    }
+
+    /**
+     * @param awaitPause    wait for an execution that is still RUNNING to be saved as PAUSED,
+     *                      for resumes that can arrive before the pausing node has returned
+     * @param requireBranch fail the execution instead of falling back to "next" when the
+     *                      paused node has no connection for the branch
+     */
+    private ExecutionResult continueExecution(String tenantId, Long executionId, String pausedNodeId, String branch,
+                                              Map<String, Object> resumeData, boolean rerunNode, boolean awaitPause,
+                                              boolean requireBranch) {
+        String previousTenant = TenantContext.getCurrentTenant();
+        if (tenantId != null) {
+            TenantContext.setCurrentTenant(tenantId);
+        }
+        try {
+            if (executionRepository.markResumed(executionId) == 0
+                    && !(awaitPause && markResumedOncePaused(executionId))) {
+                log.info("Execution {} is not paused any more, skipping resume", executionId);
+                return ExecutionResult.failed("Execution is not paused: " + executionId);
+            }
+
+            WorkflowExecution execution = executionRepository.findById(executionId)
+                .orElseThrow(() -> new RuntimeException("Execution not found: " + executionId));
+            ExecutionContext context = objectMapper.readValue(execution.getContextData(), ExecutionContext.class);
+            context.setTenantId(tenantId);
+            context.setExecutionId(executionId);
+            if (resumeData != null) {
+                context.getVariables().putAll(resumeData);
+            }
+
+            CompiledWorkflow workflow = definitionCache.get(tenantId, execution.getWorkflowId());
+            String pausedAt = pausedNodeId != null ? pausedNodeId : (String) context.getMetadata().get(CURRENT_NODE_ID);
+
+            if (rerunNode) {
+                logExecution(executionId, "INFO", "Retrying node " + pausedAt);
+                return run(workflow, execution, pausedAt, context);
+            }
+
+            if (requireBranch && !workflow.hasConnection(pausedAt, branch)) {
+                return fail(execution, context, "Node " + pausedAt + " has no \"" + branch + "\" connection to resume on");
+            }
+            logExecution(executionId, "INFO", "Workflow execution resumed after node " + pausedAt);
+            String nextNodeId = workflow.nextNodeId(pausedAt, branch);
+            if (nextNodeId == null) {
+                return complete(execution, context);
+            }
+            return run(workflow, execution, nextNodeId, context);
+
+        } catch (Exception e) {
+            log.error("Failed to resume execution {}: {}", executionId, e.getMessage(), e);
+            return ExecutionResult.failed(e.getMessage());
+        } finally {
+            restoreTenant(previousTenant);
+        }
+    }
+
+    /**
+     * Retry markResumed while the execution is still RUNNING, backing off up to the
+     * configured wait. An approval is visible to approvers as soon as its node creates
+     * it, so the deciding vote can commit before the execution has been saved as PAUSED.
+     *
+     * @return true once this caller moved the execution from PAUSED to RUNNING
+     */
+    private boolean markResumedOncePaused(Long executionId) {
+        long deadline = System.currentTimeMillis() + approvalResumeWaitMs;
+        long backoffMs = 50;
+        while ("RUNNING".equals(executionRepository.findStatusById(executionId))
+                && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (executionRepository.markResumed(executionId) == 1) {
+                return true;
+            }
+            backoffMs = Math.min(backoffMs * 2, 1000);
+        }
+        return false;
+    }
+
+    /**
+     * Resume executions whose durable timer fired
+     */
+    @EventListener
+    public void onTimerFired(TimerFiredEvent event) {
+        WorkflowTimer timer = event.getTimer();
+        Map<String, Object> resumeData = new HashMap<>(timer.getPayload());
+
+        if (WorkflowTimer.TYPE_RETRY.equals(timer.getTimerType())) {
+            retryNode(timer.getTenantId(), timer.getExecutionId(), timer.getNodeId());
+        } else if (WorkflowTimer.TYPE_EVENT_TIMEOUT.equals(timer.getTimerType())) {
+            eventCorrelationService.cancelForExecution(timer.getTenantId(), timer.getExecutionId());
+            resumeData.put("eventTimedOut", true);
+            resumeExecution(timer.getTenantId(), timer.getExecutionId(), timer.getNodeId(), BRANCH_TIMEOUT, resumeData);
+        } else {
+            resumeData.put("resumedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            resumeExecution(timer.getTenantId(), timer.getExecutionId(), timer.getNodeId(), CompiledWorkflow.NEXT, resumeData);
+        }
+    }
+
+    /**
+     * Resume the execution paused at an approval node once the approval is decided.
+     * An approved approval follows "approved" when the node has it, else "next". A
+     * rejected or expired one follows "rejected" or "timeout"; without that connection
+     * the execution fails rather than carrying on as if the approval had gone through.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onApprovalDecided(ApprovalDecidedEvent event) {
+        boolean approved = WorkflowApproval.STATUS_APPROVED.equals(event.getStatus());
+        Map<String, Object> resumeData = new HashMap<>();
+        resumeData.put("approvalId", event.getApprovalId());
+        resumeData.put("approvalStatus", event.getStatus());
+        resumeData.put("approved", approved);
+
+        boolean expired = WorkflowApproval.STATUS_EXPIRED.equals(event.getStatus());
+        String branch = expired ? BRANCH_TIMEOUT : event.getStatus().toLowerCase();
+        Runnable resume = () -> continueExecution(event.getTenantId(), event.getExecutionId(), event.getNodeId(),
+            branch, resumeData, false, true, !approved);
+        try {
+            // Off the approver's request thread, and outside the committed transaction
+            workflowExecutor.execute(resume);
+        } catch (RejectedExecutionException e) {
+            resume.run();
+        }
+    }
+
+    private ExecutionResult run(CompiledWorkflow workflow, WorkflowExecution execution, String startNodeId,
+                                ExecutionContext context) {
+        String nodeId = startNodeId;
+        int steps = 0;
+        context.getMetadata().put(WORKFLOW_VERSION, workflow.getVersion());
+
+        while (nodeId != null) {
+            if (++steps > MAX_STEPS) {
+                return fail(execution, context, "Execution exceeded " + MAX_STEPS + " steps, possible cycle at node " + nodeId);
+            }
+
+            NodeConfig node = workflow.getNode(nodeId);
+            if (node == null) {
+                return fail(execution, context, "Node not found: " + nodeId);
+            }
+            context.getMetadata().put(CURRENT_NODE_ID, nodeId);
+
+            ExecutionResult result;
+            try {
+                result = executeNode(node, context);
+            } catch (Exception e) {
+                log.error("Node {} threw: {}", nodeId, e.getMessage(), e);
+                result = ExecutionResult.failed(e.getMessage());
+            }
+            recordNode(context, node, result);
+
+            if (!result.isSuccess()) {
+                int failedAttempts = countFailure(context, nodeId);
+                RetryPolicy retryPolicy = workflow.getRetryPolicy(nodeId);
+                if (retryPolicy != null && retryPolicy.shouldRetry(failedAttempts, result.getErrorMessage())) {
+                    return scheduleRetry(execution, nodeId, context, retryPolicy.delayMs(failedAttempts),
+                        failedAttempts, result.getErrorMessage());
+                }
+                return fail(execution, context, "Node " + nodeId + " failed: " + result.getErrorMessage());
+            }
+            clearFailures(context, nodeId);
+            if (result.isPaused()) {
+                return pause(execution, nodeId, context, result);
+            }
+
+            nodeId = workflow.nextNodeId(nodeId, resolveBranch(result));
+        }
+
+        return complete(execution, context);
+    }
+
+    private ExecutionResult pause(WorkflowExecution execution, String nodeId, ExecutionContext context,
+                                  ExecutionResult result) {
+        markSuspended(context);
+        execution.setStatus("PAUSED");
+        execution.setContextData(writeContext(context));
+        executionRepository.save(execution);
+
+        Map<String, Object> output = result.getOutput();
+        LocalDateTime resumeAt = parseDateTime(output.get("resumeAt"));
+        if (resumeAt != null) {
+            timerService.schedule(context.getTenantId(), execution.getId(), nodeId, WorkflowTimer.TYPE_DELAY, resumeAt, null);
+        }
+        if (Boolean.TRUE.equals(output.get("waiting")) && output.get("eventType") != null) {
+            Object correlationKey = output.get("correlationKey");
+            if (correlationKey != null) {
+                eventCorrelationService.subscribe(context.getTenantId(), execution.getId(), nodeId,
+                    output.get("eventType").toString(), correlationKey.toString());
+            } else {
+                log.warn("Execution {} waits for {} without a correlation key; only its timeout can resume it",
+                    execution.getId(), output.get("eventType"));
+            }
+        }
+        LocalDateTime timeoutAt = parseDateTime(output.get("timeoutAt"));
+        if (timeoutAt != null) {
+            timerService.schedule(context.getTenantId(), execution.getId(), nodeId, WorkflowTimer.TYPE_EVENT_TIMEOUT, timeoutAt, null);
+        }
+
+        logExecution(execution.getId(), "INFO", "Workflow execution paused at node " + nodeId + ": " + output.get("reason"));
+
+        Map<String, Object> response = new HashMap<>(output);
+        response.put("executionId", execution.getId());
+        response.put("pausedAt", nodeId);
+        result.setOutput(response);
+        return result;
+    }
+
+    /**
+     * Pause the execution and re-run the failed node from a durable timer
+     */
+    private ExecutionResult scheduleRetry(WorkflowExecution execution, String nodeId, ExecutionContext context,
+                                          long delayMs, int failedAttempts, String error) {
+        markSuspended(context);
+        execution.setStatus("PAUSED");
+        execution.setErrorMessage(error);
+        execution.setContextData(writeContext(context));
+        executionRepository.save(execution);
+
+        LocalDateTime retryAt = LocalDateTime.now().plusNanos(delayMs * 1_000_000);
+        timerService.schedule(context.getTenantId(), execution.getId(), nodeId, WorkflowTimer.TYPE_RETRY, retryAt,
+            Map.of("attempt", failedAttempts + 1));
+
+        logExecution(execution.getId(), "WARN", "Node " + nodeId + " failed (attempt " + failedAttempts + "), retrying in "
+            + delayMs + " ms: " + error);
+
+        Map<String, Object> output = new HashMap<>();
+        output.put("executionId", execution.getId());
+        output.put("pausedAt", nodeId);
+        output.put("retryAt", retryAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        output.put("attempt", failedAttempts + 1);
+        output.put("lastError", error);
+        return ExecutionResult.paused("Retrying node " + nodeId, output);
+    }
+
+    private ExecutionResult complete(WorkflowExecution execution, ExecutionContext context) {
+        execution.setStatus("COMPLETED");
+        execution.setErrorMessage(null);
+        execution.setCompletedAt(LocalDateTime.now());
+        execution.setDurationMs(Duration.between(execution.getStartedAt(), execution.getCompletedAt()).toMillis());
+        execution.setContextData(writeContext(context));
+        executionRepository.save(execution);
+
+        logExecution(execution.getId(), "INFO", "Workflow execution completed successfully");
+        returnToParent(context, CompiledWorkflow.NEXT, "COMPLETED");
+
+        Map<String, Object> output = new HashMap<>();
+        output.put("executionId", execution.getId());
+        output.put("executedNodes", context.getExecutedNodes().size());
+        output.put("variables", context.getVariables());
+        return ExecutionResult.success(output);
+    }
+
+    private ExecutionResult fail(WorkflowExecution execution, ExecutionContext context, String errorMessage) {
+        log.error("Execution {} failed: {}", execution.getId(), errorMessage);
+        execution.setStatus("FAILED");
+        // Checkpoint so a retry can continue from the failed node
+        execution.setContextData(writeContext(context));
+        execution.setErrorMessage(errorMessage);
+        execution.setCompletedAt(LocalDateTime.now());
+        execution.setDurationMs(Duration.between(execution.getStartedAt(), execution.getCompletedAt()).toMillis());
+        executionRepository.save(execution);
+
+        logExecution(execution.getId(), "ERROR", "Workflow execution failed: " + errorMessage);
+        returnToParent(context, BRANCH_ERROR, "FAILED");
+        return ExecutionResult.failed(errorMessage);
+    }
+
+    /**
+     * A child called synchronously that paused has left its parent paused as well
+     */
+    private void markSuspended(ExecutionContext context) {
+        if (context.getMetadata().get(PARENT_NODE_ID) != null) {
+            context.getMetadata().put(SUSPENDED, true);
+        }
+    }
+
+    /**
+     * Resume the parent of a suspended child once the child has finished
+     */
+    @SuppressWarnings("unchecked")
+    private void returnToParent(ExecutionContext context, String branch, String status) {
+        Map<String, Object> metadata = context.getMetadata();
+        Object parentNodeId = metadata.get(PARENT_NODE_ID);
+        if (!Boolean.TRUE.equals(metadata.get(SUSPENDED)) || parentNodeId == null
+                || !(metadata.get(PARENT_EXECUTION_ID) instanceof Number)) {
+            return;
+        }
+        Long parentExecutionId = ((Number) metadata.get(PARENT_EXECUTION_ID)).longValue();
+
+        Map<String, Object> resumeData = mapOutputs(context.getVariables(), (Map<String, Object>) metadata.get(RETURN_MAPPING));
+        resumeData.put("subflowExecutionId", context.getExecutionId());
+        resumeData.put("subflowStatus", status);
+
+        String tenantId = context.getTenantId();
+        Runnable resume = () -> resumeExecution(tenantId, parentExecutionId, parentNodeId.toString(), branch, resumeData);
+        try {
+            workflowExecutor.execute(resume);
+        } catch (RejectedExecutionException e) {
+            resume.run();
+        }
+    }
+
+    private int callDepth(ExecutionContext context) {
+        Object depth = context.getMetadata().get(CALL_DEPTH);
+        return depth instanceof Number ? ((Number) depth).intValue() : 0;
+    }
+
+    /**
+     * Branch to follow after a node: explicit "branch" output, else a condition result, else "next"
+     */
+    private String resolveBranch(ExecutionResult result) {
+        Map<String, Object> output = result.getOutput();
+        if (output == null) {
+            return CompiledWorkflow.NEXT;
+        }
+        Object branch = output.get("branch");
+        if (branch != null) {
+            return branch.toString();
+        }
+        Object conditionResult = output.get("conditionResult");
+        if (conditionResult instanceof Boolean) {
+            return conditionResult.toString();
+        }
+        return CompiledWorkflow.NEXT;
+    }
+
+    /**
+     * Failed attempts of a node in this execution, including the one just recorded
+     */
+    @SuppressWarnings("unchecked")
+    private int countFailure(ExecutionContext context, String nodeId) {
+        Map<String, Object> attempts = (Map<String, Object>) context.getMetadata()
+            .computeIfAbsent(RETRY_ATTEMPTS, k -> new HashMap<String, Object>());
+        Object previous = attempts.get(nodeId);
+        int failed = (previous instanceof Number ? ((Number) previous).intValue() : 0) + 1;
+        attempts.put(nodeId, failed);
+        return failed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void clearFailures(ExecutionContext context, String nodeId) {
+        Object attempts = context.getMetadata().get(RETRY_ATTEMPTS);
+        if (attempts instanceof Map) {
+            ((Map<String, Object>) attempts).remove(nodeId);
+        }
+    }
+
+    private void recordNode(ExecutionContext context, NodeConfig node, ExecutionResult result) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("nodeId", node.getId());
+        entry.put("type", node.getType());
+        entry.put("subtype", node.getSubtype());
+        entry.put("status", result.getStatus());
+        entry.put("executedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        if (result.getErrorMessage() != null) {
+            entry.put("error", result.getErrorMessage());
+        }
+        context.getExecutedNodes().add(entry);
+    }
+
+    private Long resolveEntityId(Map<String, Object> triggerData) {
+        if (triggerData == null) {
+            return null;
+        }
+        Object id = triggerData.get("recordId");
+        if (id == null) {
+            id = triggerData.get("id");
+        }
+        if (id instanceof Number) {
+            return ((Number) id).longValue();
+        }
+        if (id != null) {
+            try {
+                return Long.parseLong(id.toString());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private LocalDateTime parseDateTime(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value.toString(), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        } catch (Exception e) {
+            log.warn("Ignoring unparseable timer date: {}", value);
+            return null;
+        }
+    }
+
+    private String writeContext(ExecutionContext context) {
+        try {
+            return objectMapper.writeValueAsString(context);
+        } catch (Exception e) {
+            log.error("Failed to serialize execution context: {}", e.getMessage());
+            return "{}";
+        }
+    }
+
+    private void logExecution(Long executionId, String level, String message) {
+        WorkflowExecutionLog entry = new WorkflowExecutionLog();
+        entry.setExecutionId(executionId);
+        entry.setLogLevel(level);
+        entry.setMessage(message);
+        entry.setCreatedAt(LocalDateTime.now());
+        logRepository.save(entry);
+    }
+
+    private void restoreTenant(String previousTenant) {
+        if (previousTenant != null) {
+            TenantContext.setCurrentTenant(previousTenant);
+        } else {
+            TenantContext.clear();
+        }
     }
 }
@@ -1,6 +1,7 @@
 package com.zen.workflow.handler;
 
 import com.zen.workflow.engine.VariableResolver;
+import com.zen.workflow.engine.WorkflowExecutionEngine;
 import com.zen.workflow.model.ExecutionContext;
 import com.zen.workflow.model.ExecutionResult;
 import com.zen.workflow.model.NodeConfig;
@@ -8,6 +9,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -87,7 +90,10 @@ public class ApprovalHandler implements NodeHandler {
     }
     
     private ExecutionResult handleSingleApproval(Map<String, Object> nodeConfig, ExecutionContext context) {
-        List<Long> approverIds = (List<Long>) nodeConfig.get("approvers");
+        List<Long> approverIds = toUserIds(nodeConfig.get("approvers"));
+        if (approverIds.isEmpty()) {
+            return ExecutionResult.failed("Approval step has no approvers");
+        }
         String title = variableResolver.resolve((String) nodeConfig.get("title"), context);
         String message = variableResolver.resolve((String) nodeConfig.get("message"), context);
         Map<String, Object> requestData = (Map<String, Object>) nodeConfig.get("requestData");
@@ -101,12 +107,14 @@ public class ApprovalHandler implements NodeHandler {
         // Create approval request
         Map<String, Object> approval = approvalService.createApprovalRequest(
             context.getExecutionId(),
-            nodeConfig.get("nodeId").toString(),
+            nodeId(nodeConfig, context),
             approverIds,
             "SINGLE",
             requestData
         );
         
+        approvalService.configureDeadlines((Long) approval.get("id"), nodeConfig);
+        
         // Send notifications
         approvalService.sendApprovalNotifications(
             (Long) approval.get("id"),
@@ -131,7 +139,10 @@ public class ApprovalHandler implements NodeHandler {
     }
     
     private ExecutionResult handleMultiStepApproval(Map<String, Object> nodeConfig, ExecutionContext context) {
-        List<List<Long>> approvalSteps = (List<List<Long>>) nodeConfig.get("steps");
+        List<List<Long>> approvalSteps = toSteps(nodeConfig.get("steps"));
+        if (approvalSteps.isEmpty() || approvalSteps.stream().anyMatch(List::isEmpty)) {
+            return ExecutionResult.failed("Multi-step approval needs approvers on every step");
+        }
         String title = variableResolver.resolve((String) nodeConfig.get("title"), context);
         String message = variableResolver.resolve((String) nodeConfig.get("message"), context);
         Map<String, Object> requestData = (Map<String, Object>) nodeConfig.get("requestData");
@@ -145,11 +156,13 @@ public class ApprovalHandler implements NodeHandler {
         // Create multi-step approval
         Map<String, Object> approval = approvalService.createMultiStepApproval(
             context.getExecutionId(),
-            nodeConfig.get("nodeId").toString(),
+            nodeId(nodeConfig, context),
             approvalSteps,
             requestData
         );
         
+        approvalService.configureDeadlines((Long) approval.get("id"), nodeConfig);
+        
         // Send notifications to first step approvers
         approvalService.sendApprovalNotifications(
             (Long) approval.get("id"),
@@ -172,8 +185,12 @@ public class ApprovalHandler implements NodeHandler {
     }
     
     private ExecutionResult handleParallelApproval(Map<String, Object> nodeConfig, ExecutionContext context) {
-        List<Long> approverIds = (List<Long>) nodeConfig.get("approvers");
-        Integer requiredApprovals = (Integer) nodeConfig.getOrDefault("requiredApprovals", approverIds.size());
+        List<Long> approverIds = toUserIds(nodeConfig.get("approvers"));
+        if (approverIds.isEmpty()) {
+            return ExecutionResult.failed("Parallel approval has no approvers");
+        }
+        Object required = nodeConfig.get("requiredApprovals");
+        Integer requiredApprovals = required instanceof Number ? ((Number) required).intValue() : approverIds.size();
         String title = variableResolver.resolve((String) nodeConfig.get("title"), context);
         String message = variableResolver.resolve((String) nodeConfig.get("message"), context);
         Map<String, Object> requestData = (Map<String, Object>) nodeConfig.get("requestData");
@@ -188,12 +205,14 @@ public class ApprovalHandler implements NodeHandler {
         // Create parallel approval
         Map<String, Object> approval = approvalService.createParallelApproval(
             context.getExecutionId(),
-            nodeConfig.get("nodeId").toString(),
+            nodeId(nodeConfig, context),
             approverIds,
             requiredApprovals,
             requestData
         );
         
+        approvalService.configureDeadlines((Long) approval.get("id"), nodeConfig);
+        
         // Send notifications to all approvers
         approvalService.sendApprovalNotifications(
             (Long) approval.get("id"),
@@ -216,7 +235,10 @@ public class ApprovalHandler implements NodeHandler {
     }
     
     private ExecutionResult handleReviewProcess(Map<String, Object> nodeConfig, ExecutionContext context) {
-        List<Long> reviewers = (List<Long>) nodeConfig.get("reviewers");
+        List<Long> reviewers = toUserIds(nodeConfig.get("reviewers"));
+        if (reviewers.isEmpty()) {
+            return ExecutionResult.failed("Review process has no reviewers");
+        }
         String title = variableResolver.resolve((String) nodeConfig.get("title"), context);
         String message = variableResolver.resolve((String) nodeConfig.get("message"), context);
         Map<String, Object> reviewData = (Map<String, Object>) nodeConfig.get("reviewData");
@@ -230,12 +252,14 @@ public class ApprovalHandler implements NodeHandler {
         // Create review request (similar to approval)
         Map<String, Object> review = approvalService.createApprovalRequest(
             context.getExecutionId(),
-            nodeConfig.get("nodeId").toString(),
+            nodeId(nodeConfig, context),
             reviewers,
             "REVIEW",
             reviewData
         );
         
+        approvalService.configureDeadlines((Long) review.get("id"), nodeConfig);
+        
         // Send notifications
         approvalService.sendApprovalNotifications(
             (Long) review.get("id"),
@@ -254,4 +278,46 @@ public class ApprovalHandler implements NodeHandler {
         
         return ExecutionResult.paused("Waiting for review");
     }
+
+    /**
+     * User ids from the node config; JSON numbers arrive as Integer or Long, ids
+     * entered in the builder may arrive as strings
+     */
+    private List<Long> toUserIds(Object value) {
+        List<Long> userIds = new ArrayList<>();
+        if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                if (item instanceof Number) {
+                    userIds.add(((Number) item).longValue());
+                } else if (item != null) {
+                    userIds.add(Long.parseLong(item.toString().trim()));
+                }
+            }
+        }
+        return userIds;
+    }
+
+    /**
+     * Approver ids of each step of a multi-step approval
+     */
+    private List<List<Long>> toSteps(Object value) {
+        List<List<Long>> steps = new ArrayList<>();
+        if (value instanceof Collection) {
+            for (Object step : (Collection<?>) value) {
+                steps.add(toUserIds(step));
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Id of the node being executed; the approval resumes the execution after it
+     */
+    private String nodeId(Map<String, Object> nodeConfig, ExecutionContext context) {
+        Object nodeId = context.getMetadata().get(WorkflowExecutionEngine.CURRENT_NODE_ID);
+        if (nodeId == null) {
+            nodeId = nodeConfig.get("nodeId");
+        }
+        return nodeId != null ? nodeId.toString() : null;
+    }
 }
@@ -1,6 +1,7 @@
 package com.zen.workflow.handler;
 
 import com.zen.workflow.engine.VariableResolver;
+import com.zen.workflow.engine.WorkflowExecutionEngine;
 import com.zen.workflow.model.ExecutionContext;
 import com.zen.workflow.model.ExecutionResult;
 import com.zen.workflow.model.NodeConfig;
@@ -12,6 +13,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,7 +24,7 @@ import java.util.Map;
  * - update_record, update_multiple, update_related
  * - delete_record, delete_multiple
  * - set_field, copy_field, clear_field, increment, decrement
- * - assign_record, rotate_owner, assign_team
+ * - assign_record, rotate_owner, assign_team, assign_leads_batch
  */
 @Slf4j
 @Component
@@ -83,6 +85,7 @@ public class CRUDHandler implements NodeHandler {
                 case "assign_record":
                 case "rotate_owner":
                 case "assign_team":
+                case "assign_leads_batch":
                     return handleAssignment(config, context);
                 
                 default:
@@ -381,6 +384,9 @@ public class CRUDHandler implements NodeHandler {
                 case "assign_team":
                     return handleTeamAssignment(nodeConfig, context);
                     
+                case "assign_leads_batch":
+                    return handleBatchLeadAssignment(nodeConfig, context);
+                    
                 default:
                     // Simple assignment
                     String assignTo = variableResolver.resolve((String) nodeConfig.get("assignTo"), context);
@@ -405,6 +411,8 @@ public class CRUDHandler implements NodeHandler {
             strategyConfig = new HashMap<>();
         }
         
+        addRuleKey(strategyConfig, context);
+        
         // Get lead data from context
         Map<String, Object> leadData = new HashMap<>();
         
@@ -456,6 +464,110 @@ public class CRUDHandler implements NodeHandler {
         }
     }
     
+    /**
+     * Assign many leads in one pass (e.g. nightly re-balancing) and write the new
+     * owners back with bulk updates. Leads come from a context variable
+     * (leadsVariable) or an entity query (entity, criteria, limit).
+     */
+    private ExecutionResult handleBatchLeadAssignment(Map<String, Object> nodeConfig, ExecutionContext context) {
+        Map<String, Object> strategyConfig = (Map<String, Object>) nodeConfig.getOrDefault("strategyConfig", new HashMap<>());
+        String entity = (String) nodeConfig.getOrDefault("entity", "Lead");
+        String ownerField = (String) nodeConfig.getOrDefault("ownerField", "ownerId");
+        String idField = (String) strategyConfig.getOrDefault("idField", "id");
+        
+        addRuleKey(strategyConfig, context);
+        strategyConfig.putIfAbsent("ownerField", ownerField);
+        
+        List<Map<String, Object>> leads;
+        if (nodeConfig.containsKey("leadsVariable")) {
+            leads = (List<Map<String, Object>>) context.getVariable((String) nodeConfig.get("leadsVariable"));
+        } else {
+            Map<String, Object> criteria = (Map<String, Object>) nodeConfig.get("criteria");
+            if (criteria != null) {
+                criteria = variableResolver.resolveMap(criteria, context);
+            }
+            Integer limit = nodeConfig.get("limit") != null ? ((Number) nodeConfig.get("limit")).intValue() : null;
+            leads = dynamicEntityService.queryRecordMaps(entity, criteria, limit);
+        }
+        if (leads == null || leads.isEmpty()) {
+            return ExecutionResult.success(Map.of("assigned", 0, "unassigned", 0));
+        }
+        
+        // Records are updated by numeric id; leads without one can't be written back
+        List<Map<String, Object>> assignable = new ArrayList<>(leads.size());
+        List<Object> failed = new ArrayList<>();
+        for (Map<String, Object> lead : leads) {
+            Object leadId = lead.get(idField);
+            if (toRecordId(leadId) != null) {
+                assignable.add(lead);
+            } else {
+                failed.add(leadId);
+            }
+        }
+        if (!failed.isEmpty()) {
+            log.warn("Skipping {} leads without a numeric {}", failed.size(), idField);
+        }
+        
+        log.info("Batch assigning {} leads", assignable.size());
+        
+        try {
+            Map<String, Object> result = leadAssignmentService.assignBatch(assignable, strategyConfig);
+            Map<Object, Long> assignments = (Map<Object, Long>) result.get("assignments");
+            List<Object> unassigned = (List<Object>) result.get("unassigned");
+            result.put("failed", failed);
+            
+            int updated = 0;
+            if (!Boolean.FALSE.equals(nodeConfig.get("persist"))) {
+                Map<Long, Long> owners = new LinkedHashMap<>();
+                assignments.forEach((leadId, userId) -> owners.put(toRecordId(leadId), userId));
+                updated = dynamicEntityService.bulkUpdateField(entity, ownerField, owners);
+            }
+            
+            context.setVariable("batchAssignment", result);
+            
+            Map<String, Object> output = new HashMap<>();
+            output.put("assigned", assignments.size());
+            output.put("unassigned", unassigned.size());
+            output.put("failed", failed.size());
+            output.put("updated", updated);
+            output.put("perUser", result.get("perUser"));
+            
+            return ExecutionResult.success(output);
+            
+        } catch (Exception e) {
+            log.error("Batch lead assignment failed", e);
+            return ExecutionResult.failed("Batch lead assignment failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * A record id as a Long, or null if it is missing or not numeric
+     */
+    private Long toRecordId(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Compiled assignment rules (territories, weights) are cached per node and workflow version
+     */
+    private void addRuleKey(Map<String, Object> strategyConfig, ExecutionContext context) {
+        Object nodeId = context.getMetadata().get(WorkflowExecutionEngine.CURRENT_NODE_ID);
+        Object version = context.getMetadata().get(WorkflowExecutionEngine.WORKFLOW_VERSION);
+        if (context.getWorkflowId() != null && nodeId != null && !strategyConfig.containsKey("ruleKey")) {
+            strategyConfig.put("ruleKey", context.getWorkflowId() + ":" + nodeId + "@" + version);
+        }
+    }
+    
     /**
      * Handle team assignment
      */
@@ -119,8 +119,9 @@ public class ConditionEvaluator implements NodeHandler {
         
         try {
             // Validate formula
-            if (!formulaEngine.validateFormula(formula)) {
-                return ExecutionResult.failed("Invalid formula syntax: " + formula);
+            String formulaError = formulaEngine.validationError(formula);
+            if (formulaError != null) {
+                return ExecutionResult.failed("Invalid formula: " + formulaError);
             }
             
             // Evaluate formula with context variables
@@ -65,8 +65,7 @@ public class DelayHandler implements NodeHandler {
         context.setVariable("waitDuration", duration);
         context.setVariable("waitUnit", unit);
         
-        // In production, schedule workflow resumption with Quartz
-        // For now, check if we should wait or continue
+        // A future resumeAt pauses the execution; the engine turns it into a durable timer
         LocalDateTime now = LocalDateTime.now();
         if (resumeDateTime.isAfter(now)) {
             log.info("Workflow paused. Will resume at: {}", resumeTime);
@@ -78,7 +77,8 @@ public class DelayHandler implements NodeHandler {
             output.put("resumeAt", resumeTime);
             output.put("delayMs", calculateDelayMs(duration, unit));
             
-            return ExecutionResult.paused("Waiting for " + duration + " " + unit);
+            // The engine checkpoints the execution and schedules a durable timer for resumeAt
+            return ExecutionResult.paused("Waiting for " + duration + " " + unit, output);
         } else {
             // Time has passed, continue
             Map<String, Object> output = new HashMap<>();
@@ -112,8 +112,9 @@ public class DelayHandler implements NodeHandler {
                 output.put("targetDate", targetDate);
                 output.put("timezone", timezone);
                 output.put("currentTime", now.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                output.put("resumeAt", targetDateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
                 
-                return ExecutionResult.paused("Waiting until " + targetDate);
+                return ExecutionResult.paused("Waiting until " + targetDate, output);
             } else {
                 // Target date has passed, continue
                 Map<String, Object> output = new HashMap<>();
@@ -136,6 +137,7 @@ public class DelayHandler implements NodeHandler {
         String eventType = (String) nodeConfig.get("eventType");
         String eventCondition = variableResolver.resolve((String) nodeConfig.get("eventCondition"), context);
         Integer timeoutMinutes = (Integer) nodeConfig.get("timeoutMinutes");
+        String correlationKey = resolveCorrelationKey(nodeConfig, context);
         
         log.info("Waiting for event: {} with condition: {}", eventType, eventCondition);
         
@@ -149,19 +151,21 @@ public class DelayHandler implements NodeHandler {
             context.setVariable("eventTimeout", timeoutAt);
         }
         
-        // In production, register event listener and pause workflow
+        // The engine subscribes the paused execution to the event and schedules the timeout
         Map<String, Object> output = new HashMap<>();
         output.put("paused", true);
         output.put("eventType", eventType);
         output.put("eventCondition", eventCondition);
+        output.put("correlationKey", correlationKey);
         output.put("waiting", true);
         
         if (timeoutMinutes != null) {
             output.put("timeoutMinutes", timeoutMinutes);
+            output.put("timeoutAt", context.getVariable("eventTimeout"));
         }
         
         log.info("Workflow paused. Waiting for event: {}", eventType);
-        return ExecutionResult.paused("Waiting for event: " + eventType);
+        return ExecutionResult.paused("Waiting for event: " + eventType, output);
     }
 
     private ExecutionResult handleScheduleAction(NodeConfig config, ExecutionContext context) {
@@ -182,7 +186,7 @@ public class DelayHandler implements NodeHandler {
         context.setVariable("scheduledAction", actionType);
         context.setVariable("scheduledActionConfig", actionConfig);
         
-        // In production, create scheduled job with Quartz
+        // Records the schedule in the context; the action itself is not run by this node
         Map<String, Object> output = new HashMap<>();
         output.put("scheduled", true);
         output.put("scheduledFor", scheduleTime);
@@ -193,6 +197,22 @@ public class DelayHandler implements NodeHandler {
         return ExecutionResult.success(output);
     }
     
+    /**
+     * Key the awaited event is matched on: the configured correlationKey, else the triggering record id
+     */
+    private String resolveCorrelationKey(Map<String, Object> nodeConfig, ExecutionContext context) {
+        String configured = (String) nodeConfig.get("correlationKey");
+        if (configured != null) {
+            return variableResolver.resolve(configured, context);
+        }
+        Map<String, Object> triggerData = context.getTriggerData();
+        if (triggerData == null) {
+            return null;
+        }
+        Object recordId = triggerData.get("recordId") != null ? triggerData.get("recordId") : triggerData.get("id");
+        return recordId != null ? recordId.toString() : null;
+    }
+    
     private long calculateDelayMs(int duration, String unit) {
         switch (unit.toUpperCase()) {
             case "MINUTES":
@@ -8,15 +8,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Handles all communication operations:
  * - send_email, send_template_email, send_bulk_email
  * - send_sms, send_whatsapp
  * - send_notification, internal_notification, push_notification
+ * - notify_recipients, team_alert
  * - post_to_chat, slack_message
  */
 @Slf4j
@@ -29,6 +33,9 @@ public class EmailHandler implements NodeHandler {
     @Autowired
     private com.zen.workflow.service.EmailService emailService;
     
+    @Autowired
+    private com.zen.workflow.service.BulkEmailService bulkEmailService;
+    
     @Autowired
     private com.zen.workflow.service.SMSService smsService;
     
@@ -37,6 +44,9 @@ public class EmailHandler implements NodeHandler {
     
     @Autowired
     private com.zen.workflow.service.ChatService chatService;
+    
+    @Autowired
+    private com.zen.workflow.service.NotificationFanoutService fanoutService;
 
     @Override
     public ExecutionResult execute(NodeConfig config, ExecutionContext context) {
@@ -59,6 +69,9 @@ public class EmailHandler implements NodeHandler {
                 case "internal_notification":
                 case "push_notification":
                     return handleSendNotification(config, context);
+                case "notify_recipients":
+                case "team_alert":
+                    return handleFanOutNotification(config, context);
                 case "post_to_chat":
                 case "slack_message":
                     return handlePostToChat(config, context);
@@ -169,14 +182,31 @@ public class EmailHandler implements NodeHandler {
         }
     }
 
+    /**
+     * Recipients are addresses or maps with an "email" entry; subject and body are
+     * rendered per recipient, recipient values first, then context variables
+     */
     private ExecutionResult handleSendBulkEmail(NodeConfig config, ExecutionContext context) {
         Map<String, Object> nodeConfig = config.getConfig();
         
-        List<String> recipients = (List<String>) nodeConfig.get("recipients");
-        String subject = variableResolver.resolve((String) nodeConfig.get("subject"), context);
-        String body = variableResolver.resolve((String) nodeConfig.get("body"), context);
+        List<Object> recipientList = (List<Object>) nodeConfig.get("recipients");
+        String subject = (String) nodeConfig.get("subject");
+        String body = (String) nodeConfig.get("body");
         Boolean isHtml = (Boolean) nodeConfig.getOrDefault("isHtml", false);
         
+        List<Map<String, Object>> recipients = new ArrayList<>();
+        if (recipientList != null) {
+            for (Object item : recipientList) {
+                if (item instanceof Map) {
+                    recipients.add((Map<String, Object>) item);
+                } else if (item != null) {
+                    Map<String, Object> recipient = new HashMap<>();
+                    recipient.put("email", variableResolver.resolve(item.toString(), context));
+                    recipients.add(recipient);
+                }
+            }
+        }
+        
         log.info("Sending bulk email to {} recipients", recipients.size());
         
         try {
@@ -190,11 +220,21 @@ public class EmailHandler implements NodeHandler {
             }
             
             // Send bulk email
-            emailService.sendBulkEmail(recipients, subject, body, isHtml);
+            Map<String, Object> result = bulkEmailService.sendBulk(subject, body, isHtml, recipients,
+                context.getVariables());
+            int sent = (int) result.get("sent");
+            int failed = (int) result.get("failed");
+            
+            // Partial failures are reported, not failed: re-running the node would resend to everyone
+            if (sent == 0 && failed > 0) {
+                return ExecutionResult.failed("Bulk email sending failed for all " + failed + " recipients");
+            }
             
             Map<String, Object> output = new HashMap<>();
-            output.put("emailsSent", recipients.size());
-            output.put("subject", subject);
+            output.put("emailsSent", sent);
+            output.put("emailsFailed", failed);
+            output.put("failures", result.get("failures"));
+            output.put("subject", variableResolver.resolve(subject, context));
             output.put("isHtml", isHtml);
             
             return ExecutionResult.success(output);
@@ -374,6 +414,92 @@ public class EmailHandler implements NodeHandler {
         }
     }
 
+    /**
+     * Notify many recipients over several channels at once. Recipients come from
+     * the node config or a context variable (recipientsVariable); entries are user
+     * ids or maps with userId, pushToken(s), phone, slackChannel, teamsChannel.
+     */
+    private ExecutionResult handleFanOutNotification(NodeConfig config, ExecutionContext context) {
+        Map<String, Object> nodeConfig = config.getConfig();
+        
+        String title = variableResolver.resolve((String) nodeConfig.get("title"), context);
+        String message = variableResolver.resolve((String) nodeConfig.get("message"), context);
+        String type = (String) nodeConfig.getOrDefault("type", "team_alert".equals(config.getSubtype()) ? "ALERT" : "INFO");
+        Map<String, Object> data = (Map<String, Object>) nodeConfig.get("data");
+        if (data != null) {
+            data = variableResolver.resolveMap(data, context);
+        }
+        
+        Object source = nodeConfig.containsKey("recipientsVariable")
+            ? context.getVariable((String) nodeConfig.get("recipientsVariable"))
+            : nodeConfig.get("recipients");
+        List<Map<String, Object>> recipients = new ArrayList<>();
+        if (source instanceof List) {
+            for (Object item : (List<Object>) source) {
+                if (item instanceof Map) {
+                    recipients.add((Map<String, Object>) item);
+                } else if (item != null) {
+                    Map<String, Object> recipient = new HashMap<>();
+                    recipient.put("userId", variableResolver.resolve(item.toString(), context));
+                    recipients.add(recipient);
+                }
+            }
+        }
+        addChatChannels(recipients, (List<String>) nodeConfig.get("slackChannels"), "slackChannel", context);
+        addChatChannels(recipients, (List<String>) nodeConfig.get("teamsChannels"), "teamsChannel", context);
+        
+        Set<String> channels = new LinkedHashSet<>((List<String>) nodeConfig.getOrDefault("channels", List.of("in_app")));
+        
+        log.info("Fanning out notification to {} recipients on {}", recipients.size(), channels);
+        
+        try {
+            if (!notificationService.isNotificationServiceAvailable()) {
+                log.warn("Notification service not available.");
+                return ExecutionResult.success(Map.of(
+                    "notificationSent", false,
+                    "reason", "Notification service not configured"
+                ));
+            }
+            
+            Map<String, Object> result = fanoutService.fanOut(recipients, channels, title, message, type, data);
+            int sent = (int) result.get("sent");
+            int failed = (int) result.get("failed");
+            
+            // Partial failures are reported, not failed: re-running the node would notify everyone again
+            if (sent == 0 && failed > 0) {
+                return ExecutionResult.failed("Notification fan-out failed for all " + failed + " deliveries");
+            }
+            
+            context.setVariable("notificationResult", result);
+            
+            Map<String, Object> output = new HashMap<>();
+            output.put("notificationSent", sent > 0);
+            output.put("recipients", recipients.size());
+            output.put("sent", sent);
+            output.put("failed", failed);
+            output.put("channels", result.get("channels"));
+            output.put("failures", result.get("failures"));
+            
+            return ExecutionResult.success(output);
+            
+        } catch (Exception e) {
+            log.error("Failed to fan out notification", e);
+            return ExecutionResult.failed("Notification fan-out failed: " + e.getMessage());
+        }
+    }
+
+    private void addChatChannels(List<Map<String, Object>> recipients, List<String> chatChannels, String key,
+                                 ExecutionContext context) {
+        if (chatChannels == null) {
+            return;
+        }
+        for (String chatChannel : chatChannels) {
+            Map<String, Object> recipient = new HashMap<>();
+            recipient.put(key, variableResolver.resolve(chatChannel, context));
+            recipients.add(recipient);
+        }
+    }
+
     private ExecutionResult handlePostToChat(NodeConfig config, ExecutionContext context) {
         Map<String, Object> nodeConfig = config.getConfig();
         String subtype = config.getSubtype();
@@ -1,5 +1,6 @@
 package com.zen.workflow.handler;
 
+import com.zen.workflow.engine.RetryPolicy;
 import com.zen.workflow.engine.VariableResolver;
 import com.zen.workflow.model.ExecutionContext;
 import com.zen.workflow.model.ExecutionResult;
@@ -8,6 +9,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -65,28 +68,45 @@ public class ErrorHandler implements NodeHandler {
         return ExecutionResult.success(output);
     }
 
+    /**
+     * Delay before looping back to a failed step. The delay grows with the
+     * configured backoff and is served by the engine's durable timers.
+     */
     private ExecutionResult handleRetry(NodeConfig config, ExecutionContext context) {
         Map<String, Object> nodeConfig = config.getConfig();
         
-        int maxRetries = (int) nodeConfig.getOrDefault("maxRetries", 3);
-        int retryDelay = (int) nodeConfig.getOrDefault("retryDelay", 60); // seconds
-        
-        Integer currentRetry = (Integer) context.getVariable("retryCount");
-        if (currentRetry == null) {
-            currentRetry = 0;
+        int maxRetries = ((Number) nodeConfig.getOrDefault("maxRetries", 3)).intValue();
+        int retryDelay = ((Number) nodeConfig.getOrDefault("retryDelay", 60)).intValue(); // seconds
+        RetryPolicy.Backoff backoff = RetryPolicy.parseBackoff(nodeConfig.get("backoff"));
+        if (backoff == null) {
+            if (nodeConfig.get("backoff") != null) {
+                log.warn("Unknown backoff '{}' on node {}, using FIXED", nodeConfig.get("backoff"), config.getId());
+            }
+            backoff = RetryPolicy.Backoff.FIXED;
         }
+        RetryPolicy policy = new RetryPolicy(maxRetries + 1, retryDelay * 1000L, backoff,
+            ((Number) nodeConfig.getOrDefault("multiplier", 2)).doubleValue(),
+            ((Number) nodeConfig.getOrDefault("maxDelay", 3600)).longValue() * 1000,
+            ((Number) nodeConfig.getOrDefault("jitter", 0)).doubleValue(),
+            null, null);
+        
+        Object retryCount = context.getVariable("retryCount");
+        int currentRetry = retryCount instanceof Number ? ((Number) retryCount).intValue() : 0;
         
         log.info("Retry attempt {} of {}", currentRetry + 1, maxRetries);
         
         if (currentRetry < maxRetries) {
             context.setVariable("retryCount", currentRetry + 1);
             
+            long delayMs = policy.delayMs(currentRetry + 1);
             Map<String, Object> output = new HashMap<>();
             output.put("retrying", true);
             output.put("retryCount", currentRetry + 1);
-            output.put("retryDelay", retryDelay);
+            output.put("retryDelay", delayMs / 1000);
+            output.put("resumeAt", LocalDateTime.now().plusNanos(delayMs * 1_000_000)
+                .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
             
-            return ExecutionResult.success(output);
+            return ExecutionResult.paused("Retry " + (currentRetry + 1) + " of " + maxRetries, output);
         } else {
             log.error("Max retries exceeded");
             return ExecutionResult.failed("Max retries exceeded");
@@ -7,9 +7,9 @@ import com.zen.workflow.model.NodeConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -90,10 +90,34 @@ public class IntegrationHandler implements NodeHandler {
                 ));
             }
             
-            // Make HTTP request
-            Map<String, Object> response = webhookService.makeRequest(
-                url, method, body, headers, authType, authConfig
-            );
+            // Queued delivery: hand off to the outbound queue and continue without waiting
+            if ("queued".equalsIgnoreCase((String) nodeConfig.get("delivery"))) {
+                Map<String, Object> queued = webhookService.queueWebhook(context.getExecutionId(), url,
+                    body != null ? body : Map.of(), headers, authType, authConfig,
+                    Boolean.TRUE.equals(nodeConfig.get("batch")));
+                context.setVariable("webhookDeliveryId", queued.get("deliveryId"));
+                return ExecutionResult.success(queued);
+            }
+            
+            // Make HTTP request, through the response cache when the node opts in
+            Map<String, Object> cache = (Map<String, Object>) nodeConfig.get("cache");
+            Map<String, Object> response;
+            if (cache != null && !Boolean.FALSE.equals(cache.get("enabled"))) {
+                long ttlSeconds = ((Number) cache.getOrDefault("ttlSeconds", 60)).longValue();
+                List<String> varyHeaders = (List<String>) cache.get("varyHeaders");
+                response = webhookService.makeCachedRequest(
+                    url, method, body, headers, authType, authConfig, ttlSeconds, varyHeaders
+                );
+            } else {
+                response = webhookService.makeRequest(
+                    url, method, body, headers, authType, authConfig
+                );
+            }
+            
+            // Endpoint circuit open or at its concurrency limit - fail the node fast
+            if (Boolean.TRUE.equals(response.get("rejected"))) {
+                return ExecutionResult.failed("Webhook endpoint unavailable: " + response.get("error"));
+            }
             
             // Store response in context
             context.setVariable("webhookResponse", response);
@@ -148,41 +172,78 @@ public class IntegrationHandler implements NodeHandler {
         }
     }
     
+    /**
+     * mode "call" (default) waits for the subflow, "spawn" starts it and moves on
+     * (also the legacy waitForCompletion=false), "foreach" calls it once per item of
+     * "items" with at most maxConcurrency running at a time
+     */
     private ExecutionResult handleCallSubflow(NodeConfig config, ExecutionContext context) {
         Map<String, Object> nodeConfig = config.getConfig();
         
-        Long subflowId = Long.parseLong(variableResolver.resolve((String) nodeConfig.get("subflowId"), context));
-        Map<String, Object> inputData = (Map<String, Object>) nodeConfig.get("inputData");
+        Long subflowId = Long.parseLong(variableResolver.resolve(String.valueOf(nodeConfig.get("subflowId")), context));
         Boolean waitForCompletion = (Boolean) nodeConfig.getOrDefault("waitForCompletion", true);
+        String mode = (String) nodeConfig.getOrDefault("mode", waitForCompletion ? "call" : "spawn");
+        Map<String, Object> outputMapping = (Map<String, Object>) nodeConfig.get("outputMapping");
         
-        if (inputData != null) {
-            inputData = variableResolver.resolveMap(inputData, context);
-        } else {
-            inputData = new HashMap<>();
+        // Node config belongs to the cached definition, so resolve into a copy
+        Map<String, Object> inputData = new HashMap<>();
+        if (nodeConfig.get("inputData") != null) {
+            inputData.putAll(variableResolver.resolveMap(new HashMap<>((Map<String, Object>) nodeConfig.get("inputData")), context));
+        }
+        Map<String, Object> inputMapping = (Map<String, Object>) nodeConfig.get("inputMapping");
+        if (inputMapping != null) {
+            for (Map.Entry<String, Object> entry : inputMapping.entrySet()) {
+                inputData.put(entry.getKey(), variableResolver.resolveValue(entry.getValue(), context));
+            }
         }
         
-        log.info("Calling subflow: {} with wait={}", subflowId, waitForCompletion);
+        log.info("Calling subflow: {} in {} mode", subflowId, mode);
         
         try {
-            Map<String, Object> result = extensionService.executeSubflow(subflowId, inputData);
+            switch (mode) {
+                case "spawn": {
+                    Map<String, Object> result = extensionService.spawnSubflow(subflowId, context, inputData);
+                    context.setVariable("subflowResult", result);
+                    
+                    Map<String, Object> output = new HashMap<>();
+                    output.put("subflowId", subflowId);
+                    output.put("status", result.get("status"));
+                    output.put("success", true);
+                    output.put("async", true);
+                    return ExecutionResult.success(output);
+                }
+                case "foreach":
+                    return handleSubflowForEach(subflowId, nodeConfig, context, inputData, outputMapping);
+                case "call":
+                    break;
+                default:
+                    return ExecutionResult.failed("Unknown subflow mode: " + mode);
+            }
             
-            // Store subflow output in context
+            Map<String, Object> result = extensionService.callSubflow(subflowId, context, inputData, outputMapping);
             context.setVariable("subflowResult", result);
-            context.setVariable("subflowOutput", result.get("output"));
             
             Map<String, Object> output = new HashMap<>();
             output.put("subflowId", subflowId);
+            output.put("subflowExecutionId", result.get("executionId"));
             output.put("status", result.get("status"));
-            output.put("output", result.get("output"));
-            output.put("success", true);
             
-            if (waitForCompletion) {
-                log.info("Subflow completed successfully");
-            } else {
-                log.info("Subflow started asynchronously");
-                output.put("async", true);
+            if ("FAILED".equals(result.get("status"))) {
+                return ExecutionResult.failed("Subflow execution failed: " + result.get("error"));
+            }
+            if ("PAUSED".equals(result.get("status"))) {
+                // The engine resumes this node with the mapped outputs when the subflow finishes
+                log.info("Subflow {} paused, waiting for it", result.get("executionId"));
+                return ExecutionResult.paused("Waiting for subflow", output);
             }
             
+            Map<String, Object> subflowOutput = (Map<String, Object>) result.get("output");
+            subflowOutput.forEach(context::setVariable);
+            context.setVariable("subflowOutput", subflowOutput);
+            
+            output.put("output", subflowOutput);
+            output.put("success", true);
+            log.info("Subflow completed successfully");
             return ExecutionResult.success(output);
             
         } catch (Exception e) {
@@ -191,6 +252,34 @@ public class IntegrationHandler implements NodeHandler {
         }
     }
     
+    private ExecutionResult handleSubflowForEach(Long subflowId, Map<String, Object> nodeConfig, ExecutionContext context,
+                                                 Map<String, Object> inputData, Map<String, Object> outputMapping) {
+        Object items = variableResolver.resolveValue(nodeConfig.get("items"), context);
+        if (!(items instanceof List)) {
+            return ExecutionResult.failed("Subflow for-each items must resolve to a list");
+        }
+        String itemVariable = (String) nodeConfig.getOrDefault("itemVariable", "item");
+        String outputVariable = (String) nodeConfig.getOrDefault("outputVariable", "subflowResults");
+        int maxConcurrency = ((Number) nodeConfig.getOrDefault("maxConcurrency", 4)).intValue();
+        boolean continueOnError = Boolean.TRUE.equals(nodeConfig.get("continueOnError"));
+        
+        List<Map<String, Object>> results = extensionService.callSubflowForEach(subflowId, context, (List<?>) items,
+            itemVariable, inputData, outputMapping, maxConcurrency);
+        context.setVariable(outputVariable, results);
+        
+        long failed = results.stream().filter(r -> "FAILED".equals(r.get("status"))).count();
+        if (failed > 0 && !continueOnError) {
+            return ExecutionResult.failed("Subflow failed for " + failed + " of " + results.size() + " items");
+        }
+        
+        Map<String, Object> output = new HashMap<>();
+        output.put("subflowId", subflowId);
+        output.put("itemCount", results.size());
+        output.put("failedCount", failed);
+        output.put("success", true);
+        return ExecutionResult.success(output);
+    }
+    
     private ExecutionResult handleExternalService(NodeConfig config, ExecutionContext context) {
         Map<String, Object> nodeConfig = config.getConfig();
         
@@ -8,12 +8,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Handles all list and tag operations:
- * - add_to_list, remove_from_list, add_tag, remove_tag
+ * - add_to_list, remove_from_list, move_to_list, check_list_membership, add_tag, remove_tag
+ * List and tag writes take either one recordId or a recordIds list, which is
+ * written in bulk.
  */
 @Slf4j
 @Component
@@ -36,6 +41,10 @@ public class ListManagementHandler implements NodeHandler {
                     return handleAddToList(config, context);
                 case "remove_from_list":
                     return handleRemoveFromList(config, context);
+                case "move_to_list":
+                    return handleMoveToList(config, context);
+                case "check_list_membership":
+                    return handleCheckListMembership(config, context);
                 case "add_tag":
                     return handleAddTag(config, context);
                 case "remove_tag":
@@ -67,7 +76,10 @@ public class ListManagementHandler implements NodeHandler {
                 ));
             }
             
-            Map<String, Object> result = listTagService.addToList(listId, recordId, recordType);
+            List<String> recordIds = recordIds(nodeConfig, context);
+            Map<String, Object> result = recordIds != null
+                ? listTagService.bulkAddToList(listId, recordIds, recordType)
+                : listTagService.addToList(listId, recordId, recordType);
             
             context.setVariable("listResult", result);
             context.setVariable("addedToList", result.get("added"));
@@ -97,7 +109,10 @@ public class ListManagementHandler implements NodeHandler {
                 ));
             }
             
-            Map<String, Object> result = listTagService.removeFromList(listId, recordId, recordType);
+            List<String> recordIds = recordIds(nodeConfig, context);
+            Map<String, Object> result = recordIds != null
+                ? listTagService.bulkRemoveFromList(listId, recordIds)
+                : listTagService.removeFromList(listId, recordId, recordType);
             
             context.setVariable("listResult", result);
             context.setVariable("removedFromList", result.get("removed"));
@@ -110,6 +125,59 @@ public class ListManagementHandler implements NodeHandler {
         }
     }
 
+    private ExecutionResult handleMoveToList(NodeConfig config, ExecutionContext context) {
+        Map<String, Object> nodeConfig = config.getConfig();
+        
+        String fromListId = variableResolver.resolve((String) nodeConfig.get("fromListId"), context);
+        String listId = variableResolver.resolve((String) nodeConfig.get("listId"), context);
+        String recordType = (String) nodeConfig.getOrDefault("recordType", "Lead");
+        List<String> recordIds = recordIds(nodeConfig, context);
+        if (recordIds == null) {
+            recordIds = List.of(variableResolver.resolve((String) nodeConfig.get("recordId"), context));
+        }
+        
+        log.info("Moving {} {} records from list {} to list {}", recordIds.size(), recordType, fromListId, listId);
+        
+        try {
+            if (!listTagService.isListServiceAvailable()) {
+                return ExecutionResult.success(Map.of(
+                    "moved", 0,
+                    "reason", "List service not configured"
+                ));
+            }
+            
+            Map<String, Object> result = listTagService.moveToList(fromListId, listId, recordIds, recordType);
+            
+            context.setVariable("listResult", result);
+            
+            return ExecutionResult.success(result);
+            
+        } catch (Exception e) {
+            log.error("Failed to move between lists", e);
+            return ExecutionResult.failed("Move to list failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Branches on "true"/"false" by whether the record is in the list
+     */
+    private ExecutionResult handleCheckListMembership(NodeConfig config, ExecutionContext context) {
+        Map<String, Object> nodeConfig = config.getConfig();
+        
+        String recordId = variableResolver.resolve((String) nodeConfig.get("recordId"), context);
+        String listId = variableResolver.resolve((String) nodeConfig.get("listId"), context);
+        
+        boolean inList = listTagService.isInList(listId, recordId);
+        context.setVariable("inList", inList);
+        
+        Map<String, Object> output = new HashMap<>();
+        output.put("listId", listId);
+        output.put("recordId", recordId);
+        output.put("inList", inList);
+        output.put("conditionResult", inList);
+        return ExecutionResult.success(output);
+    }
+
     private ExecutionResult handleAddTag(NodeConfig config, ExecutionContext context) {
         Map<String, Object> nodeConfig = config.getConfig();
         
@@ -132,7 +200,10 @@ public class ListManagementHandler implements NodeHandler {
                 tagData = variableResolver.resolveMap(tagData, context);
             }
             
-            Map<String, Object> result = listTagService.addTag(recordId, recordType, tagName, tagData);
+            List<String> recordIds = recordIds(nodeConfig, context);
+            Map<String, Object> result = recordIds != null
+                ? listTagService.bulkTagRecords(recordIds, recordType, tagName)
+                : listTagService.addTag(recordId, recordType, tagName, tagData);
             
             context.setVariable("tagResult", result);
             context.setVariable("tagId", result.get("tagId"));
@@ -175,4 +246,21 @@ public class ListManagementHandler implements NodeHandler {
             return ExecutionResult.failed("Remove tag failed: " + e.getMessage());
         }
     }
+
+    /**
+     * The recordIds list of a bulk node, as strings; null when the node names a single recordId
+     */
+    private List<String> recordIds(Map<String, Object> nodeConfig, ExecutionContext context) {
+        Object value = variableResolver.resolveValue(nodeConfig.get("recordIds"), context);
+        if (!(value instanceof Collection)) {
+            return null;
+        }
+        List<String> ids = new ArrayList<>();
+        for (Object id : (Collection<?>) value) {
+            if (id != null) {
+                ids.add(id.toString());
+            }
+        }
+        return ids;
+    }
 }
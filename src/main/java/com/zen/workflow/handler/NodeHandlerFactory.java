@@ -1,13 +1,23 @@
 package com.zen.workflow.handler;
 
+import com.zen.workflow.model.NodeConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 @Component
 public class NodeHandlerFactory {
 
+    private static final Set<String> SCHEDULED_TRIGGERS = Set.of("scheduled", "date_based", "recurring");
+
+    private static final Set<String> EVENT_TRIGGERS = Set.of(
+        "button_click", "form_submit", "manual_enrollment",
+        "email_opened", "email_clicked", "email_replied", "page_viewed",
+        "record_assigned", "owner_changed",
+        "added_to_list", "removed_from_list", "tag_added", "tag_removed");
+
     private final Map<String, NodeHandler> handlers = new HashMap<>();
 
     @Autowired
@@ -49,4 +59,20 @@ public class NodeHandlerFactory {
         }
         return handler;
     }
+
+    /**
+     * Resolve the handler for a node. Trigger nodes are stored with type "trigger"
+     * for every trigger family, so scheduled and event subtypes are routed by subtype.
+     */
+    public NodeHandler getHandler(NodeConfig node) {
+        if ("trigger".equals(node.getType()) && node.getSubtype() != null) {
+            if (SCHEDULED_TRIGGERS.contains(node.getSubtype())) {
+                return getHandler("scheduled");
+            }
+            if (EVENT_TRIGGERS.contains(node.getSubtype())) {
+                return getHandler("event");
+            }
+        }
+        return getHandler(node.getType());
+    }
 }
@@ -4,10 +4,12 @@ import com.zen.workflow.engine.VariableResolver;
 import com.zen.workflow.model.ExecutionContext;
 import com.zen.workflow.model.ExecutionResult;
 import com.zen.workflow.model.NodeConfig;
+import com.zen.workflow.service.RecordChangeCoalescer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -61,8 +63,22 @@ public class RecordTriggerHandler implements NodeHandler {
     }
 
     private ExecutionResult handleRecordUpdated(NodeConfig config, ExecutionContext context) {
-        log.info("Record updated trigger - passing through");
-        return ExecutionResult.success();
+        // Coalesced updates carry the union of the fields changed across the burst
+        Map<String, Object> triggerData = context.getTriggerData();
+        Object changedFields = triggerData != null ? triggerData.get(RecordChangeCoalescer.CHANGED_FIELDS) : null;
+        Object coalescedEvents = triggerData != null ? triggerData.get(RecordChangeCoalescer.COALESCED_EVENTS) : null;
+
+        if (changedFields != null) {
+            context.setVariable("changedFields", changedFields);
+        }
+
+        log.info("Record updated trigger - changed fields: {} ({} event(s))",
+            changedFields, coalescedEvents != null ? coalescedEvents : 1);
+
+        Map<String, Object> output = new HashMap<>();
+        output.put("changedFields", changedFields);
+        output.put("coalescedEvents", coalescedEvents != null ? coalescedEvents : 1);
+        return ExecutionResult.success(output);
     }
 
     private ExecutionResult handleRecordDeleted(NodeConfig config, ExecutionContext context) {
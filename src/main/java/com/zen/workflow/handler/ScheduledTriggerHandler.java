@@ -4,6 +4,7 @@ import com.zen.workflow.engine.VariableResolver;
 import com.zen.workflow.model.ExecutionContext;
 import com.zen.workflow.model.ExecutionResult;
 import com.zen.workflow.model.NodeConfig;
+import com.zen.workflow.service.WorkflowScheduleService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -61,6 +62,10 @@ public class ScheduledTriggerHandler implements NodeHandler {
         
         log.info("Processing scheduled trigger for date: {} ({})", scheduledDateStr, timezone);
         
+        if (isScheduledFire(context)) {
+            return firedOutput(context);
+        }
+        
         try {
             Date scheduledDate = parseDate(scheduledDateStr);
             Date now = new Date();
@@ -183,6 +188,14 @@ public class ScheduledTriggerHandler implements NodeHandler {
         log.info("Processing recurring trigger: {} every {} {}", frequency, interval, 
             frequency.endsWith("ly") ? frequency.substring(0, frequency.length() - 2) : frequency);
         
+        // Fired by the Quartz job - the trigger registered by WorkflowScheduleService is the source of truth
+        if (isScheduledFire(context)) {
+            ExecutionResult fired = firedOutput(context);
+            fired.getOutput().put("frequency", frequency);
+            fired.getOutput().put("interval", interval);
+            return fired;
+        }
+        
         try {
             Date startDate = startDateStr != null ? parseDate(startDateStr) : new Date();
             Date endDate = endDateStr != null ? parseDate(endDateStr) : null;
@@ -245,6 +258,23 @@ public class ScheduledTriggerHandler implements NodeHandler {
 
     // Helper methods
 
+    private boolean isScheduledFire(ExecutionContext context) {
+        return context.getTriggerData() != null
+            && context.getTriggerData().containsKey(WorkflowScheduleService.SCHEDULED_FIRE_TIME);
+    }
+
+    private ExecutionResult firedOutput(ExecutionContext context) {
+        Map<String, Object> output = new HashMap<>();
+        output.put("scheduled", true);
+        output.put("status", "triggered");
+        output.put("scheduledFireTime", context.getTriggerData().get(WorkflowScheduleService.SCHEDULED_FIRE_TIME));
+        output.put("executedAt", context.getTriggerData().get("firedAt"));
+        if (context.getTriggerData().get("nextFireTime") != null) {
+            output.put("nextRun", context.getTriggerData().get("nextFireTime"));
+        }
+        return ExecutionResult.success(output);
+    }
+
     /**
      * Parse date string in various formats
      */
@@ -0,0 +1,20 @@
+package com.zen.workflow.model;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Sweep state of one date-based workflow
+ */
+@Data
+public class DateSweep {
+    private Long id;
+    private String tenantId;
+    private Long workflowId;
+    private String tableName;
+    private String dateColumn;
+    private int offsetDays; // negative = before the date
+    private LocalDateTime highWaterDate;
+    private Long highWaterId;
+    private LocalDateTime lastSweptAt;
+}
@@ -0,0 +1,16 @@
+package com.zen.workflow.model;
+
+import lombok.Data;
+
+/**
+ * An execution paused in wait_for_event, keyed by event type and correlation key
+ */
+@Data
+public class EventSubscription {
+    private Long id;
+    private String tenantId;
+    private Long executionId;
+    private String nodeId;
+    private String eventType;
+    private String correlationKey;
+}
@@ -46,4 +46,16 @@ public class ExecutionResult {
         result.setOutput(Map.of("reason", reason));
         return result;
     }
+    
+    public static ExecutionResult paused(String reason, Map<String, Object> output) {
+        ExecutionResult result = paused(reason);
+        Map<String, Object> merged = new HashMap<>(output);
+        merged.put("reason", reason);
+        result.setOutput(merged);
+        return result;
+    }
+    
+    public boolean isPaused() {
+        return "PAUSED".equals(status) || "WAITING".equals(status);
+    }
 }
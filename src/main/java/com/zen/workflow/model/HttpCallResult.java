@@ -0,0 +1,20 @@
+package com.zen.workflow.model;
+
+import lombok.Data;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Response of an outbound HTTP call
+ */
+@Data
+public class HttpCallResult {
+    private int statusCode;
+    private String body;
+    private Map<String, String> headers = new HashMap<>();
+    private long durationMs;
+
+    public boolean isSuccessful() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+}
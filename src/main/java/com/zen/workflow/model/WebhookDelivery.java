@@ -0,0 +1,34 @@
+package com.zen.workflow.model;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Queued outbound webhook - delivered in the background with retries
+ */
+@Data
+public class WebhookDelivery {
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_IN_FLIGHT = "IN_FLIGHT";
+    public static final String STATUS_DELIVERED = "DELIVERED";
+    public static final String STATUS_DEAD = "DEAD";
+
+    private Long id;
+    private String tenantId;
+    private Long executionId;
+    private String url;
+    private Map<String, String> headers = new HashMap<>(); // non-secret headers only
+    private String encryptedSecrets; // credential headers, AES-GCM encrypted
+    private String payload; // JSON
+    private String batchKey;
+    private String status;
+    private int attempts;
+    private int maxAttempts;
+    private LocalDateTime nextAttemptAt;
+    private Integer lastStatusCode;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime deliveredAt;
+}
@@ -0,0 +1,46 @@
+package com.zen.workflow.model;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approval request raised by an approval node; approvers are stored per step as assignments
+ */
+@Data
+public class WorkflowApproval {
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_APPROVED = "APPROVED";
+    public static final String STATUS_REJECTED = "REJECTED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+    public static final String STATUS_EXPIRED = "EXPIRED";
+
+    // Assignment states; WAITING belongs to a later step of a multi-step approval
+    public static final String ASSIGNMENT_WAITING = "WAITING";
+    public static final String ASSIGNMENT_SKIPPED = "SKIPPED";
+
+    private Long id;
+    private String tenantId;
+    private Long executionId;
+    private String nodeId;
+    private String approvalType;
+    private String status;
+    private int currentStep;
+    private int stepCount;
+    private int requiredApprovals;
+    private int stepApprovers;
+    private int approvedCount;
+    private int rejectedCount;
+    private Map<String, Object> requestData = new HashMap<>();
+    private LocalDateTime requestedAt;
+    private LocalDateTime expiresAt;
+    private Integer timeoutMinutes;
+    private LocalDateTime nextReminderAt;
+    private Integer reminderIntervalMinutes;
+    private List<Long> escalateTo = new ArrayList<>();
+    private LocalDateTime escalatedAt;
+    private LocalDateTime resolvedAt;
+}
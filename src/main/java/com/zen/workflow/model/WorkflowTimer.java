@@ -0,0 +1,25 @@
+package com.zen.workflow.model;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Durable timer row - resumes a paused execution at a node when it fires
+ */
+@Data
+public class WorkflowTimer {
+    public static final String TYPE_DELAY = "DELAY";
+    public static final String TYPE_EVENT_TIMEOUT = "EVENT_TIMEOUT";
+    public static final String TYPE_RETRY = "RETRY";
+
+    private Long id;
+    private String tenantId;
+    private Long executionId;
+    private String nodeId;
+    private String timerType; // DELAY, EVENT_TIMEOUT, RETRY
+    private LocalDateTime dueAt;
+    private String status; // PENDING, FIRED, CANCELLED
+    private Map<String, Object> payload = new HashMap<>();
+}
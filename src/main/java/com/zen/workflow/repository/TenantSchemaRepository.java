@@ -0,0 +1,36 @@
+package com.zen.workflow.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Lists tenant schemas. Each tenant is a schema holding its own workflows table,
+ * so the tenants are the schemas (other than the common one) that have that table.
+ */
+@Repository
+public class TenantSchemaRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.schema.common:common}")
+    private String commonSchemaName;
+
+    @Value("${app.schema.tenant-prefix:}")
+    private String tenantPrefix;
+
+    public TenantSchemaRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public List<String> findTenantsWithWorkflows() {
+        String prefix = tenantPrefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return jdbcTemplate.queryForList(
+            "SELECT DISTINCT TABLE_SCHEMA FROM information_schema.TABLES " +
+            "WHERE TABLE_NAME = 'workflows' AND TABLE_SCHEMA <> ? AND TABLE_SCHEMA LIKE ? ORDER BY TABLE_SCHEMA",
+            String.class, commonSchemaName, prefix + "%");
+    }
+}
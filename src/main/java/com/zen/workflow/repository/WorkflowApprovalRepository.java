@@ -0,0 +1,585 @@
+package com.zen.workflow.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zen.workflow.model.WorkflowApproval;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC access to workflow_approvals and workflow_approval_assignments in the common schema.
+ * Inbox pages are read by keyset on (created_at, approval_id) through the approver
+ * inbox index; state changes are conditional on the current status, so a row only
+ * ever leaves PENDING once.
+ *
+ * Quorum: a vote increments the active step's counter, then a single conditional
+ * UPDATE checks the policy against the counters and moves the approval on. The
+ * increment holds the row lock until commit, so votes on one approval serialize
+ * on that row and exactly one of them sees the quorum reached.
+ */
+@Slf4j
+@Repository
+public class WorkflowApprovalRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.schema.common:common}")
+    private String commonSchemaName;
+
+    public WorkflowApprovalRepository(DataSource dataSource, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+    }
+
+    public Long insert(WorkflowApproval approval) {
+        String sql = String.format(
+            "INSERT INTO %s.workflow_approvals " +
+            "(tenant_id, execution_id, node_id, approval_type, status, current_step, step_count, required_approvals, " +
+            "step_approvers, request_data, expires_at, next_reminder_at, reminder_interval_minutes, escalate_to) " +
+            "VALUES (?, ?, ?, ?, 'PENDING', 0, ?, ?, ?, ?, ?, ?, ?, ?)", commonSchemaName);
+
+        String requestData = writeJson(approval.getRequestData());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, approval.getTenantId());
+            ps.setLong(2, approval.getExecutionId());
+            ps.setString(3, approval.getNodeId());
+            ps.setString(4, approval.getApprovalType());
+            ps.setInt(5, approval.getStepCount());
+            ps.setInt(6, approval.getRequiredApprovals());
+            ps.setInt(7, approval.getStepApprovers());
+            ps.setString(8, requestData);
+            ps.setTimestamp(9, toTimestamp(approval.getExpiresAt()));
+            ps.setTimestamp(10, toTimestamp(approval.getNextReminderAt()));
+            if (approval.getReminderIntervalMinutes() != null) {
+                ps.setInt(11, approval.getReminderIntervalMinutes());
+            } else {
+                ps.setNull(11, Types.INTEGER);
+            }
+            ps.setString(12, writeIds(approval.getEscalateTo()));
+            return ps;
+        }, keyHolder);
+
+        return keyHolder.getKey() != null ? keyHolder.getKey().longValue() : null;
+    }
+
+    /**
+     * Add the approvers of every step; the first step goes straight to the approvers' inboxes
+     */
+    public void insertAssignments(String tenantId, Long approvalId, List<List<Long>> steps) {
+        String sql = String.format(
+            "INSERT IGNORE INTO %s.workflow_approval_assignments (approval_id, approver_id, tenant_id, step, status) " +
+            "VALUES (?, ?, ?, ?, ?)", commonSchemaName);
+
+        List<Object[]> args = new ArrayList<>();
+        for (int step = 0; step < steps.size(); step++) {
+            String status = step == 0 ? WorkflowApproval.STATUS_PENDING : WorkflowApproval.ASSIGNMENT_WAITING;
+            for (Long approverId : steps.get(step)) {
+                args.add(new Object[]{approvalId, approverId, tenantId, step, status});
+            }
+        }
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    public WorkflowApproval findById(String tenantId, Long id) {
+        String sql = String.format("SELECT * FROM %s.workflow_approvals WHERE id = ? AND tenant_id = ?", commonSchemaName);
+        List<WorkflowApproval> rows = jdbcTemplate.query(sql, rowMapper(), id, tenantId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public List<WorkflowApproval> findByExecution(String tenantId, Long executionId, boolean pendingOnly) {
+        String sql = String.format(
+            "SELECT * FROM %s.workflow_approvals WHERE tenant_id = ? AND execution_id = ?%s ORDER BY id",
+            commonSchemaName, pendingOnly ? " AND status = 'PENDING'" : "");
+        return jdbcTemplate.query(sql, rowMapper(), tenantId, executionId);
+    }
+
+    public List<Map<String, Object>> findAssignments(Long approvalId) {
+        String sql = String.format(
+            "SELECT approver_id, step, status, comments, created_at, responded_at " +
+            "FROM %s.workflow_approval_assignments WHERE approval_id = ? ORDER BY step, approver_id",
+            commonSchemaName);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Map<String, Object> assignment = new LinkedHashMap<>();
+            assignment.put("approverId", rs.getLong("approver_id"));
+            assignment.put("step", rs.getInt("step"));
+            assignment.put("status", rs.getString("status"));
+            assignment.put("comments", rs.getString("comments"));
+            assignment.put("createdAt", toLocalDateTime(rs.getTimestamp("created_at")));
+            assignment.put("respondedAt", toLocalDateTime(rs.getTimestamp("responded_at")));
+            return assignment;
+        }, approvalId);
+    }
+
+    public List<Long> findApprovers(Long approvalId, String status) {
+        String sql = String.format(
+            "SELECT approver_id FROM %s.workflow_approval_assignments WHERE approval_id = ? AND status = ?",
+            commonSchemaName);
+        return jdbcTemplate.queryForList(sql, Long.class, approvalId, status);
+    }
+
+    /**
+     * Record an approver's answer on the given step
+     *
+     * @return false when the approver has no pending assignment on that step
+     */
+    public boolean respond(String tenantId, Long approvalId, Long approverId, int step, String status, String comments) {
+        String sql = String.format(
+            "UPDATE %s.workflow_approval_assignments SET status = ?, comments = ?, responded_at = NOW(3) " +
+            "WHERE approval_id = ? AND approver_id = ? AND step = ? AND status = 'PENDING' AND tenant_id = ?",
+            commonSchemaName);
+        return jdbcTemplate.update(sql, status, comments, approvalId, approverId, step, tenantId) == 1;
+    }
+
+    public int countStepApprovers(Long approvalId, int step) {
+        String sql = String.format(
+            "SELECT COUNT(*) FROM %s.workflow_approval_assignments WHERE approval_id = ? AND step = ?",
+            commonSchemaName);
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, approvalId, step);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Count a vote on the active step
+     *
+     * @return false when the approval was decided or moved past that step meanwhile
+     */
+    public boolean countVote(String tenantId, Long approvalId, int step, boolean approved) {
+        String counter = approved ? "approved_count" : "rejected_count";
+        String sql = String.format(
+            "UPDATE %s.workflow_approvals SET %s = %s + 1 " +
+            "WHERE id = ? AND tenant_id = ? AND status = 'PENDING' AND current_step = ?", commonSchemaName, counter, counter);
+        return jdbcTemplate.update(sql, approvalId, tenantId, step) == 1;
+    }
+
+    /**
+     * Approve once the last step has its required approvals
+     *
+     * @return true for the one caller that moved the approval to APPROVED
+     */
+    public boolean approveIfQuorum(Long approvalId, int step) {
+        String sql = String.format(
+            "UPDATE %s.workflow_approvals SET status = 'APPROVED', resolved_at = NOW(3), next_reminder_at = NULL " +
+            "WHERE id = ? AND status = 'PENDING' AND current_step = ? AND current_step = step_count - 1 " +
+            "AND approved_count >= required_approvals", commonSchemaName);
+        return jdbcTemplate.update(sql, approvalId, step) == 1;
+    }
+
+    /**
+     * Move on to the next step once the active one has its required approvals
+     *
+     * @param nextApprovers approvers of the next step, all of whom are required
+     * @return true for the one caller that advanced the step
+     */
+    public boolean advanceIfQuorum(Long approvalId, int step, int nextApprovers) {
+        String sql = String.format(
+            "UPDATE %s.workflow_approvals SET current_step = current_step + 1, required_approvals = ?, " +
+            "step_approvers = ?, approved_count = 0, rejected_count = 0 " +
+            "WHERE id = ? AND status = 'PENDING' AND current_step = ? AND current_step < step_count - 1 " +
+            "AND approved_count >= required_approvals", commonSchemaName);
+        return jdbcTemplate.update(sql, nextApprovers, nextApprovers, approvalId, step) == 1;
+    }
+
+    /**
+     * Reject once too many approvers of the active step said no for the quorum to be reachable
+     *
+     * @return true for the one caller that moved the approval to REJECTED
+     */
+    public boolean rejectIfQuorumLost(Long approvalId, int step) {
+        String sql = String.format(
+            "UPDATE %s.workflow_approvals SET status = 'REJECTED', resolved_at = NOW(3), next_reminder_at = NULL " +
+            "WHERE id = ? AND status = 'PENDING' AND current_step = ? " +
+            "AND rejected_count > step_approvers - required_approvals", commonSchemaName);
+        return jdbcTemplate.update(sql, approvalId, step) == 1;
+    }
+
+    /**
+     * Move the next step's approvers into their inboxes
+     *
+     * @return the approvers activated
+     */
+    public List<Long> activateStep(Long approvalId, int step) {
+        String select = String.format(
+            "SELECT approver_id FROM %s.workflow_approval_assignments WHERE approval_id = ? AND step = ? AND status = 'WAITING'",
+            commonSchemaName);
+        String update = String.format(
+            "UPDATE %s.workflow_approval_assignments SET status = 'PENDING', created_at = NOW(3) " +
+            "WHERE approval_id = ? AND step = ? AND status = 'WAITING'", commonSchemaName);
+
+        List<Long> approvers = jdbcTemplate.queryForList(select, Long.class, approvalId, step);
+        jdbcTemplate.update(update, approvalId, step);
+        return approvers;
+    }
+
+    /**
+     * Take the assignments nobody answered on a completed step out of the inboxes,
+     * escalation approvers included
+     *
+     * @return the approvers whose assignment was closed
+     */
+    public List<Long> closeStep(Long approvalId, int step) {
+        String select = String.format(
+            "SELECT approver_id FROM %s.workflow_approval_assignments WHERE approval_id = ? AND step = ? AND status = 'PENDING'",
+            commonSchemaName);
+        String update = String.format(
+            "UPDATE %s.workflow_approval_assignments SET status = 'SKIPPED' " +
+            "WHERE approval_id = ? AND step = ? AND status = 'PENDING'", commonSchemaName);
+
+        List<Long> approvers = jdbcTemplate.queryForList(select, Long.class, approvalId, step);
+        jdbcTemplate.update(update, approvalId, step);
+        return approvers;
+    }
+
+    /**
+     * Take every still-pending assignment out of the inboxes once the approval is decided
+     *
+     * @return the approvers whose assignment was closed
+     */
+    public List<Long> closePending(Long approvalId) {
+        List<Long> approvers = findApprovers(approvalId, WorkflowApproval.STATUS_PENDING);
+        String sql = String.format(
+            "UPDATE %s.workflow_approval_assignments SET status = 'SKIPPED' " +
+            "WHERE approval_id = ? AND status IN ('PENDING', 'WAITING')", commonSchemaName);
+        jdbcTemplate.update(sql, approvalId);
+        return approvers;
+    }
+
+    /**
+     * Move a pending approval to its final status
+     *
+     * @return false when it was already decided
+     */
+    public boolean resolve(String tenantId, Long approvalId, String status) {
+        String sql = String.format(
+            "UPDATE %s.workflow_approvals SET status = ?, resolved_at = NOW(3), next_reminder_at = NULL " +
+            "WHERE id = ? AND tenant_id = ? AND status = 'PENDING'",
+            commonSchemaName);
+        return jdbcTemplate.update(sql, status, approvalId, tenantId) == 1;
+    }
+
+    /**
+     * One inbox page, newest first, strictly after the (createdAt, approvalId) cursor when given
+     */
+    public List<Map<String, Object>> findInbox(String tenantId, Long approverId, String status,
+                                               Timestamp beforeCreatedAt, Long beforeApprovalId, int limit) {
+        StringBuilder sql = new StringBuilder(String.format(
+            "SELECT a.approval_id, a.step, a.status, a.created_at, a.responded_at, a.comments, " +
+            "p.execution_id, p.node_id, p.approval_type, p.status AS approval_status, p.request_data, p.expires_at " +
+            "FROM %s.workflow_approval_assignments a JOIN %s.workflow_approvals p ON p.id = a.approval_id " +
+            "WHERE a.tenant_id = ? AND a.approver_id = ? AND a.status = ?",
+            commonSchemaName, commonSchemaName));
+        List<Object> args = new ArrayList<>();
+        args.add(tenantId);
+        args.add(approverId);
+        args.add(status);
+        if (beforeCreatedAt != null && beforeApprovalId != null) {
+            sql.append(" AND (a.created_at < ? OR (a.created_at = ? AND a.approval_id < ?))");
+            args.add(beforeCreatedAt);
+            args.add(beforeCreatedAt);
+            args.add(beforeApprovalId);
+        }
+        sql.append(" ORDER BY a.created_at DESC, a.approval_id DESC LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("approvalId", rs.getLong("approval_id"));
+            item.put("workflowExecutionId", rs.getLong("execution_id"));
+            item.put("nodeId", rs.getString("node_id"));
+            item.put("approvalType", rs.getString("approval_type"));
+            item.put("approvalStatus", rs.getString("approval_status"));
+            item.put("step", rs.getInt("step"));
+            item.put("status", rs.getString("status"));
+            item.put("comments", rs.getString("comments"));
+            item.put("requestData", readJson(rs.getString("request_data")));
+            item.put("createdAt", rs.getTimestamp("created_at"));
+            item.put("respondedAt", toLocalDateTime(rs.getTimestamp("responded_at")));
+            item.put("expiresAt", toLocalDateTime(rs.getTimestamp("expires_at")));
+            return item;
+        }, args.toArray());
+    }
+
+    /**
+     * Set the deadlines of a new approval from its node config
+     *
+     * @param timeoutMinutes null for an approval that never expires
+     */
+    public void updateDeadlines(Long approvalId, Integer timeoutMinutes, Integer reminderIntervalMinutes,
+                                LocalDateTime nextReminderAt, List<Long> escalateTo) {
+        String sql = String.format(
+            "UPDATE %s.workflow_approvals SET timeout_minutes = ?, " +
+            "expires_at = IF(? IS NULL, NULL, DATE_ADD(NOW(3), INTERVAL ? MINUTE)), " +
+            "reminder_interval_minutes = ?, next_reminder_at = ?, escalate_to = ? " +
+            "WHERE id = ? AND status = 'PENDING'", commonSchemaName);
+        jdbcTemplate.update(sql, timeoutMinutes, timeoutMinutes, timeoutMinutes, reminderIntervalMinutes,
+            toTimestamp(nextReminderAt), writeIds(escalateTo), approvalId);
+    }
+
+    /**
+     * Claim up to limit approvals whose reminder is due and schedule their next reminder.
+     * Each row is claimed by a compare-and-set on its reminder time, so a reminder is
+     * sent by one instance only.
+     *
+     * @return tenant and pending approver of every claimed approval
+     */
+    public List<Map<String, Object>> claimDueReminders(int limit) {
+        String select = String.format(
+            "SELECT id, next_reminder_at FROM %s.workflow_approvals " +
+            "WHERE status = 'PENDING' AND next_reminder_at <= NOW(3) ORDER BY next_reminder_at, id LIMIT ?",
+            commonSchemaName);
+        String claim = String.format(
+            "UPDATE %s.workflow_approvals " +
+            "SET next_reminder_at = DATE_ADD(NOW(3), INTERVAL reminder_interval_minutes MINUTE) " +
+            "WHERE id = ? AND status = 'PENDING' AND next_reminder_at = ?", commonSchemaName);
+
+        List<Object[]> due = jdbcTemplate.query(select,
+            (rs, rowNum) -> new Object[]{rs.getLong("id"), rs.getTimestamp("next_reminder_at")}, limit);
+        if (due.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int[] counts = jdbcTemplate.batchUpdate(claim, due);
+        List<Object> claimed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                claimed.add(due.get(i)[0]);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String sql = String.format(
+            "SELECT approval_id, tenant_id, approver_id FROM %s.workflow_approval_assignments " +
+            "WHERE approval_id IN (%s) AND status = 'PENDING'",
+            commonSchemaName, String.join(",", Collections.nCopies(claimed.size(), "?")));
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("approvalId", rs.getLong("approval_id"));
+            row.put("tenantId", rs.getString("tenant_id"));
+            row.put("approverId", rs.getLong("approver_id"));
+            return row;
+        }, claimed.toArray());
+    }
+
+    /**
+     * Claim up to limit overdue approvals that have an escalation not yet used, and
+     * restart their deadline with the node's timeout
+     */
+    public List<WorkflowApproval> claimDueEscalations(String claimToken, int limit) {
+        String claim = String.format(
+            "UPDATE %s.workflow_approvals SET escalated_at = NOW(3), " +
+            "expires_at = DATE_ADD(NOW(3), INTERVAL timeout_minutes MINUTE), claim_token = ? " +
+            "WHERE status = 'PENDING' AND expires_at <= NOW(3) AND escalate_to IS NOT NULL AND escalated_at IS NULL " +
+            "ORDER BY expires_at, id LIMIT ?", commonSchemaName);
+        if (jdbcTemplate.update(claim, claimToken, limit) == 0) {
+            return new ArrayList<>();
+        }
+        return findByClaim(claimToken);
+    }
+
+    /**
+     * Expire up to limit overdue approvals that have no escalation left
+     *
+     * @return the approvals this call expired
+     */
+    public List<WorkflowApproval> expireDue(String claimToken, int limit) {
+        String claim = String.format(
+            "UPDATE %s.workflow_approvals SET status = 'EXPIRED', resolved_at = NOW(3), next_reminder_at = NULL, " +
+            "claim_token = ? " +
+            "WHERE status = 'PENDING' AND expires_at <= NOW(3) AND (escalate_to IS NULL OR escalated_at IS NOT NULL) " +
+            "ORDER BY expires_at, id LIMIT ?", commonSchemaName);
+        if (jdbcTemplate.update(claim, claimToken, limit) == 0) {
+            return new ArrayList<>();
+        }
+        return findByClaim(claimToken);
+    }
+
+    /**
+     * Add escalation approvers to the active step of each approval. One approval from
+     * them is then enough to complete the step.
+     *
+     * @return the approvers added, per approval
+     */
+    public Map<Long, List<Long>> addEscalationApprovers(List<WorkflowApproval> approvals) {
+        // Only onto the step that was overdue; one that completed meanwhile has no use for them
+        String insert = String.format(
+            "INSERT IGNORE INTO %s.workflow_approval_assignments (approval_id, approver_id, tenant_id, step, status) " +
+            "SELECT id, ?, tenant_id, current_step, 'PENDING' FROM %s.workflow_approvals " +
+            "WHERE id = ? AND status = 'PENDING' AND current_step = ?", commonSchemaName, commonSchemaName);
+        String update = String.format(
+            "UPDATE %s.workflow_approvals SET step_approvers = step_approvers + ?, " +
+            "required_approvals = LEAST(required_approvals, approved_count + 1) " +
+            "WHERE id = ? AND status = 'PENDING' AND current_step = ?", commonSchemaName);
+
+        List<Object[]> args = new ArrayList<>();
+        List<long[]> keys = new ArrayList<>();
+        Map<Long, Integer> steps = new HashMap<>();
+        for (WorkflowApproval approval : approvals) {
+            steps.put(approval.getId(), approval.getCurrentStep());
+            for (Long approverId : approval.getEscalateTo()) {
+                args.add(new Object[]{approverId, approval.getId(), approval.getCurrentStep()});
+                keys.add(new long[]{approval.getId(), approverId});
+            }
+        }
+        int[] inserted = jdbcTemplate.batchUpdate(insert, args);
+
+        // Approvers already on the step are ignored by the insert and not counted twice
+        Map<Long, List<Long>> added = new HashMap<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] != 0) {
+                added.computeIfAbsent(keys.get(i)[0], k -> new ArrayList<>()).add(keys.get(i)[1]);
+            }
+        }
+        List<Object[]> counts = new ArrayList<>();
+        for (Map.Entry<Long, List<Long>> entry : added.entrySet()) {
+            counts.add(new Object[]{entry.getValue().size(), entry.getKey(), steps.get(entry.getKey())});
+        }
+        jdbcTemplate.batchUpdate(update, counts);
+        return added;
+    }
+
+    /**
+     * Take the still-pending assignments of decided approvals out of the inboxes
+     *
+     * @return the approvers whose assignment was closed, per approval
+     */
+    public Map<Long, List<Long>> closePending(Collection<Long> approvalIds) {
+        if (approvalIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String placeholders = String.join(",", Collections.nCopies(approvalIds.size(), "?"));
+        String select = String.format(
+            "SELECT approval_id, approver_id FROM %s.workflow_approval_assignments " +
+            "WHERE approval_id IN (%s) AND status = 'PENDING'", commonSchemaName, placeholders);
+        String update = String.format(
+            "UPDATE %s.workflow_approval_assignments SET status = 'SKIPPED' " +
+            "WHERE approval_id IN (%s) AND status IN ('PENDING', 'WAITING')", commonSchemaName, placeholders);
+
+        Object[] args = approvalIds.toArray();
+        Map<Long, List<Long>> closed = new HashMap<>();
+        jdbcTemplate.query(select, rs -> {
+            closed.computeIfAbsent(rs.getLong("approval_id"), k -> new ArrayList<>()).add(rs.getLong("approver_id"));
+        }, args);
+        jdbcTemplate.update(update, args);
+        return closed;
+    }
+
+    private List<WorkflowApproval> findByClaim(String claimToken) {
+        String sql = String.format("SELECT * FROM %s.workflow_approvals WHERE claim_token = ? ORDER BY id", commonSchemaName);
+        return jdbcTemplate.query(sql, rowMapper(), claimToken);
+    }
+
+    public long countByApprover(String tenantId, Long approverId, String status) {
+        String sql = String.format(
+            "SELECT COUNT(*) FROM %s.workflow_approval_assignments WHERE tenant_id = ? AND approver_id = ? AND status = ?",
+            commonSchemaName);
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, tenantId, approverId, status);
+        return count != null ? count : 0;
+    }
+
+    private RowMapper<WorkflowApproval> rowMapper() {
+        return (rs, rowNum) -> mapApproval(rs);
+    }
+
+    private WorkflowApproval mapApproval(ResultSet rs) throws SQLException {
+        WorkflowApproval approval = new WorkflowApproval();
+        approval.setId(rs.getLong("id"));
+        approval.setTenantId(rs.getString("tenant_id"));
+        approval.setExecutionId(rs.getLong("execution_id"));
+        approval.setNodeId(rs.getString("node_id"));
+        approval.setApprovalType(rs.getString("approval_type"));
+        approval.setStatus(rs.getString("status"));
+        approval.setCurrentStep(rs.getInt("current_step"));
+        approval.setStepCount(rs.getInt("step_count"));
+        approval.setRequiredApprovals(rs.getInt("required_approvals"));
+        approval.setStepApprovers(rs.getInt("step_approvers"));
+        approval.setApprovedCount(rs.getInt("approved_count"));
+        approval.setRejectedCount(rs.getInt("rejected_count"));
+        approval.setRequestData(readJson(rs.getString("request_data")));
+        approval.setRequestedAt(toLocalDateTime(rs.getTimestamp("requested_at")));
+        approval.setExpiresAt(toLocalDateTime(rs.getTimestamp("expires_at")));
+        int timeoutMinutes = rs.getInt("timeout_minutes");
+        approval.setTimeoutMinutes(rs.wasNull() ? null : timeoutMinutes);
+        approval.setNextReminderAt(toLocalDateTime(rs.getTimestamp("next_reminder_at")));
+        int reminderInterval = rs.getInt("reminder_interval_minutes");
+        approval.setReminderIntervalMinutes(rs.wasNull() ? null : reminderInterval);
+        approval.setEscalateTo(readIds(rs.getString("escalate_to")));
+        approval.setEscalatedAt(toLocalDateTime(rs.getTimestamp("escalated_at")));
+        approval.setResolvedAt(toLocalDateTime(rs.getTimestamp("resolved_at")));
+        return approval;
+    }
+
+    private Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime != null ? Timestamp.valueOf(dateTime) : null;
+    }
+
+    private String writeIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return null;
+        }
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private List<Long> readIds(String value) {
+        if (value == null || value.isBlank()) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(value.split(","))
+            .map(String::trim)
+            .filter(id -> !id.isEmpty())
+            .map(Long::valueOf)
+            .collect(Collectors.toList());
+    }
+
+    private LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private String writeJson(Map<String, Object> data) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialize approval request data", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, Map.class);
+        } catch (Exception e) {
+            log.warn("Unreadable approval request data: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+}
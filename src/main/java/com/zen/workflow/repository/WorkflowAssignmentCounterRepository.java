@@ -0,0 +1,104 @@
+package com.zen.workflow.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to the lead assignment tables in the common schema.
+ * Counter blocks are leased with a compare-and-set UPDATE on next_value, so
+ * concurrent instances never receive overlapping blocks.
+ */
+@Repository
+public class WorkflowAssignmentCounterRepository {
+
+    private static final int MAX_LEASE_ATTEMPTS = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.schema.common:common}")
+    private String commonSchemaName;
+
+    public WorkflowAssignmentCounterRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Lease the next blockSize counter values
+     *
+     * @return the first value of the block; the block is [start, start + blockSize)
+     */
+    public long leaseBlock(String tenantId, String counterKey, int blockSize) {
+        String insert = String.format(
+            "INSERT IGNORE INTO %s.workflow_assignment_counters (tenant_id, counter_key, next_value) VALUES (?, ?, 0)",
+            commonSchemaName);
+        String select = String.format(
+            "SELECT next_value FROM %s.workflow_assignment_counters WHERE tenant_id = ? AND counter_key = ?",
+            commonSchemaName);
+        String update = String.format(
+            "UPDATE %s.workflow_assignment_counters SET next_value = ? " +
+            "WHERE tenant_id = ? AND counter_key = ? AND next_value = ?", commonSchemaName);
+
+        jdbcTemplate.update(insert, tenantId, counterKey);
+        for (int attempt = 0; attempt < MAX_LEASE_ATTEMPTS; attempt++) {
+            Long start = jdbcTemplate.queryForObject(select, Long.class, tenantId, counterKey);
+            if (jdbcTemplate.update(update, start + blockSize, tenantId, counterKey, start) == 1) {
+                return start;
+            }
+        }
+        throw new RuntimeException("Could not lease assignment counter block for " + counterKey);
+    }
+
+    public void resetCounter(String tenantId, String counterKey) {
+        String sql = String.format(
+            "UPDATE %s.workflow_assignment_counters SET next_value = 0 WHERE tenant_id = ? AND counter_key = ?",
+            commonSchemaName);
+        jdbcTemplate.update(sql, tenantId, counterKey);
+    }
+
+    /**
+     * Add per-user open-lead deltas; counts never go below zero
+     */
+    public void addWorkload(String tenantId, Map<Long, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        String sql = String.format(
+            "INSERT INTO %s.workflow_assignment_workload (tenant_id, user_id, open_leads) VALUES (?, ?, GREATEST(0, ?)) " +
+            "ON DUPLICATE KEY UPDATE open_leads = GREATEST(0, open_leads + ?)",
+            commonSchemaName);
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+            args.add(new Object[]{tenantId, delta.getKey(), delta.getValue(), delta.getValue()});
+        }
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    public Map<Long, Long> findWorkloads(String tenantId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String placeholders = String.join(",", Collections.nCopies(userIds.size(), "?"));
+        String sql = String.format(
+            "SELECT user_id, open_leads FROM %s.workflow_assignment_workload WHERE tenant_id = ? AND user_id IN (%s)",
+            commonSchemaName, placeholders);
+
+        List<Object> args = new ArrayList<>(userIds.size() + 1);
+        args.add(tenantId);
+        args.addAll(userIds);
+
+        Map<Long, Long> loads = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            loads.put(rs.getLong("user_id"), rs.getLong("open_leads"));
+        }, args.toArray());
+        return loads;
+    }
+}
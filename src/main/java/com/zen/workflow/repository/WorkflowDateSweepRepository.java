@@ -0,0 +1,133 @@
+package com.zen.workflow.repository;
+
+import com.zen.workflow.model.DateSweep;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC access to workflow_date_sweeps (common schema) and the keyset scan
+ * over tenant module tables.
+ */
+@Slf4j
+@Repository
+public class WorkflowDateSweepRepository {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_]+");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.schema.common:common}")
+    private String commonSchemaName;
+
+    public WorkflowDateSweepRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Register or update a sweep. The high-water mark is only set on insert, so
+     * re-saving a workflow does not replay or skip records.
+     */
+    public void upsert(DateSweep sweep) {
+        String sql = String.format(
+            "INSERT INTO %s.workflow_date_sweeps (tenant_id, workflow_id, table_name, date_column, offset_days, " +
+            "high_water_date, high_water_id) VALUES (?, ?, ?, ?, ?, ?, 0) " +
+            "ON DUPLICATE KEY UPDATE table_name = VALUES(table_name), date_column = VALUES(date_column), " +
+            "offset_days = VALUES(offset_days)", commonSchemaName);
+        jdbcTemplate.update(sql, sweep.getTenantId(), sweep.getWorkflowId(), sweep.getTableName(),
+            sweep.getDateColumn(), sweep.getOffsetDays(), Timestamp.valueOf(sweep.getHighWaterDate()));
+    }
+
+    public int delete(String tenantId, Long workflowId) {
+        String sql = String.format(
+            "DELETE FROM %s.workflow_date_sweeps WHERE tenant_id = ? AND workflow_id = ?", commonSchemaName);
+        return jdbcTemplate.update(sql, tenantId, workflowId);
+    }
+
+    /**
+     * Page through sweeps by id whose lease is free
+     */
+    public List<DateSweep> findUnlocked(Long afterId, int limit) {
+        String sql = String.format(
+            "SELECT * FROM %s.workflow_date_sweeps WHERE id > ? " +
+            "AND (locked_until IS NULL OR locked_until < NOW(3)) ORDER BY id LIMIT ?", commonSchemaName);
+        return jdbcTemplate.query(sql, rowMapper(), afterId, limit);
+    }
+
+    /**
+     * Take the lease on a sweep; false if another instance holds it
+     */
+    public boolean tryLock(Long sweepId, String owner, long leaseMs) {
+        String sql = String.format(
+            "UPDATE %s.workflow_date_sweeps SET locked_by = ?, locked_until = NOW(3) + INTERVAL ? MICROSECOND " +
+            "WHERE id = ? AND (locked_until IS NULL OR locked_until < NOW(3))", commonSchemaName);
+        return jdbcTemplate.update(sql, owner, leaseMs * 1000, sweepId) == 1;
+    }
+
+    /**
+     * Advance the high-water mark; guarded by the lease owner
+     */
+    public void advance(Long sweepId, String owner, LocalDateTime highWaterDate, Long highWaterId) {
+        String sql = String.format(
+            "UPDATE %s.workflow_date_sweeps SET high_water_date = ?, high_water_id = ?, last_swept_at = NOW(3) " +
+            "WHERE id = ? AND locked_by = ?", commonSchemaName);
+        jdbcTemplate.update(sql, Timestamp.valueOf(highWaterDate), highWaterId, sweepId, owner);
+    }
+
+    public void unlock(Long sweepId, String owner) {
+        String sql = String.format(
+            "UPDATE %s.workflow_date_sweeps SET locked_by = NULL, locked_until = NULL, last_swept_at = NOW(3) " +
+            "WHERE id = ? AND locked_by = ?", commonSchemaName);
+        jdbcTemplate.update(sql, sweepId, owner);
+    }
+
+    /**
+     * Next page of records that became eligible after the high-water mark, using a
+     * range predicate on the date column and (date, id) keyset paging
+     */
+    public List<Map<String, Object>> findEligibleRecords(DateSweep sweep, LocalDateTime upperBound,
+                                                         LocalDateTime afterDate, Long afterId, int limit) {
+        String schema = identifier(sweep.getTenantId());
+        String table = identifier(sweep.getTableName());
+        String column = identifier(sweep.getDateColumn());
+
+        String sql = String.format(
+            "SELECT * FROM %s.%s WHERE %3$s <= ? AND (%3$s > ? OR (%3$s = ? AND id > ?)) " +
+            "ORDER BY %3$s, id LIMIT ?", schema, table, column);
+        Timestamp after = Timestamp.valueOf(afterDate);
+        return jdbcTemplate.queryForList(sql, Timestamp.valueOf(upperBound), after, after, afterId, limit);
+    }
+
+    private String identifier(String name) {
+        if (name == null || !IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid SQL identifier: " + name);
+        }
+        return "`" + name + "`";
+    }
+
+    private RowMapper<DateSweep> rowMapper() {
+        return (rs, rowNum) -> {
+            DateSweep sweep = new DateSweep();
+            sweep.setId(rs.getLong("id"));
+            sweep.setTenantId(rs.getString("tenant_id"));
+            sweep.setWorkflowId(rs.getLong("workflow_id"));
+            sweep.setTableName(rs.getString("table_name"));
+            sweep.setDateColumn(rs.getString("date_column"));
+            sweep.setOffsetDays(rs.getInt("offset_days"));
+            sweep.setHighWaterDate(rs.getTimestamp("high_water_date").toLocalDateTime());
+            sweep.setHighWaterId(rs.getLong("high_water_id"));
+            Timestamp lastSwept = rs.getTimestamp("last_swept_at");
+            sweep.setLastSweptAt(lastSwept != null ? lastSwept.toLocalDateTime() : null);
+            return sweep;
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package com.zen.workflow.repository;
+
+import com.zen.workflow.model.EventSubscription;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC access to workflow_event_subscriptions in the common schema
+ */
+@Repository
+public class WorkflowEventSubscriptionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.schema.common:common}")
+    private String commonSchemaName;
+
+    public WorkflowEventSubscriptionRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public Long insert(EventSubscription subscription) {
+        String sql = String.format(
+            "INSERT INTO %s.workflow_event_subscriptions (tenant_id, execution_id, node_id, event_type, correlation_key, status) " +
+            "VALUES (?, ?, ?, ?, ?, 'WAITING')", commonSchemaName);
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, subscription.getTenantId());
+            ps.setLong(2, subscription.getExecutionId());
+            ps.setString(3, subscription.getNodeId());
+            ps.setString(4, subscription.getEventType());
+            ps.setString(5, subscription.getCorrelationKey());
+            return ps;
+        }, keyHolder);
+
+        return keyHolder.getKey() != null ? keyHolder.getKey().longValue() : null;
+    }
+
+    /**
+     * Page through waiting subscriptions by id
+     */
+    public List<EventSubscription> findWaitingAfter(Long afterId, int limit) {
+        String sql = String.format(
+            "SELECT * FROM %s.workflow_event_subscriptions WHERE status = 'WAITING' AND id > ? ORDER BY id LIMIT ?",
+            commonSchemaName);
+        return jdbcTemplate.query(sql, rowMapper(), afterId, limit);
+    }
+
+    /**
+     * Waiting subscriptions for one event created after the given id, for events
+     * arriving before this instance has loaded subscriptions made on others.
+     * Served by idx_correlation, whose entries carry the id.
+     */
+    public List<EventSubscription> findWaiting(String tenantId, String eventType, String correlationKey, Long afterId) {
+        String sql = String.format(
+            "SELECT * FROM %s.workflow_event_subscriptions " +
+            "WHERE tenant_id = ? AND event_type = ? AND correlation_key = ? AND status = 'WAITING' AND id > ? ORDER BY id",
+            commonSchemaName);
+        return jdbcTemplate.query(sql, rowMapper(), tenantId, eventType, correlationKey, afterId);
+    }
+
+    /**
+     * Claim matched subscriptions in one batch. Returns the ids this caller won;
+     * subscriptions matched or cancelled elsewhere are left out.
+     */
+    public List<Long> claim(List<Long> ids) {
+        String sql = String.format(
+            "UPDATE %s.workflow_event_subscriptions SET status = 'MATCHED', matched_at = NOW(3) " +
+            "WHERE id = ? AND status = 'WAITING'", commonSchemaName);
+
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            args.add(new Object[]{id});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(sql, args);
+
+        List<Long> claimed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 1) {
+                claimed.add(ids.get(i));
+            }
+        }
+        return claimed;
+    }
+
+    public int cancelByExecution(String tenantId, Long executionId) {
+        String sql = String.format(
+            "UPDATE %s.workflow_event_subscriptions SET status = 'CANCELLED' " +
+            "WHERE tenant_id = ? AND execution_id = ? AND status = 'WAITING'", commonSchemaName);
+        return jdbcTemplate.update(sql, tenantId, executionId);
+    }
+
+    private RowMapper<EventSubscription> rowMapper() {
+        return (rs, rowNum) -> {
+            EventSubscription subscription = new EventSubscription();
+            subscription.setId(rs.getLong("id"));
+            subscription.setTenantId(rs.getString("tenant_id"));
+            subscription.setExecutionId(rs.getLong("execution_id"));
+            subscription.setNodeId(rs.getString("node_id"));
+            subscription.setEventType(rs.getString("event_type"));
+            subscription.setCorrelationKey(rs.getString("correlation_key"));
+            return subscription;
+        };
+    }
+}
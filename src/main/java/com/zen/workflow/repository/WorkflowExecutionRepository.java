@@ -1,9 +1,14 @@
 package com.zen.workflow.repository;
 
 import com.zen.entities.tenant.WorkflowExecution;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -14,4 +19,33 @@ public interface WorkflowExecutionRepository extends JpaRepository<WorkflowExecu
     List<WorkflowExecution> findByStatus(String status);
     
     List<WorkflowExecution> findByWorkflowIdAndStatus(Long workflowId, String status);
+    
+    /**
+     * Move a paused execution back to RUNNING. Returns 0 if another caller resumed
+     * (or cancelled) it first, so each pause is resumed exactly once.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkflowExecution e SET e.status = 'RUNNING' WHERE e.id = ?1 AND e.status = 'PAUSED'")
+    int markResumed(Long executionId);
+    
+    @Query("SELECT e.status FROM WorkflowExecution e WHERE e.id = ?1")
+    String findStatusById(Long executionId);
+    
+    /**
+     * Move a failed execution back to RUNNING for a retry. Returns 0 if it is not
+     * FAILED any more, so concurrent retries of the same execution run it once.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkflowExecution e SET e.status = 'RUNNING', e.errorMessage = NULL, e.completedAt = NULL " +
+           "WHERE e.id = ?1 AND e.status = 'FAILED'")
+    int markRetrying(Long executionId);
+    
+    /**
+     * Page through ids of a workflow's executions that failed in [from, to), by id
+     */
+    @Query("SELECT e.id FROM WorkflowExecution e WHERE e.workflowId = ?1 AND e.status = 'FAILED' " +
+           "AND e.completedAt >= ?2 AND e.completedAt < ?3 AND e.id > ?4 ORDER BY e.id")
+    List<Long> findFailedIdsAfter(Long workflowId, LocalDateTime from, LocalDateTime to, Long afterId, Pageable pageable);
 }
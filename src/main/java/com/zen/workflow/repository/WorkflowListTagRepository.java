@@ -0,0 +1,244 @@
+package com.zen.workflow.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * JDBC access to workflow_list_members and workflow_record_tags in the common schema.
+ * Adds are multi-row INSERT IGNORE statements of up to WRITE_CHUNK rows, removes are
+ * one DELETE ... IN per chunk; both return the number of rows that actually changed,
+ * so records already present (or already gone) are not counted.
+ */
+@Slf4j
+@Repository
+public class WorkflowListTagRepository {
+
+    private static final int WRITE_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.schema.common:common}")
+    private String commonSchemaName;
+
+    public WorkflowListTagRepository(DataSource dataSource, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+    }
+
+    // List membership
+
+    public int insertMembers(String tenantId, String listId, String recordType, List<String> recordIds) {
+        int inserted = 0;
+        for (List<String> chunk : chunks(recordIds)) {
+            String sql = String.format(
+                "INSERT IGNORE INTO %s.workflow_list_members (tenant_id, list_id, record_id, record_type) VALUES %s",
+                commonSchemaName, String.join(",", Collections.nCopies(chunk.size(), "(?, ?, ?, ?)")));
+            List<Object> args = new ArrayList<>(chunk.size() * 4);
+            for (String recordId : chunk) {
+                args.add(tenantId);
+                args.add(listId);
+                args.add(recordId);
+                args.add(recordType);
+            }
+            inserted += jdbcTemplate.update(sql, args.toArray());
+        }
+        return inserted;
+    }
+
+    public int deleteMembers(String tenantId, String listId, List<String> recordIds) {
+        int deleted = 0;
+        for (List<String> chunk : chunks(recordIds)) {
+            String sql = String.format(
+                "DELETE FROM %s.workflow_list_members WHERE tenant_id = ? AND list_id = ? AND record_id IN (%s)",
+                commonSchemaName, String.join(",", Collections.nCopies(chunk.size(), "?")));
+            List<Object> args = new ArrayList<>(chunk.size() + 2);
+            args.add(tenantId);
+            args.add(listId);
+            args.addAll(chunk);
+            deleted += jdbcTemplate.update(sql, args.toArray());
+        }
+        return deleted;
+    }
+
+    public boolean isMember(String tenantId, String listId, String recordId) {
+        String sql = String.format(
+            "SELECT COUNT(*) FROM %s.workflow_list_members WHERE tenant_id = ? AND list_id = ? AND record_id = ?",
+            commonSchemaName);
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, tenantId, listId, recordId);
+        return count != null && count > 0;
+    }
+
+    public long countMembers(String tenantId, String listId) {
+        String sql = String.format(
+            "SELECT COUNT(*) FROM %s.workflow_list_members WHERE tenant_id = ? AND list_id = ?", commonSchemaName);
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, tenantId, listId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Stream every record id of a list in primary key order, without materializing the rows
+     */
+    public void scanMemberIds(String tenantId, String listId, Consumer<String> consumer) {
+        String sql = String.format(
+            "SELECT record_id FROM %s.workflow_list_members WHERE tenant_id = ? AND list_id = ? ORDER BY record_id",
+            commonSchemaName);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            // Connector/J streams rows one at a time instead of buffering the whole list
+            statement.setFetchSize(Integer.MIN_VALUE);
+            statement.setString(1, tenantId);
+            statement.setString(2, listId);
+            return statement;
+        }, rs -> {
+            consumer.accept(rs.getString(1));
+        });
+    }
+
+    /**
+     * A page of list members by keyset on record_id, starting after afterRecordId (null for the first page)
+     */
+    public List<Map<String, Object>> findMembers(String tenantId, String listId, String afterRecordId, int limit) {
+        String sql = String.format(
+            "SELECT record_id, record_type, added_at FROM %s.workflow_list_members " +
+            "WHERE tenant_id = ? AND list_id = ? AND record_id > ? ORDER BY record_id LIMIT ?",
+            commonSchemaName);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Map<String, Object> member = new HashMap<>();
+            member.put("listId", listId);
+            member.put("recordId", rs.getString("record_id"));
+            member.put("recordType", rs.getString("record_type"));
+            member.put("addedAt", toDate(rs.getTimestamp("added_at")));
+            return member;
+        }, tenantId, listId, afterRecordId != null ? afterRecordId : "", limit);
+    }
+
+    // Record tags
+
+    /**
+     * Add several tags to one record
+     */
+    public int insertTags(String tenantId, String recordType, String recordId, List<String> tagNames,
+                          Map<String, Object> tagData) {
+        String data = writeJson(tagData);
+        int inserted = 0;
+        for (List<String> chunk : chunks(tagNames)) {
+            String sql = String.format(
+                "INSERT IGNORE INTO %s.workflow_record_tags (tenant_id, record_type, record_id, tag_name, tag_data) VALUES %s",
+                commonSchemaName, String.join(",", Collections.nCopies(chunk.size(), "(?, ?, ?, ?, ?)")));
+            List<Object> args = new ArrayList<>(chunk.size() * 5);
+            for (String tagName : chunk) {
+                args.add(tenantId);
+                args.add(recordType);
+                args.add(recordId);
+                args.add(tagName);
+                args.add(data);
+            }
+            inserted += jdbcTemplate.update(sql, args.toArray());
+        }
+        return inserted;
+    }
+
+    /**
+     * Add one tag to many records
+     */
+    public int insertTagOnRecords(String tenantId, String recordType, List<String> recordIds, String tagName) {
+        int inserted = 0;
+        for (List<String> chunk : chunks(recordIds)) {
+            String sql = String.format(
+                "INSERT IGNORE INTO %s.workflow_record_tags (tenant_id, record_type, record_id, tag_name) VALUES %s",
+                commonSchemaName, String.join(",", Collections.nCopies(chunk.size(), "(?, ?, ?, ?)")));
+            List<Object> args = new ArrayList<>(chunk.size() * 4);
+            for (String recordId : chunk) {
+                args.add(tenantId);
+                args.add(recordType);
+                args.add(recordId);
+                args.add(tagName);
+            }
+            inserted += jdbcTemplate.update(sql, args.toArray());
+        }
+        return inserted;
+    }
+
+    public int deleteTag(String tenantId, String recordType, String recordId, String tagName) {
+        String sql = String.format(
+            "DELETE FROM %s.workflow_record_tags WHERE tenant_id = ? AND record_type = ? AND record_id = ? AND tag_name = ?",
+            commonSchemaName);
+        return jdbcTemplate.update(sql, tenantId, recordType, recordId, tagName);
+    }
+
+    public boolean hasTag(String tenantId, String recordType, String recordId, String tagName) {
+        String sql = String.format(
+            "SELECT COUNT(*) FROM %s.workflow_record_tags " +
+            "WHERE tenant_id = ? AND record_type = ? AND record_id = ? AND tag_name = ?",
+            commonSchemaName);
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, tenantId, recordType, recordId, tagName);
+        return count != null && count > 0;
+    }
+
+    public List<Map<String, Object>> findTags(String tenantId, String recordType, String recordId) {
+        String sql = String.format(
+            "SELECT tag_name, tag_data, added_at FROM %s.workflow_record_tags " +
+            "WHERE tenant_id = ? AND record_type = ? AND record_id = ? ORDER BY tag_name",
+            commonSchemaName);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Map<String, Object> tag = new HashMap<>();
+            tag.put("tagName", rs.getString("tag_name"));
+            tag.put("tagData", readJson(rs.getString("tag_data")));
+            tag.put("recordId", recordId);
+            tag.put("recordType", recordType);
+            tag.put("addedAt", toDate(rs.getTimestamp("added_at")));
+            return tag;
+        }, tenantId, recordType, recordId);
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int start = 0; start < values.size(); start += WRITE_CHUNK) {
+            chunks.add(values.subList(start, Math.min(values.size(), start + WRITE_CHUNK)));
+        }
+        return chunks;
+    }
+
+    private Date toDate(Timestamp timestamp) {
+        return timestamp != null ? new Date(timestamp.getTime()) : null;
+    }
+
+    private String writeJson(Map<String, Object> data) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialize tag data", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, Map.class);
+        } catch (Exception e) {
+            log.warn("Unreadable tag data: {}", e.getMessage());
+            return null;
+        }
+    }
+}
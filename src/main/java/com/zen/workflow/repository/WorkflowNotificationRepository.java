@@ -0,0 +1,72 @@
+package com.zen.workflow.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to workflow_notifications in the common schema. A batch is written
+ * as multi-row INSERTs of up to WRITE_CHUNK rows.
+ */
+@Repository
+public class WorkflowNotificationRepository {
+
+    private static final int WRITE_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.schema.common:common}")
+    private String commonSchemaName;
+
+    public WorkflowNotificationRepository(DataSource dataSource, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * One notification with the same content for each user
+     *
+     * @return rows inserted
+     */
+    public int insertBatch(String tenantId, List<Long> userIds, String title, String message, String type,
+                           Map<String, Object> data) {
+        String json = writeJson(data);
+        int inserted = 0;
+        for (int start = 0; start < userIds.size(); start += WRITE_CHUNK) {
+            List<Long> chunk = userIds.subList(start, Math.min(userIds.size(), start + WRITE_CHUNK));
+            String sql = String.format(
+                "INSERT INTO %s.workflow_notifications (tenant_id, user_id, title, message, type, data) VALUES %s",
+                commonSchemaName, String.join(",", Collections.nCopies(chunk.size(), "(?, ?, ?, ?, ?, ?)")));
+            List<Object> args = new ArrayList<>(chunk.size() * 6);
+            for (Long userId : chunk) {
+                args.add(tenantId);
+                args.add(userId);
+                args.add(title);
+                args.add(message);
+                args.add(type);
+                args.add(json);
+            }
+            inserted += jdbcTemplate.update(sql, args.toArray());
+        }
+        return inserted;
+    }
+
+    private String writeJson(Map<String, Object> data) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialize notification data", e);
+        }
+    }
+}
@@ -18,4 +18,10 @@ public interface WorkflowRepository extends JpaRepository<Workflow, Long> {
     
     @Query("SELECT w FROM Workflow w WHERE w.moduleType = ?1 AND w.isActive = true")
     List<Workflow> findActiveWorkflowsByModule(String moduleType);
+    
+    /**
+     * Stored version only, for checking a cached definition without loading the workflow
+     */
+    @Query("SELECT w.version FROM Workflow w WHERE w.id = ?1")
+    Optional<Integer> findVersionById(Long workflowId);
 }
@@ -0,0 +1,153 @@
+package com.zen.workflow.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zen.workflow.model.WorkflowTimer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to workflow_timers in the common schema.
+ * Timers for all tenants live in one table indexed by (status, due_at).
+ */
+@Slf4j
+@Repository
+public class WorkflowTimerRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.schema.common:common}")
+    private String commonSchemaName;
+
+    public WorkflowTimerRepository(DataSource dataSource, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+    }
+
+    public Long insert(WorkflowTimer timer) {
+        String sql = String.format(
+            "INSERT INTO %s.workflow_timers (tenant_id, execution_id, node_id, timer_type, due_at, payload, status, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 'PENDING', NOW(3))", commonSchemaName);
+
+        String payload = writePayload(timer.getPayload());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, timer.getTenantId());
+            ps.setLong(2, timer.getExecutionId());
+            ps.setString(3, timer.getNodeId());
+            ps.setString(4, timer.getTimerType());
+            ps.setTimestamp(5, Timestamp.valueOf(timer.getDueAt()));
+            ps.setString(6, payload);
+            return ps;
+        }, keyHolder);
+
+        return keyHolder.getKey() != null ? keyHolder.getKey().longValue() : null;
+    }
+
+    /**
+     * Page through pending timers due before the horizon, ordered by (due_at, id).
+     * Pass null cursor values for the first page.
+     */
+    public List<WorkflowTimer> findPendingDueBefore(LocalDateTime horizon, LocalDateTime afterDueAt, Long afterId, int limit) {
+        if (afterDueAt == null) {
+            String sql = String.format(
+                "SELECT * FROM %s.workflow_timers WHERE status = 'PENDING' AND due_at < ? " +
+                "ORDER BY due_at, id LIMIT ?", commonSchemaName);
+            return jdbcTemplate.query(sql, rowMapper(), Timestamp.valueOf(horizon), limit);
+        }
+
+        String sql = String.format(
+            "SELECT * FROM %s.workflow_timers WHERE status = 'PENDING' AND due_at < ? " +
+            "AND (due_at > ? OR (due_at = ? AND id > ?)) ORDER BY due_at, id LIMIT ?", commonSchemaName);
+        Timestamp after = Timestamp.valueOf(afterDueAt);
+        return jdbcTemplate.query(sql, rowMapper(), Timestamp.valueOf(horizon), after, after, afterId, limit);
+    }
+
+    /**
+     * Atomically claim a pending timer; only one instance wins
+     */
+    public boolean claim(Long timerId) {
+        String sql = String.format(
+            "UPDATE %s.workflow_timers SET status = 'FIRED', fired_at = NOW(3) WHERE id = ? AND status = 'PENDING'",
+            commonSchemaName);
+        return jdbcTemplate.update(sql, timerId) == 1;
+    }
+
+    public int cancelByExecution(String tenantId, Long executionId) {
+        String sql = String.format(
+            "UPDATE %s.workflow_timers SET status = 'CANCELLED' " +
+            "WHERE tenant_id = ? AND execution_id = ? AND status = 'PENDING'", commonSchemaName);
+        return jdbcTemplate.update(sql, tenantId, executionId);
+    }
+
+    public int cancelByExecutionAndType(String tenantId, Long executionId, String timerType) {
+        String sql = String.format(
+            "UPDATE %s.workflow_timers SET status = 'CANCELLED' " +
+            "WHERE tenant_id = ? AND execution_id = ? AND timer_type = ? AND status = 'PENDING'", commonSchemaName);
+        return jdbcTemplate.update(sql, tenantId, executionId, timerType);
+    }
+
+    /**
+     * Remove fired and cancelled timers older than the cutoff
+     */
+    public int deleteCompletedBefore(LocalDateTime cutoff, int limit) {
+        String sql = String.format(
+            "DELETE FROM %s.workflow_timers WHERE status IN ('FIRED', 'CANCELLED') AND due_at < ? LIMIT ?",
+            commonSchemaName);
+        return jdbcTemplate.update(sql, Timestamp.valueOf(cutoff), limit);
+    }
+
+    private RowMapper<WorkflowTimer> rowMapper() {
+        return (rs, rowNum) -> {
+            WorkflowTimer timer = new WorkflowTimer();
+            timer.setId(rs.getLong("id"));
+            timer.setTenantId(rs.getString("tenant_id"));
+            timer.setExecutionId(rs.getLong("execution_id"));
+            timer.setNodeId(rs.getString("node_id"));
+            timer.setTimerType(rs.getString("timer_type"));
+            timer.setDueAt(rs.getTimestamp("due_at").toLocalDateTime());
+            timer.setStatus(rs.getString("status"));
+            timer.setPayload(readPayload(rs.getString("payload")));
+            return timer;
+        };
+    }
+
+    private String writePayload(Map<String, Object> payload) {
+        if (payload == null || payload.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialize timer payload", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readPayload(String json) {
+        if (json == null || json.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, Map.class);
+        } catch (Exception e) {
+            log.warn("Unreadable timer payload: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.zen.workflow.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zen.workflow.model.WebhookDelivery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to workflow_webhook_deliveries in the common schema.
+ * Rows are claimed in batches with a conditional UPDATE tagged by a claim token,
+ * so several instances can poll the queue without delivering a row twice.
+ */
+@Slf4j
+@Repository
+public class WorkflowWebhookDeliveryRepository {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.schema.common:common}")
+    private String commonSchemaName;
+
+    public WorkflowWebhookDeliveryRepository(DataSource dataSource, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+    }
+
+    public Long insert(WebhookDelivery delivery) {
+        String sql = String.format(
+            "INSERT INTO %s.workflow_webhook_deliveries " +
+            "(tenant_id, execution_id, url, headers, encrypted_secrets, payload, batch_key, status, attempts, " +
+            "max_attempts, next_attempt_at) VALUES (?, ?, ?, ?, ?, ?, ?, 'PENDING', 0, ?, ?)", commonSchemaName);
+
+        String headers = writeHeaders(delivery.getHeaders());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, delivery.getTenantId());
+            if (delivery.getExecutionId() != null) {
+                ps.setLong(2, delivery.getExecutionId());
+            } else {
+                ps.setNull(2, Types.BIGINT);
+            }
+            ps.setString(3, delivery.getUrl());
+            ps.setString(4, headers);
+            ps.setString(5, delivery.getEncryptedSecrets());
+            ps.setString(6, delivery.getPayload());
+            ps.setString(7, delivery.getBatchKey());
+            ps.setInt(8, delivery.getMaxAttempts());
+            ps.setTimestamp(9, Timestamp.valueOf(delivery.getNextAttemptAt()));
+            return ps;
+        }, keyHolder);
+
+        return keyHolder.getKey() != null ? keyHolder.getKey().longValue() : null;
+    }
+
+    /**
+     * Claim up to limit due deliveries for this poll round and return them
+     */
+    public List<WebhookDelivery> claimDue(String claimToken, LocalDateTime lockedUntil, int limit) {
+        String claim = String.format(
+            "UPDATE %s.workflow_webhook_deliveries SET status = 'IN_FLIGHT', claim_token = ?, locked_until = ? " +
+            "WHERE status = 'PENDING' AND next_attempt_at <= NOW(3) ORDER BY next_attempt_at, id LIMIT ?",
+            commonSchemaName);
+        if (jdbcTemplate.update(claim, claimToken, Timestamp.valueOf(lockedUntil), limit) == 0) {
+            return new ArrayList<>();
+        }
+
+        String sql = String.format(
+            "SELECT * FROM %s.workflow_webhook_deliveries WHERE claim_token = ? AND status = 'IN_FLIGHT' ORDER BY id",
+            commonSchemaName);
+        return jdbcTemplate.query(sql, rowMapper(), claimToken);
+    }
+
+    public int markDelivered(List<Long> ids, Integer statusCode) {
+        String sql = String.format(
+            "UPDATE %s.workflow_webhook_deliveries SET status = 'DELIVERED', attempts = attempts + 1, " +
+            "last_status_code = ?, last_error = NULL, delivered_at = NOW(3), claim_token = NULL, locked_until = NULL " +
+            "WHERE id = ? AND status = 'IN_FLIGHT'", commonSchemaName);
+        return sum(jdbcTemplate.batchUpdate(sql, args(ids, statusCode)));
+    }
+
+    /**
+     * Return deliveries to the queue for another attempt
+     *
+     * @param countAttempt false when the call never reached the endpoint (circuit open)
+     */
+    public int reschedule(List<Long> ids, LocalDateTime nextAttemptAt, boolean countAttempt, Integer statusCode, String error) {
+        String sql = String.format(
+            "UPDATE %s.workflow_webhook_deliveries SET status = 'PENDING', attempts = attempts + ?, next_attempt_at = ?, " +
+            "last_status_code = ?, last_error = ?, claim_token = NULL, locked_until = NULL " +
+            "WHERE id = ? AND status = 'IN_FLIGHT'", commonSchemaName);
+
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            args.add(new Object[]{countAttempt ? 1 : 0, Timestamp.valueOf(nextAttemptAt), statusCode, truncate(error), id});
+        }
+        return sum(jdbcTemplate.batchUpdate(sql, args));
+    }
+
+    public int markDead(List<Long> ids, Integer statusCode, String error) {
+        String sql = String.format(
+            "UPDATE %s.workflow_webhook_deliveries SET status = 'DEAD', attempts = attempts + 1, " +
+            "last_status_code = ?, last_error = ?, claim_token = NULL, locked_until = NULL " +
+            "WHERE id = ? AND status = 'IN_FLIGHT'", commonSchemaName);
+
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            args.add(new Object[]{statusCode, truncate(error), id});
+        }
+        return sum(jdbcTemplate.batchUpdate(sql, args));
+    }
+
+    /**
+     * Return IN_FLIGHT rows whose poller died to the queue
+     */
+    public int releaseExpiredLeases() {
+        String sql = String.format(
+            "UPDATE %s.workflow_webhook_deliveries SET status = 'PENDING', claim_token = NULL, locked_until = NULL " +
+            "WHERE status = 'IN_FLIGHT' AND locked_until < NOW(3)", commonSchemaName);
+        return jdbcTemplate.update(sql);
+    }
+
+    /**
+     * Page through a tenant's dead-lettered deliveries, newest first
+     */
+    public List<WebhookDelivery> findDead(String tenantId, Long beforeId, int limit) {
+        String sql = String.format(
+            "SELECT * FROM %s.workflow_webhook_deliveries WHERE tenant_id = ? AND status = 'DEAD' AND id < ? " +
+            "ORDER BY id DESC LIMIT ?", commonSchemaName);
+        return jdbcTemplate.query(sql, rowMapper(), tenantId, beforeId != null ? beforeId : Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * Put a dead-lettered delivery back in the queue with a fresh attempt budget
+     */
+    public boolean requeueDead(String tenantId, Long id) {
+        String sql = String.format(
+            "UPDATE %s.workflow_webhook_deliveries SET status = 'PENDING', attempts = 0, next_attempt_at = NOW(3) " +
+            "WHERE id = ? AND tenant_id = ? AND status = 'DEAD'", commonSchemaName);
+        return jdbcTemplate.update(sql, id, tenantId) == 1;
+    }
+
+    /**
+     * Remove delivered rows older than the cutoff
+     */
+    public int deleteDeliveredBefore(LocalDateTime cutoff, int limit) {
+        String sql = String.format(
+            "DELETE FROM %s.workflow_webhook_deliveries WHERE status = 'DELIVERED' AND delivered_at < ? LIMIT ?",
+            commonSchemaName);
+        return jdbcTemplate.update(sql, Timestamp.valueOf(cutoff), limit);
+    }
+
+    private List<Object[]> args(List<Long> ids, Object value) {
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            args.add(new Object[]{value, id});
+        }
+        return args;
+    }
+
+    private int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += Math.max(count, 0);
+        }
+        return total;
+    }
+
+    private String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private RowMapper<WebhookDelivery> rowMapper() {
+        return (rs, rowNum) -> {
+            WebhookDelivery delivery = new WebhookDelivery();
+            delivery.setId(rs.getLong("id"));
+            delivery.setTenantId(rs.getString("tenant_id"));
+            long executionId = rs.getLong("execution_id");
+            delivery.setExecutionId(rs.wasNull() ? null : executionId);
+            delivery.setUrl(rs.getString("url"));
+            delivery.setHeaders(readHeaders(rs.getString("headers")));
+            delivery.setEncryptedSecrets(rs.getString("encrypted_secrets"));
+            delivery.setPayload(rs.getString("payload"));
+            delivery.setBatchKey(rs.getString("batch_key"));
+            delivery.setStatus(rs.getString("status"));
+            delivery.setAttempts(rs.getInt("attempts"));
+            delivery.setMaxAttempts(rs.getInt("max_attempts"));
+            delivery.setNextAttemptAt(rs.getTimestamp("next_attempt_at").toLocalDateTime());
+            int statusCode = rs.getInt("last_status_code");
+            delivery.setLastStatusCode(rs.wasNull() ? null : statusCode);
+            delivery.setLastError(rs.getString("last_error"));
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            delivery.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+            Timestamp deliveredAt = rs.getTimestamp("delivered_at");
+            delivery.setDeliveredAt(deliveredAt != null ? deliveredAt.toLocalDateTime() : null);
+            return delivery;
+        };
+    }
+
+    private String writeHeaders(Map<String, String> headers) {
+        if (headers == null || headers.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(headers);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialize webhook headers", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> readHeaders(String json) {
+        if (json == null || json.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, Map.class);
+        } catch (Exception e) {
+            log.warn("Unreadable webhook headers: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+}
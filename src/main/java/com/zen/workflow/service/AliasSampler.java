@@ -0,0 +1,94 @@
+package com.zen.workflow.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted random choice of a user id in O(1), using Vose's alias method.
+ *
+ * Built once from the weights in O(n): every column of the table holds the
+ * probability of keeping its own user and the user it aliases to otherwise, so a
+ * draw is one random column and one random comparison. Users are laid out by id,
+ * so the same weights always give the same table. Immutable and thread-safe.
+ */
+public class AliasSampler {
+
+    private final long[] userIds;
+    private final double[] probability;
+    private final int[] alias;
+
+    private AliasSampler(long[] userIds, double[] probability, int[] alias) {
+        this.userIds = userIds;
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    /**
+     * Build from user id to weight; ids may be numbers or numeric strings (JSON keys).
+     * Non-positive and non-numeric weights are left out.
+     *
+     * @return null when no user has a positive weight
+     */
+    public static AliasSampler build(Map<?, ?> weights) {
+        TreeMap<Long, Double> positive = new TreeMap<>();
+        for (Map.Entry<?, ?> entry : weights.entrySet()) {
+            Long userId = UserIds.parse(entry.getKey());
+            Object weight = entry.getValue();
+            if (userId != null && weight instanceof Number && ((Number) weight).doubleValue() > 0) {
+                positive.merge(userId, ((Number) weight).doubleValue(), Double::sum);
+            }
+        }
+        int n = positive.size();
+        if (n == 0) {
+            return null;
+        }
+
+        long[] userIds = new long[n];
+        double[] scaled = new double[n];
+        double total = positive.values().stream().mapToDouble(Double::doubleValue).sum();
+        int i = 0;
+        for (Map.Entry<Long, Double> entry : positive.entrySet()) {
+            userIds[i] = entry.getKey();
+            scaled[i] = entry.getValue() * n / total;
+            i++;
+        }
+
+        double[] probability = new double[n];
+        int[] alias = new int[n];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (i = 0; i < n; i++) {
+            (scaled[i] < 1.0 ? small : large).push(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            (scaled[more] < 1.0 ? small : large).push(more);
+        }
+        // Whatever is left is 1 up to rounding error
+        while (!large.isEmpty()) {
+            probability[large.pop()] = 1.0;
+        }
+        while (!small.isEmpty()) {
+            probability[small.pop()] = 1.0;
+        }
+
+        return new AliasSampler(userIds, probability, alias);
+    }
+
+    public long sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int column = random.nextInt(userIds.length);
+        return random.nextDouble() < probability[column] ? userIds[column] : userIds[alias[column]];
+    }
+
+    public int size() {
+        return userIds.length;
+    }
+}
@@ -1,29 +1,79 @@
 package com.zen.workflow.service;
 
+import com.zen.workflow.config.TenantContext;
+import com.zen.workflow.engine.ApprovalDecidedEvent;
+import com.zen.workflow.model.WorkflowApproval;
+import com.zen.workflow.repository.WorkflowApprovalRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * Service for managing approval workflows
  * Supports single, multi-step, and parallel approvals
+ *
+ * Approvals are stored in workflow_approvals with one assignment row per approver
+ * and step. Pending counts per approver are cached and adjusted on every state
+ * transition made by this instance, and re-read after the cache TTL so changes made
+ * by other instances show up.
+ *
+ * Quorum is tracked with atomic counters on the approval row (see
+ * WorkflowApprovalRepository). The vote that reaches or loses the quorum is the only
+ * one whose conditional UPDATE succeeds, and only it publishes the
+ * ApprovalDecidedEvent that resumes the paused execution.
  */
 @Slf4j
 @Service
 public class ApprovalService {
 
+    private static final String DEFAULT_TENANT = "default";
+    private static final int MAX_PENDING_COUNT_CACHE = 10000;
+    private static final int MAX_INBOX_PAGE_SIZE = 200;
+
+    @Autowired
+    private WorkflowApprovalRepository approvalRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Lazy
+    private NotificationService notificationService;
+
     @Value("${workflow.approval.enabled:true}")
     private boolean approvalEnabled;
 
     @Value("${workflow.approval.timeout-hours:72}")
     private int defaultTimeoutHours;
 
+    @Value("${workflow.approval.reminder-hours:24}")
+    private int defaultReminderHours;
+
+    @Value("${workflow.approval.inbox-page-size:50}")
+    private int defaultInboxPageSize;
+
+    @Value("${workflow.approval.pending-count-ttl-ms:30000}")
+    private long pendingCountTtlMs;
+
+    private final Map<String, PendingCount> pendingCounts = new ConcurrentHashMap<>();
+
     /**
      * Create approval request
      */
+    @Transactional
     public Map<String, Object> createApprovalRequest(Long workflowExecutionId, String nodeId,
                                                       List<Long> approverIds, String approvalType,
                                                       Map<String, Object> requestData) {
@@ -32,100 +82,109 @@ public class ApprovalService {
             return Map.of("created", false, "reason", "Approval service disabled");
         }
 
-        try {
-            log.info("Creating {} approval request for execution {} with {} approvers",
-                approvalType, workflowExecutionId, approverIds.size());
-
-            // In production, save to workflow_approvals table
-            Map<String, Object> approval = new HashMap<>();
-            approval.put("id", generateId());
-            approval.put("workflowExecutionId", workflowExecutionId);
-            approval.put("nodeId", nodeId);
-            approval.put("approvalType", approvalType);
-            approval.put("requiredApprovers", approverIds);
-            approval.put("approvedBy", new ArrayList<>());
-            approval.put("status", "PENDING");
-            approval.put("requestData", requestData);
-            approval.put("requestedAt", new Date());
-            approval.put("expiresAt", calculateExpiryDate(defaultTimeoutHours));
-
-            log.info("Approval request created with ID: {}", approval.get("id"));
-            return approval;
+        // Every listed approver has to sign off
+        List<Long> approvers = distinct(approverIds);
+        log.info("Creating {} approval request for execution {} with {} approvers",
+            approvalType, workflowExecutionId, approvers.size());
+        WorkflowApproval approval = save(workflowExecutionId, nodeId, approvalType,
+            List.of(approvers), approvers.size(), requestData);
 
-        } catch (Exception e) {
-            log.error("Failed to create approval request", e);
-            return Map.of(
-                "created", false,
-                "error", e.getMessage()
-            );
-        }
+        Map<String, Object> result = toMap(approval);
+        result.put("requiredApprovers", approverIds);
+        result.put("approvedBy", new ArrayList<>());
+
+        log.info("Approval request created with ID: {}", approval.getId());
+        return result;
     }
 
     /**
      * Approve request
      */
-    public Map<String, Object> approve(Long approvalId, Long approverId, String comments) {
+    @Transactional
+    public Map<String, Object> approve(String tenantId, Long approvalId, Long approverId, String comments) {
         if (!approvalEnabled) {
             return Map.of("approved", false, "reason", "Approval service disabled");
         }
 
-        try {
-            log.info("User {} approving request {}", approverId, approvalId);
-
-            // In production, update workflow_approvals table
-            Map<String, Object> result = new HashMap<>();
-            result.put("approved", true);
-            result.put("approvalId", approvalId);
-            result.put("approverId", approverId);
-            result.put("comments", comments);
-            result.put("approvedAt", new Date());
-
-            // Check if all approvals are complete
-            boolean allApproved = checkIfAllApproved(approvalId);
-            result.put("allApproved", allApproved);
-
-            if (allApproved) {
-                result.put("status", "APPROVED");
-                log.info("All approvals complete for request {}", approvalId);
-            } else {
-                result.put("status", "PARTIALLY_APPROVED");
-            }
+        log.info("User {} approving request {}", approverId, approvalId);
 
-            return result;
+        WorkflowApproval approval = approvalRepository.findById(tenantId, approvalId);
+        if (approval == null || !WorkflowApproval.STATUS_PENDING.equals(approval.getStatus())) {
+            return notPending("approved", approvalId, approval);
+        }
+        int step = approval.getCurrentStep();
+        if (!approvalRepository.respond(tenantId, approvalId, approverId, step, WorkflowApproval.STATUS_APPROVED, comments)) {
+            return Map.of("approved", false, "approvalId", approvalId,
+                "reason", "No pending approval for user " + approverId);
+        }
+        adjustPendingCount(approval.getTenantId(), List.of(approverId), -1);
+        if (!approvalRepository.countVote(tenantId, approvalId, step, true)) {
+            // Decided by another approver between our read and our vote
+            return notPending("approved", approvalId, approvalRepository.findById(tenantId, approvalId));
+        }
 
-        } catch (Exception e) {
-            log.error("Failed to approve request", e);
-            return Map.of("approved", false, "error", e.getMessage());
+        Map<String, Object> result = new HashMap<>();
+        result.put("approved", true);
+        result.put("approvalId", approvalId);
+        result.put("approverId", approverId);
+        result.put("comments", comments);
+        result.put("approvedAt", new Date());
+
+        // Check if all approvals are complete
+        boolean allApproved = checkIfAllApproved(approval, step);
+        result.put("allApproved", allApproved);
+
+        if (allApproved) {
+            result.put("status", WorkflowApproval.STATUS_APPROVED);
+            log.info("All approvals complete for request {}", approvalId);
+        } else {
+            result.put("status", "PARTIALLY_APPROVED");
         }
+
+        return result;
     }
 
     /**
      * Reject request
      */
-    public Map<String, Object> reject(Long approvalId, Long approverId, String reason) {
+    @Transactional
+    public Map<String, Object> reject(String tenantId, Long approvalId, Long approverId, String reason) {
         if (!approvalEnabled) {
             return Map.of("rejected", false, "reason", "Approval service disabled");
         }
 
-        try {
-            log.info("User {} rejecting request {}", approverId, approvalId);
+        log.info("User {} rejecting request {}", approverId, approvalId);
 
-            // In production, update workflow_approvals table
-            Map<String, Object> result = new HashMap<>();
-            result.put("rejected", true);
-            result.put("approvalId", approvalId);
-            result.put("rejectedBy", approverId);
-            result.put("rejectionReason", reason);
-            result.put("rejectedAt", new Date());
-            result.put("status", "REJECTED");
+        WorkflowApproval approval = approvalRepository.findById(tenantId, approvalId);
+        if (approval == null || !WorkflowApproval.STATUS_PENDING.equals(approval.getStatus())) {
+            return notPending("rejected", approvalId, approval);
+        }
+        int step = approval.getCurrentStep();
+        if (!approvalRepository.respond(tenantId, approvalId, approverId, step, WorkflowApproval.STATUS_REJECTED, reason)) {
+            return Map.of("rejected", false, "approvalId", approvalId,
+                "reason", "No pending approval for user " + approverId);
+        }
+        adjustPendingCount(approval.getTenantId(), List.of(approverId), -1);
+        if (!approvalRepository.countVote(tenantId, approvalId, step, false)) {
+            return notPending("rejected", approvalId, approvalRepository.findById(tenantId, approvalId));
+        }
 
+        // An "any N of M" approval survives rejections while N approvals remain possible
+        boolean decided = approvalRepository.rejectIfQuorumLost(approvalId, step);
+        if (decided) {
+            decide(approval, WorkflowApproval.STATUS_REJECTED);
             log.info("Approval request {} rejected", approvalId);
-            return result;
-
-        } catch (Exception e) {
-            log.error("Failed to reject request", e);
-            return Map.of("rejected", false, "error", e.getMessage());
         }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("rejected", true);
+        result.put("approvalId", approvalId);
+        result.put("rejectedBy", approverId);
+        result.put("rejectionReason", reason);
+        result.put("rejectedAt", new Date());
+        result.put("status", decided ? WorkflowApproval.STATUS_REJECTED : WorkflowApproval.STATUS_PENDING);
+
+        return result;
     }
 
     /**
@@ -133,13 +192,19 @@ public class ApprovalService {
      */
     public Map<String, Object> getApprovalStatus(Long approvalId) {
         try {
-            // In production, query from database
+            WorkflowApproval approval = approvalRepository.findById(currentTenant(), approvalId);
+            if (approval == null) {
+                return Map.of("approvalId", approvalId, "error", "Approval not found");
+            }
+            List<Map<String, Object>> assignments = approvalRepository.findAssignments(approvalId);
+
             Map<String, Object> status = new HashMap<>();
             status.put("approvalId", approvalId);
-            status.put("status", "PENDING");
-            status.put("requiredApprovers", Arrays.asList(101L, 102L, 103L));
-            status.put("approvedBy", Arrays.asList(101L));
-            status.put("pendingApprovers", Arrays.asList(102L, 103L));
+            status.put("status", approval.getStatus());
+            status.put("currentStep", approval.getCurrentStep());
+            status.put("requiredApprovers", approverIds(assignments, approval.getCurrentStep(), null));
+            status.put("approvedBy", approverIds(assignments, null, WorkflowApproval.STATUS_APPROVED));
+            status.put("pendingApprovers", approverIds(assignments, null, WorkflowApproval.STATUS_PENDING));
 
             return status;
 
@@ -152,6 +217,7 @@ public class ApprovalService {
     /**
      * Handle multi-step approval
      */
+    @Transactional
     public Map<String, Object> createMultiStepApproval(Long workflowExecutionId, String nodeId,
                                                         List<List<Long>> approvalSteps,
                                                         Map<String, Object> requestData) {
@@ -159,32 +225,24 @@ public class ApprovalService {
             return Map.of("created", false, "reason", "Approval service disabled");
         }
 
-        try {
-            log.info("Creating multi-step approval with {} steps", approvalSteps.size());
-
-            Map<String, Object> approval = new HashMap<>();
-            approval.put("id", generateId());
-            approval.put("workflowExecutionId", workflowExecutionId);
-            approval.put("nodeId", nodeId);
-            approval.put("approvalType", "MULTI_STEP");
-            approval.put("steps", approvalSteps);
-            approval.put("currentStep", 0);
-            approval.put("status", "PENDING");
-            approval.put("requestData", requestData);
-            approval.put("requestedAt", new Date());
-
-            log.info("Multi-step approval created with ID: {}", approval.get("id"));
-            return approval;
+        // Each step needs all of its approvers before the next step starts
+        List<List<Long>> steps = approvalSteps != null
+            ? approvalSteps.stream().map(this::distinct).collect(Collectors.toList()) : new ArrayList<>();
+        log.info("Creating multi-step approval with {} steps", steps.size());
+        WorkflowApproval approval = save(workflowExecutionId, nodeId, "MULTI_STEP",
+            steps, steps.get(0).size(), requestData);
 
-        } catch (Exception e) {
-            log.error("Failed to create multi-step approval", e);
-            return Map.of("created", false, "error", e.getMessage());
-        }
+        Map<String, Object> result = toMap(approval);
+        result.put("steps", approvalSteps);
+
+        log.info("Multi-step approval created with ID: {}", approval.getId());
+        return result;
     }
 
     /**
      * Handle parallel approval
      */
+    @Transactional
     public Map<String, Object> createParallelApproval(Long workflowExecutionId, String nodeId,
                                                        List<Long> approverIds, int requiredApprovals,
                                                        Map<String, Object> requestData) {
@@ -192,29 +250,60 @@ public class ApprovalService {
             return Map.of("created", false, "reason", "Approval service disabled");
         }
 
-        try {
-            log.info("Creating parallel approval requiring {} out of {} approvals",
-                requiredApprovals, approverIds.size());
-
-            Map<String, Object> approval = new HashMap<>();
-            approval.put("id", generateId());
-            approval.put("workflowExecutionId", workflowExecutionId);
-            approval.put("nodeId", nodeId);
-            approval.put("approvalType", "PARALLEL");
-            approval.put("requiredApprovers", approverIds);
-            approval.put("requiredApprovalCount", requiredApprovals);
-            approval.put("approvedBy", new ArrayList<>());
-            approval.put("status", "PENDING");
-            approval.put("requestData", requestData);
-            approval.put("requestedAt", new Date());
-
-            log.info("Parallel approval created with ID: {}", approval.get("id"));
-            return approval;
+        List<Long> approvers = distinct(approverIds);
+        log.info("Creating parallel approval requiring {} out of {} approvals",
+            requiredApprovals, approvers.size());
+        WorkflowApproval approval = save(workflowExecutionId, nodeId, "PARALLEL",
+            List.of(approvers), Math.min(requiredApprovals, approvers.size()), requestData);
 
-        } catch (Exception e) {
-            log.error("Failed to create parallel approval", e);
-            return Map.of("created", false, "error", e.getMessage());
+        Map<String, Object> result = toMap(approval);
+        result.put("requiredApprovers", approverIds);
+        result.put("requiredApprovalCount", approval.getRequiredApprovals());
+        result.put("approvedBy", new ArrayList<>());
+
+        log.info("Parallel approval created with ID: {}", approval.getId());
+        return result;
+    }
+
+    /**
+     * Set the deadlines of a new approval from its node config: timeoutHours,
+     * reminderHours (0 for no reminders) and escalateTo (user ids added to the
+     * active step when it expires, instead of expiring it). An approval only
+     * expires when its node sets timeoutHours or escalateTo; escalateTo alone
+     * uses the default timeout.
+     */
+    public void configureDeadlines(Long approvalId, Map<String, Object> nodeConfig) {
+        if (approvalId == null || nodeConfig == null) {
+            return;
         }
+        Object timeoutHours = nodeConfig.get("timeoutHours");
+        Object reminderHours = nodeConfig.get("reminderHours");
+        Object escalateTo = nodeConfig.get("escalateTo");
+        if (timeoutHours == null && reminderHours == null && escalateTo == null) {
+            return;
+        }
+
+        int reminderMinutes = reminderHours instanceof Number
+            ? (int) Math.round(((Number) reminderHours).doubleValue() * 60) : defaultReminderHours * 60;
+        List<Long> escalation = new ArrayList<>();
+        if (escalateTo instanceof Collection) {
+            for (Object id : (Collection<?>) escalateTo) {
+                if (id instanceof Number) {
+                    escalation.add(((Number) id).longValue());
+                }
+            }
+        }
+        Integer timeoutMinutes = null;
+        if (timeoutHours instanceof Number && ((Number) timeoutHours).doubleValue() > 0) {
+            timeoutMinutes = (int) Math.max(1, Math.round(((Number) timeoutHours).doubleValue() * 60));
+        } else if (!escalation.isEmpty()) {
+            timeoutMinutes = defaultTimeoutHours * 60;
+        }
+
+        approvalRepository.updateDeadlines(approvalId, timeoutMinutes,
+            reminderMinutes > 0 ? reminderMinutes : null,
+            reminderMinutes > 0 ? LocalDateTime.now().plusMinutes(reminderMinutes) : null,
+            escalation);
     }
 
     /**
@@ -224,12 +313,7 @@ public class ApprovalService {
                                           String title, String message) {
         try {
             log.info("Sending approval notifications to {} approvers", approverIds.size());
-
-            // In production, integrate with NotificationService
-            for (Long approverId : approverIds) {
-                log.debug("Sending notification to approver: {}", approverId);
-                // notificationService.sendNotification(approverId, title, message, "APPROVAL", data);
-            }
+            notificationService.sendBulkNotifications(approverIds, title, message, "APPROVAL");
 
         } catch (Exception e) {
             log.error("Failed to send approval notifications", e);
@@ -243,9 +327,11 @@ public class ApprovalService {
         try {
             log.info("Sending reminder for approval: {}", approvalId);
 
-            // In production, get pending approvers and send reminders
-            // List<Long> pendingApprovers = getPendingApprovers(approvalId);
-            // sendApprovalNotifications(approvalId, pendingApprovers, "Reminder", "...");
+            List<Long> pendingApprovers = approvalRepository.findApprovers(approvalId, WorkflowApproval.STATUS_PENDING);
+            if (!pendingApprovers.isEmpty()) {
+                sendApprovalNotifications(approvalId, pendingApprovers, "Reminder",
+                    "An approval request is still waiting for your response");
+            }
 
         } catch (Exception e) {
             log.error("Failed to send reminder notifications", e);
@@ -257,8 +343,11 @@ public class ApprovalService {
      */
     public boolean isExpired(Long approvalId) {
         try {
-            // In production, check expiry date from database
-            return false;
+            WorkflowApproval approval = approvalRepository.findById(currentTenant(), approvalId);
+            return approval != null
+                && WorkflowApproval.STATUS_PENDING.equals(approval.getStatus())
+                && approval.getExpiresAt() != null
+                && approval.getExpiresAt().isBefore(LocalDateTime.now());
 
         } catch (Exception e) {
             log.error("Failed to check expiry", e);
@@ -269,23 +358,95 @@ public class ApprovalService {
     /**
      * Cancel approval request
      */
-    public Map<String, Object> cancelApproval(Long approvalId, String reason) {
-        try {
-            log.info("Cancelling approval request: {}", approvalId);
+    @Transactional
+    public Map<String, Object> cancelApproval(String tenantId, Long approvalId, String reason) {
+        log.info("Cancelling approval request: {}", approvalId);
 
-            Map<String, Object> result = new HashMap<>();
-            result.put("cancelled", true);
-            result.put("approvalId", approvalId);
-            result.put("reason", reason);
-            result.put("cancelledAt", new Date());
-            result.put("status", "CANCELLED");
+        WorkflowApproval approval = approvalRepository.findById(tenantId, approvalId);
+        if (approval == null || !approvalRepository.resolve(tenantId, approvalId, WorkflowApproval.STATUS_CANCELLED)) {
+            return notPending("cancelled", approvalId, approval);
+        }
+        // Cancelled from outside (e.g. the execution was cancelled), so nothing is resumed
+        adjustPendingCount(approval.getTenantId(), approvalRepository.closePending(approvalId), -1);
 
-            return result;
+        Map<String, Object> result = new HashMap<>();
+        result.put("cancelled", true);
+        result.put("approvalId", approvalId);
+        result.put("reason", reason);
+        result.put("cancelledAt", new Date());
+        result.put("status", WorkflowApproval.STATUS_CANCELLED);
 
-        } catch (Exception e) {
-            log.error("Failed to cancel approval", e);
-            return Map.of("cancelled", false, "error", e.getMessage());
+        return result;
+    }
+
+    /**
+     * Send the due reminders of up to limit approvals, one notification batch per tenant
+     *
+     * @return approvals reminded
+     */
+    public int remindDue(int limit) {
+        List<Map<String, Object>> due = approvalRepository.claimDueReminders(limit);
+        Map<String, Set<Long>> approversByTenant = new HashMap<>();
+        Set<Object> approvals = new HashSet<>();
+        for (Map<String, Object> row : due) {
+            approvals.add(row.get("approvalId"));
+            approversByTenant.computeIfAbsent((String) row.get("tenantId"), k -> new LinkedHashSet<>())
+                .add((Long) row.get("approverId"));
+        }
+
+        // An approver with several due approvals gets one reminder
+        for (Set<Long> approvers : approversByTenant.values()) {
+            sendApprovalNotifications(null, new ArrayList<>(approvers), "Reminder",
+                "Approval requests are waiting for your response");
+        }
+        return approvals.size();
+    }
+
+    /**
+     * Escalate up to limit overdue approvals that have escalation approvers: the
+     * approvers join the active step and the node's timeout starts over
+     *
+     * @return approvals escalated
+     */
+    public int escalateDue(String claimToken, int limit) {
+        List<WorkflowApproval> escalated = approvalRepository.claimDueEscalations(claimToken, limit);
+        if (escalated.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, List<Long>> added = approvalRepository.addEscalationApprovers(escalated);
+        for (WorkflowApproval approval : escalated) {
+            List<Long> approvers = added.getOrDefault(approval.getId(), List.of());
+            adjustPendingCount(approval.getTenantId(), approvers, 1);
+            if (!approvers.isEmpty()) {
+                sendApprovalNotifications(approval.getId(), approvers, "Approval escalated",
+                    "An overdue approval request has been escalated to you");
+            }
+        }
+        log.info("Escalated {} overdue approval(s)", escalated.size());
+        return escalated.size();
+    }
+
+    /**
+     * Expire up to limit overdue approvals and resume their executions on the timeout branch
+     *
+     * @return approvals expired
+     */
+    public int expireDue(String claimToken, int limit) {
+        List<WorkflowApproval> expired = approvalRepository.expireDue(claimToken, limit);
+        if (expired.isEmpty()) {
+            return 0;
         }
+
+        Map<Long, List<Long>> closed = approvalRepository.closePending(
+            expired.stream().map(WorkflowApproval::getId).collect(Collectors.toList()));
+        for (WorkflowApproval approval : expired) {
+            adjustPendingCount(approval.getTenantId(), closed.getOrDefault(approval.getId(), List.of()), -1);
+            eventPublisher.publishEvent(new ApprovalDecidedEvent(approval.getTenantId(), approval.getExecutionId(),
+                approval.getNodeId(), approval.getId(), WorkflowApproval.STATUS_EXPIRED));
+        }
+        log.info("Expired {} overdue approval(s)", expired.size());
+        return expired.size();
     }
 
     /**
@@ -293,8 +454,9 @@ public class ApprovalService {
      */
     public List<Map<String, Object>> getPendingApprovalsForUser(Long userId) {
         try {
-            // In production, query from database
-            return new ArrayList<>();
+            Map<String, Object> page = getApproverInbox(
+                currentTenant(), userId, WorkflowApproval.STATUS_PENDING, null, defaultInboxPageSize);
+            return castItems((List<?>) page.get("items"));
 
         } catch (Exception e) {
             log.error("Failed to get pending approvals", e);
@@ -302,66 +464,275 @@ public class ApprovalService {
         }
     }
 
+    /**
+     * One page of an approver's inbox, newest first.
+     * Pass the returned nextCursor back to get the following page; it is null on the last page.
+     */
+    public Map<String, Object> getApproverInbox(String tenantId, Long approverId, String status,
+                                                String cursor, Integer limit) {
+        int pageSize = Math.max(1, Math.min(limit != null ? limit : defaultInboxPageSize, MAX_INBOX_PAGE_SIZE));
+        String assignmentStatus = status != null ? status.toUpperCase() : WorkflowApproval.STATUS_PENDING;
+
+        Timestamp beforeCreatedAt = null;
+        Long beforeApprovalId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid inbox cursor: " + cursor);
+            }
+            beforeCreatedAt = new Timestamp(Long.parseLong(parts[0]));
+            beforeApprovalId = Long.parseLong(parts[1]);
+        }
+
+        // One extra row tells whether another page follows
+        List<Map<String, Object>> rows = approvalRepository.findInbox(
+            tenantId, approverId, assignmentStatus, beforeCreatedAt, beforeApprovalId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<Map<String, Object>> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Map<String, Object> last = items.get(items.size() - 1);
+            nextCursor = ((Timestamp) last.get("createdAt")).getTime() + ":" + last.get("approvalId");
+        }
+        for (Map<String, Object> item : items) {
+            item.put("createdAt", ((Timestamp) item.get("createdAt")).toLocalDateTime());
+        }
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", new ArrayList<>(items));
+        page.put("nextCursor", nextCursor);
+        page.put("pendingCount", getPendingCount(tenantId, approverId));
+        return page;
+    }
+
+    /**
+     * Number of approvals waiting on the approver, served from cache
+     */
+    public long getPendingCount(String tenantId, Long approverId) {
+        String key = tenantId + "|" + approverId;
+        PendingCount cached = pendingCounts.get(key);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.loadedAt < pendingCountTtlMs) {
+            return Math.max(0, cached.count.get());
+        }
+
+        long count = approvalRepository.countByApprover(tenantId, approverId, WorkflowApproval.STATUS_PENDING);
+        if (pendingCounts.size() >= MAX_PENDING_COUNT_CACHE) {
+            pendingCounts.clear();
+        }
+        pendingCounts.put(key, new PendingCount(count, now));
+        return count;
+    }
+
     // Helper methods
 
-    private boolean checkIfAllApproved(Long approvalId) {
-        // In production, check if all required approvers have approved
-        return false;
+    private WorkflowApproval save(Long workflowExecutionId, String nodeId, String approvalType,
+                                  List<List<Long>> steps, int requiredApprovals, Map<String, Object> requestData) {
+        // A step nobody can vote on would keep the execution paused until it expires
+        if (steps.isEmpty() || steps.stream().anyMatch(List::isEmpty)) {
+            throw new IllegalArgumentException("Approval on node " + nodeId + " has no approvers");
+        }
+        WorkflowApproval approval = new WorkflowApproval();
+        approval.setTenantId(currentTenant());
+        approval.setExecutionId(workflowExecutionId);
+        approval.setNodeId(nodeId);
+        approval.setApprovalType(approvalType);
+        approval.setStatus(WorkflowApproval.STATUS_PENDING);
+        approval.setStepCount(steps.size());
+        approval.setRequiredApprovals(requiredApprovals);
+        approval.setStepApprovers(steps.get(0).size());
+        approval.setRequestData(requestData);
+        approval.setRequestedAt(LocalDateTime.now());
+        if (defaultReminderHours > 0) {
+            approval.setReminderIntervalMinutes(defaultReminderHours * 60);
+            approval.setNextReminderAt(LocalDateTime.now().plusHours(defaultReminderHours));
+        }
+
+        approval.setId(approvalRepository.insert(approval));
+        approvalRepository.insertAssignments(approval.getTenantId(), approval.getId(), steps);
+        adjustPendingCount(approval.getTenantId(), steps.get(0), 1);
+        return approval;
     }
 
-    private Date calculateExpiryDate(int hours) {
-        Calendar cal = Calendar.getInstance();
-        cal.add(Calendar.HOUR, hours);
-        return cal.getTime();
+    /**
+     * Complete the step the vote was counted on if it now has enough approvals; a
+     * multi-step approval then moves on to its next step and is approved after the last one
+     */
+    private boolean checkIfAllApproved(WorkflowApproval approval, int step) {
+        if (step + 1 < approval.getStepCount()) {
+            int nextApprovers = approvalRepository.countStepApprovers(approval.getId(), step + 1);
+            if (approvalRepository.advanceIfQuorum(approval.getId(), step, nextApprovers)) {
+                adjustPendingCount(approval.getTenantId(), approvalRepository.closeStep(approval.getId(), step), -1);
+                List<Long> next = approvalRepository.activateStep(approval.getId(), step + 1);
+                adjustPendingCount(approval.getTenantId(), next, 1);
+                log.info("Approval {} moved to step {}", approval.getId(), step + 1);
+            }
+            return false;
+        }
+
+        if (!approvalRepository.approveIfQuorum(approval.getId(), step)) {
+            return false;
+        }
+        decide(approval, WorkflowApproval.STATUS_APPROVED);
+        return true;
     }
 
-    private Long generateId() {
-        return System.currentTimeMillis();
+    /**
+     * Take a decided approval out of every inbox it is still in and resume its execution.
+     * Called only by the request whose conditional UPDATE decided the approval.
+     */
+    private void decide(WorkflowApproval approval, String status) {
+        adjustPendingCount(approval.getTenantId(), approvalRepository.closePending(approval.getId()), -1);
+        // Delivered after commit, so the execution never resumes on a vote that rolled back
+        eventPublisher.publishEvent(new ApprovalDecidedEvent(
+            approval.getTenantId(), approval.getExecutionId(), approval.getNodeId(), approval.getId(), status));
+    }
+
+    /**
+     * Apply a pending-count change to cached approvers once the transaction commits
+     */
+    private void adjustPendingCount(String tenantId, Collection<Long> approverIds, long delta) {
+        if (approverIds.isEmpty()) {
+            return;
+        }
+        Runnable apply = () -> {
+            for (Long approverId : approverIds) {
+                PendingCount cached = pendingCounts.get(tenantId + "|" + approverId);
+                if (cached != null) {
+                    cached.count.addAndGet(delta);
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private Map<String, Object> notPending(String flag, Long approvalId, WorkflowApproval approval) {
+        return Map.of(
+            flag, false,
+            "approvalId", approvalId,
+            "reason", approval == null ? "Approval not found" : "Approval is already " + approval.getStatus()
+        );
+    }
+
+    private Map<String, Object> toMap(WorkflowApproval approval) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", approval.getId());
+        map.put("workflowExecutionId", approval.getExecutionId());
+        map.put("nodeId", approval.getNodeId());
+        map.put("approvalType", approval.getApprovalType());
+        map.put("status", approval.getStatus());
+        map.put("currentStep", approval.getCurrentStep());
+        map.put("stepCount", approval.getStepCount());
+        map.put("requiredApprovalCount", approval.getRequiredApprovals());
+        map.put("requestData", approval.getRequestData());
+        map.put("requestedAt", approval.getRequestedAt());
+        map.put("expiresAt", approval.getExpiresAt());
+        map.put("resolvedAt", approval.getResolvedAt());
+        return map;
+    }
+
+    private List<Long> approverIds(List<Map<String, Object>> assignments, Integer step, String status) {
+        return assignments.stream()
+            .filter(a -> step == null || step.equals(a.get("step")))
+            .filter(a -> status == null || status.equals(a.get("status")))
+            .map(a -> (Long) a.get("approverId"))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Distinct ids as Long; lists deserialized from JSON hold Integer elements
+     * whatever their declared type
+     */
+    private List<Long> distinct(List<?> ids) {
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        return ids.stream()
+            .filter(Number.class::isInstance)
+            .map(id -> ((Number) id).longValue())
+            .distinct()
+            .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> castItems(List<?> items) {
+        return (List<Map<String, Object>>) items;
+    }
+
+    private String currentTenant() {
+        String tenantId = TenantContext.getCurrentTenant();
+        return tenantId != null ? tenantId : DEFAULT_TENANT;
     }
 
     public boolean isApprovalServiceAvailable() {
         return approvalEnabled;
     }
-    
+
     /**
      * Get pending approvals for workflow execution
      */
     public List<Map<String, Object>> getPendingApprovals(Long workflowExecutionId) {
         try {
-            // In production, query from database
-            return new ArrayList<>();
+            return approvalRepository.findByExecution(currentTenant(), workflowExecutionId, true).stream()
+                .map(this::toMap)
+                .collect(Collectors.toList());
         } catch (Exception e) {
             log.error("Failed to get pending approvals for execution", e);
             return new ArrayList<>();
         }
     }
-    
+
     /**
      * Get approval by ID
      */
-    public Map<String, Object> getApproval(Long approvalId) {
-        try {
-            // In production, query from database
-            Map<String, Object> approval = new HashMap<>();
-            approval.put("id", approvalId);
-            approval.put("status", "PENDING");
-            return approval;
-        } catch (Exception e) {
-            log.error("Failed to get approval", e);
-            return new HashMap<>();
+    public Map<String, Object> getApproval(String tenantId, Long approvalId) {
+        WorkflowApproval approval = approvalRepository.findById(tenantId, approvalId);
+        if (approval == null) {
+            throw new RuntimeException("Approval not found: " + approvalId);
         }
+        Map<String, Object> result = toMap(approval);
+        result.put("assignments", approvalRepository.findAssignments(approvalId));
+        return result;
     }
-    
+
     /**
      * Get execution approvals
      */
     public List<Map<String, Object>> getExecutionApprovals(Long workflowExecutionId) {
+        return getExecutionApprovals(currentTenant(), workflowExecutionId);
+    }
+
+    public List<Map<String, Object>> getExecutionApprovals(String tenantId, Long workflowExecutionId) {
         try {
-            // In production, query from database
-            return new ArrayList<>();
+            return approvalRepository.findByExecution(tenantId, workflowExecutionId, false).stream()
+                .map(this::toMap)
+                .collect(Collectors.toList());
         } catch (Exception e) {
             log.error("Failed to get execution approvals", e);
             return new ArrayList<>();
         }
     }
+
+    /**
+     * Cached pending count; the count is adjusted in place between reloads
+     */
+    private static final class PendingCount {
+        private final AtomicLong count;
+        private final long loadedAt;
+
+        private PendingCount(long count, long loadedAt) {
+            this.count = new AtomicLong(count);
+            this.loadedAt = loadedAt;
+        }
+    }
 }
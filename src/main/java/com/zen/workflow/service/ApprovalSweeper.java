@@ -0,0 +1,80 @@
+package com.zen.workflow.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Drives approval deadlines: reminds approvers of pending approvals, escalates
+ * overdue ones that have escalation approvers and expires the rest.
+ *
+ * Every round reads only due approvals through the expires_at and next_reminder_at
+ * indexes, a batch at a time, and each batch is claimed with a conditional UPDATE,
+ * so several instances can sweep together and the work per round follows the
+ * number of approvals that are due.
+ */
+@Slf4j
+@Service
+public class ApprovalSweeper {
+
+    @Value("${workflow.approval.sweep.enabled:true}")
+    private boolean enabled;
+
+    @Value("${workflow.approval.sweep.batch-size:200}")
+    private int batchSize;
+
+    @Value("${workflow.approval.sweep.max-batches-per-sweep:50}")
+    private int maxBatchesPerSweep;
+
+    @Autowired
+    private ApprovalService approvalService;
+
+    @Scheduled(fixedDelayString = "${workflow.approval.sweep.interval-ms:60000}", initialDelayString = "${workflow.approval.sweep.initial-delay-ms:30000}")
+    public void sweep() {
+        if (!enabled || !approvalService.isApprovalServiceAvailable()) {
+            return;
+        }
+
+        int escalated = 0;
+        int expired = 0;
+        int reminded = 0;
+        try {
+            // Escalate before expiring, so approvals with escalation approvers get them first
+            for (int batch = 0; batch < maxBatchesPerSweep; batch++) {
+                int count = approvalService.escalateDue(claimToken(), batchSize);
+                escalated += count;
+                if (count < batchSize) {
+                    break;
+                }
+            }
+            for (int batch = 0; batch < maxBatchesPerSweep; batch++) {
+                int count = approvalService.expireDue(claimToken(), batchSize);
+                expired += count;
+                if (count < batchSize) {
+                    break;
+                }
+            }
+            for (int batch = 0; batch < maxBatchesPerSweep; batch++) {
+                int count = approvalService.remindDue(batchSize);
+                reminded += count;
+                if (count < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Approval sweep failed: {}", e.getMessage(), e);
+        }
+
+        if (escalated + expired + reminded > 0) {
+            log.info("Approval sweep: {} escalated, {} expired, {} reminded", escalated, expired, reminded);
+        }
+    }
+
+    private String claimToken() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,301 @@
+package com.zen.workflow.service;
+
+import com.zen.workflow.engine.CompiledTemplate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk mail sending for campaign-style workflows.
+ *
+ * Subject and body are compiled once per distinct template. Recipients are drained
+ * from a shared queue by {@code workflow.email.bulk.connections} workers; each
+ * worker keeps one authenticated SMTP connection open and sends message after
+ * message over it, reconnecting every {@code messages-per-connection} messages or
+ * when the server drops it. A connection is only probed (NOOP) after sitting idle
+ * for {@code idle-check-ms}; otherwise a send that fails on a reused connection is
+ * retried once on a fresh one. Rendering happens on the workers, so it runs in
+ * parallel with sending. A token bucket shared by all workers holds the total rate
+ * at {@code rate-per-second}, the provider's sending limit.
+ */
+@Slf4j
+@Service
+public class BulkEmailService {
+
+    private static final int MAX_REPORTED_FAILURES = 100;
+    private static final int TEMPLATE_CACHE_SIZE = 500;
+
+    @Autowired(required = false)
+    private JavaMailSender mailSender;
+
+    @Value("${spring.mail.from:noreply@example.com}")
+    private String defaultFromEmail;
+
+    @Value("${workflow.email.bulk.connections:4}")
+    private int connections;
+
+    @Value("${workflow.email.bulk.messages-per-connection:100}")
+    private int messagesPerConnection;
+
+    @Value("${workflow.email.bulk.rate-per-second:14}")
+    private double ratePerSecond;
+
+    @Value("${workflow.email.bulk.burst:14}")
+    private int burst;
+
+    @Value("${workflow.email.bulk.idle-check-ms:30000}")
+    private long idleCheckMs;
+
+    private final Map<String, CompiledTemplate> templates = new ConcurrentHashMap<>();
+
+    private ExecutorService workers;
+    private TokenBucket rateLimiter;
+
+    @PostConstruct
+    public void init() {
+        workers = Executors.newFixedThreadPool(connections, r -> {
+            Thread thread = new Thread(r, "workflow-mail");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rateLimiter = new TokenBucket(ratePerSecond, burst);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Send one personalised message per recipient.
+     *
+     * @param recipients maps with an "email" entry plus per-recipient template values
+     * @param shared     values used when a recipient does not define them (e.g. context variables)
+     * @return sent, failed and the first failures (email, error)
+     */
+    public Map<String, Object> sendBulk(String subjectTemplate, String bodyTemplate, boolean isHtml,
+                                        List<Map<String, Object>> recipients, Map<String, Object> shared) {
+        return sendBulk(subjectTemplate, bodyTemplate, isHtml, recipients, shared, false);
+    }
+
+    /**
+     * @param keepUnresolved leave placeholders no recipient or shared value defines as written
+     */
+    public Map<String, Object> sendBulk(String subjectTemplate, String bodyTemplate, boolean isHtml,
+                                        List<Map<String, Object>> recipients, Map<String, Object> shared,
+                                        boolean keepUnresolved) {
+        if (mailSender == null) {
+            throw new RuntimeException("Email service not configured");
+        }
+
+        CompiledTemplate subject = template(subjectTemplate, keepUnresolved);
+        CompiledTemplate body = template(bodyTemplate, keepUnresolved);
+
+        Queue<Map<String, Object>> queue = new ConcurrentLinkedQueue<>(recipients);
+        AtomicInteger sent = new AtomicInteger();
+        List<Map<String, Object>> failures = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failed = new AtomicInteger();
+
+        int workerCount = Math.max(1, Math.min(connections, recipients.size()));
+        List<CompletableFuture<Void>> running = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            running.add(CompletableFuture.runAsync(
+                () -> drain(queue, subject, body, isHtml, shared, sent, failed, failures), workers));
+        }
+        CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+
+        log.info("Bulk email completed: {} sent, {} failed out of {} total", sent.get(), failed.get(), recipients.size());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("sent", sent.get());
+        result.put("failed", failed.get());
+        result.put("failures", new ArrayList<>(failures));
+        return result;
+    }
+
+    private void drain(Queue<Map<String, Object>> queue, CompiledTemplate subject, CompiledTemplate body,
+                       boolean isHtml, Map<String, Object> shared, AtomicInteger sent, AtomicInteger failed,
+                       List<Map<String, Object>> failures) {
+        Transport transport = null;
+        int sentOnConnection = 0;
+        long lastUsedAt = 0;
+        try {
+            Map<String, Object> recipient;
+            while ((recipient = queue.poll()) != null) {
+                Object email = recipient.get("email");
+                if (email == null || email.toString().trim().isEmpty()) {
+                    recordFailure(failed, failures, null, "No email address");
+                    continue;
+                }
+
+                try {
+                    MimeMessage message = buildMessage(email.toString().trim(),
+                        subject.render(recipient, shared), body.render(recipient, shared), isHtml);
+
+                    rateLimiter.acquire();
+                    if (transport != null && (sentOnConnection >= messagesPerConnection
+                            || (System.currentTimeMillis() - lastUsedAt > idleCheckMs && !transport.isConnected()))) {
+                        close(transport);
+                        transport = null;
+                    }
+                    if (transport == null) {
+                        transport = connect();
+                        sentOnConnection = 0;
+                    }
+                    try {
+                        send(transport, message);
+                    } catch (SendFailedException e) {
+                        // Rejected recipient or message; the connection itself is fine
+                        throw e;
+                    } catch (MessagingException | IllegalStateException e) {
+                        if (transport == null || sentOnConnection == 0) {
+                            throw e;
+                        }
+                        // Most likely the server closed the reused connection - reconnect and try once more
+                        log.debug("Bulk email connection lost, reconnecting: {}", e.getMessage());
+                        close(transport);
+                        transport = null;
+                        transport = connect();
+                        sentOnConnection = 0;
+                        send(transport, message);
+                    }
+                    sentOnConnection++;
+                    lastUsedAt = System.currentTimeMillis();
+                    sent.incrementAndGet();
+
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    recordFailure(failed, failures, email.toString(), "Interrupted");
+                    return;
+                } catch (Exception e) {
+                    log.error("Failed to send bulk email to: {}", email, e);
+                    recordFailure(failed, failures, email.toString(), e.getMessage());
+                    if (transport != null && !transport.isConnected()) {
+                        close(transport);
+                        transport = null;
+                    }
+                }
+            }
+        } finally {
+            if (transport != null) {
+                close(transport);
+            }
+        }
+    }
+
+    private MimeMessage buildMessage(String to, String subject, String body, boolean isHtml) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, isHtml, "UTF-8");
+        helper.setFrom(defaultFromEmail);
+        helper.setTo(to);
+        helper.setSubject(subject != null ? subject : "");
+        helper.setText(body != null ? body : "", isHtml);
+        message.saveChanges();
+        return message;
+    }
+
+    /**
+     * Open an authenticated connection with the settings of the configured sender.
+     * Returns null for non-SMTP senders, which then send through JavaMailSender.
+     */
+    private Transport connect() throws MessagingException {
+        if (!(mailSender instanceof JavaMailSenderImpl)) {
+            return null;
+        }
+        JavaMailSenderImpl sender = (JavaMailSenderImpl) mailSender;
+        Transport transport = sender.getSession().getTransport(sender.getProtocol() != null ? sender.getProtocol() : "smtp");
+        transport.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+        return transport;
+    }
+
+    private void send(Transport transport, MimeMessage message) throws MessagingException {
+        if (transport == null) {
+            mailSender.send(message);
+            return;
+        }
+        transport.sendMessage(message, message.getAllRecipients());
+    }
+
+    private void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    private void recordFailure(AtomicInteger failed, List<Map<String, Object>> failures, String email, String error) {
+        failed.incrementAndGet();
+        if (failures.size() < MAX_REPORTED_FAILURES) {
+            Map<String, Object> failure = new HashMap<>();
+            failure.put("email", email);
+            failure.put("error", error);
+            failures.add(failure);
+        }
+    }
+
+    private CompiledTemplate template(String source, boolean keepUnresolved) {
+        if (source == null) {
+            return CompiledTemplate.compile(null);
+        }
+        if (templates.size() >= TEMPLATE_CACHE_SIZE) {
+            templates.clear();
+        }
+        return templates.computeIfAbsent((keepUnresolved ? "K|" : "D|") + source,
+            key -> CompiledTemplate.compile(source, keepUnresolved));
+    }
+
+    /**
+     * Token bucket: refills at the configured rate, up to the burst size
+     */
+    private static final class TokenBucket {
+        private final double tokensPerMs;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(double ratePerSecond, int burst) {
+            this.tokensPerMs = ratePerSecond / 1000.0;
+            this.capacity = Math.max(1, burst);
+            this.tokens = capacity;
+            this.lastRefill = System.currentTimeMillis();
+        }
+
+        void acquire() throws InterruptedException {
+            long wait;
+            while ((wait = tryTake()) > 0) {
+                Thread.sleep(wait);
+            }
+        }
+
+        /**
+         * Take a token, or return how many ms until one is available
+         */
+        private synchronized long tryTake() {
+            long now = System.currentTimeMillis();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerMs);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerMs));
+        }
+    }
+}
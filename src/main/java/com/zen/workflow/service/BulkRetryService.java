@@ -0,0 +1,245 @@
+package com.zen.workflow.service;
+
+import com.zen.workflow.config.TenantContext;
+import com.zen.workflow.engine.WorkflowExecutionEngine;
+import com.zen.workflow.model.ExecutionResult;
+import com.zen.workflow.repository.WorkflowExecutionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk retry of a workflow's failed executions.
+ *
+ * A job walks the FAILED executions of one workflow in a completion-time window by
+ * id, one page per scheduler tick, and hands each to the workflow executor for a
+ * partial retry from its failed node. Retries in flight are capped per job and
+ * across all jobs, well under the executor's queue, so a replay of tens of thousands
+ * of failures leaves room for live executions and never loads every id at once;
+ * whatever does not fit waits for the next tick. Job progress is kept in memory;
+ * restarting a job after a restart is safe because only executions still FAILED
+ * are picked up.
+ */
+@Slf4j
+@Service
+public class BulkRetryService {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    @Value("${workflow.retry.bulk.page-size:200}")
+    private int pageSize;
+
+    @Value("${workflow.retry.bulk.retention-hours:24}")
+    private int retentionHours;
+
+    @Value("${workflow.retry.bulk.max-in-flight:20}")
+    private int maxInFlight;
+
+    @Value("${workflow.retry.bulk.max-in-flight-per-job:10}")
+    private int maxInFlightPerJob;
+
+    @Autowired
+    private WorkflowExecutionRepository executionRepository;
+
+    @Autowired
+    private WorkflowExecutionEngine executionEngine;
+
+    @Autowired
+    @Qualifier("workflowExecutor")
+    private Executor workflowExecutor;
+
+    private final Map<String, BulkRetryJob> jobs = new ConcurrentHashMap<>();
+
+    private Semaphore inFlight;
+
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(Math.max(1, maxInFlight));
+    }
+
+    /**
+     * Start retrying the workflow's executions that failed in [from, to)
+     */
+    public Map<String, Object> start(String tenantId, Long workflowId, LocalDateTime from, LocalDateTime to) {
+        if (workflowId == null || from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("workflowId and a time window with from < to are required");
+        }
+        BulkRetryJob job = new BulkRetryJob(UUID.randomUUID().toString(), tenantId, workflowId, from, to,
+            Math.max(1, maxInFlightPerJob));
+        jobs.put(job.getId(), job);
+        log.info("Bulk retry {} started for workflow {} failures between {} and {}", job.getId(), workflowId, from, to);
+        return job.toMap();
+    }
+
+    public Map<String, Object> getStatus(String tenantId, String jobId) {
+        return find(tenantId, jobId).toMap();
+    }
+
+    public Map<String, Object> cancel(String tenantId, String jobId) {
+        BulkRetryJob job = find(tenantId, jobId);
+        job.finish(STATUS_CANCELLED);
+        return job.toMap();
+    }
+
+    /**
+     * The tenant's job; another tenant's job is reported as not found
+     */
+    private BulkRetryJob find(String tenantId, String jobId) {
+        BulkRetryJob job = jobs.get(jobId);
+        if (job == null || !job.getTenantId().equals(tenantId)) {
+            throw new RuntimeException("Bulk retry job not found: " + jobId);
+        }
+        return job;
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.retry.bulk.interval-ms:1000}")
+    public void advanceJobs() {
+        LocalDateTime expiry = LocalDateTime.now().minusHours(retentionHours);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(expiry));
+
+        for (BulkRetryJob job : jobs.values()) {
+            if (!STATUS_RUNNING.equals(job.getStatus())) {
+                continue;
+            }
+            try {
+                advance(job);
+            } catch (Exception e) {
+                log.error("Bulk retry {} failed to advance: {}", job.getId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void advance(BulkRetryJob job) {
+        if (job.pending.isEmpty()) {
+            List<Long> page = loadPage(job);
+            if (page.isEmpty()) {
+                job.finish(STATUS_COMPLETED);
+                log.info("Bulk retry {} submitted all {} execution(s)", job.getId(), job.submitted.get());
+                return;
+            }
+            job.pending.addAll(page);
+            job.cursor = page.get(page.size() - 1);
+        }
+
+        while (!job.pending.isEmpty() && STATUS_RUNNING.equals(job.getStatus())) {
+            // Both caps full - continue from here on the next tick
+            if (!job.inFlight.tryAcquire()) {
+                return;
+            }
+            if (!inFlight.tryAcquire()) {
+                job.inFlight.release();
+                return;
+            }
+            Long executionId = job.pending.peek();
+            try {
+                workflowExecutor.execute(() -> retry(job, executionId));
+            } catch (RejectedExecutionException e) {
+                // Executor saturated by other work - continue from here on the next tick
+                release(job);
+                return;
+            }
+            job.pending.poll();
+            job.submitted.incrementAndGet();
+        }
+    }
+
+    private void release(BulkRetryJob job) {
+        inFlight.release();
+        job.inFlight.release();
+    }
+
+    private List<Long> loadPage(BulkRetryJob job) {
+        String previousTenant = TenantContext.getCurrentTenant();
+        TenantContext.setCurrentTenant(job.getTenantId());
+        try {
+            return executionRepository.findFailedIdsAfter(job.getWorkflowId(), job.getFrom(), job.getTo(),
+                job.cursor, PageRequest.of(0, pageSize));
+        } finally {
+            if (previousTenant != null) {
+                TenantContext.setCurrentTenant(previousTenant);
+            } else {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    private void retry(BulkRetryJob job, Long executionId) {
+        try {
+            ExecutionResult result = executionEngine.retryFailedExecution(job.getTenantId(), executionId);
+            (result.isSuccess() ? job.succeeded : job.failed).incrementAndGet();
+        } catch (Exception e) {
+            job.failed.incrementAndGet();
+            log.error("Bulk retry {} could not retry execution {}: {}", job.getId(), executionId, e.getMessage());
+        } finally {
+            release(job);
+        }
+    }
+
+    @Getter
+    private static final class BulkRetryJob {
+        private final String id;
+        private final String tenantId;
+        private final Long workflowId;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+        private volatile String status = STATUS_RUNNING;
+
+        private long cursor;
+        private final Deque<Long> pending = new ArrayDeque<>();
+        private final AtomicInteger submitted = new AtomicInteger();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final Semaphore inFlight;
+
+        private BulkRetryJob(String id, String tenantId, Long workflowId, LocalDateTime from, LocalDateTime to,
+                             int maxInFlight) {
+            this.id = id;
+            this.tenantId = tenantId;
+            this.workflowId = workflowId;
+            this.from = from;
+            this.to = to;
+            this.inFlight = new Semaphore(maxInFlight);
+        }
+
+        private synchronized void finish(String finalStatus) {
+            if (STATUS_RUNNING.equals(status)) {
+                status = finalStatus;
+                finishedAt = LocalDateTime.now();
+            }
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("jobId", id);
+            map.put("workflowId", workflowId);
+            map.put("from", from);
+            map.put("to", to);
+            map.put("status", status);
+            map.put("submitted", submitted.get());
+            map.put("succeeded", succeeded.get());
+            map.put("failed", failed.get());
+            map.put("inProgress", submitted.get() - succeeded.get() - failed.get());
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            return map;
+        }
+    }
+}
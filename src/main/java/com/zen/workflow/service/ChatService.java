@@ -1,10 +1,11 @@
 package com.zen.workflow.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zen.workflow.model.HttpCallResult;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -34,7 +35,11 @@ public class ChatService {
     @Value("${workflow.teams.webhook-url:}")
     private String teamsWebhookUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private HttpClientService httpClientService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     /**
      * Send message to Slack
@@ -203,20 +208,14 @@ public class ChatService {
      */
     private Map<String, Object> sendViaWebhook(String webhookUrl, Map<String, Object> payload) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
-
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                webhookUrl,
-                request,
-                String.class
-            );
+            HttpCallResult response = httpClientService.postJson(webhookUrl, null, payload);
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("HTTP " + response.getStatusCode());
+            }
 
             Map<String, Object> result = new HashMap<>();
             result.put("sent", true);
-            result.put("statusCode", response.getStatusCodeValue());
+            result.put("statusCode", response.getStatusCode());
             result.put("messageId", "webhook_" + System.currentTimeMillis());
 
             return result;
@@ -234,21 +233,15 @@ public class ChatService {
         try {
             String apiUrl = "https://slack.com/api/chat.postMessage";
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(slackBotToken);
-
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
-
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                apiUrl,
-                request,
-                Map.class
-            );
+            HttpCallResult response = httpClientService.postJson(apiUrl,
+                Map.of("Authorization", "Bearer " + slackBotToken), payload);
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("HTTP " + response.getStatusCode());
+            }
 
             Map<String, Object> result = new HashMap<>();
             result.put("sent", true);
-            result.put("response", response.getBody());
+            result.put("response", objectMapper.readValue(response.getBody(), Map.class));
             result.put("messageId", "slack_" + System.currentTimeMillis());
 
             return result;
@@ -0,0 +1,286 @@
+package com.zen.workflow.service;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * CUSTOM_RULES assignment rules compiled into a shared condition network.
+ *
+ * Identical conditions are compiled once however many rules use them, and all
+ * conditions on a field are indexed together: equals / not_equals by value, the
+ * numeric comparisons as sorted thresholds found by binary search. A lead is then
+ * evaluated with one lookup per distinct field; every condition that holds bumps
+ * the match count of the rules that use it, and the first rule (in config order)
+ * whose conditions all hold wins. Cost grows with the conditions that match, not
+ * with the number of rules.
+ *
+ * Operators: equals, not_equals, contains, greater_than, less_than, is_null.
+ * Equality compares numbers by value, so 5, 5.0 and "5" are equal. A missing
+ * field satisfies only is_null. Immutable and thread-safe.
+ *
+ * Config: rules: [{conditions: [{field, operator, value}], assignTo}], defaultUser
+ */
+public class CustomRuleSet {
+
+    private final FieldTests[] fields;
+    private final int[][] rulesByCondition;
+    private final int[] conditionCounts;
+    private final long[] assignees;
+    private final Long defaultUser;
+
+    private CustomRuleSet(FieldTests[] fields, int[][] rulesByCondition, int[] conditionCounts,
+                          long[] assignees, Long defaultUser) {
+        this.fields = fields;
+        this.rulesByCondition = rulesByCondition;
+        this.conditionCounts = conditionCounts;
+        this.assignees = assignees;
+        this.defaultUser = defaultUser;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static CustomRuleSet compile(Map<String, Object> config) {
+        List<Map<String, Object>> rules = (List<Map<String, Object>>) config.getOrDefault("rules", List.of());
+
+        Map<List<Object>, Integer> conditionIds = new HashMap<>();
+        Map<String, FieldTests> fieldTests = new LinkedHashMap<>();
+        List<List<Integer>> rulesByCondition = new ArrayList<>();
+        List<Integer> conditionCounts = new ArrayList<>();
+        List<Long> assignees = new ArrayList<>();
+
+        for (Map<String, Object> rule : rules) {
+            List<Map<String, Object>> conditions = (List<Map<String, Object>>) rule.get("conditions");
+            Object assignTo = rule.get("assignTo");
+            // A rule without a condition list never matches
+            if (conditions == null || !(assignTo instanceof Number)) {
+                continue;
+            }
+            int ruleIndex = assignees.size();
+            assignees.add(((Number) assignTo).longValue());
+
+            Set<Integer> ruleConditions = new HashSet<>();
+            for (Map<String, Object> condition : conditions) {
+                String field = (String) condition.get("field");
+                String operator = (String) condition.get("operator");
+                Object value = condition.get("value");
+                List<Object> key = Arrays.asList(field, operator, canonical(value));
+
+                Integer id = conditionIds.get(key);
+                if (id == null) {
+                    id = conditionIds.size();
+                    conditionIds.put(key, id);
+                    rulesByCondition.add(new ArrayList<>());
+                    fieldTests.computeIfAbsent(field, FieldTests::new).add(id, operator, value);
+                }
+                if (ruleConditions.add(id)) {
+                    rulesByCondition.get(id).add(ruleIndex);
+                }
+            }
+            conditionCounts.add(ruleConditions.size());
+        }
+
+        int[][] byCondition = new int[rulesByCondition.size()][];
+        for (int i = 0; i < byCondition.length; i++) {
+            byCondition[i] = rulesByCondition.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        for (FieldTests tests : fieldTests.values()) {
+            tests.seal();
+        }
+
+        Object defaultUser = config.get("defaultUser");
+        return new CustomRuleSet(
+            fieldTests.values().toArray(new FieldTests[0]),
+            byCondition,
+            conditionCounts.stream().mapToInt(Integer::intValue).toArray(),
+            assignees.stream().mapToLong(Long::longValue).toArray(),
+            defaultUser instanceof Number ? ((Number) defaultUser).longValue() : null);
+    }
+
+    /**
+     * User of the first rule the lead satisfies, else the default user
+     */
+    public Long evaluate(Map<String, Object> lead) {
+        int[] satisfied = new int[conditionCounts.length];
+        int[] match = {Integer.MAX_VALUE};
+
+        // Rules with no conditions always hold
+        for (int rule = 0; rule < conditionCounts.length; rule++) {
+            if (conditionCounts[rule] == 0) {
+                match[0] = rule;
+                break;
+            }
+        }
+
+        for (FieldTests tests : fields) {
+            tests.evaluate(lead.get(tests.field), condition -> {
+                for (int rule : rulesByCondition[condition]) {
+                    if (++satisfied[rule] == conditionCounts[rule] && rule < match[0]) {
+                        match[0] = rule;
+                    }
+                }
+            });
+        }
+
+        return match[0] != Integer.MAX_VALUE ? Long.valueOf(assignees[match[0]]) : defaultUser;
+    }
+
+    public int getRuleCount() {
+        return assignees.length;
+    }
+
+    /**
+     * Equality key: numbers (and numeric strings) by value, everything else as text
+     */
+    private static String canonical(Object value) {
+        if (value == null) {
+            return null;
+        }
+        BigDecimal number = toNumber(value);
+        return number != null ? "n:" + number.stripTrailingZeros().toPlainString() : "s:" + value;
+    }
+
+    private static BigDecimal toNumber(Object value) {
+        if (value instanceof Number) {
+            try {
+                return new BigDecimal(value.toString());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            if (text.isEmpty() || !(Character.isDigit(text.charAt(text.length() - 1)))) {
+                return null;
+            }
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private interface ConditionSink {
+        void accept(int condition);
+    }
+
+    /**
+     * All conditions on one field, indexed by operator
+     */
+    private static final class FieldTests {
+        private final String field;
+        private final Map<String, List<Integer>> equalsIndex = new HashMap<>();
+        private final Map<String, Set<Integer>> notEqualsIndex = new HashMap<>();
+        private final List<Integer> notEquals = new ArrayList<>();
+        private final List<Object[]> contains = new ArrayList<>();
+        private final List<Integer> isNull = new ArrayList<>();
+        private final List<double[]> greaterThanBuilder = new ArrayList<>();
+        private final List<double[]> lessThanBuilder = new ArrayList<>();
+
+        // Sorted by threshold: [threshold, condition]
+        private double[][] greaterThan;
+        private double[][] lessThan;
+
+        private FieldTests(String field) {
+            this.field = field;
+        }
+
+        void add(int condition, String operator, Object value) {
+            if (operator == null) {
+                return;
+            }
+            switch (operator) {
+                case "equals":
+                    equalsIndex.computeIfAbsent(canonical(value), k -> new ArrayList<>()).add(condition);
+                    break;
+                case "not_equals":
+                    notEqualsIndex.computeIfAbsent(canonical(value), k -> new HashSet<>()).add(condition);
+                    notEquals.add(condition);
+                    break;
+                case "contains":
+                    contains.add(new Object[]{String.valueOf(value), condition});
+                    break;
+                case "greater_than":
+                case "less_than":
+                    BigDecimal threshold = toNumber(value);
+                    if (threshold != null) {
+                        ("greater_than".equals(operator) ? greaterThanBuilder : lessThanBuilder)
+                            .add(new double[]{threshold.doubleValue(), condition});
+                    }
+                    break;
+                case "is_null":
+                    isNull.add(condition);
+                    break;
+                default:
+                    // Unknown operators never hold
+            }
+        }
+
+        void seal() {
+            greaterThan = greaterThanBuilder.toArray(new double[0][]);
+            lessThan = lessThanBuilder.toArray(new double[0][]);
+            Arrays.sort(greaterThan, Comparator.comparingDouble(entry -> entry[0]));
+            Arrays.sort(lessThan, Comparator.comparingDouble(entry -> entry[0]));
+        }
+
+        void evaluate(Object actual, ConditionSink sink) {
+            if (actual == null) {
+                isNull.forEach(sink::accept);
+                return;
+            }
+
+            String key = canonical(actual);
+            List<Integer> equal = equalsIndex.get(key);
+            if (equal != null) {
+                equal.forEach(sink::accept);
+            }
+            if (!notEquals.isEmpty()) {
+                Set<Integer> excluded = notEqualsIndex.getOrDefault(key, Set.of());
+                for (Integer condition : notEquals) {
+                    if (!excluded.contains(condition)) {
+                        sink.accept(condition);
+                    }
+                }
+            }
+            if (!contains.isEmpty()) {
+                String text = actual.toString();
+                for (Object[] test : contains) {
+                    if (text.contains((String) test[0])) {
+                        sink.accept((Integer) test[1]);
+                    }
+                }
+            }
+            if (greaterThan.length > 0 || lessThan.length > 0) {
+                BigDecimal number = toNumber(actual);
+                if (number != null) {
+                    double value = number.doubleValue();
+                    // actual > threshold: every threshold below value
+                    for (int i = 0; i < greaterThan.length && greaterThan[i][0] < value; i++) {
+                        sink.accept((int) greaterThan[i][1]);
+                    }
+                    // actual < threshold: every threshold above value
+                    for (int i = upperBound(lessThan, value); i < lessThan.length; i++) {
+                        sink.accept((int) lessThan[i][1]);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Index of the first threshold strictly greater than value
+         */
+        private static int upperBound(double[][] sorted, double value) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid][0] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.zen.workflow.service;
+
+import com.zen.workflow.engine.WorkflowExecutionEngine;
+import com.zen.workflow.model.DateSweep;
+import com.zen.workflow.model.ExecutionContext;
+import com.zen.workflow.model.NodeConfig;
+import com.zen.workflow.repository.WorkflowDateSweepRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Sweeps module tables for date-based triggers ("7 days before due date").
+ *
+ * Each active date_based workflow has a row in workflow_date_sweeps. A sweep reads
+ * only the records whose trigger date passed since the last sweep, using a range
+ * predicate on the date column paged by (date, id), dispatches them in batches on
+ * the workflow executor and advances the high-water mark after every batch.
+ * A per-row lease keeps two instances from sweeping the same workflow.
+ */
+@Slf4j
+@Service
+public class DateTriggerSweeper {
+
+    @Value("${workflow.date-sweep.enabled:true}")
+    private boolean enabled;
+
+    @Value("${workflow.date-sweep.batch-size:200}")
+    private int batchSize;
+
+    @Value("${workflow.date-sweep.max-batches-per-sweep:50}")
+    private int maxBatchesPerSweep;
+
+    @Value("${workflow.date-sweep.lease-ms:300000}")
+    private long leaseMs;
+
+    @Autowired
+    private WorkflowDateSweepRepository sweepRepository;
+
+    @Autowired
+    private WorkflowExecutionEngine executionEngine;
+
+    @Autowired
+    @Qualifier("workflowExecutor")
+    private Executor workflowExecutor;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * Register the sweep for a date_based trigger node. Records already past their
+     * trigger date at registration are not replayed.
+     */
+    public void register(String tenantId, Long workflowId, String moduleType, NodeConfig trigger) {
+        Map<String, Object> config = trigger.getConfig() != null ? trigger.getConfig() : Map.of();
+        String dateField = (String) config.get("dateField");
+        if (dateField == null) {
+            log.warn("Date-based workflow {} has no dateField, not swept", workflowId);
+            return;
+        }
+
+        int offsetDays = config.get("offsetDays") instanceof Number ? ((Number) config.get("offsetDays")).intValue() : 0;
+        String offsetType = (String) config.getOrDefault("offsetType", "before");
+
+        DateSweep sweep = new DateSweep();
+        sweep.setTenantId(tenantId);
+        sweep.setWorkflowId(workflowId);
+        sweep.setTableName((String) config.getOrDefault("tableName", defaultTable(moduleType)));
+        sweep.setDateColumn((String) config.getOrDefault("dateColumn", dateField));
+        sweep.setOffsetDays("before".equals(offsetType) ? -Math.abs(offsetDays) : Math.abs(offsetDays));
+        sweep.setHighWaterDate(upperBound(sweep, LocalDateTime.now()));
+        sweepRepository.upsert(sweep);
+
+        log.info("Registered date sweep for workflow {} on {}.{} ({} days)", workflowId,
+            sweep.getTableName(), sweep.getDateColumn(), sweep.getOffsetDays());
+    }
+
+    public void unregister(String tenantId, Long workflowId) {
+        sweepRepository.delete(tenantId, workflowId);
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.date-sweep.interval-ms:60000}", initialDelayString = "${workflow.date-sweep.initial-delay-ms:30000}")
+    public void sweepAll() {
+        if (!enabled) {
+            return;
+        }
+
+        long afterId = 0;
+        List<DateSweep> page;
+        do {
+            page = sweepRepository.findUnlocked(afterId, 100);
+            for (DateSweep sweep : page) {
+                afterId = sweep.getId();
+                if (!sweepRepository.tryLock(sweep.getId(), instanceId, leaseMs)) {
+                    continue;
+                }
+                try {
+                    sweep(sweep);
+                } catch (Exception e) {
+                    log.error("Date sweep of workflow {} (tenant {}) failed: {}",
+                        sweep.getWorkflowId(), sweep.getTenantId(), e.getMessage(), e);
+                } finally {
+                    sweepRepository.unlock(sweep.getId(), instanceId);
+                }
+            }
+        } while (page.size() == 100);
+    }
+
+    private void sweep(DateSweep sweep) {
+        LocalDateTime upper = upperBound(sweep, LocalDateTime.now());
+        LocalDateTime afterDate = sweep.getHighWaterDate();
+        Long afterId = sweep.getHighWaterId();
+        int dispatched = 0;
+
+        for (int batch = 0; batch < maxBatchesPerSweep; batch++) {
+            List<Map<String, Object>> records = sweepRepository.findEligibleRecords(sweep, upper, afterDate, afterId, batchSize);
+            if (records.isEmpty()) {
+                break;
+            }
+
+            try {
+                workflowExecutor.execute(() -> runBatch(sweep, records));
+            } catch (RejectedExecutionException e) {
+                // Executor saturated - leave the mark here and pick up from it on the next sweep
+                log.warn("Workflow executor saturated, date sweep of workflow {} deferred", sweep.getWorkflowId());
+                break;
+            }
+
+            Map<String, Object> last = records.get(records.size() - 1);
+            afterDate = toDateTime(last.get(sweep.getDateColumn()));
+            afterId = ((Number) last.get("id")).longValue();
+            sweepRepository.advance(sweep.getId(), instanceId, afterDate, afterId);
+            dispatched += records.size();
+
+            if (records.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (dispatched > 0) {
+            log.info("Date sweep dispatched {} record(s) for workflow {} (tenant {})",
+                dispatched, sweep.getWorkflowId(), sweep.getTenantId());
+        }
+    }
+
+    private void runBatch(DateSweep sweep, List<Map<String, Object>> records) {
+        for (Map<String, Object> record : records) {
+            try {
+                Map<String, Object> triggerData = new HashMap<>(record);
+                triggerData.put("recordId", record.get("id"));
+                triggerData.put("sweptAt", LocalDateTime.now().toString());
+
+                ExecutionContext context = new ExecutionContext();
+                context.setWorkflowId(sweep.getWorkflowId());
+                context.setTenantId(sweep.getTenantId());
+                context.setTriggerData(triggerData);
+
+                executionEngine.executeWorkflow(sweep.getWorkflowId(), context);
+            } catch (Exception e) {
+                log.error("Date-based run of workflow {} for record {} failed: {}",
+                    sweep.getWorkflowId(), record.get("id"), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A record is due once date + offset has passed, i.e. date <= now - offset
+     */
+    private LocalDateTime upperBound(DateSweep sweep, LocalDateTime now) {
+        return now.minusDays(sweep.getOffsetDays());
+    }
+
+    private LocalDateTime toDateTime(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate().atStartOfDay();
+        }
+        if (value instanceof LocalDateTime) {
+            return (LocalDateTime) value;
+        }
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).atStartOfDay();
+        }
+        throw new IllegalStateException("Unsupported date column value: " + value);
+    }
+
+    private String defaultTable(String moduleType) {
+        return moduleType != null ? moduleType.toLowerCase() + "s" : null;
+    }
+}
@@ -1,12 +1,19 @@
 package com.zen.workflow.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import jakarta.persistence.criteria.*;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.*;
 
 /**
@@ -17,9 +24,15 @@ import java.util.*;
 @Service
 public class DynamicEntityService {
 
+    /** Rows per bulk UPDATE statement, keeping the CASE and IN lists to a sane size */
+    private static final int BULK_UPDATE_CHUNK = 1000;
+
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Query records dynamically
      */
@@ -261,6 +274,129 @@ public class DynamicEntityService {
         }
     }
 
+    /**
+     * Query records as field maps, e.g. to feed them to assignment rules
+     */
+    public List<Map<String, Object>> queryRecordMaps(String entityName, Map<String, Object> criteria, Integer limit) {
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (Object entity : queryRecords(entityName, criteria, limit)) {
+            records.add(objectMapper.convertValue(entity, Map.class));
+        }
+        return records;
+    }
+
+    /**
+     * Set one field to a per-record value with one UPDATE ... CASE statement per
+     * chunk, without loading the entities.
+     *
+     * A bulk UPDATE skips entity listeners (@PreUpdate) and auditing, so the
+     * statement sets updatedAt and bumps the @Version attribute itself when the
+     * entity has them. Other listener side effects do not run.
+     *
+     * @param values record id to new value
+     * @return number of rows updated
+     */
+    @Transactional
+    public int bulkUpdateField(String entityName, String field, Map<Long, ?> values) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        if (!field.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid field name: " + field);
+        }
+        
+        try {
+            Class<?> entityClass = getEntityClass(entityName);
+            String entity = entityClass.getSimpleName();
+            EntityType<?> entityType = entityManager.getMetamodel().entity(entityClass);
+            String versionAttribute = versionAttribute(entityType);
+            Object updatedAt = auditTimestamp(entityType);
+            List<Long> ids = new ArrayList<>(values.keySet());
+            int updated = 0;
+            
+            for (int start = 0; start < ids.size(); start += BULK_UPDATE_CHUNK) {
+                List<Long> chunk = ids.subList(start, Math.min(ids.size(), start + BULK_UPDATE_CHUNK));
+                
+                StringBuilder jpql = new StringBuilder("UPDATE ").append(entity).append(" e SET e.")
+                    .append(field).append(" = CASE e.id");
+                for (int i = 0; i < chunk.size(); i++) {
+                    jpql.append(" WHEN :id").append(i).append(" THEN :value").append(i);
+                }
+                jpql.append(" ELSE e.").append(field).append(" END");
+                if (updatedAt != null) {
+                    jpql.append(", e.updatedAt = :updatedAt");
+                }
+                if (versionAttribute != null) {
+                    jpql.append(", e.").append(versionAttribute).append(" = e.").append(versionAttribute).append(" + 1");
+                }
+                jpql.append(" WHERE e.id IN :ids");
+                
+                Query query = entityManager.createQuery(jpql.toString());
+                for (int i = 0; i < chunk.size(); i++) {
+                    query.setParameter("id" + i, chunk.get(i));
+                    query.setParameter("value" + i, values.get(chunk.get(i)));
+                }
+                query.setParameter("ids", chunk);
+                if (updatedAt != null) {
+                    query.setParameter("updatedAt", updatedAt);
+                }
+                updated += query.executeUpdate();
+            }
+            
+            log.info("Bulk updated {} on {} {} records", field, updated, entityName);
+            return updated;
+            
+        } catch (Exception e) {
+            log.error("Bulk field update failed for entity: {}", entityName, e);
+            throw new RuntimeException("Bulk update failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Name of the entity's numeric @Version attribute, or null
+     */
+    private String versionAttribute(EntityType<?> entityType) {
+        if (!entityType.hasVersionAttribute()) {
+            return null;
+        }
+        for (SingularAttribute<?, ?> attribute : entityType.getSingularAttributes()) {
+            if (attribute.isVersion()) {
+                Class<?> type = attribute.getJavaType();
+                boolean numeric = Number.class.isAssignableFrom(type) || type == int.class || type == long.class
+                    || type == short.class;
+                return numeric ? attribute.getName() : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The current time in the type of the entity's updatedAt attribute, or null if it has none
+     */
+    private Object auditTimestamp(EntityType<?> entityType) {
+        for (Attribute<?, ?> attribute : entityType.getAttributes()) {
+            if (!attribute.getName().equals("updatedAt")) {
+                continue;
+            }
+            Class<?> type = attribute.getJavaType();
+            if (type == LocalDateTime.class) {
+                return LocalDateTime.now();
+            }
+            if (type == Instant.class) {
+                return Instant.now();
+            }
+            if (type == Date.class) {
+                return new Date();
+            }
+            if (type == java.sql.Timestamp.class) {
+                return new java.sql.Timestamp(System.currentTimeMillis());
+            }
+            log.warn("Unsupported updatedAt type {} on {}, not set by bulk update", type.getSimpleName(),
+                entityType.getName());
+        }
+        return null;
+    }
+
     /**
      * Bulk delete records
      */
@@ -10,6 +10,8 @@ import org.springframework.stereotype.Service;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,6 +26,9 @@ public class EmailService {
     @Autowired(required = false)
     private JavaMailSender mailSender;
 
+    @Autowired
+    private BulkEmailService bulkEmailService;
+
     @Value("${spring.mail.from:noreply@example.com}")
     private String defaultFromEmail;
 
@@ -164,30 +169,19 @@ public class EmailService {
             return;
         }
 
-        if (mailSender == null) {
-            log.error("JavaMailSender not configured. Cannot send bulk email.");
-            throw new RuntimeException("Email service not configured");
-        }
-
-        int successCount = 0;
-        int failureCount = 0;
-
+        List<Map<String, Object>> recipientData = new ArrayList<>(recipients.size());
         for (String recipient : recipients) {
-            try {
-                sendEmail(recipient, subject, body, isHtml);
-                successCount++;
-            } catch (Exception e) {
-                log.error("Failed to send bulk email to: {}", recipient, e);
-                failureCount++;
-            }
+            Map<String, Object> data = new HashMap<>();
+            data.put("email", recipient);
+            recipientData.add(data);
         }
 
-        log.info("Bulk email completed: {} sent, {} failed out of {} total", 
-            successCount, failureCount, recipients.size());
-
+        // Subject and body are sent as given; only {{email}} could ever match
+        Map<String, Object> result = bulkEmailService.sendBulk(subject, body, isHtml, recipientData, null, true);
+        int failureCount = (int) result.get("failed");
         if (failureCount > 0) {
             throw new RuntimeException(String.format(
-                "Bulk email partially failed: %d sent, %d failed", successCount, failureCount));
+                "Bulk email partially failed: %d sent, %d failed", (int) result.get("sent"), failureCount));
         }
     }
 
@@ -202,36 +196,15 @@ public class EmailService {
             return;
         }
 
-        int successCount = 0;
-        int failureCount = 0;
-
-        for (Map<String, Object> data : recipientData) {
-            try {
-                String to = (String) data.get("email");
-                if (to == null || to.trim().isEmpty()) {
-                    log.warn("Skipping recipient with no email address");
-                    failureCount++;
-                    continue;
-                }
-
-                // Process subject with variables
-                String processedSubject = processTemplate(subject, data);
-                
-                // Send template email
-                sendTemplateEmail(to, processedSubject, template, data);
-                successCount++;
-            } catch (Exception e) {
-                log.error("Failed to send bulk template email", e);
-                failureCount++;
-            }
-        }
-
-        log.info("Bulk template email completed: {} sent, {} failed out of {} total", 
-            successCount, failureCount, recipientData.size());
+        // Determine if HTML based on template content
+        boolean isHtml = template.contains("<html") || template.contains("<body") || template.contains("<div");
 
+        // Placeholders a recipient has no value for are left as written, as before
+        Map<String, Object> result = bulkEmailService.sendBulk(subject, template, isHtml, recipientData, null, true);
+        int failureCount = (int) result.get("failed");
         if (failureCount > 0) {
             throw new RuntimeException(String.format(
-                "Bulk template email partially failed: %d sent, %d failed", successCount, failureCount));
+                "Bulk template email partially failed: %d sent, %d failed", (int) result.get("sent"), failureCount));
         }
     }
 
@@ -0,0 +1,181 @@
+package com.zen.workflow.service;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker and bulkhead per outbound endpoint, keyed by tenant and
+ * destination host.
+ *
+ * A call first needs a breaker permit, then a bulkhead slot; either refusal fails
+ * the call immediately instead of queueing behind a dead or slow endpoint, so only
+ * the workflows calling that endpoint are affected. Both use the
+ * {@code outbound-endpoint} configs from application.yml. Instances idle for longer
+ * than {@code workflow.http.endpoint-idle-eviction-ms} are dropped from the registries.
+ */
+@Slf4j
+@Service
+public class EndpointResilienceService {
+
+    public static final String ENDPOINT_CONFIG = "outbound-endpoint";
+
+    private static final String KEY_SEPARATOR = "|";
+
+    @Value("${workflow.http.endpoint-idle-eviction-ms:3600000}")
+    private long idleEvictionMs;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private BulkheadRegistry bulkheadRegistry;
+
+    private final Map<String, Long> lastUsed = new ConcurrentHashMap<>();
+
+    /**
+     * Run an async call behind the endpoint's breaker and bulkhead.
+     *
+     * @param isFailure results that count as endpoint failures (e.g. 5xx) without throwing
+     */
+    public <T> CompletableFuture<T> execute(String tenantId, String url, Supplier<CompletableFuture<T>> call,
+                                            Predicate<T> isFailure) {
+        String name = endpointKey(tenantId, url);
+        lastUsed.put(name, System.currentTimeMillis());
+
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(name, ENDPOINT_CONFIG);
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(name, ENDPOINT_CONFIG);
+
+        if (!circuitBreaker.tryAcquirePermission()) {
+            log.warn("Circuit open for {}, failing fast", name);
+            return CompletableFuture.failedFuture(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+        }
+        if (!bulkhead.tryAcquirePermission()) {
+            circuitBreaker.releasePermission();
+            log.warn("Concurrency limit reached for {}, failing fast", name);
+            return CompletableFuture.failedFuture(BulkheadFullException.createBulkheadFullException(bulkhead));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            bulkhead.onComplete();
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return future.whenComplete((result, error) -> {
+            bulkhead.onComplete();
+            long duration = System.nanoTime() - start;
+            if (error != null) {
+                circuitBreaker.onError(duration, TimeUnit.NANOSECONDS,
+                    error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else if (isFailure.test(result)) {
+                circuitBreaker.onError(duration, TimeUnit.NANOSECONDS, new RuntimeException("Endpoint reported failure"));
+            } else {
+                circuitBreaker.onResult(duration, TimeUnit.NANOSECONDS, result);
+            }
+        });
+    }
+
+    /**
+     * Whether a failure came from a breaker or bulkhead refusing the call
+     */
+    public boolean isRejection(Throwable error) {
+        return error instanceof CallNotPermittedException || error instanceof BulkheadFullException;
+    }
+
+    /**
+     * Breaker and bulkhead state of every endpoint a tenant has called recently
+     */
+    public List<Map<String, Object>> getEndpointHealth(String tenantId) {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (String name : lastUsed.keySet()) {
+            if (tenantId != null && !name.startsWith(tenantId + KEY_SEPARATOR)) {
+                continue;
+            }
+            Optional<CircuitBreaker> circuitBreaker = circuitBreakerRegistry.find(name);
+            if (circuitBreaker.isEmpty()) {
+                continue;
+            }
+            CircuitBreaker.Metrics metrics = circuitBreaker.get().getMetrics();
+
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("endpoint", name.substring(name.indexOf(KEY_SEPARATOR) + 1));
+            endpoint.put("tenantId", name.substring(0, name.indexOf(KEY_SEPARATOR)));
+            endpoint.put("state", circuitBreaker.get().getState().name());
+            endpoint.put("failureRate", metrics.getFailureRate());
+            endpoint.put("slowCallRate", metrics.getSlowCallRate());
+            endpoint.put("bufferedCalls", metrics.getNumberOfBufferedCalls());
+            endpoint.put("rejectedCalls", metrics.getNumberOfNotPermittedCalls());
+            bulkheadRegistry.find(name).ifPresent(bulkhead -> {
+                endpoint.put("availableConcurrentCalls", bulkhead.getMetrics().getAvailableConcurrentCalls());
+                endpoint.put("maxConcurrentCalls", bulkhead.getMetrics().getMaxAllowedConcurrentCalls());
+            });
+            endpoint.put("lastUsedAt", new Date(lastUsed.getOrDefault(name, 0L)));
+            endpoints.add(endpoint);
+        }
+        return endpoints;
+    }
+
+    /**
+     * Drop breakers and bulkheads of endpoints that are idle and healthy
+     */
+    @Scheduled(fixedDelayString = "${workflow.http.endpoint-eviction-interval-ms:300000}")
+    public void evictIdleEndpoints() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMs;
+        int evicted = 0;
+        for (Map.Entry<String, Long> entry : lastUsed.entrySet()) {
+            if (entry.getValue() >= cutoff) {
+                continue;
+            }
+            String name = entry.getKey();
+            boolean closed = circuitBreakerRegistry.find(name)
+                .map(cb -> cb.getState() == CircuitBreaker.State.CLOSED)
+                .orElse(true);
+            boolean idle = bulkheadRegistry.find(name)
+                .map(b -> b.getMetrics().getAvailableConcurrentCalls() == b.getMetrics().getMaxAllowedConcurrentCalls())
+                .orElse(true);
+            if (closed && idle && lastUsed.remove(name, entry.getValue())) {
+                circuitBreakerRegistry.remove(name);
+                bulkheadRegistry.remove(name);
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle endpoint breaker(s)", evicted);
+        }
+    }
+
+    private String endpointKey(String tenantId, String url) {
+        String endpoint = url;
+        try {
+            URI uri = URI.create(url);
+            if (uri.getHost() != null) {
+                endpoint = uri.getHost().toLowerCase() + (uri.getPort() > 0 ? ":" + uri.getPort() : "");
+            }
+        } catch (IllegalArgumentException e) {
+            // Keyed by the raw url; the request itself will fail on it
+        }
+        return (tenantId != null ? tenantId : "default") + KEY_SEPARATOR + endpoint;
+    }
+}
@@ -0,0 +1,243 @@
+package com.zen.workflow.service;
+
+import com.zen.workflow.engine.CompiledWorkflow;
+import com.zen.workflow.engine.WorkflowExecutionEngine;
+import com.zen.workflow.model.EventSubscription;
+import com.zen.workflow.model.WorkflowTimer;
+import com.zen.workflow.repository.WorkflowEventSubscriptionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Matches incoming events to executions paused in wait_for_event.
+ *
+ * Subscriptions are persisted in workflow_event_subscriptions and held in a hash
+ * index keyed by (tenant, event type, correlation key), so an event finds its
+ * waiters with one lookup. The index is topped up from the table every few seconds
+ * (subscriptions registered on other instances) and rebuilt periodically to drop
+ * entries resolved elsewhere. Matches are claimed in one batch against the table,
+ * and the winners are resumed on the workflow executor. Timeouts go through the
+ * durable timer path; whichever of event and timeout resumes first wins.
+ */
+@Slf4j
+@Service
+public class EventCorrelationService {
+
+    public static final String EVENT_RECEIVED = "eventReceived";
+    public static final String EVENT_DATA = "eventData";
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    @Value("${workflow.event.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private WorkflowEventSubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private WorkflowTimerService timerService;
+
+    @Autowired
+    @Lazy
+    private WorkflowExecutionEngine executionEngine;
+
+    @Autowired
+    @Qualifier("workflowExecutor")
+    private Executor workflowExecutor;
+
+    private volatile Map<String, Set<EventSubscription>> index = new ConcurrentHashMap<>();
+    private volatile Map<String, EventSubscription> byExecution = new ConcurrentHashMap<>();
+    private volatile long lastLoadedId;
+
+    /**
+     * Register an execution paused waiting for an event
+     */
+    public void subscribe(String tenantId, Long executionId, String nodeId, String eventType, String correlationKey) {
+        EventSubscription subscription = new EventSubscription();
+        subscription.setTenantId(tenantId);
+        subscription.setExecutionId(executionId);
+        subscription.setNodeId(nodeId);
+        subscription.setEventType(normalize(eventType));
+        subscription.setCorrelationKey(correlationKey);
+        subscription.setId(subscriptionRepository.insert(subscription));
+
+        addToIndex(subscription);
+        log.info("Execution {} waiting for {} [{}]", executionId, eventType, correlationKey);
+    }
+
+    /**
+     * Resume every execution waiting for this event.
+     *
+     * @return number of executions resumed
+     */
+    public int publish(String tenantId, String eventType, String correlationKey, Map<String, Object> eventData) {
+        if (!enabled || eventType == null || correlationKey == null) {
+            return 0;
+        }
+
+        String type = normalize(eventType);
+        Map<Long, EventSubscription> matches = new LinkedHashMap<>();
+        Set<EventSubscription> waiting = index.get(key(tenantId, type, correlationKey));
+        if (waiting != null) {
+            for (EventSubscription subscription : waiting) {
+                matches.put(subscription.getId(), subscription);
+            }
+        }
+        // Subscriptions made on other instances since the last load are not in the index
+        // yet; without this an event arriving in that window would be lost
+        for (EventSubscription subscription : subscriptionRepository.findWaiting(tenantId, type, correlationKey, lastLoadedId)) {
+            matches.putIfAbsent(subscription.getId(), subscription);
+        }
+        if (matches.isEmpty()) {
+            return 0;
+        }
+
+        List<EventSubscription> candidates = new ArrayList<>(matches.values());
+        List<Long> ids = new ArrayList<>(matches.keySet());
+        Set<Long> claimed = new HashSet<>(subscriptionRepository.claim(ids));
+
+        int resumed = 0;
+        for (EventSubscription subscription : candidates) {
+            removeFromIndex(subscription);
+            if (!claimed.contains(subscription.getId())) {
+                continue;
+            }
+
+            timerService.cancelForExecution(subscription.getTenantId(), subscription.getExecutionId(),
+                WorkflowTimer.TYPE_EVENT_TIMEOUT);
+
+            Map<String, Object> resumeData = new HashMap<>();
+            resumeData.put(EVENT_RECEIVED, true);
+            resumeData.put("receivedEventType", eventType);
+            resumeData.put("eventReceivedAt", LocalDateTime.now().toString());
+            if (eventData != null) {
+                resumeData.put(EVENT_DATA, eventData);
+            }
+
+            Runnable resume = () -> executionEngine.resumeExecution(subscription.getTenantId(),
+                subscription.getExecutionId(), subscription.getNodeId(), CompiledWorkflow.NEXT, resumeData);
+            try {
+                workflowExecutor.execute(resume);
+            } catch (RejectedExecutionException e) {
+                // Already claimed, so it must not be dropped - resume on the caller's thread
+                resume.run();
+            }
+            resumed++;
+        }
+
+        log.info("Event {} [{}] resumed {} execution(s)", eventType, correlationKey, resumed);
+        return resumed;
+    }
+
+    /**
+     * Drop the subscription of an execution that was cancelled or timed out
+     */
+    public void cancelForExecution(String tenantId, Long executionId) {
+        EventSubscription subscription = byExecution.get(executionKey(tenantId, executionId));
+        if (subscription != null) {
+            removeFromIndex(subscription);
+        }
+        subscriptionRepository.cancelByExecution(tenantId, executionId);
+    }
+
+    public boolean hasWaiters(String tenantId, String eventType, String correlationKey) {
+        Set<EventSubscription> waiting = index.get(key(tenantId, normalize(eventType), correlationKey));
+        return waiting != null && !waiting.isEmpty();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${workflow.event.rebuild-interval-ms:600000}", initialDelayString = "${workflow.event.rebuild-interval-ms:600000}")
+    public void rebuildIndex() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Set<EventSubscription>> newIndex = new ConcurrentHashMap<>();
+        Map<String, EventSubscription> newByExecution = new ConcurrentHashMap<>();
+        long afterId = 0;
+        List<EventSubscription> page;
+        do {
+            page = subscriptionRepository.findWaitingAfter(afterId, LOAD_BATCH_SIZE);
+            for (EventSubscription subscription : page) {
+                newIndex.computeIfAbsent(key(subscription), k -> ConcurrentHashMap.newKeySet()).add(subscription);
+                newByExecution.put(executionKey(subscription), subscription);
+                afterId = subscription.getId();
+            }
+        } while (page.size() == LOAD_BATCH_SIZE);
+
+        index = newIndex;
+        byExecution = newByExecution;
+        lastLoadedId = Math.max(lastLoadedId, afterId);
+        log.info("Event correlation index rebuilt: {} waiting execution(s)", newByExecution.size());
+    }
+
+    /**
+     * Pick up subscriptions registered on other instances since the last load
+     */
+    @Scheduled(fixedDelayString = "${workflow.event.refresh-interval-ms:5000}")
+    public void loadNewSubscriptions() {
+        if (!enabled) {
+            return;
+        }
+        List<EventSubscription> page;
+        do {
+            page = subscriptionRepository.findWaitingAfter(lastLoadedId, LOAD_BATCH_SIZE);
+            for (EventSubscription subscription : page) {
+                addToIndex(subscription);
+                lastLoadedId = subscription.getId();
+            }
+        } while (page.size() == LOAD_BATCH_SIZE);
+    }
+
+    private void addToIndex(EventSubscription subscription) {
+        if (subscription.getId() == null) {
+            return;
+        }
+        index.computeIfAbsent(key(subscription), k -> ConcurrentHashMap.newKeySet()).add(subscription);
+        byExecution.put(executionKey(subscription), subscription);
+    }
+
+    private void removeFromIndex(EventSubscription subscription) {
+        String key = key(subscription);
+        Set<EventSubscription> waiting = index.get(key);
+        if (waiting != null) {
+            waiting.remove(subscription);
+            if (waiting.isEmpty()) {
+                index.remove(key, waiting);
+            }
+        }
+        byExecution.remove(executionKey(subscription), subscription);
+    }
+
+    private String key(EventSubscription subscription) {
+        return key(subscription.getTenantId(), subscription.getEventType(), subscription.getCorrelationKey());
+    }
+
+    private String key(String tenantId, String eventType, String correlationKey) {
+        return tenantId + "|" + eventType + "|" + correlationKey;
+    }
+
+    private String executionKey(EventSubscription subscription) {
+        return executionKey(subscription.getTenantId(), subscription.getExecutionId());
+    }
+
+    private String executionKey(String tenantId, Long executionId) {
+        return tenantId + "|" + executionId;
+    }
+
+    private String normalize(String eventType) {
+        return eventType != null ? eventType.toLowerCase() : null;
+    }
+}
@@ -0,0 +1,295 @@
+package com.zen.workflow.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zen.workflow.model.HttpCallResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Shared outbound HTTP client for webhooks, integrations and chat/SMS providers.
+ *
+ * One JDK {@link HttpClient} for the whole service: HTTP/2 where the server supports
+ * it, kept-alive connections pooled per host, a connect timeout, a per-request
+ * timeout ({@code workflow.webhook.timeout}) and a cap on the response body size.
+ * Requests in flight to one host are capped at {@code workflow.http.max-connections-per-host};
+ * the rest wait in a per-host queue, and the request timeout includes that wait.
+ * {@link #sendAsync} completes on the client's own threads, so callers can compose
+ * on the future instead of holding an execution thread for the whole round trip.
+ */
+@Slf4j
+@Service
+public class HttpClientService {
+
+    // Managed by the client itself; setting them throws IllegalArgumentException
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private static final int MAX_TRACKED_HOSTS = 10000;
+
+    @Value("${workflow.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${workflow.webhook.timeout:30000}")
+    private long requestTimeoutMs;
+
+    @Value("${workflow.http.max-response-bytes:1048576}")
+    private long maxResponseBytes;
+
+    @Value("${workflow.http.keepalive-seconds:30}")
+    private int keepAliveSeconds;
+
+    @Value("${workflow.http.max-connections-per-host:50}")
+    private int maxConnectionsPerHost;
+
+    @Value("${workflow.http.threads:8}")
+    private int threads;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ExecutorService executor;
+    private HttpClient client;
+    private final Map<String, HostGate> hostGates = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        // Keep-alive of the JDK client is only exposed through a system property
+        System.setProperty("jdk.httpclient.keepalive.timeout",
+            System.getProperty("jdk.httpclient.keepalive.timeout", String.valueOf(keepAliveSeconds)));
+
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "workflow-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(executor)
+            .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Send a request without blocking the caller.
+     *
+     * @param body null, a String sent as-is, or any object serialized as JSON
+     */
+    public CompletableFuture<HttpCallResult> sendAsync(String method, String url, Map<String, String> headers, Object body) {
+        HttpRequest request;
+        try {
+            request = buildRequest(method, url, headers, body);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long start = System.currentTimeMillis();
+        return gateFor(request.uri())
+            .submit(() -> client.sendAsync(request, responseInfo -> new LimitedBodySubscriber(maxResponseBytes)))
+            .orTimeout(requestTimeoutMs, TimeUnit.MILLISECONDS)
+            .thenApply(response -> toResult(response, start));
+    }
+
+    /**
+     * Blocking variant for callers that need the response inline
+     */
+    public HttpCallResult send(String method, String url, Map<String, String> headers, Object body) {
+        try {
+            return sendAsync(method, url, headers, body).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                throw new RuntimeException("Request to " + url + " timed out after " + requestTimeoutMs + " ms", cause);
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    public HttpCallResult postJson(String url, Map<String, String> headers, Object body) {
+        return send("POST", url, headers, body);
+    }
+
+    private HttpRequest buildRequest(String method, String url, Map<String, String> headers, Object body) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+            .timeout(Duration.ofMillis(requestTimeoutMs));
+
+        boolean hasContentType = false;
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (header.getValue() == null || RESTRICTED_HEADERS.contains(header.getKey().toLowerCase())) {
+                    continue;
+                }
+                hasContentType |= "content-type".equalsIgnoreCase(header.getKey());
+                builder.header(header.getKey(), header.getValue());
+            }
+        }
+
+        if (body == null) {
+            builder.method(method.toUpperCase(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            String payload = body instanceof String ? (String) body : objectMapper.writeValueAsString(body);
+            if (!hasContentType) {
+                builder.header("Content-Type", "application/json");
+            }
+            builder.method(method.toUpperCase(), HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8));
+        }
+        return builder.build();
+    }
+
+    private HostGate gateFor(URI uri) {
+        String host = uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+        if (hostGates.size() >= MAX_TRACKED_HOSTS && !hostGates.containsKey(host)) {
+            // Requests in flight keep their gate, so this only forgets idle hosts' counts
+            hostGates.clear();
+        }
+        return hostGates.computeIfAbsent(host, h -> new HostGate(maxConnectionsPerHost));
+    }
+
+    private HttpCallResult toResult(HttpResponse<byte[]> response, long start) {
+        HttpCallResult result = new HttpCallResult();
+        result.setStatusCode(response.statusCode());
+        result.setBody(new String(response.body(), StandardCharsets.UTF_8));
+        response.headers().map().forEach((name, values) -> {
+            if (!values.isEmpty()) {
+                result.getHeaders().put(name, values.get(0));
+            }
+        });
+        result.setDurationMs(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * Lets at most {@code permits} requests run at once and starts queued ones as
+     * running ones finish. A request whose caller already timed out is skipped.
+     */
+    private static final class HostGate {
+        private final Semaphore permits;
+        private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+        private HostGate(int permits) {
+            this.permits = new Semaphore(Math.max(1, permits));
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            waiting.add(() -> {
+                if (result.isDone()) {
+                    release();
+                    return;
+                }
+                CompletableFuture<T> sent;
+                try {
+                    sent = call.get();
+                } catch (RuntimeException e) {
+                    release();
+                    result.completeExceptionally(e);
+                    return;
+                }
+                sent.whenComplete((value, error) -> {
+                    release();
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            });
+            drain();
+            return result;
+        }
+
+        private void release() {
+            permits.release();
+            drain();
+        }
+
+        private void drain() {
+            // Re-checked after every acquire, so a permit released while queuing is never lost
+            while (!waiting.isEmpty() && permits.tryAcquire()) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    permits.release();
+                } else {
+                    next.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the body, failing (and closing the stream) once it exceeds the limit
+     */
+    private static final class LimitedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+        private final long maxBytes;
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private Flow.Subscription subscription;
+
+        private LimitedBodySubscriber(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public CompletionStage<byte[]> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (result.isDone()) {
+                return;
+            }
+            for (ByteBuffer item : items) {
+                if (buffer.size() + item.remaining() > maxBytes) {
+                    subscription.cancel();
+                    result.completeExceptionally(new RuntimeException("Response body exceeds " + maxBytes + " bytes"));
+                    return;
+                }
+                byte[] chunk = new byte[item.remaining()];
+                item.get(chunk);
+                buffer.write(chunk, 0, chunk.length);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(buffer.toByteArray());
+        }
+    }
+}
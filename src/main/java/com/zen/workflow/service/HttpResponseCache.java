@@ -0,0 +1,166 @@
+package com.zen.workflow.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of idempotent integration responses, shared by all executions.
+ *
+ * Entries are LRU-bounded ({@code workflow.http.cache.max-entries}) and expire after
+ * the node's TTL, shortened by the response's Cache-Control max-age; no-store,
+ * no-cache and oversized bodies are never stored. Concurrent loads of the same key
+ * share one in-flight request. Keys are built by the caller and must include
+ * everything that changes the response (tenant, url, credentials, varying headers).
+ */
+@Slf4j
+@Service
+public class HttpResponseCache {
+
+    @Value("${workflow.http.cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${workflow.http.cache.max-entry-bytes:262144}")
+    private int maxEntryBytes;
+
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * Return the cached response for the key, or load it once for all concurrent callers
+     */
+    public CompletableFuture<Map<String, Object>> getOrLoad(String key, long ttlMillis,
+                                                            Supplier<CompletableFuture<Map<String, Object>>> loader) {
+        Map<String, Object> cached = get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Map<String, Object>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            log.debug("Joining in-flight request for {}", key);
+            return existing.thenApply(HashMap::new);
+        }
+
+        CompletableFuture<Map<String, Object>> load;
+        try {
+            load = loader.get();
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((response, error) -> {
+            if (error == null) {
+                put(key, response, ttlMillis);
+            }
+            inFlight.remove(key, created);
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(response);
+            }
+        });
+        return created;
+    }
+
+    public void evict(String key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    private Map<String, Object> get(String key) {
+        CachedResponse entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            return null;
+        }
+        Map<String, Object> response = new HashMap<>(entry.response);
+        response.put("cached", true);
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void put(String key, Map<String, Object> response, long ttlMillis) {
+        if (response == null || !Boolean.TRUE.equals(response.get("success"))) {
+            return;
+        }
+        Object body = response.get("body");
+        if (body instanceof String && ((String) body).length() > maxEntryBytes) {
+            return;
+        }
+
+        Object headers = response.get("headers");
+        long ttl = ttlMillis;
+        if (headers instanceof Map) {
+            ttl = applyCacheControl(headerValue((Map<String, String>) headers, "Cache-Control"), ttlMillis);
+        }
+        if (ttl <= 0) {
+            return;
+        }
+
+        synchronized (entries) {
+            entries.put(key, new CachedResponse(new HashMap<>(response), System.currentTimeMillis() + ttl));
+        }
+    }
+
+    /**
+     * Node TTL, capped by max-age; zero when the response must not be stored
+     */
+    private long applyCacheControl(String cacheControl, long ttlMillis) {
+        if (cacheControl == null) {
+            return ttlMillis;
+        }
+        long ttl = ttlMillis;
+        for (String directive : cacheControl.toLowerCase().split(",")) {
+            directive = directive.trim();
+            if (directive.equals("no-store") || directive.equals("no-cache")) {
+                return 0;
+            }
+            if (directive.startsWith("max-age=")) {
+                try {
+                    ttl = Math.min(ttl, Long.parseLong(directive.substring(8).replace("\"", "")) * 1000);
+                } catch (NumberFormatException e) {
+                    // Ignore a malformed max-age and keep the node TTL
+                }
+            }
+        }
+        return ttl;
+    }
+
+    private String headerValue(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static final class CachedResponse {
+        private final Map<String, Object> response;
+        private final long expiresAt;
+
+        private CachedResponse(Map<String, Object> response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
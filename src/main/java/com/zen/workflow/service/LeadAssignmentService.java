@@ -1,24 +1,56 @@
 package com.zen.workflow.service;
 
+import com.zen.workflow.config.TenantContext;
+import com.zen.workflow.engine.IndexedMinHeap;
+import com.zen.workflow.repository.WorkflowAssignmentCounterRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * Lead Assignment Service
  * Supports multiple assignment strategies inspired by Salesforce, HubSpot, Zoho
+ *
+ * Round-robin counters and rep workload are shared by all instances through the
+ * common schema. Counter values are leased in blocks and handed out locally with
+ * an atomic increment, so each value - and so each turn - is used once across the
+ * cluster. Workload is kept per tenant in indexed min-heaps for O(log n)
+ * least-loaded selection; local changes are checkpointed as deltas and other
+ * instances' assignments are read back on every sync.
  */
 @Slf4j
 @Service
 public class LeadAssignmentService {
 
-    // Track last assigned user for round-robin
-    private final Map<String, Integer> roundRobinCounters = new ConcurrentHashMap<>();
+    private static final String DEFAULT_TENANT = "default";
+    private static final int WORKLOAD_QUERY_CHUNK = 500;
+    private static final int RULE_CACHE_SIZE = 1000;
+
+    @Value("${workflow.assignment.counter-block-size:20}")
+    private int counterBlockSize;
+
+    @Value("${workflow.assignment.max-pools-per-tenant:256}")
+    private int maxPoolsPerTenant;
+
+    @Autowired
+    private WorkflowAssignmentCounterRepository counterRepository;
+
+    // Round-robin counter per tenant and team
+    private final Map<String, RoundRobinCounter> roundRobinCounters = new ConcurrentHashMap<>();
     
-    // Track user workload
-    private final Map<Long, Integer> userWorkload = new ConcurrentHashMap<>();
+    // Rep workload per tenant
+    private final Map<String, TenantWorkload> workloads = new ConcurrentHashMap<>();
+    
+    // Compiled assignment rules per tenant and rule version
+    private final Map<List<Object>, Optional<?>> compiledRules = new ConcurrentHashMap<>();
 
     /**
      * Assign lead based on strategy
@@ -60,28 +92,210 @@ public class LeadAssignmentService {
         }
     }
 
+    /**
+     * Assign a batch of leads in one pass, respecting per-rep capacity.
+     *
+     * Each lead's candidates are its territory owner, else the specialists for its
+     * product or industry (skillMapping), else the general pool (userIds). Groups
+     * of leads with the same candidates are filled most-constrained first, each
+     * from an indexed min-heap of its reps ordered by load relative to capacity,
+     * so the result does not depend on the order the leads arrive in. Reps that
+     * reach their cap (capacity per user, else defaultCapacity) leave the heap;
+     * reps without one are ranked as if they had the largest cap given. Leads
+     * left without a rep overflow to the general pool when allowOverflow is set.
+     * Current open-lead counts are included and the new assignments are
+     * added to them; leads in the batch are re-assigned, so they no longer count
+     * towards their previous owner (config "ownerField", default "ownerId").
+     * Leads without an id are left unassigned.
+     *
+     * @param leads  lead records, identified by config "idField" (default "id")
+     * @return assignments (lead id to user id), unassigned lead ids and per-user counts
+     */
+    public Map<String, Object> assignBatch(List<Map<String, Object>> leads, Map<String, Object> config) {
+        String idField = (String) config.getOrDefault("idField", "id");
+        String ownerField = (String) config.getOrDefault("ownerField", "ownerId");
+        boolean allowOverflow = Boolean.TRUE.equals(config.get("allowOverflow"));
+        List<Long> pool = toUserIds(config.get("userIds"));
+        TerritoryRouter territories = config.get("territories") != null || config.get("territoryMapping") != null
+            ? compiledRule("territory", config, List.of("territories", "territoryMapping", "defaultUser"), TerritoryRouter::compile)
+            : null;
+        Map<String, List<Long>> skillMapping = (Map<String, List<Long>>) config.get("skillMapping");
+        
+        // Group leads by candidate set, noting who owns each lead now
+        Map<List<Long>, List<Map<String, Object>>> groups = new HashMap<>();
+        Set<Long> reps = new TreeSet<>(pool);
+        Map<Object, Long> previousOwners = new HashMap<>();
+        for (Map<String, Object> lead : leads) {
+            Object leadId = lead.get(idField);
+            if (leadId == null) {
+                continue;
+            }
+            Long owner = toUserId(lead.get(ownerField));
+            if (owner != null) {
+                previousOwners.put(leadId, owner);
+            }
+            List<Long> candidates = candidates(lead, territories, skillMapping, pool);
+            groups.computeIfAbsent(candidates, k -> new ArrayList<>()).add(lead);
+            reps.addAll(candidates);
+        }
+        
+        // Starting loads and caps
+        TenantWorkload workload = workloadFor(currentTenant());
+        List<Long> repList = new ArrayList<>(reps);
+        seedWorkloads(workload, repList);
+        Map<Long, Long> loads = new HashMap<>();
+        Map<Long, Long> caps = new HashMap<>();
+        Map<?, ?> capacity = (Map<?, ?>) config.getOrDefault("capacity", Map.of());
+        Object defaultCapacity = config.get("defaultCapacity");
+        Map<Long, Long> owned = new HashMap<>();
+        for (Long owner : previousOwners.values()) {
+            owned.merge(owner, 1L, Long::sum);
+        }
+        for (Long userId : repList) {
+            // The batch's own leads are being redistributed, so they don't count against their owner
+            loads.put(userId, Math.max(0, workload.getLoad(userId) - owned.getOrDefault(userId, 0L)));
+            Object cap = capacity.containsKey(userId) ? capacity.get(userId) : capacity.get(String.valueOf(userId));
+            if (cap == null) {
+                cap = defaultCapacity;
+            }
+            caps.put(userId, cap instanceof Number ? ((Number) cap).longValue() : Long.MAX_VALUE);
+        }
+        long uncappedScale = caps.values().stream().filter(cap -> cap != Long.MAX_VALUE).max(Long::compare).orElse(1L);
+        
+        // Most constrained first; ties by candidate ids for a stable order
+        List<List<Long>> order = new ArrayList<>(groups.keySet());
+        order.sort(Comparator.<List<Long>>comparingInt(List::size).thenComparing(Object::toString));
+        
+        Map<Object, Long> assignments = new LinkedHashMap<>();
+        List<Map<String, Object>> overflow = new ArrayList<>();
+        for (List<Long> candidates : order) {
+            List<Map<String, Object>> rest = fill(groups.get(candidates), candidates, loads, caps, uncappedScale,
+                idField, assignments);
+            if (allowOverflow && !candidates.equals(pool)) {
+                overflow.addAll(rest);
+            }
+        }
+        if (!overflow.isEmpty() && !pool.isEmpty()) {
+            fill(overflow, pool, loads, caps, uncappedScale, idField, assignments);
+        }
+        List<Object> unassigned = new ArrayList<>();
+        for (Map<String, Object> lead : leads) {
+            Object leadId = lead.get(idField);
+            if (!assignments.containsKey(leadId)) {
+                unassigned.add(leadId);
+            }
+        }
+        
+        Map<Long, Integer> perUser = new TreeMap<>();
+        for (Long userId : assignments.values()) {
+            perUser.merge(userId, 1, Integer::sum);
+        }
+        Map<Long, Long> deltas = new HashMap<>();
+        perUser.forEach((userId, count) -> deltas.merge(userId, (long) count, Long::sum));
+        for (Object leadId : assignments.keySet()) {
+            Long owner = previousOwners.get(leadId);
+            if (owner != null) {
+                deltas.merge(owner, -1L, Long::sum);
+            }
+        }
+        deltas.forEach((userId, delta) -> {
+            if (delta != 0) {
+                workload.adjust(userId, delta);
+            }
+        });
+        
+        log.info("Batch assigned {} of {} leads to {} reps", assignments.size(), leads.size(), perUser.size());
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("assignments", assignments);
+        result.put("unassigned", unassigned);
+        result.put("perUser", perUser);
+        return result;
+    }
+
+    /**
+     * Hand each lead to the candidate with the lowest load relative to capacity
+     *
+     * @return the leads that found no candidate with capacity left
+     */
+    private List<Map<String, Object>> fill(List<Map<String, Object>> leads, List<Long> candidates, Map<Long, Long> loads,
+                                           Map<Long, Long> caps, long uncappedScale, String idField,
+                                           Map<Object, Long> assignments) {
+        IndexedMinHeap heap = new IndexedMinHeap();
+        for (Long userId : candidates) {
+            if (loads.get(userId) < caps.get(userId)) {
+                heap.put(userId, fillLevel(loads.get(userId), caps.get(userId), uncappedScale));
+            }
+        }
+        
+        List<Map<String, Object>> rest = new ArrayList<>();
+        for (Map<String, Object> lead : leads) {
+            if (heap.isEmpty()) {
+                rest.add(lead);
+                continue;
+            }
+            long userId = heap.peekKey();
+            long load = loads.merge(userId, 1L, Long::sum);
+            assignments.put(lead.get(idField), userId);
+            if (load >= caps.get(userId)) {
+                heap.remove(userId);
+            } else {
+                heap.put(userId, fillLevel(load, caps.get(userId), uncappedScale));
+            }
+        }
+        return rest;
+    }
+
+    /**
+     * Load scaled by capacity, so reps with larger caps take proportionally more.
+     * Uncapped reps are scaled by the largest cap given, keeping every rep on one scale.
+     */
+    private long fillLevel(long load, long cap, long uncappedScale) {
+        return load * 1_000_000L / Math.max(1, cap == Long.MAX_VALUE ? uncappedScale : cap);
+    }
+
+    /**
+     * Territory owner, else skill specialists, else the general pool - sorted
+     */
+    private List<Long> candidates(Map<String, Object> lead, TerritoryRouter territories,
+                                  Map<String, List<Long>> skillMapping, List<Long> pool) {
+        if (territories != null) {
+            Long owner = territories.route(lead);
+            if (owner != null) {
+                return List.of(owner);
+            }
+        }
+        if (skillMapping != null) {
+            List<Long> specialists = toUserIds(specialists(lead, skillMapping));
+            if (!specialists.isEmpty()) {
+                return new ArrayList<>(new TreeSet<>(specialists));
+            }
+        }
+        return new ArrayList<>(new TreeSet<>(pool));
+    }
+
     /**
      * 1. ROUND ROBIN ASSIGNMENT
      * Distributes leads evenly among team members
      * Used by: Salesforce, HubSpot, Pipedrive
      */
     private Long assignRoundRobin(Map<String, Object> lead, Map<String, Object> config) {
-        List<Long> userIds = (List<Long>) config.get("userIds");
+        List<Long> userIds = toUserIds(config.get("userIds"));
         String teamKey = (String) config.getOrDefault("teamKey", "default");
         
-        if (userIds == null || userIds.isEmpty()) {
+        if (userIds.isEmpty()) {
             log.error("No users available for round-robin assignment");
             return null;
         }
         
-        // Get current counter for this team
-        int counter = roundRobinCounters.getOrDefault(teamKey, 0);
+        // Take the next turn for this team
+        String tenantId = currentTenant();
+        long counter = roundRobinCounters
+            .computeIfAbsent(tenantId + "|" + teamKey, k -> new RoundRobinCounter(tenantId, teamKey))
+            .next();
         
         // Get next user
-        Long assignedUserId = userIds.get(counter % userIds.size());
-        
-        // Increment counter
-        roundRobinCounters.put(teamKey, counter + 1);
+        Long assignedUserId = userIds.get((int) Math.floorMod(counter, (long) userIds.size()));
         
         log.info("Round-robin assigned lead to user: {}", assignedUserId);
         return assignedUserId;
@@ -93,65 +307,37 @@ public class LeadAssignmentService {
      * Used by: Salesforce (Load Balancing), Zoho
      */
     private Long assignByWorkload(Map<String, Object> lead, Map<String, Object> config) {
-        List<Long> userIds = (List<Long>) config.get("userIds");
+        List<Long> userIds = toUserIds(config.get("userIds"));
         
-        if (userIds == null || userIds.isEmpty()) {
+        if (userIds.isEmpty()) {
             return null;
         }
         
-        // Find user with minimum workload
-        Long assignedUserId = userIds.stream()
-            .min(Comparator.comparingInt(userId -> userWorkload.getOrDefault(userId, 0)))
-            .orElse(userIds.get(0));
+        TenantWorkload workload = workloadFor(currentTenant());
+        seedWorkloads(workload, userIds);
         
-        // Increment workload
-        userWorkload.merge(assignedUserId, 1, Integer::sum);
+        // Take the least-loaded user and count the lead against them
+        long assignedUserId = workload.assignLeastLoaded(userIds);
         
         log.info("Workload-based assigned lead to user: {} (current load: {})", 
-            assignedUserId, userWorkload.get(assignedUserId));
+            assignedUserId, workload.getLoad(assignedUserId));
         return assignedUserId;
     }
 
     /**
      * 3. TERRITORY-BASED ASSIGNMENT
-     * Assigns based on geographic territory
+     * Assigns based on geographic territory: zip prefix or range, then city, state, country
      * Used by: Salesforce Territory Management, Dynamics 365
      */
     private Long assignByTerritory(Map<String, Object> lead, Map<String, Object> config) {
-        String leadCountry = (String) lead.get("country");
-        String leadState = (String) lead.get("state");
-        String leadCity = (String) lead.get("city");
-        String leadZipCode = (String) lead.get("zipCode");
-        
-        Map<String, Long> territoryMapping = (Map<String, Long>) config.get("territoryMapping");
-        
-        if (territoryMapping == null) {
+        if (config.get("territories") == null && config.get("territoryMapping") == null) {
             log.warn("No territory mapping configured");
             return null;
         }
         
-        // Try to match by zip code (most specific)
-        if (leadZipCode != null && territoryMapping.containsKey("zip_" + leadZipCode)) {
-            return territoryMapping.get("zip_" + leadZipCode);
-        }
-        
-        // Try to match by city
-        if (leadCity != null && territoryMapping.containsKey("city_" + leadCity)) {
-            return territoryMapping.get("city_" + leadCity);
-        }
-        
-        // Try to match by state
-        if (leadState != null && territoryMapping.containsKey("state_" + leadState)) {
-            return territoryMapping.get("state_" + leadState);
-        }
-        
-        // Try to match by country
-        if (leadCountry != null && territoryMapping.containsKey("country_" + leadCountry)) {
-            return territoryMapping.get("country_" + leadCountry);
-        }
-        
-        // Default territory
-        return territoryMapping.get("default");
+        TerritoryRouter router = compiledRule("territory", config,
+            List.of("territories", "territoryMapping", "defaultUser"), TerritoryRouter::compile);
+        return router.route(lead);
     }
 
     /**
@@ -160,30 +346,39 @@ public class LeadAssignmentService {
      * Used by: Salesforce Einstein, HubSpot
      */
     private Long assignBySkill(Map<String, Object> lead, Map<String, Object> config) {
-        String leadIndustry = (String) lead.get("industry");
-        String leadProduct = (String) lead.get("productInterest");
-        
         Map<String, List<Long>> skillMapping = (Map<String, List<Long>>) config.get("skillMapping");
         
         if (skillMapping == null) {
             return null;
         }
         
+        List<Long> specialists = toUserIds(specialists(lead, skillMapping));
+        if (!specialists.isEmpty()) {
+            return getNextAvailableUser(specialists);
+        }
+        
+        // Default to general pool
+        return getNextAvailableUser(toUserIds(skillMapping.get("general")));
+    }
+
+    /**
+     * Helper: Specialists for the lead's product interest, else its industry
+     */
+    private List<Long> specialists(Map<String, Object> lead, Map<String, List<Long>> skillMapping) {
+        Object leadProduct = lead.get("productInterest");
+        Object leadIndustry = lead.get("industry");
+        
         // Try to match by product interest
         if (leadProduct != null && skillMapping.containsKey("product_" + leadProduct)) {
-            List<Long> specialists = skillMapping.get("product_" + leadProduct);
-            return getNextAvailableUser(specialists);
+            return skillMapping.get("product_" + leadProduct);
         }
         
         // Try to match by industry
         if (leadIndustry != null && skillMapping.containsKey("industry_" + leadIndustry)) {
-            List<Long> specialists = skillMapping.get("industry_" + leadIndustry);
-            return getNextAvailableUser(specialists);
+            return skillMapping.get("industry_" + leadIndustry);
         }
         
-        // Default to general pool
-        List<Long> generalPool = skillMapping.get("general");
-        return getNextAvailableUser(generalPool);
+        return null;
     }
 
     /**
@@ -264,30 +459,22 @@ public class LeadAssignmentService {
      * Used by: Salesforce Einstein, HubSpot
      */
     private Long assignByPerformance(Map<String, Object> lead, Map<String, Object> config) {
-        Map<Long, Double> userPerformance = (Map<Long, Double>) config.get("userPerformance");
+        Map<?, ?> userPerformance = (Map<?, ?>) config.get("userPerformance");
         
         if (userPerformance == null || userPerformance.isEmpty()) {
             return null;
         }
         
-        // Weighted random selection based on performance
-        double totalPerformance = userPerformance.values().stream()
-            .mapToDouble(Double::doubleValue)
-            .sum();
-        
-        double random = Math.random() * totalPerformance;
-        double cumulative = 0.0;
-        
-        for (Map.Entry<Long, Double> entry : userPerformance.entrySet()) {
-            cumulative += entry.getValue();
-            if (random <= cumulative) {
-                log.info("Performance-based assigned to user: {} (performance: {})", 
-                    entry.getKey(), entry.getValue());
-                return entry.getKey();
-            }
+        // Weighted random selection based on performance, O(1) per lead
+        AliasSampler sampler = compiledRule("performance", config, List.of("userPerformance"),
+            c -> AliasSampler.build((Map<?, ?>) c.get("userPerformance")));
+        if (sampler == null) {
+            return null;
         }
         
-        return userPerformance.keySet().iterator().next();
+        long assignedUserId = sampler.sample();
+        log.info("Performance-based assigned to user: {} ({} weighted reps)", assignedUserId, sampler.size());
+        return assignedUserId;
     }
 
     /**
@@ -296,73 +483,16 @@ public class LeadAssignmentService {
      * Used by: Salesforce Flow, Zoho Blueprint
      */
     private Long assignByCustomRules(Map<String, Object> lead, Map<String, Object> config) {
-        List<Map<String, Object>> rules = (List<Map<String, Object>>) config.get("rules");
-        
-        if (rules == null) {
+        if (config.get("rules") == null) {
             return null;
         }
         
-        // Evaluate rules in order
-        for (Map<String, Object> rule : rules) {
-            if (evaluateRule(lead, rule)) {
-                Long assignedUser = ((Number) rule.get("assignTo")).longValue();
-                log.info("Custom rule matched, assigned to user: {}", assignedUser);
-                return assignedUser;
-            }
-        }
-        
-        // No rule matched, use default
-        return ((Number) config.get("defaultUser")).longValue();
-    }
-
-    /**
-     * Helper: Evaluate custom rule
-     */
-    private boolean evaluateRule(Map<String, Object> lead, Map<String, Object> rule) {
-        List<Map<String, Object>> conditions = (List<Map<String, Object>>) rule.get("conditions");
-        
-        if (conditions == null) {
-            return false;
-        }
-        
-        // All conditions must match (AND logic)
-        for (Map<String, Object> condition : conditions) {
-            String field = (String) condition.get("field");
-            String operator = (String) condition.get("operator");
-            Object value = condition.get("value");
-            
-            Object leadValue = lead.get(field);
-            
-            if (!evaluateCondition(leadValue, operator, value)) {
-                return false;
-            }
-        }
+        // Rules compiled once per rule-set version, evaluated in one pass over the lead's fields
+        CustomRuleSet ruleSet = compiledRule("custom", config, List.of("rules", "defaultUser"), CustomRuleSet::compile);
+        Long assignedUser = ruleSet.evaluate(lead);
         
-        return true;
-    }
-
-    /**
-     * Helper: Evaluate single condition
-     */
-    private boolean evaluateCondition(Object actual, String operator, Object expected) {
-        if (actual == null) {
-            return "is_null".equals(operator);
-        }
-        
-        switch (operator) {
-            case "equals":
-                return actual.equals(expected);
-            case "not_equals":
-                return !actual.equals(expected);
-            case "contains":
-                return actual.toString().contains(expected.toString());
-            case "greater_than":
-                return Double.parseDouble(actual.toString()) > Double.parseDouble(expected.toString());
-            case "less_than":
-                return Double.parseDouble(actual.toString()) < Double.parseDouble(expected.toString());
-            default:
-                return false;
-        }
+        log.info("Custom rules ({}) assigned to user: {}", ruleSet.getRuleCount(), assignedUser);
+        return assignedUser;
     }
 
     /**
@@ -422,24 +552,316 @@ public class LeadAssignmentService {
         );
     }
 
+    /**
+     * Helper: Read user ids from config, whatever numeric type JSON gave them
+     */
+    private List<Long> toUserIds(Object value) {
+        List<Long> userIds = new ArrayList<>();
+        if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                if (item instanceof Number) {
+                    userIds.add(((Number) item).longValue());
+                } else if (item != null) {
+                    userIds.add(Long.parseLong(item.toString().trim()));
+                }
+            }
+        }
+        return userIds;
+    }
+
+    /**
+     * Helper: A record's owner id, or null if it has none or it is not numeric
+     */
+    private Long toUserId(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Helper: Rules compiled from the strategy config (territory tries, alias
+     * tables), cached by the node's ruleKey (workflow, node and version); configs
+     * without one are cached by the content of the fields the rules depend on
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T compiledRule(String kind, Map<String, Object> config, List<String> fields,
+                               Function<Map<String, Object>, T> compiler) {
+        Object ruleKey = config.get("ruleKey");
+        List<Object> key = new ArrayList<>(fields.size() + 2);
+        key.add(kind);
+        key.add(currentTenant());
+        if (ruleKey != null) {
+            key.add(ruleKey);
+        } else {
+            for (String field : fields) {
+                key.add(config.get(field));
+            }
+        }
+        
+        Object rule = compiledRules.get(key);
+        if (rule == null) {
+            if (compiledRules.size() >= RULE_CACHE_SIZE) {
+                compiledRules.clear();
+            }
+            rule = compiledRules.computeIfAbsent(key, k -> Optional.ofNullable(compiler.apply(config)));
+        }
+        return ((Optional<T>) rule).orElse(null);
+    }
+
+    private String currentTenant() {
+        String tenantId = TenantContext.getCurrentTenant();
+        return tenantId != null ? tenantId : DEFAULT_TENANT;
+    }
+
+    private TenantWorkload workloadFor(String tenantId) {
+        return workloads.computeIfAbsent(tenantId, TenantWorkload::new);
+    }
+
+    /**
+     * Load the stored workload of users this instance has not seen yet
+     */
+    private void seedWorkloads(TenantWorkload workload, List<Long> userIds) {
+        List<Long> unknown = workload.unknownUsers(userIds);
+        if (unknown.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> stored = new HashMap<>();
+        try {
+            stored = loadWorkloads(workload.tenantId, unknown);
+        } catch (Exception e) {
+            log.warn("Could not load stored workload for tenant {}: {}", workload.tenantId, e.getMessage());
+        }
+        workload.seed(unknown, stored);
+    }
+
+    private Map<Long, Long> loadWorkloads(String tenantId, List<Long> userIds) {
+        Map<Long, Long> loads = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i += WORKLOAD_QUERY_CHUNK) {
+            loads.putAll(counterRepository.findWorkloads(tenantId,
+                userIds.subList(i, Math.min(userIds.size(), i + WORKLOAD_QUERY_CHUNK))));
+        }
+        return loads;
+    }
+
+    /**
+     * Flush local workload changes and pick up the other instances' assignments
+     */
+    @Scheduled(fixedDelayString = "${workflow.assignment.sync-interval-ms:5000}")
+    public void checkpoint() {
+        for (TenantWorkload workload : workloads.values()) {
+            Map<Long, Long> deltas = workload.drainPending();
+            try {
+                counterRepository.addWorkload(workload.tenantId, deltas);
+            } catch (Exception e) {
+                workload.restorePending(deltas);
+                log.warn("Could not checkpoint workload for tenant {}: {}", workload.tenantId, e.getMessage());
+                continue;
+            }
+            try {
+                workload.refresh(loadWorkloads(workload.tenantId, workload.knownUsers()));
+            } catch (Exception e) {
+                log.warn("Could not refresh workload for tenant {}: {}", workload.tenantId, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
     /**
      * Decrease workload when lead is closed/converted
      */
     public void decreaseWorkload(Long userId) {
-        userWorkload.computeIfPresent(userId, (k, v) -> Math.max(0, v - 1));
+        workloadFor(currentTenant()).adjust(userId, -1);
     }
 
     /**
      * Reset round-robin counter
      */
     public void resetRoundRobin(String teamKey) {
-        roundRobinCounters.put(teamKey, 0);
+        String tenantId = currentTenant();
+        try {
+            counterRepository.resetCounter(tenantId, teamKey);
+        } catch (Exception e) {
+            log.warn("Could not reset stored round-robin counter {}: {}", teamKey, e.getMessage());
+        }
+        roundRobinCounters.remove(tenantId + "|" + teamKey);
     }
 
     /**
      * Get current workload for user
      */
     public int getUserWorkload(Long userId) {
-        return userWorkload.getOrDefault(userId, 0);
+        return (int) workloadFor(currentTenant()).getLoad(userId);
+    }
+
+    /**
+     * Round-robin turns for one team. Turns come from a block leased from the
+     * shared counter; taking one is a single atomic increment, and only the thread
+     * that runs the block dry leases the next one.
+     */
+    private final class RoundRobinCounter {
+        private final String tenantId;
+        private final String teamKey;
+        private volatile Block block = new Block(0, 0);
+
+        private RoundRobinCounter(String tenantId, String teamKey) {
+            this.tenantId = tenantId;
+            this.teamKey = teamKey;
+        }
+
+        long next() {
+            while (true) {
+                Block current = block;
+                long value = current.next.getAndIncrement();
+                if (value < current.end) {
+                    return value;
+                }
+                synchronized (this) {
+                    if (block == current) {
+                        block = lease(current);
+                    }
+                }
+            }
+        }
+
+        private Block lease(Block exhausted) {
+            try {
+                long start = counterRepository.leaseBlock(tenantId, teamKey, counterBlockSize);
+                return new Block(start, start + counterBlockSize);
+            } catch (Exception e) {
+                // Keep assigning from a local block rather than failing the lead
+                log.warn("Could not lease round-robin block for {}, continuing locally: {}", teamKey, e.getMessage());
+                return new Block(exhausted.end, exhausted.end + counterBlockSize);
+            }
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+
+    /**
+     * Open-lead counts of one tenant's reps. Each distinct candidate list gets its
+     * own indexed min-heap; a user's heaps are updated whenever their load changes.
+     */
+    private final class TenantWorkload {
+        private final String tenantId;
+        private final Map<Long, Long> loads = new HashMap<>();
+        private final Map<Long, Long> pending = new HashMap<>();
+        private final Map<String, IndexedMinHeap> pools = new HashMap<>();
+        private final Map<Long, Set<String>> memberships = new HashMap<>();
+
+        private TenantWorkload(String tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        synchronized long assignLeastLoaded(List<Long> userIds) {
+            SortedSet<Long> members = new TreeSet<>(userIds);
+            String poolKey = members.toString();
+            IndexedMinHeap pool = pools.get(poolKey);
+            if (pool == null) {
+                if (pools.size() >= maxPoolsPerTenant) {
+                    pools.clear();
+                    memberships.clear();
+                }
+                pool = new IndexedMinHeap();
+                for (Long userId : members) {
+                    pool.put(userId, loads.getOrDefault(userId, 0L));
+                    memberships.computeIfAbsent(userId, k -> new HashSet<>()).add(poolKey);
+                }
+                pools.put(poolKey, pool);
+            }
+            long userId = pool.peekKey();
+            adjust(userId, 1);
+            return userId;
+        }
+
+        synchronized void adjust(long userId, long delta) {
+            pending.merge(userId, delta, Long::sum);
+            Long load = loads.get(userId);
+            if (load != null) {
+                setLoad(userId, Math.max(0, load + delta));
+            }
+        }
+
+        synchronized long getLoad(long userId) {
+            return loads.getOrDefault(userId, 0L);
+        }
+
+        synchronized List<Long> unknownUsers(List<Long> userIds) {
+            List<Long> unknown = new ArrayList<>();
+            for (Long userId : userIds) {
+                if (!loads.containsKey(userId)) {
+                    unknown.add(userId);
+                }
+            }
+            return unknown;
+        }
+
+        synchronized List<Long> knownUsers() {
+            return new ArrayList<>(loads.keySet());
+        }
+
+        synchronized void seed(List<Long> userIds, Map<Long, Long> stored) {
+            for (Long userId : userIds) {
+                if (!loads.containsKey(userId)) {
+                    setLoad(userId, Math.max(0, stored.getOrDefault(userId, 0L) + pending.getOrDefault(userId, 0L)));
+                }
+            }
+        }
+
+        synchronized Map<Long, Long> drainPending() {
+            Map<Long, Long> deltas = new HashMap<>();
+            pending.forEach((userId, delta) -> {
+                if (delta != 0) {
+                    deltas.put(userId, delta);
+                }
+            });
+            pending.clear();
+            return deltas;
+        }
+
+        synchronized void restorePending(Map<Long, Long> deltas) {
+            deltas.forEach((userId, delta) -> pending.merge(userId, delta, Long::sum));
+        }
+
+        /**
+         * Replace local loads with the stored totals plus changes not yet flushed
+         */
+        synchronized void refresh(Map<Long, Long> stored) {
+            for (Long userId : new ArrayList<>(loads.keySet())) {
+                setLoad(userId, Math.max(0, stored.getOrDefault(userId, 0L) + pending.getOrDefault(userId, 0L)));
+            }
+        }
+
+        private void setLoad(long userId, long load) {
+            loads.put(userId, load);
+            Set<String> poolKeys = memberships.get(userId);
+            if (poolKeys != null) {
+                for (String poolKey : poolKeys) {
+                    IndexedMinHeap pool = pools.get(poolKey);
+                    if (pool != null) {
+                        pool.put(userId, load);
+                    }
+                }
+            }
+        }
     }
 }
@@ -1,19 +1,45 @@
 package com.zen.workflow.service;
 
+import com.zen.workflow.config.TenantContext;
+import com.zen.workflow.engine.RecordIdSet;
+import com.zen.workflow.repository.WorkflowListTagRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for managing lists and tags in workflows
  * Handles adding/removing records from lists and managing tags
+ *
+ * Membership is persisted per (tenant, list, record) and bulk operations write one
+ * multi-row statement per batch. isInList answers from a per-list set of record ids
+ * loaded once and kept current by this instance's own writes; changes made by other
+ * instances show up when the set expires. Lists larger than the cache limit are
+ * checked with a primary key lookup instead.
  */
 @Slf4j
 @Service
 public class ListTagService {
 
+    private static final String DEFAULT_TENANT = "default";
+    private static final int LIST_CACHE_SIZE = 200;
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    @Autowired
+    private WorkflowListTagRepository listTagRepository;
+
+    @Value("${workflow.list.membership-cache.ttl-seconds:300}")
+    private long membershipTtlSeconds;
+
+    @Value("${workflow.list.membership-cache.max-records:2000000}")
+    private long membershipMaxRecords;
+
+    private final Map<String, ListMembership> memberships = new ConcurrentHashMap<>();
+
     @Value("${workflow.list.enabled:true}")
     private boolean listEnabled;
 
@@ -32,11 +58,13 @@ public class ListTagService {
         try {
             log.info("Adding {} {} to list {}", recordType, recordId, listId);
 
-            // In production, save to database
-            // listRepository.addRecordToList(listId, recordId, recordType);
+            String tenantId = currentTenant();
+            int inserted = listTagRepository.insertMembers(tenantId, listId, recordType, List.of(recordId));
+            updateMembership(tenantId, listId, List.of(recordId), true);
 
             Map<String, Object> result = new HashMap<>();
             result.put("added", true);
+            result.put("alreadyInList", inserted == 0);
             result.put("listId", listId);
             result.put("recordId", recordId);
             result.put("recordType", recordType);
@@ -68,11 +96,13 @@ public class ListTagService {
         try {
             log.info("Removing {} {} from list {}", recordType, recordId, listId);
 
-            // In production, remove from database
-            // listRepository.removeRecordFromList(listId, recordId);
+            String tenantId = currentTenant();
+            int deleted = listTagRepository.deleteMembers(tenantId, listId, List.of(recordId));
+            updateMembership(tenantId, listId, List.of(recordId), false);
 
             Map<String, Object> result = new HashMap<>();
             result.put("removed", true);
+            result.put("wasInList", deleted > 0);
             result.put("listId", listId);
             result.put("recordId", recordId);
             result.put("recordType", recordType);
@@ -105,12 +135,12 @@ public class ListTagService {
         try {
             log.info("Adding tag '{}' to {} {}", tagName, recordType, recordId);
 
-            // In production, save to database
-            // tagRepository.addTag(recordId, recordType, tagName, tagData);
+            int inserted = listTagRepository.insertTags(currentTenant(), recordType, recordId, List.of(tagName), tagData);
 
             Map<String, Object> result = new HashMap<>();
             result.put("added", true);
-            result.put("tagId", generateId());
+            result.put("alreadyTagged", inserted == 0);
+            result.put("tagId", recordType + ":" + recordId + ":" + tagName);
             result.put("tagName", tagName);
             result.put("recordId", recordId);
             result.put("recordType", recordType);
@@ -143,11 +173,11 @@ public class ListTagService {
         try {
             log.info("Removing tag '{}' from {} {}", tagName, recordType, recordId);
 
-            // In production, remove from database
-            // tagRepository.removeTag(recordId, recordType, tagName);
+            int deleted = listTagRepository.deleteTag(currentTenant(), recordType, recordId, tagName);
 
             Map<String, Object> result = new HashMap<>();
             result.put("removed", true);
+            result.put("wasTagged", deleted > 0);
             result.put("tagName", tagName);
             result.put("recordId", recordId);
             result.put("recordType", recordType);
@@ -173,11 +203,7 @@ public class ListTagService {
     public List<Map<String, Object>> getRecordTags(String recordId, String recordType) {
         try {
             log.info("Getting tags for {} {}", recordType, recordId);
-
-            // In production, query from database
-            // return tagRepository.findByRecordIdAndType(recordId, recordType);
-
-            return new ArrayList<>();
+            return listTagRepository.findTags(currentTenant(), recordType, recordId);
 
         } catch (Exception e) {
             log.error("Failed to get record tags", e);
@@ -186,16 +212,19 @@ public class ListTagService {
     }
 
     /**
-     * Get all records in a list
+     * Get the first page of records in a list
      */
     public List<Map<String, Object>> getListRecords(String listId) {
+        return getListRecords(listId, null, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Get a page of records in a list, ordered by record id, after afterRecordId
+     */
+    public List<Map<String, Object>> getListRecords(String listId, String afterRecordId, int limit) {
         try {
             log.info("Getting records in list {}", listId);
-
-            // In production, query from database
-            // return listRepository.findRecordsByListId(listId);
-
-            return new ArrayList<>();
+            return listTagRepository.findMembers(currentTenant(), listId, afterRecordId, limit);
 
         } catch (Exception e) {
             log.error("Failed to get list records", e);
@@ -208,10 +237,14 @@ public class ListTagService {
      */
     public boolean isInList(String listId, String recordId) {
         try {
-            // In production, check database
-            // return listRepository.existsByListIdAndRecordId(listId, recordId);
-
-            return false;
+            String tenantId = currentTenant();
+            ListMembership membership = membership(tenantId, listId);
+            if (membership.ids == null) {
+                return listTagRepository.isMember(tenantId, listId, recordId);
+            }
+            synchronized (membership) {
+                return membership.ids.contains(recordId);
+            }
 
         } catch (Exception e) {
             log.error("Failed to check list membership", e);
@@ -224,10 +257,7 @@ public class ListTagService {
      */
     public boolean hasTag(String recordId, String recordType, String tagName) {
         try {
-            // In production, check database
-            // return tagRepository.existsByRecordIdAndTypeAndName(recordId, recordType, tagName);
-
-            return false;
+            return listTagRepository.hasTag(currentTenant(), recordType, recordId, tagName);
 
         } catch (Exception e) {
             log.error("Failed to check tag", e);
@@ -236,35 +266,66 @@ public class ListTagService {
     }
 
     /**
-     * Bulk add records to list
+     * Bulk add records to list, one INSERT IGNORE per batch of records
      */
     public Map<String, Object> bulkAddToList(String listId, List<String> recordIds, String recordType) {
         if (!listEnabled) {
             return Map.of("added", 0, "reason", "List service disabled");
         }
 
-        int successCount = 0;
-        int failureCount = 0;
+        List<String> ids = distinct(recordIds);
+        String tenantId = currentTenant();
+        int added = 0;
+        int failed = 0;
+        try {
+            added = listTagRepository.insertMembers(tenantId, listId, recordType, ids);
+            updateMembership(tenantId, listId, ids, true);
+        } catch (Exception e) {
+            log.error("Failed to add records to list {}", listId, e);
+            // Batches already written stay; drop the cached set rather than guess
+            memberships.remove(membershipKey(tenantId, listId));
+            failed = ids.size();
+        }
+
+        log.info("Bulk add to list completed: {} added, {} already in list, {} failed",
+            added, failed > 0 ? 0 : ids.size() - added, failed);
 
-        for (String recordId : recordIds) {
-            try {
-                Map<String, Object> result = addToList(listId, recordId, recordType);
-                if ((Boolean) result.getOrDefault("added", false)) {
-                    successCount++;
-                } else {
-                    failureCount++;
-                }
-            } catch (Exception e) {
-                log.error("Failed to add record {} to list", recordId, e);
-                failureCount++;
-            }
+        Map<String, Object> result = new HashMap<>();
+        result.put("added", added);
+        result.put("alreadyInList", failed > 0 ? 0 : ids.size() - added);
+        result.put("failed", failed);
+        result.put("total", recordIds.size());
+        result.put("listId", listId);
+
+        return result;
+    }
+
+    /**
+     * Bulk remove records from list, one DELETE per batch of records
+     */
+    public Map<String, Object> bulkRemoveFromList(String listId, List<String> recordIds) {
+        if (!listEnabled) {
+            return Map.of("removed", 0, "reason", "List service disabled");
+        }
+
+        List<String> ids = distinct(recordIds);
+        String tenantId = currentTenant();
+        int removed = 0;
+        int failed = 0;
+        try {
+            removed = listTagRepository.deleteMembers(tenantId, listId, ids);
+            updateMembership(tenantId, listId, ids, false);
+        } catch (Exception e) {
+            log.error("Failed to remove records from list {}", listId, e);
+            memberships.remove(membershipKey(tenantId, listId));
+            failed = ids.size();
         }
 
-        log.info("Bulk add to list completed: {} added, {} failed", successCount, failureCount);
+        log.info("Bulk remove from list completed: {} removed, {} failed", removed, failed);
 
         Map<String, Object> result = new HashMap<>();
-        result.put("added", successCount);
-        result.put("failed", failureCount);
+        result.put("removed", removed);
+        result.put("failed", failed);
         result.put("total", recordIds.size());
         result.put("listId", listId);
 
@@ -272,45 +333,160 @@ public class ListTagService {
     }
 
     /**
-     * Bulk add tags to record
+     * Move records from one list to another: add to the target, then remove from the source
+     */
+    public Map<String, Object> moveToList(String fromListId, String toListId, List<String> recordIds, String recordType) {
+        Map<String, Object> added = bulkAddToList(toListId, recordIds, recordType);
+        if (((Number) added.getOrDefault("failed", 0)).intValue() > 0 || added.containsKey("reason")) {
+            return added;
+        }
+        Map<String, Object> removed = bulkRemoveFromList(fromListId, recordIds);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("moved", recordIds.size() - ((Number) removed.getOrDefault("failed", 0)).intValue());
+        result.put("added", added.get("added"));
+        result.put("removed", removed.get("removed"));
+        result.put("failed", removed.get("failed"));
+        result.put("fromListId", fromListId);
+        result.put("toListId", toListId);
+        return result;
+    }
+
+    /**
+     * Bulk add tags to record, one INSERT IGNORE for all of them
      */
     public Map<String, Object> bulkAddTags(String recordId, String recordType, List<String> tagNames) {
         if (!tagEnabled) {
             return Map.of("added", 0, "reason", "Tag service disabled");
         }
 
-        int successCount = 0;
-        int failureCount = 0;
-
-        for (String tagName : tagNames) {
-            try {
-                Map<String, Object> result = addTag(recordId, recordType, tagName, null);
-                if ((Boolean) result.getOrDefault("added", false)) {
-                    successCount++;
-                } else {
-                    failureCount++;
-                }
-            } catch (Exception e) {
-                log.error("Failed to add tag {} to record", tagName, e);
-                failureCount++;
-            }
+        List<String> tags = distinct(tagNames);
+        int added = 0;
+        int failed = 0;
+        try {
+            added = listTagRepository.insertTags(currentTenant(), recordType, recordId, tags, null);
+        } catch (Exception e) {
+            log.error("Failed to add tags to record {}", recordId, e);
+            failed = tags.size();
         }
 
-        log.info("Bulk add tags completed: {} added, {} failed", successCount, failureCount);
+        log.info("Bulk add tags completed: {} added, {} failed", added, failed);
 
         Map<String, Object> result = new HashMap<>();
-        result.put("added", successCount);
-        result.put("failed", failureCount);
+        result.put("added", added);
+        result.put("failed", failed);
         result.put("total", tagNames.size());
         result.put("recordId", recordId);
 
         return result;
     }
 
+    /**
+     * Bulk add one tag to many records, one INSERT IGNORE per batch of records
+     */
+    public Map<String, Object> bulkTagRecords(List<String> recordIds, String recordType, String tagName) {
+        if (!tagEnabled) {
+            return Map.of("added", 0, "reason", "Tag service disabled");
+        }
+
+        List<String> ids = distinct(recordIds);
+        int added = 0;
+        int failed = 0;
+        try {
+            added = listTagRepository.insertTagOnRecords(currentTenant(), recordType, ids, tagName);
+        } catch (Exception e) {
+            log.error("Failed to tag records with '{}'", tagName, e);
+            failed = ids.size();
+        }
+
+        log.info("Bulk tag records completed: {} added, {} failed", added, failed);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("added", added);
+        result.put("failed", failed);
+        result.put("total", recordIds.size());
+        result.put("tagName", tagName);
+
+        return result;
+    }
+
     // Helper methods
 
-    private Long generateId() {
-        return System.currentTimeMillis();
+    /**
+     * Cached member set of a list, (re)loaded when missing or expired. Loading runs
+     * inside compute so local writes to the same list wait for it and are applied
+     * to the freshly loaded set rather than lost.
+     */
+    private ListMembership membership(String tenantId, String listId) {
+        String key = membershipKey(tenantId, listId);
+        long now = System.currentTimeMillis();
+        ListMembership membership = memberships.get(key);
+        if (membership != null && !membership.isExpired(now, membershipTtlSeconds)) {
+            return membership;
+        }
+        if (memberships.size() >= LIST_CACHE_SIZE) {
+            memberships.clear();
+        }
+        return memberships.compute(key, (k, current) ->
+            current != null && !current.isExpired(now, membershipTtlSeconds) ? current : loadMembership(tenantId, listId));
+    }
+
+    private ListMembership loadMembership(String tenantId, String listId) {
+        long count = listTagRepository.countMembers(tenantId, listId);
+        if (count > membershipMaxRecords) {
+            log.info("List {} has {} records, above the membership cache limit", listId, count);
+            return new ListMembership(null);
+        }
+        RecordIdSet ids = new RecordIdSet((int) count);
+        listTagRepository.scanMemberIds(tenantId, listId, ids::add);
+        log.debug("Loaded {} members of list {}", ids.size(), listId);
+        return new ListMembership(ids);
+    }
+
+    private void updateMembership(String tenantId, String listId, List<String> recordIds, boolean added) {
+        memberships.computeIfPresent(membershipKey(tenantId, listId), (key, membership) -> {
+            if (membership.ids != null) {
+                synchronized (membership) {
+                    for (String recordId : recordIds) {
+                        if (added) {
+                            membership.ids.add(recordId);
+                        } else {
+                            membership.ids.remove(recordId);
+                        }
+                    }
+                }
+            }
+            return membership;
+        });
+    }
+
+    private String membershipKey(String tenantId, String listId) {
+        return tenantId + ":" + listId;
+    }
+
+    private List<String> distinct(List<String> values) {
+        return new ArrayList<>(new LinkedHashSet<>(values));
+    }
+
+    private String currentTenant() {
+        String tenantId = TenantContext.getCurrentTenant();
+        return tenantId != null ? tenantId : DEFAULT_TENANT;
+    }
+
+    /**
+     * Record ids of one list; ids is null when the list is too large to cache
+     */
+    private static class ListMembership {
+        private final RecordIdSet ids;
+        private final long loadedAt = System.currentTimeMillis();
+
+        ListMembership(RecordIdSet ids) {
+            this.ids = ids;
+        }
+
+        boolean isExpired(long now, long ttlSeconds) {
+            return now - loadedAt > ttlSeconds * 1000;
+        }
     }
 
     public boolean isListServiceAvailable() {
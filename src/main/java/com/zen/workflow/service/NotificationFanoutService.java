@@ -0,0 +1,461 @@
+package com.zen.workflow.service;
+
+import com.zen.workflow.config.TenantContext;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out of one notification to many recipients over several channels.
+ *
+ * The recipient set is split into per-channel batches: in-app batches, FCM
+ * multicasts of up to 500 device tokens, SMS batches and one post per distinct
+ * Slack/Teams channel. All batches run concurrently on a dedicated pool, each
+ * provider call first taking a permit from that provider's rate limiter
+ * ({@code resilience4j.ratelimiter.instances.notify-*}), and the per-channel
+ * results are aggregated into one map for the workflow.
+ *
+ * A recipient is a map with any of: userId, pushToken / pushTokens, phone,
+ * slackChannel, teamsChannel.
+ *
+ * If the batches are not done within the timeout, batches that have not started
+ * are cancelled and the result is returned with timedOut set; each channel then
+ * reports its cancelled batches and the batches still sending.
+ */
+@Slf4j
+@Service
+public class NotificationFanoutService {
+
+    public static final String CHANNEL_IN_APP = "in_app";
+    public static final String CHANNEL_PUSH = "push";
+    public static final String CHANNEL_SMS = "sms";
+    public static final String CHANNEL_SLACK = "slack";
+    public static final String CHANNEL_TEAMS = "teams";
+
+    private static final Set<String> CHANNELS = Set.of(CHANNEL_IN_APP, CHANNEL_PUSH, CHANNEL_SMS, CHANNEL_SLACK, CHANNEL_TEAMS);
+
+    private static final int MAX_REPORTED_FAILURES = 100;
+    private static final String DEFAULT_TENANT = "default";
+
+    @Value("${workflow.notification.fanout.threads:8}")
+    private int threads;
+
+    @Value("${workflow.notification.fanout.in-app-batch-size:1000}")
+    private int inAppBatchSize;
+
+    @Value("${workflow.notification.fanout.sms-batch-size:100}")
+    private int smsBatchSize;
+
+    @Value("${workflow.notification.fanout.push-batch-size:100}")
+    private int pushBatchSize;
+
+    @Value("${workflow.notification.fanout.timeout-seconds:300}")
+    private long timeoutSeconds;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private SMSService smsService;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private RateLimiterRegistry rateLimiterRegistry;
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void init() {
+        senders = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "workflow-notify");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+    }
+
+    /**
+     * Deliver the notification to every recipient on each requested channel
+     *
+     * @return total sent/failed, a per-channel breakdown, the first failures and
+     *         whether the fan-out timed out with batches cancelled or still sending
+     */
+    public Map<String, Object> fanOut(List<Map<String, Object>> recipients, Set<String> channels,
+                                      String title, String message, String type, Map<String, Object> data) {
+        // Reject the whole request before anything is sent, not after the valid channels went out
+        for (String channel : channels) {
+            if (!CHANNELS.contains(channel)) {
+                throw new IllegalArgumentException("Unknown notification channel: " + channel);
+            }
+        }
+        // Batches run on the fan-out pool, where the caller's tenant is not in context
+        String tenantId = TenantContext.getCurrentTenant() != null ? TenantContext.getCurrentTenant() : DEFAULT_TENANT;
+
+        long start = System.currentTimeMillis();
+        Map<String, ChannelResult> results = new LinkedHashMap<>();
+        List<Map<String, Object>> failures = Collections.synchronizedList(new ArrayList<>());
+        List<Batch> batches = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (String channel : channels) {
+            ChannelResult result = new ChannelResult();
+            results.put(channel, result);
+            for (Runnable work : plan(tenantId, channel, recipients, title, message, type, data, result, failures)) {
+                Batch batch = new Batch(work, result);
+                batches.add(batch);
+                futures.add(CompletableFuture.runAsync(batch, senders));
+                result.batches++;
+            }
+        }
+
+        boolean timedOut = false;
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            timedOut = true;
+            cancelPending(batches);
+            log.warn("Notification fan-out still running after {}s, returning partial results", timeoutSeconds);
+        } catch (InterruptedException e) {
+            cancelPending(batches);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Notification fan-out batch failed", e.getCause());
+        }
+
+        int sent = 0;
+        int failed = 0;
+        Map<String, Object> byChannel = new LinkedHashMap<>();
+        for (Map.Entry<String, ChannelResult> entry : results.entrySet()) {
+            ChannelResult result = entry.getValue();
+            sent += result.sent.get();
+            failed += result.failed.get();
+            byChannel.put(entry.getKey(), result.toMap());
+        }
+
+        log.info("Notification fan-out to {} recipients on {}: {} sent, {} failed in {}ms",
+            recipients.size(), channels, sent, failed, System.currentTimeMillis() - start);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("sent", sent);
+        result.put("failed", failed);
+        result.put("total", recipients.size());
+        result.put("channels", byChannel);
+        result.put("failures", new ArrayList<>(failures));
+        result.put("timedOut", timedOut);
+        return result;
+    }
+
+    /**
+     * Cancel the batches that have not started and count the ones still sending;
+     * a running provider call is not interrupted, it may have been delivered already
+     */
+    private void cancelPending(List<Batch> batches) {
+        for (Batch batch : batches) {
+            if (batch.cancel()) {
+                batch.result.cancelled++;
+            } else if (batch.isRunning()) {
+                batch.result.inFlight++;
+            }
+        }
+    }
+
+    private List<Runnable> plan(String tenantId, String channel, List<Map<String, Object>> recipients, String title,
+                                String message, String type, Map<String, Object> data, ChannelResult result,
+                                List<Map<String, Object>> failures) {
+        switch (channel) {
+            case CHANNEL_IN_APP:
+                return planInApp(tenantId, recipients, title, message, type, data, result, failures);
+            case CHANNEL_PUSH:
+                return planPush(recipients, title, message, data, result, failures);
+            case CHANNEL_SMS:
+                return planSms(recipients, message, result, failures);
+            case CHANNEL_SLACK:
+                return planChat("SLACK", "slackChannel", recipients, message, result, failures);
+            case CHANNEL_TEAMS:
+                return planChat("TEAMS", "teamsChannel", recipients, message, result, failures);
+            default:
+                throw new IllegalArgumentException("Unknown notification channel: " + channel);
+        }
+    }
+
+    private List<Runnable> planInApp(String tenantId, List<Map<String, Object>> recipients, String title, String message,
+                                     String type, Map<String, Object> data, ChannelResult result,
+                                     List<Map<String, Object>> failures) {
+        List<Long> userIds = new ArrayList<>();
+        for (Map<String, Object> recipient : recipients) {
+            Long userId = UserIds.parse(recipient.get("userId"));
+            if (userId != null) {
+                userIds.add(userId);
+            }
+        }
+
+        RateLimiter limiter = rateLimiterRegistry.rateLimiter("notify-in-app");
+        List<Runnable> batches = new ArrayList<>();
+        for (List<Long> batch : partition(userIds, inAppBatchSize)) {
+            batches.add(() -> {
+                try {
+                    acquire(limiter);
+                    Map<String, Object> response = notificationService.sendNotificationBatch(tenantId, batch, title, message, type, data);
+                    List<?> failedIds = (List<?>) response.getOrDefault("failedUserIds", List.of());
+                    result.sent.addAndGet(((Number) response.get("sent")).intValue());
+                    for (Object userId : failedIds) {
+                        recordFailure(result, failures, CHANNEL_IN_APP, userId, "Not delivered");
+                    }
+                } catch (Exception e) {
+                    recordFailures(result, failures, CHANNEL_IN_APP, batch, e);
+                }
+            });
+        }
+        return batches;
+    }
+
+    /**
+     * Device tokens go out as FCM multicasts; users without known tokens are
+     * pushed one by one so the provider resolves their devices
+     */
+    private List<Runnable> planPush(List<Map<String, Object>> recipients, String title, String message,
+                                    Map<String, Object> data, ChannelResult result,
+                                    List<Map<String, Object>> failures) {
+        List<String> tokens = new ArrayList<>();
+        List<Long> tokenlessUsers = new ArrayList<>();
+        for (Map<String, Object> recipient : recipients) {
+            List<String> recipientTokens = pushTokens(recipient);
+            if (!recipientTokens.isEmpty()) {
+                tokens.addAll(recipientTokens);
+            } else {
+                Long userId = UserIds.parse(recipient.get("userId"));
+                if (userId != null) {
+                    tokenlessUsers.add(userId);
+                }
+            }
+        }
+
+        RateLimiter limiter = rateLimiterRegistry.rateLimiter("notify-push");
+        List<Runnable> batches = new ArrayList<>();
+        for (List<String> batch : partition(new ArrayList<>(new LinkedHashSet<>(tokens)), NotificationService.FCM_MULTICAST_LIMIT)) {
+            batches.add(() -> {
+                try {
+                    acquire(limiter);
+                    Map<String, Object> response = notificationService.sendPushMulticast(batch, title, message, data);
+                    result.sent.addAndGet(((Number) response.get("sent")).intValue());
+                    List<?> failedTokens = (List<?>) response.getOrDefault("failedTokens", List.of());
+                    for (Object token : failedTokens) {
+                        recordFailure(result, failures, CHANNEL_PUSH, token, "Token rejected");
+                    }
+                    int unreported = ((Number) response.get("failed")).intValue() - failedTokens.size();
+                    for (int i = 0; i < unreported; i++) {
+                        recordFailure(result, failures, CHANNEL_PUSH, null, String.valueOf(response.get("reason")));
+                    }
+                } catch (Exception e) {
+                    recordFailures(result, failures, CHANNEL_PUSH, batch, e);
+                }
+            });
+        }
+        for (List<Long> batch : partition(tokenlessUsers, pushBatchSize)) {
+            batches.add(() -> {
+                for (Long userId : batch) {
+                    try {
+                        acquire(limiter);
+                        Map<String, Object> response = notificationService.sendPushNotification(userId, title, message, data);
+                        countSingle(result, failures, CHANNEL_PUSH, userId, response);
+                    } catch (Exception e) {
+                        recordFailure(result, failures, CHANNEL_PUSH, userId, e.getMessage());
+                    }
+                }
+            });
+        }
+        return batches;
+    }
+
+    private List<Runnable> planSms(List<Map<String, Object>> recipients, String message, ChannelResult result,
+                                   List<Map<String, Object>> failures) {
+        Set<String> phones = new LinkedHashSet<>();
+        for (Map<String, Object> recipient : recipients) {
+            Object phone = recipient.get("phone");
+            if (phone != null && !phone.toString().trim().isEmpty()) {
+                phones.add(phone.toString().trim());
+            }
+        }
+
+        RateLimiter limiter = rateLimiterRegistry.rateLimiter("notify-sms");
+        List<Runnable> batches = new ArrayList<>();
+        for (List<String> batch : partition(new ArrayList<>(phones), smsBatchSize)) {
+            batches.add(() -> {
+                for (String phone : batch) {
+                    try {
+                        acquire(limiter);
+                        countSingle(result, failures, CHANNEL_SMS, phone, smsService.sendSMS(phone, message));
+                    } catch (Exception e) {
+                        recordFailure(result, failures, CHANNEL_SMS, phone, e.getMessage());
+                    }
+                }
+            });
+        }
+        return batches;
+    }
+
+    /**
+     * One post per distinct channel, however many recipients share it
+     */
+    private List<Runnable> planChat(String platform, String key, List<Map<String, Object>> recipients,
+                                    String message, ChannelResult result, List<Map<String, Object>> failures) {
+        Set<String> chatChannels = new LinkedHashSet<>();
+        for (Map<String, Object> recipient : recipients) {
+            Object chatChannel = recipient.get(key);
+            if (chatChannel != null && !chatChannel.toString().isEmpty()) {
+                chatChannels.add(chatChannel.toString());
+            }
+        }
+
+        RateLimiter limiter = rateLimiterRegistry.rateLimiter("notify-chat");
+        String channelName = "SLACK".equals(platform) ? CHANNEL_SLACK : CHANNEL_TEAMS;
+        List<Runnable> batches = new ArrayList<>();
+        for (String chatChannel : chatChannels) {
+            batches.add(() -> {
+                try {
+                    acquire(limiter);
+                    countSingle(result, failures, channelName, chatChannel,
+                        chatService.postToChat(platform, chatChannel, message, null));
+                } catch (Exception e) {
+                    recordFailure(result, failures, channelName, chatChannel, e.getMessage());
+                }
+            });
+        }
+        return batches;
+    }
+
+    private void acquire(RateLimiter limiter) {
+        if (!limiter.acquirePermission()) {
+            throw new RuntimeException("Rate limit wait exceeded for " + limiter.getName());
+        }
+    }
+
+    private void countSingle(ChannelResult result, List<Map<String, Object>> failures, String channel,
+                             Object recipient, Map<String, Object> response) {
+        if (Boolean.TRUE.equals(response.get("sent"))) {
+            result.sent.incrementAndGet();
+        } else {
+            Object error = response.containsKey("error") ? response.get("error") : response.get("reason");
+            recordFailure(result, failures, channel, recipient, String.valueOf(error));
+        }
+    }
+
+    private void recordFailures(ChannelResult result, List<Map<String, Object>> failures, String channel,
+                                List<?> batch, Exception e) {
+        log.error("{} notification batch of {} failed: {}", channel, batch.size(), e.getMessage());
+        for (Object recipient : batch) {
+            recordFailure(result, failures, channel, recipient, e.getMessage());
+        }
+    }
+
+    private void recordFailure(ChannelResult result, List<Map<String, Object>> failures, String channel,
+                               Object recipient, String error) {
+        result.failed.incrementAndGet();
+        if (failures.size() < MAX_REPORTED_FAILURES) {
+            Map<String, Object> failure = new HashMap<>();
+            failure.put("channel", channel);
+            failure.put("recipient", recipient);
+            failure.put("error", error);
+            failures.add(failure);
+        }
+    }
+
+    private List<String> pushTokens(Map<String, Object> recipient) {
+        List<String> tokens = new ArrayList<>();
+        Object many = recipient.get("pushTokens");
+        if (many instanceof Collection) {
+            for (Object token : (Collection<?>) many) {
+                if (token != null) {
+                    tokens.add(token.toString());
+                }
+            }
+        }
+        Object one = recipient.get("pushToken");
+        if (one != null) {
+            tokens.add(one.toString());
+        }
+        return tokens;
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> parts = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += size) {
+            parts.add(items.subList(i, Math.min(items.size(), i + size)));
+        }
+        return parts;
+    }
+
+    private static final class ChannelResult {
+        private final AtomicInteger sent = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private int batches;
+        private int cancelled;
+        private int inFlight;
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("sent", sent.get());
+            map.put("failed", failed.get());
+            map.put("batches", batches);
+            map.put("cancelledBatches", cancelled);
+            map.put("inFlightBatches", inFlight);
+            return map;
+        }
+    }
+
+    /**
+     * One batch on the pool; it either starts or is cancelled, never both
+     */
+    private static final class Batch implements Runnable {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+        private static final int CANCELLED = 3;
+
+        private final Runnable work;
+        private final ChannelResult result;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private Batch(Runnable work, ChannelResult result) {
+            this.work = work;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                return;
+            }
+            try {
+                work.run();
+            } finally {
+                state.set(DONE);
+            }
+        }
+
+        private boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED);
+        }
+
+        private boolean isRunning() {
+            return state.get() == RUNNING;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.zen.workflow.service;
 
+import com.zen.workflow.engine.NotificationCreatedEvent;
+import com.zen.workflow.repository.WorkflowNotificationRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -26,6 +31,19 @@ public class NotificationService {
     @Value("${workflow.push.fcm.server-key:}")
     private String fcmServerKey;
 
+    /** FCM accepts at most 500 tokens per multicast request */
+    public static final int FCM_MULTICAST_LIMIT = 500;
+
+    @Autowired
+    @Lazy
+    private NotificationFanoutService fanoutService;
+
+    @Autowired
+    private WorkflowNotificationRepository notificationRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Send internal notification to user
      */
@@ -117,31 +135,54 @@ public class NotificationService {
             return Map.of("sent", 0, "reason", "Notification service disabled");
         }
 
-        int successCount = 0;
-        int failureCount = 0;
+        List<Map<String, Object>> recipients = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            recipients.add(Map.of("userId", userId));
+        }
+        return fanoutService.fanOut(recipients, Set.of(NotificationFanoutService.CHANNEL_IN_APP),
+            title, message, type, null);
+    }
 
+    /**
+     * Send in-app notifications to a batch of users in one go: the batch is stored
+     * with multi-row inserts, then a {@link NotificationCreatedEvent} is published per
+     * user for real-time delivery
+     *
+     * @return sent count and the user ids that could not be notified
+     */
+    public Map<String, Object> sendNotificationBatch(String tenantId, List<Long> userIds, String title,
+                                                     String message, String type, Map<String, Object> data) {
+        List<Long> failed = new ArrayList<>();
+        List<Long> recipients = new ArrayList<>(userIds.size());
         for (Long userId : userIds) {
-            try {
-                Map<String, Object> result = sendNotification(userId, title, message, type, null);
-                if (result.containsKey("id")) {
-                    successCount++;
-                } else {
-                    failureCount++;
-                }
-            } catch (Exception e) {
-                log.error("Failed to send notification to user: {}", userId, e);
-                failureCount++;
+            if (userId == null) {
+                failed.add(null);
+            } else {
+                recipients.add(userId);
             }
         }
 
-        log.info("Bulk notifications completed: {} sent, {} failed out of {} total",
-            successCount, failureCount, userIds.size());
+        String notificationType = type != null ? type : "INFO";
+        notificationRepository.insertBatch(tenantId, recipients, title, message, notificationType, data);
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("sent", successCount);
-        result.put("failed", failureCount);
-        result.put("total", userIds.size());
+        Date createdAt = new Date();
+        for (Long userId : recipients) {
+            Map<String, Object> notification = new HashMap<>();
+            notification.put("userId", userId);
+            notification.put("title", title);
+            notification.put("message", message);
+            notification.put("type", notificationType);
+            notification.put("data", data);
+            notification.put("read", false);
+            notification.put("createdAt", createdAt);
+            eventPublisher.publishEvent(new NotificationCreatedEvent(tenantId, userId, notification));
+        }
+
+        log.info("Notification batch sent to {} users", recipients.size());
 
+        Map<String, Object> result = new HashMap<>();
+        result.put("sent", recipients.size());
+        result.put("failedUserIds", failed);
         return result;
     }
 
@@ -203,6 +244,34 @@ public class NotificationService {
         }
     }
 
+    /**
+     * Notify the given team members on each requested channel
+     */
+    public Map<String, Object> sendToTeam(String teamId, List<Map<String, Object>> members, Set<String> channels,
+                                          String title, String message, String type) {
+        if (!notificationEnabled) {
+            return Map.of("sent", false, "reason", "Notification service disabled");
+        }
+        log.info("Sending notification to team {} ({} members)", teamId, members.size());
+        Map<String, Object> result = fanoutService.fanOut(members, channels, title, message, type, null);
+        result.put("teamId", teamId);
+        return result;
+    }
+
+    /**
+     * Notify the given role holders on each requested channel
+     */
+    public Map<String, Object> sendToRole(String role, List<Map<String, Object>> users, Set<String> channels,
+                                          String title, String message, String type) {
+        if (!notificationEnabled) {
+            return Map.of("sent", false, "reason", "Notification service disabled");
+        }
+        log.info("Sending notification to role {} ({} users)", role, users.size());
+        Map<String, Object> result = fanoutService.fanOut(users, channels, title, message, type, null);
+        result.put("role", role);
+        return result;
+    }
+
     /**
      * Create alert notification (high priority)
      */
@@ -311,6 +380,58 @@ public class NotificationService {
         }
     }
 
+    /**
+     * Send one push to up to {@link #FCM_MULTICAST_LIMIT} device tokens in a single request
+     *
+     * @return sent and failed counts and the tokens FCM rejected
+     */
+    public Map<String, Object> sendPushMulticast(List<String> tokens, String title, String body,
+                                                 Map<String, Object> data) {
+        if (!pushEnabled) {
+            return Map.of("sent", 0, "failed", tokens.size(), "reason", "Push notification service disabled");
+        }
+        if (tokens.size() > FCM_MULTICAST_LIMIT) {
+            throw new IllegalArgumentException("At most " + FCM_MULTICAST_LIMIT + " tokens per multicast");
+        }
+
+        if (!"FCM".equalsIgnoreCase(pushProvider) || fcmServerKey.isEmpty()) {
+            log.info("MOCK Push multicast: {} tokens, Title={}", tokens.size(), title);
+            Map<String, Object> result = new HashMap<>();
+            result.put("sent", tokens.size());
+            result.put("failed", 0);
+            result.put("failedTokens", List.of());
+            result.put("provider", "MOCK");
+            return result;
+        }
+
+        try {
+            // In production, use Firebase Admin SDK
+            // MulticastMessage message = MulticastMessage.builder()
+            //     .setNotification(Notification.builder()
+            //         .setTitle(title)
+            //         .setBody(body)
+            //         .build())
+            //     .putAllData(data)
+            //     .addAllTokens(tokens)
+            //     .build();
+            // BatchResponse response = FirebaseMessaging.getInstance().sendEachForMulticast(message);
+            // failed tokens: response.getResponses().get(i).isSuccessful() == false
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("sent", tokens.size());
+            result.put("failed", 0);
+            result.put("failedTokens", List.of());
+            result.put("provider", "FCM");
+            result.put("multicastId", "fcm_" + System.currentTimeMillis());
+
+            return result;
+
+        } catch (Exception e) {
+            log.error("FCM multicast failed", e);
+            throw new RuntimeException("FCM multicast failed: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Send push via Apple Push Notification Service
      */
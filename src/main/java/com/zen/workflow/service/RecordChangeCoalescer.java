@@ -0,0 +1,214 @@
+package com.zen.workflow.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces bursts of update events for the same record into a single trigger.
+ *
+ * A single edit in the CRM UI usually arrives as several ON_UPDATE events a few
+ * hundred milliseconds apart (one per field save). Events are buffered per
+ * (tenant, module, trigger, recordId) until the record has been quiet for
+ * {@code workflow.trigger.coalesce.quiet-period-ms}, then flushed once with the
+ * merged record data and the union of the changed fields.
+ */
+@Slf4j
+@Service
+public class RecordChangeCoalescer {
+
+    public static final String CHANGED_FIELDS = "changedFields";
+    public static final String PREVIOUS_VALUES = "previousValues";
+    public static final String COALESCED_EVENTS = "coalescedEvents";
+
+    @Value("${workflow.trigger.coalesce.enabled:true}")
+    private boolean enabled;
+
+    @Value("${workflow.trigger.coalesce.quiet-period-ms:750}")
+    private long quietPeriodMs;
+
+    @Value("${workflow.trigger.coalesce.max-hold-ms:5000}")
+    private long maxHoldMs;
+
+    @Autowired
+    @Qualifier("workflowExecutor")
+    private Executor workflowExecutor;
+
+    private final Map<String, PendingChange> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "workflow-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Buffer an update event for its record.
+     *
+     * @return true if the event was buffered and {@code onFlush} will be called later,
+     *         false if the caller should dispatch the event itself
+     */
+    public boolean submit(String tenantId, String moduleType, String triggerType,
+                          Map<String, Object> recordData, Consumer<Map<String, Object>> onFlush) {
+        if (!enabled || recordData == null) {
+            return false;
+        }
+
+        Object recordId = extractRecordId(moduleType, recordData);
+        if (recordId == null) {
+            return false;
+        }
+
+        String key = tenantId + "|" + moduleType + "|" + triggerType + "|" + recordId;
+        long now = System.currentTimeMillis();
+
+        PendingChange change = pending.compute(key, (k, existing) -> {
+            if (existing == null) {
+                PendingChange created = new PendingChange(key, now, onFlush);
+                created.merge(recordData, now);
+                scheduler.schedule(() -> checkQuiet(key), quietPeriodMs, TimeUnit.MILLISECONDS);
+                return created;
+            }
+            existing.merge(recordData, now);
+            return existing;
+        });
+
+        log.debug("Buffered update for {} ({} event(s) pending)", key, change.eventCount);
+        return true;
+    }
+
+    /**
+     * Number of records currently held in the buffer
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void checkQuiet(String key) {
+        PendingChange change = pending.get(key);
+        if (change == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long dueAt = change.dueAt(quietPeriodMs, maxHoldMs);
+        if (now < dueAt) {
+            scheduler.schedule(() -> checkQuiet(key), dueAt - now, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        if (pending.remove(key, change)) {
+            try {
+                workflowExecutor.execute(() -> flush(change));
+            } catch (RejectedExecutionException e) {
+                // The change is already out of the buffer; dispatch it here rather than drop it
+                log.warn("Workflow executor saturated, flushing {} on the coalescer thread", key);
+                flush(change);
+            }
+        }
+    }
+
+    private void flush(PendingChange change) {
+        Map<String, Object> merged = change.snapshot();
+        log.info("Flushing {} coalesced update(s) for {} (changed fields: {})",
+            change.eventCount, change.key, merged.get(CHANGED_FIELDS));
+        try {
+            change.onFlush.accept(merged);
+        } catch (Exception e) {
+            log.error("Failed to dispatch coalesced update for {}: {}", change.key, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Dispatch everything still buffered so no edits are lost on shutdown
+     */
+    @PreDestroy
+    public void drain() {
+        scheduler.shutdownNow();
+        for (String key : new ArrayList<>(pending.keySet())) {
+            PendingChange change = pending.remove(key);
+            if (change != null) {
+                flush(change);
+            }
+        }
+    }
+
+    private Object extractRecordId(String moduleType, Map<String, Object> recordData) {
+        Object recordId = recordData.get("recordId");
+        if (recordId == null) {
+            recordId = recordData.get("id");
+        }
+        if (recordId == null && moduleType != null) {
+            recordId = recordData.get(moduleType.toLowerCase() + "Id");
+        }
+        return recordId;
+    }
+
+    /**
+     * Events buffered for one record
+     */
+    private static class PendingChange {
+        private final String key;
+        private final long firstSeen;
+        private final Consumer<Map<String, Object>> onFlush;
+        private final Map<String, Object> data = new HashMap<>();
+        private final Set<String> changedFields = new LinkedHashSet<>();
+        private final Map<String, Object> previousValues = new HashMap<>();
+        private long lastSeen;
+        private int eventCount;
+
+        PendingChange(String key, long firstSeen, Consumer<Map<String, Object>> onFlush) {
+            this.key = key;
+            this.firstSeen = firstSeen;
+            this.onFlush = onFlush;
+        }
+
+        synchronized void merge(Map<String, Object> recordData, long now) {
+            for (Map.Entry<String, Object> entry : recordData.entrySet()) {
+                String field = entry.getKey();
+                if (CHANGED_FIELDS.equals(field)) {
+                    if (entry.getValue() instanceof Collection) {
+                        for (Object changed : (Collection<?>) entry.getValue()) {
+                            changedFields.add(String.valueOf(changed));
+                        }
+                    }
+                } else if (PREVIOUS_VALUES.equals(field)) {
+                    // Keep the value from before the first edit in the burst
+                    if (entry.getValue() instanceof Map) {
+                        ((Map<?, ?>) entry.getValue()).forEach((k, v) -> previousValues.putIfAbsent(String.valueOf(k), v));
+                    }
+                } else {
+                    data.put(field, entry.getValue());
+                }
+            }
+            lastSeen = now;
+            eventCount++;
+        }
+
+        synchronized long dueAt(long quietPeriodMs, long maxHoldMs) {
+            return Math.min(lastSeen + quietPeriodMs, firstSeen + maxHoldMs);
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> merged = new HashMap<>(data);
+            merged.put(CHANGED_FIELDS, new ArrayList<>(changedFields));
+            if (!previousValues.isEmpty()) {
+                merged.put(PREVIOUS_VALUES, new HashMap<>(previousValues));
+            }
+            merged.put(COALESCED_EVENTS, eventCount);
+            return merged;
+        }
+    }
+}
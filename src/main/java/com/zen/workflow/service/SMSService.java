@@ -1,13 +1,16 @@
 package com.zen.workflow.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -33,6 +36,10 @@ public class SMSService {
     @Value("${workflow.sms.twilio.from-number:}")
     private String twilioFromNumber;
 
+    /** When set, messages go out through the Messaging Service's sender pool instead of from-number */
+    @Value("${workflow.sms.twilio.messaging-service-sid:}")
+    private String twilioMessagingServiceSid;
+
     @Value("${workflow.whatsapp.enabled:false}")
     private boolean whatsappEnabled;
 
@@ -42,7 +49,9 @@ public class SMSService {
     @Value("${workflow.whatsapp.api-url:}")
     private String whatsappApiUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    @Lazy
+    private NotificationFanoutService fanoutService;
 
     private static final Pattern PHONE_PATTERN = Pattern.compile("^\\+?[1-9]\\d{1,14}$");
 
@@ -160,32 +169,14 @@ public class SMSService {
             return Map.of("sent", 0, "reason", "SMS service disabled");
         }
 
-        int successCount = 0;
-        int failureCount = 0;
-
+        List<Map<String, Object>> recipients = new ArrayList<>(phoneNumbers.size());
         for (String phoneNumber : phoneNumbers) {
-            try {
-                Map<String, Object> result = sendSMS(phoneNumber, message);
-                if ((Boolean) result.getOrDefault("sent", false)) {
-                    successCount++;
-                } else {
-                    failureCount++;
-                }
-            } catch (Exception e) {
-                log.error("Failed to send SMS to: {}", phoneNumber, e);
-                failureCount++;
-            }
+            Map<String, Object> recipient = new HashMap<>();
+            recipient.put("phone", phoneNumber);
+            recipients.add(recipient);
         }
-
-        log.info("Bulk SMS completed: {} sent, {} failed out of {} total",
-            successCount, failureCount, phoneNumbers.size());
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("sent", successCount);
-        result.put("failed", failureCount);
-        result.put("total", phoneNumbers.size());
-
-        return result;
+        return fanoutService.fanOut(recipients, Set.of(NotificationFanoutService.CHANNEL_SMS),
+            null, message, null, null);
     }
 
     // Provider-specific implementations
@@ -202,16 +193,15 @@ public class SMSService {
         try {
             // In production, use Twilio SDK
             // Twilio.init(twilioAccountSid, twilioAuthToken);
-            // Message twilioMessage = Message.creator(
-            //     new PhoneNumber(phoneNumber),
-            //     new PhoneNumber(twilioFromNumber),
-            //     message
-            // ).create();
+            // Message twilioMessage = twilioMessagingServiceSid.isEmpty()
+            //     ? Message.creator(new PhoneNumber(phoneNumber), new PhoneNumber(twilioFromNumber), message).create()
+            //     : Message.creator(new PhoneNumber(phoneNumber), twilioMessagingServiceSid, message).create();
 
             Map<String, Object> result = new HashMap<>();
             result.put("sent", true);
             result.put("phoneNumber", phoneNumber);
             result.put("provider", "TWILIO");
+            result.put("from", twilioMessagingServiceSid.isEmpty() ? twilioFromNumber : twilioMessagingServiceSid);
             result.put("messageId", "twilio_" + System.currentTimeMillis());
 
             return result;
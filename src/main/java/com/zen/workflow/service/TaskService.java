@@ -3,7 +3,6 @@ package com.zen.workflow.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
 
@@ -21,8 +20,6 @@ public class TaskService {
     @Value("${workflow.task.enabled:true}")
     private boolean taskEnabled;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-
     /**
      * Create a new task
      */
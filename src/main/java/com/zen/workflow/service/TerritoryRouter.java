@@ -0,0 +1,273 @@
+package com.zen.workflow.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Territory rules of one lead assignment node, compiled into tries.
+ *
+ * Zip entries are prefixes ("941*", or a full code which also covers its zip+4
+ * extensions) or numeric ranges ("90000-90999"); a range is decomposed into the
+ * few prefixes that exactly cover it, so every zip lookup is one walk down the zip
+ * trie and the longest matching prefix wins. City, state and country match whole
+ * values, case-insensitively. Lookup is O(key length) and allocation-free.
+ *
+ * Precedence is zip, city, state, country, then the default owner.
+ *
+ * Config, either form:
+ * <pre>
+ * territories: [{userId: 7, zips: ["941*", "90000-90999"], cities: [...], states: [...], countries: [...]}]
+ * territoryMapping: {"zip_94105": 7, "city_Austin": 8, "state_CA": 9, "country_US": 10, "default": 11}
+ * </pre>
+ * plus an optional defaultUser.
+ */
+public class TerritoryRouter {
+
+    private final CharTrie zips = new CharTrie();
+    private final CharTrie cities = new CharTrie();
+    private final CharTrie states = new CharTrie();
+    private final CharTrie countries = new CharTrie();
+    private Long defaultOwner;
+
+    private TerritoryRouter() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static TerritoryRouter compile(Map<String, Object> config) {
+        TerritoryRouter router = new TerritoryRouter();
+
+        Object territories = config.get("territories");
+        if (territories instanceof List) {
+            for (Object item : (List<?>) territories) {
+                if (!(item instanceof Map)) {
+                    continue;
+                }
+                Map<String, Object> territory = (Map<String, Object>) item;
+                Long owner = UserIds.parse(territory.get("userId"));
+                if (owner == null) {
+                    continue;
+                }
+                for (String zip : strings(territory.get("zips"))) {
+                    router.addZip(zip, owner);
+                }
+                for (String city : strings(territory.get("cities"))) {
+                    router.cities.put(city, owner, false);
+                }
+                for (String state : strings(territory.get("states"))) {
+                    router.states.put(state, owner, false);
+                }
+                for (String country : strings(territory.get("countries"))) {
+                    router.countries.put(country, owner, false);
+                }
+            }
+        }
+
+        Object mapping = config.get("territoryMapping");
+        if (mapping instanceof Map) {
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) mapping).entrySet()) {
+                Long owner = UserIds.parse(entry.getValue());
+                String key = entry.getKey();
+                if (owner == null || key == null) {
+                    continue;
+                }
+                if (key.startsWith("zip_")) {
+                    router.addZip(key.substring(4), owner);
+                } else if (key.startsWith("city_")) {
+                    router.cities.put(key.substring(5), owner, false);
+                } else if (key.startsWith("state_")) {
+                    router.states.put(key.substring(6), owner, false);
+                } else if (key.startsWith("country_")) {
+                    router.countries.put(key.substring(8), owner, false);
+                } else if ("default".equals(key)) {
+                    router.defaultOwner = owner;
+                }
+            }
+        }
+
+        Long defaultUser = UserIds.parse(config.get("defaultUser"));
+        if (defaultUser != null) {
+            router.defaultOwner = defaultUser;
+        }
+        return router;
+    }
+
+    /**
+     * Owner of the most specific territory containing the lead, or the default
+     */
+    public Long route(Map<String, Object> lead) {
+        Long owner = zips.find(value(lead.get("zipCode")));
+        if (owner == null) {
+            owner = cities.find(value(lead.get("city")));
+        }
+        if (owner == null) {
+            owner = states.find(value(lead.get("state")));
+        }
+        if (owner == null) {
+            owner = countries.find(value(lead.get("country")));
+        }
+        return owner != null ? owner : defaultOwner;
+    }
+
+    private void addZip(String zip, Long owner) {
+        String spec = zip.trim();
+        if (spec.endsWith("*")) {
+            zips.put(spec.substring(0, spec.length() - 1), owner, true);
+            return;
+        }
+        int dash = spec.indexOf('-');
+        if (dash > 0) {
+            String low = spec.substring(0, dash).trim();
+            String high = spec.substring(dash + 1).trim();
+            if (low.length() == high.length() && isDigits(low) && isDigits(high) && low.compareTo(high) <= 0) {
+                addRange("", low, high, owner);
+                return;
+            }
+        }
+        // A full code also covers its extensions (94105 -> 94105-1234)
+        zips.put(spec, owner, true);
+    }
+
+    /**
+     * Cover [low, high] (equal-length digit strings) with the minimal set of prefixes
+     */
+    private void addRange(String prefix, String low, String high, Long owner) {
+        if (low.isEmpty() || (isAll(low, '0') && isAll(high, '9'))) {
+            zips.put(prefix, owner, true);
+            return;
+        }
+        char first = low.charAt(0);
+        char last = high.charAt(0);
+        for (char digit = first; digit <= last; digit++) {
+            String subLow = digit == first ? low.substring(1) : repeat('0', low.length() - 1);
+            String subHigh = digit == last ? high.substring(1) : repeat('9', high.length() - 1);
+            addRange(prefix + digit, subLow, subHigh, owner);
+        }
+    }
+
+    private static CharSequence value(Object value) {
+        if (value == null || value instanceof CharSequence) {
+            return (CharSequence) value;
+        }
+        return value.toString();
+    }
+
+    private static boolean isDigits(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAll(String value, char c) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static List<String> strings(Object value) {
+        if (!(value instanceof Collection)) {
+            return List.of();
+        }
+        return ((Collection<?>) value).stream()
+            .filter(item -> item != null)
+            .map(Object::toString)
+            .toList();
+    }
+
+    /**
+     * Trie over letters and digits, upper-cased; other characters (spaces, dashes)
+     * are skipped, so "SW1A 1AA", "sw1a1aa" and "94105-1234" normalise on the fly.
+     */
+    private static final class CharTrie {
+        private final Node root = new Node();
+
+        void put(String key, Long owner, boolean prefix) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                char c = normalise(key.charAt(i));
+                if (c != 0) {
+                    node = node.child(c, true);
+                }
+            }
+            if (prefix) {
+                node.prefixOwner = owner;
+            } else {
+                node.exactOwner = owner;
+            }
+        }
+
+        /**
+         * Exact owner of the whole key, else the owner of its longest owned prefix
+         */
+        Long find(CharSequence key) {
+            if (key == null) {
+                return null;
+            }
+            Node node = root;
+            Long best = root.prefixOwner;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                char c = normalise(key.charAt(i));
+                if (c == 0) {
+                    continue;
+                }
+                node = node.child(c, false);
+                if (node != null && node.prefixOwner != null) {
+                    best = node.prefixOwner;
+                }
+            }
+            if (node != null && node != root && node.exactOwner != null) {
+                return node.exactOwner;
+            }
+            return best;
+        }
+
+        private static char normalise(char c) {
+            return Character.isLetterOrDigit(c) ? Character.toUpperCase(c) : 0;
+        }
+    }
+
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private Long exactOwner;
+        private Long prefixOwner;
+
+        Node child(char label, boolean create) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            if (!create) {
+                return null;
+            }
+            int insert = -index - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newLabels[insert] = label;
+            newChildren[insert] = new Node();
+            System.arraycopy(labels, insert, newLabels, insert + 1, labels.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insert];
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.zen.workflow.service;
+
+/**
+ * User ids read from node config and record data: JSON numbers arrive as
+ * Integer or Long, ids typed into the builder as strings
+ */
+final class UserIds {
+
+    private UserIds() {
+    }
+
+    /**
+     * The id as a Long, or null if the value is missing or not a whole number
+     */
+    static Long parse(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,416 @@
+package com.zen.workflow.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zen.workflow.dto.WebhookDeliveryDTO;
+import com.zen.workflow.model.HttpCallResult;
+import com.zen.workflow.model.WebhookDelivery;
+import com.zen.workflow.repository.WorkflowWebhookDeliveryRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent outbound webhook queue.
+ *
+ * Queued webhooks are rows in workflow_webhook_deliveries, so the execution that
+ * produced them finishes without waiting on the receiver. A poller claims due rows
+ * and posts them on the shared HTTP client behind the endpoint's circuit breaker;
+ * at most {@code max-in-flight} requests are outstanding per instance. Retryable
+ * failures (timeouts, 408, 429, 5xx) are retried with exponential backoff and equal
+ * jitter, honouring Retry-After; other 4xx and exhausted retries are dead-lettered.
+ * Batchable deliveries to the same endpoint wait {@code batch-window-ms} and are
+ * posted together as one JSON array.
+ *
+ * Credential headers are never stored in clear text: they are encrypted with AES-GCM
+ * under {@code secret-key} (bound to the tenant) and added back just before sending.
+ */
+@Slf4j
+@Service
+public class WebhookDeliveryService {
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Value("${workflow.webhook.delivery.enabled:true}")
+    private boolean enabled;
+
+    @Value("${workflow.webhook.delivery.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${workflow.webhook.delivery.base-delay-ms:5000}")
+    private long baseDelayMs;
+
+    @Value("${workflow.webhook.delivery.max-delay-ms:3600000}")
+    private long maxDelayMs;
+
+    @Value("${workflow.webhook.delivery.batch-window-ms:2000}")
+    private long batchWindowMs;
+
+    @Value("${workflow.webhook.delivery.max-batch-size:50}")
+    private int maxBatchSize;
+
+    @Value("${workflow.webhook.delivery.claim-size:200}")
+    private int claimSize;
+
+    @Value("${workflow.webhook.delivery.max-in-flight:100}")
+    private int maxInFlight;
+
+    @Value("${workflow.webhook.delivery.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${workflow.webhook.delivery.retention-days:7}")
+    private int retentionDays;
+
+    // Base64 AES key (16, 24 or 32 bytes); without it authenticated webhooks cannot be queued
+    @Value("${workflow.webhook.delivery.secret-key:}")
+    private String secretKey;
+
+    @Autowired
+    private WorkflowWebhookDeliveryRepository deliveryRepository;
+
+    @Autowired
+    private HttpClientService httpClientService;
+
+    @Autowired
+    private EndpointResilienceService endpointResilienceService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Semaphore inFlight;
+    private SecretKeySpec cipherKey;
+
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(maxInFlight);
+        if (secretKey != null && !secretKey.isBlank()) {
+            byte[] key = Base64.getDecoder().decode(secretKey.trim());
+            if (key.length != 16 && key.length != 24 && key.length != 32) {
+                throw new IllegalStateException("workflow.webhook.delivery.secret-key must be a base64 AES key of 16, 24 or 32 bytes");
+            }
+            cipherKey = new SecretKeySpec(key, "AES");
+        }
+    }
+
+    /**
+     * Queue a webhook POST for background delivery
+     *
+     * @param headers        headers stored as they are
+     * @param secretHeaders  credential headers, stored encrypted and added at send time
+     * @param batch allow posting together with other deliveries to the same endpoint
+     * @return delivery id
+     */
+    public Long enqueue(String tenantId, Long executionId, String url, Object payload,
+                        Map<String, String> headers, Map<String, String> secretHeaders, boolean batch) {
+        WebhookDelivery delivery = new WebhookDelivery();
+        delivery.setTenantId(tenantId);
+        delivery.setExecutionId(executionId);
+        delivery.setUrl(url);
+        delivery.setHeaders(headers != null ? new HashMap<>(headers) : new HashMap<>());
+        if (secretHeaders != null && !secretHeaders.isEmpty()) {
+            delivery.setEncryptedSecrets(encryptSecrets(tenantId, secretHeaders));
+        }
+        try {
+            delivery.setPayload(payload instanceof String ? (String) payload : objectMapper.writeValueAsString(payload));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialize webhook payload", e);
+        }
+        delivery.setMaxAttempts(maxAttempts);
+        // Keyed on the credentials too (hashed), so differently authenticated posts are never merged
+        delivery.setBatchKey(batch ? batchKey(tenantId, url, delivery.getHeaders(), secretHeaders) : null);
+        delivery.setNextAttemptAt(batch ? LocalDateTime.now().plusNanos(batchWindowMs * 1_000_000) : LocalDateTime.now());
+
+        Long id = deliveryRepository.insert(delivery);
+        log.info("Queued webhook {} to {} (batch: {})", id, url, batch);
+        return id;
+    }
+
+    public List<WebhookDeliveryDTO> getDeadLetters(String tenantId, Long beforeId, int limit) {
+        return deliveryRepository.findDead(tenantId, beforeId, limit).stream()
+            .map(this::toDTO)
+            .collect(Collectors.toList());
+    }
+
+    public boolean retryDeadLetter(String tenantId, Long deliveryId) {
+        return deliveryRepository.requeueDead(tenantId, deliveryId);
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.webhook.delivery.poll-interval-ms:1000}")
+    public void deliverDue() {
+        if (!enabled) {
+            return;
+        }
+        int capacity = Math.min(claimSize, inFlight.availablePermits());
+        if (capacity == 0) {
+            return;
+        }
+
+        List<WebhookDelivery> claimed;
+        try {
+            claimed = deliveryRepository.claimDue(UUID.randomUUID().toString(),
+                LocalDateTime.now().plusNanos(leaseMs * 1_000_000), capacity);
+        } catch (Exception e) {
+            log.error("Failed to claim webhook deliveries: {}", e.getMessage());
+            return;
+        }
+
+        for (List<WebhookDelivery> group : group(claimed)) {
+            inFlight.acquireUninterruptibly();
+            send(group);
+        }
+    }
+
+    /**
+     * Return rows held by an instance that stopped before finishing them
+     */
+    @Scheduled(fixedDelayString = "${workflow.webhook.delivery.lease-check-interval-ms:60000}")
+    public void releaseExpiredLeases() {
+        if (!enabled) {
+            return;
+        }
+        int released = deliveryRepository.releaseExpiredLeases();
+        if (released > 0) {
+            log.warn("Returned {} webhook delivery(ies) with expired leases to the queue", released);
+        }
+    }
+
+    @Scheduled(cron = "${workflow.webhook.delivery.purge-cron:0 30 * * * *}")
+    public void purgeDelivered() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int deleted;
+        int total = 0;
+        do {
+            deleted = deliveryRepository.deleteDeliveredBefore(cutoff, 1000);
+            total += deleted;
+        } while (deleted == 1000);
+        if (total > 0) {
+            log.info("Purged {} delivered webhook(s)", total);
+        }
+    }
+
+    /**
+     * Batchable rows are grouped by batch key up to max-batch-size; others go alone
+     */
+    private List<List<WebhookDelivery>> group(List<WebhookDelivery> deliveries) {
+        List<List<WebhookDelivery>> groups = new ArrayList<>();
+        Map<String, List<WebhookDelivery>> open = new HashMap<>();
+        for (WebhookDelivery delivery : deliveries) {
+            if (delivery.getBatchKey() == null) {
+                groups.add(List.of(delivery));
+                continue;
+            }
+            List<WebhookDelivery> batch = open.get(delivery.getBatchKey());
+            if (batch == null || batch.size() >= maxBatchSize) {
+                batch = new ArrayList<>();
+                open.put(delivery.getBatchKey(), batch);
+                groups.add(batch);
+            }
+            batch.add(delivery);
+        }
+        return groups;
+    }
+
+    private void send(List<WebhookDelivery> group) {
+        WebhookDelivery first = group.get(0);
+        List<Long> ids = new ArrayList<>(group.size());
+        for (WebhookDelivery delivery : group) {
+            ids.add(delivery.getId());
+        }
+
+        String body;
+        if (first.getBatchKey() == null) {
+            body = first.getPayload();
+        } else {
+            StringJoiner array = new StringJoiner(",", "[", "]");
+            group.forEach(delivery -> array.add(delivery.getPayload()));
+            body = array.toString();
+        }
+
+        Map<String, String> headers = new HashMap<>(first.getHeaders());
+        if (first.getEncryptedSecrets() != null) {
+            try {
+                headers.putAll(decryptSecrets(first.getTenantId(), first.getEncryptedSecrets()));
+            } catch (Exception e) {
+                // Wrong or rotated key: retrying cannot help
+                inFlight.release();
+                deliveryRepository.markDead(ids, null, "Stored credentials could not be decrypted");
+                log.error("Webhook(s) {} to {} dead-lettered: credentials could not be decrypted", ids, first.getUrl());
+                return;
+            }
+        }
+
+        try {
+            endpointResilienceService.execute(first.getTenantId(), first.getUrl(),
+                    () -> httpClientService.sendAsync("POST", first.getUrl(), headers, body),
+                    response -> isRetryable(response.getStatusCode()))
+                .whenComplete((response, error) -> {
+                    try {
+                        complete(group, ids, response, error);
+                    } catch (Exception e) {
+                        // Rows stay IN_FLIGHT and come back when the lease expires
+                        log.error("Failed to record webhook delivery outcome for {}: {}", ids, e.getMessage());
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            log.error("Failed to send webhook deliveries {}: {}", ids, e.getMessage());
+        }
+    }
+
+    private void complete(List<WebhookDelivery> group, List<Long> ids, HttpCallResult response, Throwable error) {
+        WebhookDelivery first = group.get(0);
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            boolean rejected = endpointResilienceService.isRejection(cause);
+            // A rejected call never reached the endpoint, so it does not use up an attempt
+            retryOrDeadLetter(group, ids, !rejected, null, cause.getClass().getSimpleName() + ": " + cause.getMessage(), null);
+            return;
+        }
+
+        int status = response.getStatusCode();
+        if (response.isSuccessful()) {
+            deliveryRepository.markDelivered(ids, status);
+            log.info("Delivered {} webhook(s) to {} ({})", ids.size(), first.getUrl(), status);
+        } else if (isRetryable(status)) {
+            retryOrDeadLetter(group, ids, true, status, "HTTP " + status, retryAfterMs(response));
+        } else {
+            deliveryRepository.markDead(ids, status, "HTTP " + status + ": " + abbreviate(response.getBody()));
+            log.warn("Webhook(s) {} to {} dead-lettered: HTTP {}", ids, first.getUrl(), status);
+        }
+    }
+
+    private void retryOrDeadLetter(List<WebhookDelivery> group, List<Long> ids, boolean countAttempt,
+                                   Integer status, String error, Long retryAfterMs) {
+        List<Long> retry = new ArrayList<>();
+        List<Long> dead = new ArrayList<>();
+        int attempts = 0;
+        for (WebhookDelivery delivery : group) {
+            int used = delivery.getAttempts() + (countAttempt ? 1 : 0);
+            attempts = Math.max(attempts, used);
+            (used >= delivery.getMaxAttempts() ? dead : retry).add(delivery.getId());
+        }
+
+        if (!dead.isEmpty()) {
+            deliveryRepository.markDead(dead, status, error);
+            log.warn("Webhook(s) {} to {} dead-lettered after {} attempt(s): {}", dead, group.get(0).getUrl(), attempts, error);
+        }
+        if (!retry.isEmpty()) {
+            long delay = Math.max(backoffMs(attempts), retryAfterMs != null ? retryAfterMs : 0);
+            deliveryRepository.reschedule(retry, LocalDateTime.now().plusNanos(delay * 1_000_000), countAttempt, status, error);
+            log.info("Webhook(s) {} to {} retry in {} ms: {}", retry, group.get(0).getUrl(), delay, error);
+        }
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half the delay fixed, half random
+     */
+    private long backoffMs(int attempts) {
+        long delay = baseDelayMs << Math.min(Math.max(attempts - 1, 0), 20);
+        delay = Math.min(delay, maxDelayMs);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private boolean isRetryable(int status) {
+        return status == 408 || status == 429 || status >= 500;
+    }
+
+    private Long retryAfterMs(HttpCallResult response) {
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            if ("Retry-After".equalsIgnoreCase(header.getKey())) {
+                try {
+                    return Math.min(Long.parseLong(header.getValue().trim()) * 1000, maxDelayMs);
+                } catch (NumberFormatException e) {
+                    return null; // HTTP-date form, fall back to backoff
+                }
+            }
+        }
+        return null;
+    }
+
+    private String batchKey(String tenantId, String url, Map<String, String> headers, Map<String, String> secretHeaders) {
+        try {
+            String source = tenantId + "|" + url + "|" + new TreeMap<>(headers)
+                + "|" + new TreeMap<>(secretHeaders != null ? secretHeaders : Map.of());
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String encryptSecrets(String tenantId, Map<String, String> secretHeaders) {
+        if (cipherKey == null) {
+            throw new RuntimeException("Authenticated webhooks cannot be queued: workflow.webhook.delivery.secret-key is not set");
+        }
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, cipherKey, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(tenantId.getBytes(StandardCharsets.UTF_8));
+            byte[] encrypted = cipher.doFinal(objectMapper.writeValueAsBytes(secretHeaders));
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + encrypted.length)
+                .put(iv).put(encrypted).array());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to encrypt webhook credentials", e);
+        }
+    }
+
+    private Map<String, String> decryptSecrets(String tenantId, String encryptedSecrets) throws Exception {
+        if (cipherKey == null) {
+            throw new IllegalStateException("workflow.webhook.delivery.secret-key is not set");
+        }
+        byte[] data = Base64.getDecoder().decode(encryptedSecrets);
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, cipherKey, new GCMParameterSpec(TAG_BITS, data, 0, IV_BYTES));
+        cipher.updateAAD(tenantId.getBytes(StandardCharsets.UTF_8));
+        byte[] json = cipher.doFinal(data, IV_BYTES, data.length - IV_BYTES);
+        return objectMapper.readValue(json, new TypeReference<Map<String, String>>() {});
+    }
+
+    private WebhookDeliveryDTO toDTO(WebhookDelivery delivery) {
+        WebhookDeliveryDTO dto = new WebhookDeliveryDTO();
+        dto.setId(delivery.getId());
+        dto.setExecutionId(delivery.getExecutionId());
+        dto.setUrl(delivery.getUrl());
+        dto.setPayload(delivery.getPayload());
+        dto.setStatus(delivery.getStatus());
+        dto.setAttempts(delivery.getAttempts());
+        dto.setMaxAttempts(delivery.getMaxAttempts());
+        dto.setNextAttemptAt(delivery.getNextAttemptAt());
+        dto.setLastStatusCode(delivery.getLastStatusCode());
+        dto.setLastError(delivery.getLastError());
+        dto.setCreatedAt(delivery.getCreatedAt());
+        dto.setDeliveredAt(delivery.getDeliveredAt());
+        return dto;
+    }
+
+    private String abbreviate(String body) {
+        return body != null && body.length() > 200 ? body.substring(0, 200) + "..." : body;
+    }
+}
@@ -1,13 +1,19 @@
 package com.zen.workflow.service;
 
+import com.zen.workflow.config.TenantContext;
+import com.zen.workflow.model.HttpCallResult;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service for making HTTP requests and webhook calls in workflows
@@ -23,7 +29,17 @@ public class WebhookService {
     @Value("${workflow.webhook.timeout:30000}")
     private int timeout;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private HttpClientService httpClientService;
+
+    @Autowired
+    private EndpointResilienceService endpointResilienceService;
+
+    @Autowired
+    private HttpResponseCache responseCache;
+
+    @Autowired
+    private WebhookDeliveryService deliveryService;
 
     /**
      * Make HTTP request
@@ -31,60 +47,140 @@ public class WebhookService {
     public Map<String, Object> makeRequest(String url, String method, Map<String, Object> body,
                                            Map<String, String> headers, String authType,
                                            Map<String, String> authConfig) {
+        return makeRequestAsync(url, method, body, headers, authType, authConfig).join();
+    }
+
+    /**
+     * Make HTTP request without blocking the caller. The future always completes
+     * normally with the same result map as {@link #makeRequest}.
+     */
+    public CompletableFuture<Map<String, Object>> makeRequestAsync(String url, String method, Map<String, Object> body,
+                                                                   Map<String, String> headers, String authType,
+                                                                   Map<String, String> authConfig) {
         if (!webhookEnabled) {
             log.warn("Webhook service is disabled. Request not sent to: {}", url);
-            return Map.of("success", false, "reason", "Webhook service disabled");
+            return CompletableFuture.completedFuture(Map.of("success", false, "reason", "Webhook service disabled"));
         }
 
-        try {
-            log.info("Making {} request to: {}", method, url);
+        log.info("Making {} request to: {}", method, url);
 
-            // Build headers
-            HttpHeaders httpHeaders = new HttpHeaders();
-            if (headers != null) {
-                headers.forEach(httpHeaders::add);
-            }
+        // Build headers
+        Map<String, String> requestHeaders = new LinkedHashMap<>();
+        if (headers != null) {
+            requestHeaders.putAll(headers);
+        }
+
+        // Add authentication
+        addAuthentication(requestHeaders, authType, authConfig);
 
-            // Add authentication
-            addAuthentication(httpHeaders, authType, authConfig);
+        // Breaker and bulkhead per tenant and host, so a dead endpoint fails fast
+        return endpointResilienceService.execute(TenantContext.getCurrentTenant(), url,
+                () -> httpClientService.sendAsync(method, url, requestHeaders, body),
+                response -> response.getStatusCode() >= 500 || response.getStatusCode() == 429)
+            .thenApply(response -> toResult(url, response))
+            .exceptionally(e -> failure(url, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e));
+    }
 
-            // Set content type if not specified
-            if (!httpHeaders.containsKey(HttpHeaders.CONTENT_TYPE)) {
-                httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+    /**
+     * Make HTTP request through the shared response cache. Only GET requests are
+     * cached and coalesced; other methods go straight to {@link #makeRequest}.
+     *
+     * @param varyHeaders request headers whose values select a different response
+     */
+    public Map<String, Object> makeCachedRequest(String url, String method, Map<String, Object> body,
+                                                 Map<String, String> headers, String authType,
+                                                 Map<String, String> authConfig, long ttlSeconds,
+                                                 List<String> varyHeaders) {
+        if (!"GET".equalsIgnoreCase(method) || ttlSeconds <= 0 || !webhookEnabled) {
+            return makeRequest(url, method, body, headers, authType, authConfig);
+        }
+
+        String key = cacheKey(url, headers, authType, authConfig, varyHeaders);
+        return responseCache.getOrLoad(key, ttlSeconds * 1000,
+            () -> makeRequestAsync(url, method, body, headers, authType, authConfig)).join();
+    }
+
+    /**
+     * Tenant, url, credentials and the varying header values - anything else is
+     * assumed not to change the response
+     */
+    private String cacheKey(String url, Map<String, String> headers, String authType,
+                            Map<String, String> authConfig, List<String> varyHeaders) {
+        StringBuilder key = new StringBuilder()
+            .append(TenantContext.getCurrentTenant()).append('|')
+            .append("GET ").append(url);
+
+        if (varyHeaders != null && headers != null) {
+            for (String name : new TreeSet<>(varyHeaders)) {
+                headers.entrySet().stream()
+                    .filter(header -> header.getKey().equalsIgnoreCase(name))
+                    .findFirst()
+                    .ifPresent(header -> key.append('|').append(name.toLowerCase()).append('=').append(header.getValue()));
             }
+        }
 
-            // Build request entity
-            HttpEntity<Object> requestEntity = new HttpEntity<>(body, httpHeaders);
+        // Different credentials may see different data; never key on them in clear text
+        Map<String, String> credentials = new LinkedHashMap<>();
+        addAuthentication(credentials, authType, authConfig);
+        if (headers != null) {
+            headers.forEach((name, value) -> {
+                if (isCredentialHeader(name)) {
+                    credentials.put(name.toLowerCase(), value);
+                }
+            });
+        }
+        if (!credentials.isEmpty()) {
+            key.append("|auth=").append(sha256(new TreeMap<>(credentials).toString()));
+        }
+        return key.toString();
+    }
 
-            // Make request
-            HttpMethod httpMethod = HttpMethod.valueOf(method.toUpperCase());
-            ResponseEntity<String> response = restTemplate.exchange(
-                url,
-                httpMethod,
-                requestEntity,
-                String.class
-            );
+    private boolean isCredentialHeader(String name) {
+        String lower = name.toLowerCase();
+        return lower.equals("authorization") || lower.equals("proxy-authorization") || lower.equals("cookie")
+            || lower.contains("api-key") || lower.contains("apikey") || lower.contains("token")
+            || lower.contains("secret") || lower.contains("password");
+    }
 
-            // Build response
-            Map<String, Object> result = new HashMap<>();
-            result.put("success", true);
-            result.put("statusCode", response.getStatusCodeValue());
-            result.put("body", response.getBody());
-            result.put("headers", response.getHeaders().toSingleValueMap());
+    private String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
-            log.info("Request completed successfully. Status: {}", response.getStatusCodeValue());
-            return result;
+    private Map<String, Object> toResult(String url, HttpCallResult response) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", response.isSuccessful());
+        result.put("statusCode", response.getStatusCode());
+        result.put("body", response.getBody());
+        result.put("headers", response.getHeaders());
+
+        if (response.isSuccessful()) {
+            log.info("Request completed successfully. Status: {}", response.getStatusCode());
+        } else {
+            log.error("Request to {} failed with status {}", url, response.getStatusCode());
+            result.put("error", "HTTP " + response.getStatusCode());
+            result.put("errorType", "HttpStatusError");
+        }
+        return result;
+    }
 
-        } catch (Exception e) {
+    private Map<String, Object> failure(String url, Throwable e) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        if (endpointResilienceService.isRejection(e)) {
+            log.warn("Request to {} rejected: {}", url, e.getMessage());
+            result.put("rejected", true);
+        } else {
             log.error("Request failed to: {}", url, e);
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("success", false);
-            result.put("error", e.getMessage());
-            result.put("errorType", e.getClass().getSimpleName());
-            
-            return result;
         }
+        result.put("error", e instanceof TimeoutException ? "Request timed out after " + timeout + " ms" : e.getMessage());
+        result.put("errorType", e.getClass().getSimpleName());
+
+        return result;
     }
 
     /**
@@ -128,19 +224,47 @@ public class WebhookService {
     }
 
     /**
-     * Send webhook (POST request with JSON body)
+     * Send webhook (POST request with JSON body) through the delivery queue.
+     * Returns once the webhook is stored; delivery and retries happen in the background.
      */
     public Map<String, Object> sendWebhook(String url, Map<String, Object> payload) {
-        Map<String, String> headers = new HashMap<>();
-        headers.put("Content-Type", "application/json");
-        
-        return post(url, payload, headers, "NONE", null);
+        return queueWebhook(null, url, payload, null, "NONE", null, false);
+    }
+
+    /**
+     * Queue a webhook POST for background delivery
+     *
+     * @param batch allow posting together with other queued webhooks to the same endpoint
+     */
+    public Map<String, Object> queueWebhook(Long executionId, String url, Object payload, Map<String, String> headers,
+                                            String authType, Map<String, String> authConfig, boolean batch) {
+        if (!webhookEnabled) {
+            log.warn("Webhook service is disabled. Webhook not queued for: {}", url);
+            return Map.of("success", false, "reason", "Webhook service disabled");
+        }
+
+        // Credentials are kept apart so the queue stores them encrypted, never in clear text
+        Map<String, String> requestHeaders = new LinkedHashMap<>();
+        Map<String, String> secretHeaders = new LinkedHashMap<>();
+        if (headers != null) {
+            headers.forEach((name, value) -> (isCredentialHeader(name) ? secretHeaders : requestHeaders).put(name, value));
+        }
+        addAuthentication(secretHeaders, authType, authConfig);
+
+        Long deliveryId = deliveryService.enqueue(TenantContext.getCurrentTenant(), executionId, url, payload,
+            requestHeaders, secretHeaders, batch);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("queued", true);
+        result.put("deliveryId", deliveryId);
+        return result;
     }
 
     /**
      * Add authentication to headers
      */
-    private void addAuthentication(HttpHeaders headers, String authType, Map<String, String> authConfig) {
+    private void addAuthentication(Map<String, String> headers, String authType, Map<String, String> authConfig) {
         if (authType == null || "NONE".equalsIgnoreCase(authType)) {
             return;
         }
@@ -157,14 +281,14 @@ public class WebhookService {
                 if (username != null && password != null) {
                     String auth = username + ":" + password;
                     String encodedAuth = java.util.Base64.getEncoder().encodeToString(auth.getBytes());
-                    headers.add("Authorization", "Basic " + encodedAuth);
+                    headers.put("Authorization", "Basic " + encodedAuth);
                 }
                 break;
 
             case "BEARER":
                 String token = authConfig.get("token");
                 if (token != null) {
-                    headers.add("Authorization", "Bearer " + token);
+                    headers.put("Authorization", "Bearer " + token);
                 }
                 break;
 
@@ -172,7 +296,7 @@ public class WebhookService {
                 String apiKey = authConfig.get("apiKey");
                 String headerName = authConfig.getOrDefault("headerName", "X-API-Key");
                 if (apiKey != null) {
-                    headers.add(headerName, apiKey);
+                    headers.put(headerName, apiKey);
                 }
                 break;
 
@@ -180,7 +304,7 @@ public class WebhookService {
                 String customHeader = authConfig.get("headerName");
                 String customValue = authConfig.get("headerValue");
                 if (customHeader != null && customValue != null) {
-                    headers.add(customHeader, customValue);
+                    headers.put(customHeader, customValue);
                 }
                 break;
 
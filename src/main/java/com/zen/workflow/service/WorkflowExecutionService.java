@@ -3,20 +3,26 @@ package com.zen.workflow.service;
 import com.zen.entities.tenant.Workflow;
 import com.zen.entities.tenant.WorkflowExecution;
 import com.zen.entities.tenant.WorkflowExecutionLog;
+import com.zen.workflow.config.TenantContext;
 import com.zen.workflow.dto.WorkflowExecutionDTO;
+import com.zen.workflow.engine.WorkflowExecutionEngine;
 import com.zen.workflow.repository.WorkflowRepository;
 import com.zen.workflow.repository.WorkflowExecutionRepository;
 import com.zen.workflow.repository.WorkflowExecutionLogRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,6 +40,19 @@ public class WorkflowExecutionService {
     
     @Autowired
     private ObjectMapper objectMapper;
+    
+    @Autowired
+    private WorkflowTimerService timerService;
+    
+    @Autowired
+    private EventCorrelationService eventCorrelationService;
+    
+    @Autowired
+    private WorkflowExecutionEngine executionEngine;
+    
+    @Autowired
+    @Qualifier("workflowExecutor")
+    private Executor workflowExecutor;
 
     @Async("workflowExecutor")
     public void executeWorkflowAsync(Long workflowId, String entityType, Long entityId, Map<String, Object> context) {
@@ -108,46 +127,78 @@ public class WorkflowExecutionService {
         return logRepository.findByExecutionIdOrderByCreatedAtDesc(executionId);
     }
 
-    public void cancelExecution(Long executionId) {
-        WorkflowExecution execution = executionRepository.findById(executionId)
-            .orElseThrow(() -> new RuntimeException("Execution not found"));
-        
-        execution.setStatus("CANCELLED");
-        execution.setCompletedAt(LocalDateTime.now());
-        executionRepository.save(execution);
-        
-        logExecution(executionId, "INFO", "Workflow execution cancelled");
+    /**
+     * Runs outside the class transaction: the tenant schema is bound when a session
+     * opens, so the tenant has to be in context before the repositories are called
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void cancelExecution(Long executionId, String tenantId) {
+        if (tenantId == null) {
+            throw new IllegalArgumentException("Tenant is required to cancel an execution");
+        }
+        String previousTenant = TenantContext.getCurrentTenant();
+        TenantContext.setCurrentTenant(tenantId);
+        try {
+            WorkflowExecution execution = executionRepository.findById(executionId)
+                .orElseThrow(() -> new RuntimeException("Execution not found"));
+
+            execution.setStatus("CANCELLED");
+            execution.setCompletedAt(LocalDateTime.now());
+            executionRepository.save(execution);
+
+            // Pending delays and event timeouts must not resume a cancelled execution
+            timerService.cancelForExecution(tenantId, executionId);
+            eventCorrelationService.cancelForExecution(tenantId, executionId);
+
+            logExecution(executionId, "INFO", "Workflow execution cancelled");
+        } finally {
+            restoreTenant(previousTenant);
+        }
     }
 
-    public WorkflowExecutionDTO retryExecution(Long executionId) {
-        WorkflowExecution failedExecution = executionRepository.findById(executionId)
-            .orElseThrow(() -> new RuntimeException("Execution not found"));
+    /**
+     * Retry a failed execution from its failed node with the checkpointed context,
+     * so steps that already ran (emails, created records) are not repeated.
+     * Outside the class transaction for the same reason as {@link #cancelExecution}.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public WorkflowExecutionDTO retryExecution(Long executionId, String tenantId) {
+        if (tenantId == null) {
+            throw new IllegalArgumentException("Tenant is required to retry an execution");
+        }
+        String previousTenant = TenantContext.getCurrentTenant();
+        TenantContext.setCurrentTenant(tenantId);
+        WorkflowExecution failedExecution;
+        try {
+            failedExecution = executionRepository.findById(executionId)
+                .orElseThrow(() -> new RuntimeException("Execution not found"));
+        } finally {
+            restoreTenant(previousTenant);
+        }
         
         if (!"FAILED".equals(failedExecution.getStatus())) {
             throw new RuntimeException("Can only retry failed executions");
         }
         
-        logExecution(executionId, "INFO", "Retrying failed execution");
-        
-        // Parse context data
-        Map<String, Object> context = new HashMap<>();
+        Runnable retry = () -> executionEngine.retryFailedExecution(tenantId, executionId);
         try {
-            context = objectMapper.readValue(failedExecution.getContextData(), Map.class);
-        } catch (Exception e) {
-            // Use empty context if parsing fails
+            workflowExecutor.execute(retry);
+        } catch (RejectedExecutionException e) {
+            // Executor saturated - retry on the caller's thread rather than dropping the request
+            retry.run();
         }
         
-        // Execute workflow again asynchronously
-        executeWorkflowAsync(
-            failedExecution.getWorkflowId(),
-            failedExecution.getEntityType(),
-            failedExecution.getEntityId(),
-            context
-        );
-        
         return toDTO(failedExecution);
     }
 
+    private void restoreTenant(String previousTenant) {
+        if (previousTenant != null) {
+            TenantContext.setCurrentTenant(previousTenant);
+        } else {
+            TenantContext.clear();
+        }
+    }
+
     private void logExecution(Long executionId, String level, String message) {
         WorkflowExecutionLog log = new WorkflowExecutionLog();
         log.setExecutionId(executionId);
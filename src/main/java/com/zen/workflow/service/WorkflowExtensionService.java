@@ -1,35 +1,108 @@
 package com.zen.workflow.service;
 
+import com.zen.workflow.engine.FormulaFunction;
+import com.zen.workflow.engine.WorkflowExecutionEngine;
+import com.zen.workflow.model.ExecutionContext;
+import com.zen.workflow.model.ExecutionResult;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 /**
  * Service for workflow extensions:
- * - Custom function registry
- * - Subflow execution
+ * - Custom function registry; functions with declared parameters are also
+ *   callable from formulas, where FormulaEngine binds them at compile time
+ * - Subflow calls (call, spawn, for-each) run in-process by the engine
  * - External service registry
  */
 @Slf4j
 @Service
 public class WorkflowExtensionService {
 
+    private static final int DATE_FORMATTER_CACHE_SIZE = 100;
+
     private final Map<String, CustomFunction> customFunctions = new ConcurrentHashMap<>();
+    private final Map<String, FormulaFunction> formulaFunctions = new ConcurrentHashMap<>();
+    // Bumped on every change to formulaFunctions so compiled formulas can be dropped
+    private final AtomicLong functionsVersion = new AtomicLong();
     private final Map<String, ExternalService> externalServices = new ConcurrentHashMap<>();
+    private final Map<String, DateTimeFormatter> dateFormatters = new ConcurrentHashMap<>();
+
+    @Autowired
+    @Lazy
+    private WorkflowExecutionEngine executionEngine;
+
+    @Autowired
+    @Qualifier("workflowExecutor")
+    private Executor workflowExecutor;
+
+    @Value("${workflow.subflow.max-concurrency:8}")
+    private int maxSubflowConcurrency;
 
-    @Autowired(required = false)
-    private com.zen.workflow.service.WorkflowExecutionService workflowExecutionService;
+    @Value("${workflow.subflow.max-items:1000}")
+    private int maxForEachItems;
 
     /**
-     * Register custom function
+     * Register custom function. With parameter names it can also be called from
+     * formulas, positional arguments being passed under those names.
      */
-    public void registerCustomFunction(String name, CustomFunction function) {
+    public void registerCustomFunction(String name, CustomFunction function, String... parameterNames) {
         log.info("Registering custom function: {}", name);
         customFunctions.put(name, function);
+        if (parameterNames.length > 0) {
+            Object[] parameters = new Object[parameterNames.length * 2];
+            for (int i = 0; i < parameterNames.length; i++) {
+                parameters[2 * i] = parameterNames[i];
+                parameters[2 * i + 1] = Object.class;
+            }
+            formulaFunctions.put(name, FormulaFunction.of(name, Object.class, args -> {
+                Map<String, Object> params = new HashMap<>();
+                for (int i = 0; i < args.length; i++) {
+                    params.put(parameterNames[i], args[i]);
+                }
+                return function.execute(params);
+            }, parameters));
+        } else {
+            formulaFunctions.remove(name);
+        }
+        functionsVersion.incrementAndGet();
+    }
+
+    /**
+     * Register a typed function, callable from formulas and from custom_function nodes
+     */
+    public void registerFormulaFunction(FormulaFunction function) {
+        log.info("Registering formula function: {}/{}", function.getName(), function.getArity());
+        customFunctions.remove(function.getName());
+        formulaFunctions.put(function.getName(), function);
+        functionsVersion.incrementAndGet();
+    }
+
+    /**
+     * Function bound by formulas at compile time, null if not callable from formulas
+     */
+    public FormulaFunction getFormulaFunction(String name) {
+        return formulaFunctions.get(name);
+    }
+
+    public long getFunctionsVersion() {
+        return functionsVersion.get();
     }
 
     /**
@@ -39,12 +112,13 @@ public class WorkflowExtensionService {
         log.info("Executing custom function: {} with parameters: {}", functionName, parameters);
 
         CustomFunction function = customFunctions.get(functionName);
-        if (function == null) {
+        FormulaFunction formulaFunction = formulaFunctions.get(functionName);
+        if (function == null && formulaFunction == null) {
             throw new RuntimeException("Custom function not found: " + functionName);
         }
 
         try {
-            Object result = function.execute(parameters);
+            Object result = function != null ? function.execute(parameters) : formulaFunction.invoke(parameters);
             log.info("Custom function executed successfully. Result: {}", result);
             return result;
 
@@ -55,29 +129,146 @@ public class WorkflowExtensionService {
     }
 
     /**
-     * Execute subflow (call another workflow)
+     * Call another workflow and wait for it on this thread. A child that pauses comes
+     * back PAUSED; the parent is resumed with the mapped outputs once the child finishes.
+     *
+     * @param outputMapping parent variable -> child variable copied back on completion
      */
-    public Map<String, Object> executeSubflow(Long subflowId, Map<String, Object> inputData) {
-        log.info("Executing subflow: {} with input: {}", subflowId, inputData);
+    public Map<String, Object> callSubflow(Long subflowId, ExecutionContext parent, Map<String, Object> inputData,
+                                           Map<String, Object> outputMapping) {
+        log.info("Calling subflow: {} from execution {}", subflowId, parent.getExecutionId());
+        Map<String, Object> mapping = outputMapping != null ? outputMapping : new HashMap<>();
+        return toSubflowResult(subflowId, executionEngine.executeSubflow(subflowId, parent, inputData, mapping), mapping);
+    }
 
+    /**
+     * Start another workflow on the workflow executor without waiting for it
+     */
+    public Map<String, Object> spawnSubflow(Long subflowId, ExecutionContext parent, Map<String, Object> inputData) {
+        log.info("Spawning subflow: {} from execution {}", subflowId, parent.getExecutionId());
+        ExecutionContext caller = snapshot(parent);
+        Runnable spawn = () -> {
+            try {
+                executionEngine.executeSubflow(subflowId, caller, inputData, null);
+            } catch (Exception e) {
+                log.error("Spawned subflow {} failed", subflowId, e);
+            }
+        };
         try {
-            // In production, call WorkflowExecutionService
-            // For now, simulate subflow execution
-            Map<String, Object> result = new HashMap<>();
-            result.put("subflowId", subflowId);
-            result.put("status", "COMPLETED");
-            result.put("output", new HashMap<>());
-            result.put("executedAt", new Date());
+            workflowExecutor.execute(spawn);
+        } catch (RejectedExecutionException e) {
+            spawn.run();
+        }
 
-            log.info("Subflow executed successfully");
-            return result;
+        Map<String, Object> result = new HashMap<>();
+        result.put("subflowId", subflowId);
+        result.put("status", "STARTED");
+        result.put("output", new HashMap<>());
+        return result;
+    }
 
-        } catch (Exception e) {
-            log.error("Subflow execution failed: {}", subflowId, e);
-            throw new RuntimeException("Subflow execution failed: " + e.getMessage(), e);
+    /**
+     * Call a workflow once per item with at most maxConcurrency children running at a
+     * time. The calling thread works through the items together with up to
+     * maxConcurrency - 1 helpers on the workflow executor, so a saturated pool only
+     * lowers the parallelism. Children that pause are left running on their own.
+     *
+     * @return one entry per item, in item order: index, executionId, status and output
+     */
+    public List<Map<String, Object>> callSubflowForEach(Long subflowId, ExecutionContext parent, List<?> items,
+                                                        String itemVariable, Map<String, Object> inputData,
+                                                        Map<String, Object> outputMapping, int maxConcurrency) {
+        if (items.size() > maxForEachItems) {
+            throw new RuntimeException("Subflow for-each over " + items.size() + " items exceeds the limit of " + maxForEachItems);
+        }
+        int concurrency = Math.max(1, Math.min(Math.min(maxConcurrency, maxSubflowConcurrency), items.size()));
+        log.info("Calling subflow: {} for {} items, concurrency {}", subflowId, items.size(), concurrency);
+
+        Map<String, Object> mapping = outputMapping != null ? outputMapping : new HashMap<>();
+        ExecutionContext caller = snapshot(parent);
+        List<Map<String, Object>> results = new ArrayList<>(Collections.nCopies(items.size(), null));
+        AtomicInteger nextIndex = new AtomicInteger();
+        CountDownLatch remaining = new CountDownLatch(items.size());
+
+        Runnable worker = () -> {
+            int index;
+            while ((index = nextIndex.getAndIncrement()) < items.size()) {
+                Map<String, Object> input = new HashMap<>(inputData);
+                input.put(itemVariable, items.get(index));
+                input.put("itemIndex", index);
+                Map<String, Object> result;
+                try {
+                    result = toSubflowResult(subflowId,
+                        executionEngine.executeSubflow(subflowId, caller, input, null), mapping);
+                } catch (Exception e) {
+                    log.error("Subflow {} failed for item {}", subflowId, index, e);
+                    result = new HashMap<>();
+                    result.put("status", "FAILED");
+                    result.put("error", e.getMessage());
+                    result.put("output", new HashMap<>());
+                }
+                result.put("index", index);
+                synchronized (results) {
+                    results.set(index, result);
+                }
+                remaining.countDown();
+            }
+        };
+
+        for (int i = 1; i < concurrency; i++) {
+            try {
+                workflowExecutor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+
+        try {
+            remaining.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for subflow " + subflowId, e);
+        }
+        synchronized (results) {
+            return new ArrayList<>(results);
         }
     }
 
+    private Map<String, Object> toSubflowResult(Long subflowId, ExecutionResult executionResult,
+                                                Map<String, Object> outputMapping) {
+        Map<String, Object> output = executionResult.getOutput();
+        Map<String, Object> result = new HashMap<>();
+        result.put("subflowId", subflowId);
+        result.put("executionId", output.get("executionId"));
+        if (!executionResult.isSuccess()) {
+            result.put("status", "FAILED");
+            result.put("error", executionResult.getErrorMessage());
+            result.put("output", new HashMap<>());
+        } else if (executionResult.isPaused()) {
+            result.put("status", "PAUSED");
+            result.put("output", new HashMap<>());
+        } else {
+            Map<String, Object> variables = (Map<String, Object>) output.get("variables");
+            result.put("status", "COMPLETED");
+            result.put("output", WorkflowExecutionEngine.mapOutputs(variables, outputMapping));
+            result.put("variables", variables);
+        }
+        return result;
+    }
+
+    /**
+     * Copy of the caller's identity for children started off its thread
+     */
+    private ExecutionContext snapshot(ExecutionContext parent) {
+        ExecutionContext caller = new ExecutionContext();
+        caller.setTenantId(parent.getTenantId());
+        caller.setWorkflowId(parent.getWorkflowId());
+        caller.setExecutionId(parent.getExecutionId());
+        caller.getMetadata().putAll(parent.getMetadata());
+        return caller;
+    }
+
     /**
      * Register external service
      */
@@ -112,7 +303,9 @@ public class WorkflowExtensionService {
      * Get list of registered custom functions
      */
     public List<String> getRegisteredFunctions() {
-        return new ArrayList<>(customFunctions.keySet());
+        Set<String> names = new TreeSet<>(customFunctions.keySet());
+        names.addAll(formulaFunctions.keySet());
+        return new ArrayList<>(names);
     }
 
     /**
@@ -126,7 +319,7 @@ public class WorkflowExtensionService {
      * Check if custom function exists
      */
     public boolean hasCustomFunction(String functionName) {
-        return customFunctions.containsKey(functionName);
+        return customFunctions.containsKey(functionName) || formulaFunctions.containsKey(functionName);
     }
 
     /**
@@ -142,6 +335,9 @@ public class WorkflowExtensionService {
     public void unregisterCustomFunction(String functionName) {
         log.info("Unregistering custom function: {}", functionName);
         customFunctions.remove(functionName);
+        if (formulaFunctions.remove(functionName) != null) {
+            functionsVersion.incrementAndGet();
+        }
     }
 
     /**
@@ -155,46 +351,72 @@ public class WorkflowExtensionService {
     // Built-in custom functions
 
     /**
-     * Register built-in custom functions
+     * Register built-in functions. They are typed, so formulas calling them are
+     * checked at compile time and call them directly.
      */
+    @PostConstruct
     public void registerBuiltInFunctions() {
         // String manipulation
-        registerCustomFunction("capitalize", params -> {
-            String text = (String) params.get("text");
+        registerFormulaFunction(FormulaFunction.of("capitalize", String.class, args -> {
+            String text = (String) args[0];
+            if (text == null || text.isEmpty()) {
+                return text;
+            }
             return text.substring(0, 1).toUpperCase() + text.substring(1).toLowerCase();
-        });
+        }, "text", String.class));
+
+        registerFormulaFunction(FormulaFunction.of("upper", String.class,
+            args -> args[0] != null ? ((String) args[0]).toUpperCase() : null, "text", String.class));
+
+        registerFormulaFunction(FormulaFunction.of("lower", String.class,
+            args -> args[0] != null ? ((String) args[0]).toLowerCase() : null, "text", String.class));
+
+        registerFormulaFunction(FormulaFunction.of("trim", String.class,
+            args -> args[0] != null ? ((String) args[0]).trim() : null, "text", String.class));
+
+        registerFormulaFunction(FormulaFunction.of("contains", Boolean.class,
+            args -> args[0] != null && args[1] != null && ((String) args[0]).contains((String) args[1]),
+            "text", String.class, "search", String.class));
 
         // Number formatting
-        registerCustomFunction("formatCurrency", params -> {
-            Double amount = ((Number) params.get("amount")).doubleValue();
-            String currency = (String) params.getOrDefault("currency", "USD");
+        registerFormulaFunction(FormulaFunction.of("formatCurrency", String.class, args -> {
+            double amount = ((Number) args[0]).doubleValue();
+            String currency = args[1] != null ? (String) args[1] : "USD";
             return String.format("%s %.2f", currency, amount);
-        });
+        }, "amount", Number.class, "currency", String.class));
+
+        // Date formatting: ISO date or date-time in, pattern out
+        registerFormulaFunction(FormulaFunction.of("formatDate", String.class, args -> {
+            String date = (String) args[0];
+            if (date == null) {
+                return null;
+            }
+            DateTimeFormatter format = dateFormatter(args[1] != null ? (String) args[1] : "yyyy-MM-dd");
+            return date.length() > 10 ? LocalDateTime.parse(date).format(format) : LocalDate.parse(date).format(format);
+        }, "date", String.class, "format", String.class));
 
-        // Date formatting
-        registerCustomFunction("formatDate", params -> {
-            String date = (String) params.get("date");
-            String format = (String) params.getOrDefault("format", "yyyy-MM-dd");
-            // In production, use DateTimeFormatter
-            return date;
-        });
+        registerFormulaFunction(FormulaFunction.of("today", String.class,
+            args -> LocalDate.now().toString()));
 
         // Array operations
-        registerCustomFunction("arrayLength", params -> {
-            List<?> array = (List<?>) params.get("array");
-            return array != null ? array.size() : 0;
-        });
+        registerFormulaFunction(FormulaFunction.of("arrayLength", Number.class,
+            args -> args[0] != null ? ((List<?>) args[0]).size() : 0, "array", List.class));
 
         // Object operations
-        registerCustomFunction("getProperty", params -> {
-            Map<String, Object> object = (Map<String, Object>) params.get("object");
-            String property = (String) params.get("property");
-            return object != null ? object.get(property) : null;
-        });
+        registerFormulaFunction(FormulaFunction.of("getProperty", Object.class,
+            args -> args[0] != null ? ((Map<?, ?>) args[0]).get(args[1]) : null,
+            "object", Map.class, "property", String.class));
 
         log.info("Built-in custom functions registered");
     }
 
+    private DateTimeFormatter dateFormatter(String pattern) {
+        if (dateFormatters.size() >= DATE_FORMATTER_CACHE_SIZE) {
+            dateFormatters.clear();
+        }
+        return dateFormatters.computeIfAbsent(pattern, DateTimeFormatter::ofPattern);
+    }
+
     // Interfaces
 
     @FunctionalInterface
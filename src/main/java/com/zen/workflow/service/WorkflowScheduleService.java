@@ -0,0 +1,361 @@
+package com.zen.workflow.service;
+
+import com.zen.entities.tenant.Workflow;
+import com.zen.workflow.config.TenantContext;
+import com.zen.workflow.engine.CompiledWorkflow;
+import com.zen.workflow.engine.ScheduledWorkflowJob;
+import com.zen.workflow.engine.WorkflowDefinitionCache;
+import com.zen.workflow.model.NodeConfig;
+import com.zen.workflow.repository.TenantSchemaRepository;
+import com.zen.workflow.repository.WorkflowRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Registers scheduled and recurring workflows as Quartz jobs, and date-based
+ * workflows with the {@link DateTriggerSweeper}.
+ *
+ * Jobs live in the clustered JDBC job store, so each fire runs on exactly one
+ * instance and survives restarts. Every trigger gets a deterministic per-workflow
+ * start offset inside {@code workflow.schedule.jitter-seconds}, which spreads the
+ * many "daily at 09:00" workflows across a window instead of firing them together.
+ * Missed fires collapse into a single catch-up run, and {@link ScheduledWorkflowJob}
+ * drops fires older than the catch-up limit.
+ *
+ * Workflows are also synced once at startup, so schedules saved before jobs were
+ * registered (or lost from the job store) come back without a manual re-save.
+ */
+@Slf4j
+@Service
+public class WorkflowScheduleService {
+
+    public static final String SCHEDULED_FIRE_TIME = "scheduledFireTime";
+    public static final String JOB_TENANT_ID = "tenantId";
+    public static final String JOB_WORKFLOW_ID = "workflowId";
+
+    private static final String MISFIRE_SKIP = "skip";
+
+    @Value("${workflow.schedule.jitter-seconds:300}")
+    private int jitterSeconds;
+
+    @Value("${workflow.schedule.sync-on-startup:true}")
+    private boolean syncOnStartup;
+
+    @Autowired
+    private Scheduler scheduler;
+
+    @Autowired
+    private WorkflowDefinitionCache definitionCache;
+
+    @Autowired
+    private DateTriggerSweeper dateTriggerSweeper;
+
+    @Autowired
+    private WorkflowRepository workflowRepository;
+
+    @Autowired
+    private TenantSchemaRepository tenantSchemaRepository;
+
+    private final AtomicBoolean startupSyncDone = new AtomicBoolean();
+
+    /**
+     * Register every active scheduled, recurring and date-based workflow of every
+     * tenant. Jobs that already exist under their job key are left alone, so the
+     * sync is a no-op for workflows that are registered, keeps their trigger state,
+     * and is safe when several instances start together.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void syncAllOnStartup() {
+        if (!syncOnStartup || !startupSyncDone.compareAndSet(false, true)) {
+            return;
+        }
+        List<String> tenants;
+        try {
+            tenants = tenantSchemaRepository.findTenantsWithWorkflows();
+        } catch (Exception e) {
+            log.error("Startup schedule sync skipped, tenants could not be listed: {}", e.getMessage(), e);
+            return;
+        }
+
+        int registered = 0;
+        String previousTenant = TenantContext.getCurrentTenant();
+        for (String tenantId : tenants) {
+            try {
+                TenantContext.setCurrentTenant(tenantId);
+                for (Workflow workflow : workflowRepository.findByIsActive(true)) {
+                    if (syncWorkflow(tenantId, workflow, false)) {
+                        registered++;
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Startup schedule sync failed for tenant {}: {}", tenantId, e.getMessage(), e);
+            } finally {
+                TenantContext.setCurrentTenant(previousTenant);
+            }
+        }
+        log.info("Startup schedule sync registered {} workflow(s) across {} tenant(s)", registered, tenants.size());
+    }
+
+    /**
+     * Create, replace or remove the Quartz job of a workflow to match its current
+     * definition and active flag. Failures are logged and do not fail the save.
+     */
+    public void syncWorkflow(String tenantId, Workflow workflow) {
+        if (tenantId == null) {
+            log.warn("No tenant in context, schedule of workflow {} not synced", workflow.getId());
+            return;
+        }
+        syncWorkflow(tenantId, workflow, true);
+    }
+
+    /**
+     * @param replace whether an existing job is rebuilt from the definition; when false
+     *                an existing job is kept as it is
+     * @return whether a job or date sweep was registered
+     */
+    private boolean syncWorkflow(String tenantId, Workflow workflow, boolean replace) {
+        try {
+            if (!Boolean.TRUE.equals(workflow.getIsActive())) {
+                unschedule(tenantId, workflow.getId());
+                return false;
+            }
+
+            CompiledWorkflow compiled = definitionCache.get(tenantId, workflow);
+            NodeConfig trigger = compiled.getStartNodeId() != null ? compiled.getNode(compiled.getStartNodeId()) : null;
+
+            if (trigger != null && "date_based".equals(trigger.getSubtype())) {
+                // The sweep row keeps its high-water mark on upsert, so this is idempotent too
+                dateTriggerSweeper.register(tenantId, workflow.getId(), compiled.getModuleType(), trigger);
+                if (!replace) {
+                    return true;
+                }
+            } else if (replace) {
+                dateTriggerSweeper.unregister(tenantId, workflow.getId());
+            }
+
+            if (!replace && scheduler.checkExists(jobKey(tenantId, workflow.getId()))) {
+                return false;
+            }
+
+            Trigger quartzTrigger = trigger != null ? buildTrigger(tenantId, workflow.getId(), trigger) : null;
+
+            if (quartzTrigger == null) {
+                // Only the Quartz job: a date sweep registered above must stay
+                if (replace) {
+                    deleteJob(tenantId, workflow.getId());
+                }
+                return false;
+            }
+
+            JobDetail job = JobBuilder.newJob(ScheduledWorkflowJob.class)
+                .withIdentity(jobKey(tenantId, workflow.getId()))
+                .usingJobData(JOB_TENANT_ID, tenantId)
+                .usingJobData(JOB_WORKFLOW_ID, workflow.getId())
+                .requestRecovery()
+                .build();
+
+            try {
+                scheduler.scheduleJob(job, Set.of(quartzTrigger), replace);
+            } catch (ObjectAlreadyExistsException e) {
+                // Another instance registered it between the check and the insert
+                return false;
+            }
+            log.info("Scheduled workflow {} for tenant {}, first fire at {}", workflow.getId(), tenantId,
+                quartzTrigger.getStartTime());
+            return true;
+
+        } catch (Exception e) {
+            log.error("Failed to schedule workflow {} for tenant {}: {}", workflow.getId(), tenantId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    public void unschedule(String tenantId, Long workflowId) {
+        try {
+            dateTriggerSweeper.unregister(tenantId, workflowId);
+        } catch (Exception e) {
+            log.error("Failed to remove date sweep of workflow {} for tenant {}: {}", workflowId, tenantId, e.getMessage());
+        }
+        deleteJob(tenantId, workflowId);
+    }
+
+    private void deleteJob(String tenantId, Long workflowId) {
+        try {
+            if (scheduler.deleteJob(jobKey(tenantId, workflowId))) {
+                log.info("Unscheduled workflow {} for tenant {}", workflowId, tenantId);
+            }
+        } catch (SchedulerException e) {
+            log.error("Failed to unschedule workflow {} for tenant {}: {}", workflowId, tenantId, e.getMessage());
+        }
+    }
+
+    /**
+     * Build the Quartz trigger for a scheduled/recurring trigger node, or null for other nodes
+     */
+    @SuppressWarnings("unchecked")
+    Trigger buildTrigger(String tenantId, Long workflowId, NodeConfig node) {
+        if (!"scheduled".equals(node.getSubtype()) && !"recurring".equals(node.getSubtype())) {
+            return null;
+        }
+        Map<String, Object> config = node.getConfig() != null ? node.getConfig() : Map.of();
+        ZoneId zone = ZoneId.of((String) config.getOrDefault("timezone", "UTC"));
+        boolean skipMisfires = MISFIRE_SKIP.equalsIgnoreCase((String) config.get("misfirePolicy"));
+        int window = config.get("jitterSeconds") instanceof Number
+            ? ((Number) config.get("jitterSeconds")).intValue() : jitterSeconds;
+
+        TriggerBuilder<Trigger> builder = TriggerBuilder.newTrigger()
+            .withIdentity(workflowId.toString(), tenantId);
+        ZonedDateTime now = ZonedDateTime.now(zone);
+
+        if ("scheduled".equals(node.getSubtype())) {
+            ZonedDateTime fireAt = parseDateTime((String) config.get("scheduledDate"), zone);
+            if (fireAt == null) {
+                log.warn("Workflow {} has no usable scheduledDate", workflowId);
+                return null;
+            }
+            SimpleScheduleBuilder schedule = SimpleScheduleBuilder.simpleSchedule();
+            schedule = skipMisfires
+                ? schedule.withMisfireHandlingInstructionNextWithRemainingCount()
+                : schedule.withMisfireHandlingInstructionFireNow();
+            return builder.startAt(Date.from(fireAt.toInstant())).withSchedule(schedule).build();
+        }
+
+        String frequency = ((String) config.getOrDefault("frequency", "daily")).toLowerCase();
+        int interval = config.get("interval") instanceof Number ? Math.max(1, ((Number) config.get("interval")).intValue()) : 1;
+        List<String> daysOfWeek = (List<String>) config.get("daysOfWeek");
+        Integer dayOfMonth = config.get("dayOfMonth") instanceof Number ? ((Number) config.get("dayOfMonth")).intValue() : null;
+        LocalTime timeOfDay = LocalTime.parse((String) config.getOrDefault("timeOfDay", "00:00"));
+        ZonedDateTime startDate = parseDateTime((String) config.get("startDate"), zone);
+        ZonedDateTime endDate = parseDateTime((String) config.get("endDate"), zone);
+
+        // Stay on the configured day: the offset never pushes a run past midnight
+        int jitter = jitterFor(tenantId, workflowId, window);
+        jitter = Math.min(jitter, 86399 - timeOfDay.toSecondOfDay());
+        LocalTime fireTime = timeOfDay.plusSeconds(jitter);
+
+        ZonedDateTime from = startDate != null && startDate.isAfter(now) ? startDate : now;
+        if (endDate != null && endDate.isBefore(from)) {
+            log.info("Recurring schedule of workflow {} has ended", workflowId);
+            return null;
+        }
+
+        ScheduleBuilder<? extends Trigger> schedule;
+        Date startAt;
+
+        if ("weekly".equals(frequency) && daysOfWeek != null && daysOfWeek.size() > 1) {
+            // Several weekdays only fit a cron expression; interval is weekly here
+            StringJoiner days = new StringJoiner(",");
+            for (String day : daysOfWeek) {
+                days.add(day.substring(0, 3).toUpperCase());
+            }
+            String cron = String.format("%d %d %d ? * %s",
+                fireTime.getSecond(), fireTime.getMinute(), fireTime.getHour(), days);
+            CronScheduleBuilder cronSchedule = CronScheduleBuilder.cronSchedule(cron).inTimeZone(TimeZone.getTimeZone(zone));
+            schedule = skipMisfires
+                ? cronSchedule.withMisfireHandlingInstructionDoNothing()
+                : cronSchedule.withMisfireHandlingInstructionFireAndProceed();
+            startAt = Date.from(from.toInstant());
+        } else {
+            ZonedDateTime first = firstOccurrence(frequency, from, fireTime, daysOfWeek, dayOfMonth);
+            CalendarIntervalScheduleBuilder calendarSchedule = CalendarIntervalScheduleBuilder.calendarIntervalSchedule()
+                .withInterval(interval, intervalUnit(frequency))
+                .inTimeZone(TimeZone.getTimeZone(zone))
+                .preserveHourOfDayAcrossDaylightSavings(true)
+                .skipDayIfHourDoesNotExist(false);
+            schedule = skipMisfires
+                ? calendarSchedule.withMisfireHandlingInstructionDoNothing()
+                : calendarSchedule.withMisfireHandlingInstructionFireAndProceed();
+            startAt = Date.from(first.toInstant());
+        }
+
+        builder.startAt(startAt).withSchedule((ScheduleBuilder<Trigger>) schedule);
+        if (endDate != null) {
+            builder.endAt(Date.from(endDate.toInstant()));
+        }
+        return builder.build();
+    }
+
+    private ZonedDateTime firstOccurrence(String frequency, ZonedDateTime from, LocalTime fireTime,
+                                          List<String> daysOfWeek, Integer dayOfMonth) {
+        LocalDate date = from.toLocalDate();
+        ZonedDateTime candidate;
+
+        switch (frequency) {
+            case "weekly": {
+                DayOfWeek target = daysOfWeek != null && !daysOfWeek.isEmpty()
+                    ? DayOfWeek.valueOf(daysOfWeek.get(0).toUpperCase()) : date.getDayOfWeek();
+                candidate = date.with(TemporalAdjusters.nextOrSame(target)).atTime(fireTime).atZone(from.getZone());
+                return candidate.isBefore(from) ? candidate.plusWeeks(1) : candidate;
+            }
+            case "monthly": {
+                int day = dayOfMonth != null ? dayOfMonth : date.getDayOfMonth();
+                candidate = date.withDayOfMonth(Math.min(day, date.lengthOfMonth())).atTime(fireTime).atZone(from.getZone());
+                if (candidate.isBefore(from)) {
+                    LocalDate next = date.plusMonths(1);
+                    candidate = next.withDayOfMonth(Math.min(day, next.lengthOfMonth())).atTime(fireTime).atZone(from.getZone());
+                }
+                return candidate;
+            }
+            case "yearly":
+                candidate = date.atTime(fireTime).atZone(from.getZone());
+                return candidate.isBefore(from) ? candidate.plusYears(1) : candidate;
+            default:
+                candidate = date.atTime(fireTime).atZone(from.getZone());
+                return candidate.isBefore(from) ? candidate.plusDays(1) : candidate;
+        }
+    }
+
+    private DateBuilder.IntervalUnit intervalUnit(String frequency) {
+        switch (frequency) {
+            case "weekly":
+                return DateBuilder.IntervalUnit.WEEK;
+            case "monthly":
+                return DateBuilder.IntervalUnit.MONTH;
+            case "yearly":
+                return DateBuilder.IntervalUnit.YEAR;
+            default:
+                return DateBuilder.IntervalUnit.DAY;
+        }
+    }
+
+    /**
+     * Stable offset for a workflow, so re-registering it never moves its slot
+     */
+    private int jitterFor(String tenantId, Long workflowId, int window) {
+        if (window <= 0) {
+            return 0;
+        }
+        return Math.floorMod(Objects.hash(tenantId, workflowId) * 31 + 17, window);
+    }
+
+    private ZonedDateTime parseDateTime(String value, ZoneId zone) {
+        if (value == null || value.isEmpty() || value.contains("{{")) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value, DateTimeFormatter.ISO_DATE_TIME).atZone(zone);
+        } catch (Exception e) {
+            try {
+                return LocalDate.parse(value).atStartOfDay(zone);
+            } catch (Exception ignored) {
+                log.warn("Unparseable schedule date: {}", value);
+                return null;
+            }
+        }
+    }
+
+    private JobKey jobKey(String tenantId, Long workflowId) {
+        return JobKey.jobKey(workflowId.toString(), tenantId);
+    }
+}
@@ -1,6 +1,7 @@
 package com.zen.workflow.service;
 
 import com.zen.entities.tenant.Workflow;
+import com.zen.workflow.config.TenantContext;
 import com.zen.workflow.dto.WorkflowDTO;
 import com.zen.workflow.repository.WorkflowRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -21,6 +22,9 @@ public class WorkflowService {
     
     @Autowired
     private ObjectMapper objectMapper;
+    
+    @Autowired
+    private WorkflowScheduleService scheduleService;
 
     public WorkflowDTO createWorkflow(WorkflowDTO dto) {
         Workflow workflow = new Workflow();
@@ -44,6 +48,7 @@ public class WorkflowService {
         workflow.setUpdatedAt(LocalDateTime.now());
         
         Workflow saved = workflowRepository.save(workflow);
+        scheduleService.syncWorkflow(TenantContext.getCurrentTenant(), saved);
         return toDTO(saved);
     }
 
@@ -69,6 +74,7 @@ public class WorkflowService {
         workflow.setVersion(workflow.getVersion() + 1);
         
         Workflow updated = workflowRepository.save(workflow);
+        scheduleService.syncWorkflow(TenantContext.getCurrentTenant(), updated);
         return toDTO(updated);
     }
 
@@ -98,6 +104,9 @@ public class WorkflowService {
 
     public void deleteWorkflow(Long id) {
         workflowRepository.deleteById(id);
+        if (TenantContext.getCurrentTenant() != null) {
+            scheduleService.unschedule(TenantContext.getCurrentTenant(), id);
+        }
     }
 
     public WorkflowDTO activateWorkflow(Long id) {
@@ -105,7 +114,9 @@ public class WorkflowService {
             .orElseThrow(() -> new RuntimeException("Workflow not found"));
         workflow.setIsActive(true);
         workflow.setUpdatedAt(LocalDateTime.now());
-        return toDTO(workflowRepository.save(workflow));
+        Workflow saved = workflowRepository.save(workflow);
+        scheduleService.syncWorkflow(TenantContext.getCurrentTenant(), saved);
+        return toDTO(saved);
     }
 
     public WorkflowDTO deactivateWorkflow(Long id) {
@@ -113,7 +124,9 @@ public class WorkflowService {
             .orElseThrow(() -> new RuntimeException("Workflow not found"));
         workflow.setIsActive(false);
         workflow.setUpdatedAt(LocalDateTime.now());
-        return toDTO(workflowRepository.save(workflow));
+        Workflow saved = workflowRepository.save(workflow);
+        scheduleService.syncWorkflow(TenantContext.getCurrentTenant(), saved);
+        return toDTO(saved);
     }
 
     private WorkflowDTO toDTO(Workflow workflow) {
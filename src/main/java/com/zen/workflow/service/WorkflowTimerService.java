@@ -0,0 +1,232 @@
+package com.zen.workflow.service;
+
+import com.zen.workflow.engine.HierarchicalTimingWheel;
+import com.zen.workflow.engine.TimerFiredEvent;
+import com.zen.workflow.model.WorkflowTimer;
+import com.zen.workflow.repository.WorkflowTimerRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable timers for paused executions.
+ *
+ * Every timer is a row in workflow_timers. Only timers due within
+ * {@code workflow.timer.horizon-ms} are held in memory, in a hierarchical timing
+ * wheel that is refilled from the (status, due_at) index on every load cycle.
+ * Firing claims the row with a conditional UPDATE, so with several instances each
+ * timer resumes its execution exactly once.
+ */
+@Slf4j
+@Service
+public class WorkflowTimerService {
+
+    @Value("${workflow.timer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${workflow.timer.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${workflow.timer.wheel-size:64}")
+    private int wheelSize;
+
+    @Value("${workflow.timer.horizon-ms:300000}")
+    private long horizonMs;
+
+    @Value("${workflow.timer.load-batch-size:1000}")
+    private int loadBatchSize;
+
+    @Value("${workflow.timer.retention-days:7}")
+    private int retentionDays;
+
+    @Autowired
+    private WorkflowTimerRepository timerRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier("workflowExecutor")
+    private Executor workflowExecutor;
+
+    private final Set<Long> loadedTimerIds = ConcurrentHashMap.newKeySet();
+    private HierarchicalTimingWheel<WorkflowTimer> wheel;
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void start() {
+        wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, 4, System.currentTimeMillis());
+        if (horizonMs >= wheel.getSpanMs()) {
+            throw new IllegalStateException("workflow.timer.horizon-ms exceeds the timing wheel span of " + wheel.getSpanMs() + " ms");
+        }
+        if (!enabled) {
+            log.info("Workflow timers disabled");
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "workflow-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        log.info("Workflow timer wheel started (tick {} ms, horizon {} ms)", tickMs, horizonMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Persist a timer and, if it falls inside the in-memory horizon, add it to the wheel
+     */
+    public Long schedule(String tenantId, Long executionId, String nodeId, String timerType,
+                         LocalDateTime dueAt, Map<String, Object> payload) {
+        WorkflowTimer timer = new WorkflowTimer();
+        timer.setTenantId(tenantId);
+        timer.setExecutionId(executionId);
+        timer.setNodeId(nodeId);
+        timer.setTimerType(timerType);
+        timer.setDueAt(dueAt);
+        timer.setStatus("PENDING");
+        if (payload != null) {
+            timer.getPayload().putAll(payload);
+        }
+
+        Long timerId = timerRepository.insert(timer);
+        timer.setId(timerId);
+
+        long dueAtMs = toEpochMillis(dueAt);
+        if (enabled && timerId != null && dueAtMs < System.currentTimeMillis() + horizonMs) {
+            addToWheel(timer, dueAtMs);
+        }
+
+        log.info("Scheduled {} timer {} for execution {} at node {} due {}", timerType, timerId, executionId, nodeId, dueAt);
+        return timerId;
+    }
+
+    /**
+     * Cancel all pending timers of an execution. Entries already in the wheel
+     * are dropped when they fail to claim their row.
+     */
+    public int cancelForExecution(String tenantId, Long executionId) {
+        return timerRepository.cancelByExecution(tenantId, executionId);
+    }
+
+    public int cancelForExecution(String tenantId, Long executionId, String timerType) {
+        return timerRepository.cancelByExecutionAndType(tenantId, executionId, timerType);
+    }
+
+    /**
+     * Pull timers entering the horizon (and any overdue ones left by another
+     * instance) into the wheel. Cost is proportional to the timers in the window.
+     */
+    @Scheduled(fixedDelayString = "${workflow.timer.load-interval-ms:60000}", initialDelayString = "${workflow.timer.initial-delay-ms:5000}")
+    public void loadUpcomingTimers() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime horizon = LocalDateTime.now().plusNanos(horizonMs * 1_000_000);
+        LocalDateTime afterDueAt = null;
+        Long afterId = null;
+        int loaded = 0;
+
+        try {
+            List<WorkflowTimer> page;
+            do {
+                page = timerRepository.findPendingDueBefore(horizon, afterDueAt, afterId, loadBatchSize);
+                for (WorkflowTimer timer : page) {
+                    if (!loadedTimerIds.contains(timer.getId())) {
+                        addToWheel(timer, toEpochMillis(timer.getDueAt()));
+                        loaded++;
+                    }
+                }
+                if (!page.isEmpty()) {
+                    WorkflowTimer last = page.get(page.size() - 1);
+                    afterDueAt = last.getDueAt();
+                    afterId = last.getId();
+                }
+            } while (page.size() == loadBatchSize);
+        } catch (Exception e) {
+            log.error("Failed to load upcoming timers: {}", e.getMessage(), e);
+        }
+
+        if (loaded > 0) {
+            log.info("Loaded {} timer(s) into the wheel ({} held)", loaded, wheel.size());
+        }
+    }
+
+    /**
+     * Housekeeping for fired and cancelled timer rows
+     */
+    @Scheduled(cron = "${workflow.timer.purge-cron:0 30 3 * * *}")
+    public void purgeCompletedTimers() {
+        int deleted = timerRepository.deleteCompletedBefore(LocalDateTime.now().minusDays(retentionDays), 10000);
+        log.info("Purged {} completed timer(s)", deleted);
+    }
+
+    public int getInMemoryCount() {
+        return wheel.size();
+    }
+
+    private void addToWheel(WorkflowTimer timer, long dueAtMs) {
+        if (loadedTimerIds.add(timer.getId()) && !wheel.add(timer, dueAtMs)) {
+            loadedTimerIds.remove(timer.getId());
+        }
+    }
+
+    private void tick() {
+        try {
+            for (WorkflowTimer timer : wheel.advance(System.currentTimeMillis())) {
+                try {
+                    workflowExecutor.execute(() -> fire(timer));
+                } catch (RejectedExecutionException e) {
+                    // Executor saturated - the row is still PENDING and the next load picks it up again
+                    loadedTimerIds.remove(timer.getId());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Timer tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void fire(WorkflowTimer timer) {
+        try {
+            if (!timerRepository.claim(timer.getId())) {
+                log.debug("Timer {} already fired or cancelled", timer.getId());
+                return;
+            }
+            log.info("Timer {} fired for execution {} at node {}", timer.getId(), timer.getExecutionId(), timer.getNodeId());
+            eventPublisher.publishEvent(new TimerFiredEvent(timer));
+        } catch (Exception e) {
+            log.error("Failed to fire timer {}: {}", timer.getId(), e.getMessage(), e);
+        } finally {
+            loadedTimerIds.remove(timer.getId());
+        }
+    }
+
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -1,17 +1,22 @@
 package com.zen.workflow.service;
 
+import com.zen.workflow.config.TenantContext;
+import com.zen.workflow.engine.TriggerFilter;
+import com.zen.workflow.engine.WorkflowDefinitionCache;
 import com.zen.workflow.engine.WorkflowExecutionEngine;
 import com.zen.workflow.model.ExecutionContext;
 import com.zen.entities.tenant.Workflow;
 import com.zen.workflow.repository.WorkflowRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for triggering workflows based on events from other services
@@ -20,20 +25,80 @@ import java.util.Map;
 @Service
 public class WorkflowTriggerService {
 
+    /**
+     * Returned by {@link #triggerWorkflows} for an update held back for coalescing
+     */
+    public static final int COALESCED = -1;
+
     @Autowired
     private WorkflowRepository workflowRepository;
     
     @Autowired
     private WorkflowExecutionEngine executionEngine;
 
+    @Autowired
+    private WorkflowDefinitionCache definitionCache;
+
+    @Autowired
+    private RecordChangeCoalescer changeCoalescer;
+
+    @Autowired
+    private EventCorrelationService eventCorrelationService;
+
+    // Coalesced updates are dispatched from the coalescer's threads, through the proxy
+    // so that dispatchWorkflows runs in its own transaction
+    @Autowired
+    @Lazy
+    private WorkflowTriggerService self;
+
+    // Compiled trigger filters keyed by tenant and workflow id, rebuilt when the workflow version changes
+    private final Map<String, TriggerFilter> triggerFilters = new ConcurrentHashMap<>();
+
     /**
      * Find and execute all active workflows matching the trigger
      * This method runs asynchronously to not block the calling service
+     *
+     * @return workflows executed, or {@link #COALESCED} when the update was buffered
+     *         and its workflows will be dispatched once the record goes quiet
      */
     @Async
     @Transactional
     public int triggerWorkflows(String tenantId, String moduleType, String triggerType, Map<String, Object> recordData) {
         
+        // Executions paused in wait_for_event on this record resume on the matching event
+        eventCorrelationService.publish(tenantId, triggerType, recordKey(recordData), recordData);
+        
+        // Bursts of field saves on the same record are merged into one trigger
+        if (isUpdateTrigger(triggerType) && changeCoalescer.submit(tenantId, moduleType, triggerType, recordData,
+                merged -> dispatchCoalesced(tenantId, moduleType, triggerType, merged))) {
+            log.info("⏳ Update for {}.{} buffered for coalescing", moduleType, triggerType);
+            return COALESCED;
+        }
+        
+        return dispatchWorkflows(tenantId, moduleType, triggerType, recordData);
+    }
+
+    /**
+     * Run the workflows for a coalesced update. Called on a coalescer or executor
+     * thread, so the tenant is put in context before the transaction opens its session.
+     */
+    private void dispatchCoalesced(String tenantId, String moduleType, String triggerType, Map<String, Object> recordData) {
+        String previousTenant = TenantContext.getCurrentTenant();
+        TenantContext.setCurrentTenant(tenantId);
+        try {
+            self.dispatchWorkflows(tenantId, moduleType, triggerType, recordData);
+        } finally {
+            if (previousTenant != null) {
+                TenantContext.setCurrentTenant(previousTenant);
+            } else {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    @Transactional
+    public int dispatchWorkflows(String tenantId, String moduleType, String triggerType, Map<String, Object> recordData) {
+        
         log.info("🔍 Finding workflows: module={}, trigger={}, tenant={}", moduleType, triggerType, tenantId);
         
         try {
@@ -49,8 +114,16 @@ public class WorkflowTriggerService {
             }
             
             int executedCount = 0;
+            int filteredCount = 0;
             
             for (Workflow workflow : workflows) {
+                // Cheap in-memory check before any execution is started
+                if (!getTriggerFilter(tenantId, workflow).matches(recordData)) {
+                    filteredCount++;
+                    log.debug("⏭️ Workflow {} skipped: trigger fields/guards not matched", workflow.getId());
+                    continue;
+                }
+                
                 try {
                     log.info("▶️ Executing workflow: {} (ID: {})", workflow.getWorkflowName(), workflow.getId());
                     
@@ -71,8 +144,8 @@ public class WorkflowTriggerService {
                 }
             }
             
-            log.info("🎉 Workflow trigger complete: {}/{} workflows executed successfully", 
-                executedCount, workflows.size());
+            log.info("🎉 Workflow trigger complete: {}/{} workflows executed successfully ({} filtered out)", 
+                executedCount, workflows.size(), filteredCount);
             
             return executedCount;
             
@@ -82,6 +155,43 @@ public class WorkflowTriggerService {
         }
     }
 
+    /**
+     * Get the compiled trigger filter for a workflow, compiling it from the cached
+     * workflow definition on first use or when the workflow version has changed
+     */
+    private TriggerFilter getTriggerFilter(String tenantId, Workflow workflow) {
+        String key = tenantId + ":" + workflow.getId();
+        TriggerFilter filter = triggerFilters.get(key);
+        if (filter != null && java.util.Objects.equals(filter.getVersion(), workflow.getVersion())) {
+            return filter;
+        }
+        
+        try {
+            filter = TriggerFilter.compile(definitionCache.get(tenantId, workflow));
+        } catch (Exception e) {
+            // Fail open - the workflow's own conditions still apply
+            log.warn("⚠️ Could not compile trigger filter for workflow {}: {}", workflow.getId(), e.getMessage());
+            filter = TriggerFilter.acceptAll(workflow.getVersion());
+        }
+        
+        triggerFilters.put(key, filter);
+        return filter;
+    }
+
+    private String recordKey(Map<String, Object> recordData) {
+        if (recordData == null) {
+            return null;
+        }
+        Object id = recordData.get("recordId") != null ? recordData.get("recordId") : recordData.get("id");
+        return id != null ? id.toString() : null;
+    }
+
+    private boolean isUpdateTrigger(String triggerType) {
+        return "ON_UPDATE".equals(triggerType)
+            || "RECORD_UPDATE".equals(triggerType)
+            || "FIELD_UPDATE".equals(triggerType);
+    }
+
     /**
      * Trigger a specific workflow by ID
      */
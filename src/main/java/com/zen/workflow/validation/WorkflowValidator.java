@@ -1,7 +1,9 @@
 package com.zen.workflow.validation;
 
+import com.zen.workflow.service.FormulaEngine;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
@@ -15,6 +17,9 @@ import java.util.*;
 @Component
 public class WorkflowValidator {
 
+    @Autowired
+    private FormulaEngine formulaEngine;
+
     /**
      * Validate entire workflow
      */
@@ -237,8 +242,9 @@ public class WorkflowValidator {
                     result.addError(nodeId, "Formula condition must specify formula");
                 } else {
                     String formula = (String) config.get("formula");
-                    if (!isValidFormula(formula)) {
-                        result.addError(nodeId, "Invalid formula syntax");
+                    String formulaError = formulaEngine.validationError(formula);
+                    if (formulaError != null) {
+                        result.addError(nodeId, "Invalid formula: " + formulaError);
                     }
                 }
                 break;
@@ -454,6 +460,18 @@ public class WorkflowValidator {
                 }
                 break;
                 
+            case "notify_recipients":
+            case "team_alert":
+                // Required: recipients (or recipientsVariable / chat channels), message
+                if (!config.containsKey("recipients") && !config.containsKey("recipientsVariable")
+                        && !config.containsKey("slackChannels") && !config.containsKey("teamsChannels")) {
+                    result.addError(nodeId, "Notification fan-out must specify recipients");
+                }
+                if (!config.containsKey("message")) {
+                    result.addError(nodeId, "Notification fan-out must have message");
+                }
+                break;
+                
             case "post_to_chat":
             case "slack_message":
                 // Required: channel, message
@@ -689,6 +707,9 @@ public class WorkflowValidator {
                 if (!config.containsKey("subflowId")) {
                     result.addError(nodeId, "Sub-workflow call must specify subflowId");
                 }
+                if ("foreach".equals(config.get("mode")) && !config.containsKey("items")) {
+                    result.addError(nodeId, "Sub-workflow for-each must specify items");
+                }
                 break;
                 
             case "external_service":
@@ -942,11 +963,6 @@ public class WorkflowValidator {
                "is_empty".equals(operator) || "is_not_empty".equals(operator);
     }
 
-    private boolean isValidFormula(String formula) {
-        // Basic formula validation
-        return formula != null && !formula.trim().isEmpty();
-    }
-
     private boolean isValidEmailOrVariable(String email) {
         // Check if it's a variable or valid email
         if (email.contains("{{") && email.contains("}}")) {
@@ -0,0 +1,139 @@
+package com.zen.workflow.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledFormulaTest {
+
+    private static final Map<String, FormulaFunction> FUNCTIONS = Map.of(
+        "max", FormulaFunction.of("max", Number.class,
+            args -> Math.max(((Number) args[0]).doubleValue(), ((Number) args[1]).doubleValue()),
+            "a", Number.class, "b", Number.class),
+        "upper", FormulaFunction.of("upper", String.class,
+            args -> args[0] == null ? null : args[0].toString().toUpperCase(),
+            "text", String.class),
+        "isTrue", FormulaFunction.of("isTrue", Boolean.class,
+            args -> Boolean.TRUE.equals(args[0]),
+            "flag", Boolean.class)
+    );
+
+    private static final Function<String, FormulaFunction> LOOKUP = FUNCTIONS::get;
+
+    private static Object eval(String formula) {
+        return eval(formula, Map.of());
+    }
+
+    private static Object eval(String formula, Map<String, Object> variables) {
+        return CompiledFormula.compile(formula, LOOKUP).evaluate(variables);
+    }
+
+    private static String compileError(String formula) {
+        return assertThrows(IllegalArgumentException.class, () -> CompiledFormula.compile(formula, LOOKUP))
+            .getMessage();
+    }
+
+    @Test
+    void multiplicationBindsTighterThanAddition() {
+        assertEquals(7.0, eval("1 + 2 * 3"));
+        assertEquals(9.0, eval("(1 + 2) * 3"));
+        assertEquals(5.0, eval("10 / 2 * 1"));
+    }
+
+    @Test
+    void sameLevelOperatorsAreLeftAssociative() {
+        assertEquals(3.0, eval("10 - 4 - 3"));
+        assertEquals(1.0, eval("8 / 4 / 2"));
+    }
+
+    @Test
+    void unaryOperatorsBindTighterThanBinary() {
+        assertEquals(-6.0, eval("-2 * 3"));
+        assertEquals(1.0, eval("-2 + 3"));
+        assertEquals(true, eval("!false && true"));
+        assertEquals(true, eval("!true || true"));
+    }
+
+    @Test
+    void comparisonBindsTighterThanEqualityAndLogic() {
+        assertEquals(true, eval("1 + 2 > 2 && 3 < 4"));
+        assertEquals(true, eval("1 < 2 == true"));
+        assertEquals(false, eval("1 == 1 && 2 != 2"));
+        assertEquals(true, eval("false && false || true"));
+        assertEquals(false, eval("false && (false || true)"));
+    }
+
+    @Test
+    void plusConcatenatesWhenEitherSideIsNotANumber() {
+        assertEquals("a1", eval("'a' + 1"));
+        assertEquals("x-y", eval("{{first}} + \"-\" + {{second}}", Map.of("first", "x", "second", "y")));
+    }
+
+    @Test
+    void variablesAreResolvedAtEvaluation() {
+        CompiledFormula formula = CompiledFormula.compile("{{lead.score}} * 2 >= 100", LOOKUP);
+
+        assertEquals(true, formula.evaluate(Map.of("lead", Map.of("score", 50))));
+        assertEquals(false, formula.evaluate(Map.of("lead", Map.of("score", 49))));
+    }
+
+    @Test
+    void functionCallsAreBoundAndEvaluated() {
+        assertEquals(5.0, eval("max(2, 5)"));
+        assertEquals(11.0, eval("max(1 + 2, 4) * 2 + 3"));
+        assertEquals("ACME", eval("upper({{company}})", Map.of("company", "acme")));
+    }
+
+    @Test
+    void tooFewArgumentsIsACompileError() {
+        assertTrue(compileError("max(1)").contains("takes 2 arguments but got 1"));
+    }
+
+    @Test
+    void tooManyArgumentsIsACompileError() {
+        assertTrue(compileError("max(1, 2, 3)").contains("takes 2 arguments but got 3"));
+        assertTrue(compileError("upper()").contains("takes 1 arguments but got 0"));
+    }
+
+    @Test
+    void literalOfTheWrongTypeIsACompileError() {
+        assertTrue(compileError("max('a', 1)").contains("expects Number for a but got String"));
+        assertTrue(compileError("isTrue(1)").contains("expects Boolean for flag but got Number"));
+    }
+
+    @Test
+    void variableArgumentsAreCheckedAtEvaluation() {
+        CompiledFormula formula = CompiledFormula.compile("max({{x}}, 1)", LOOKUP);
+
+        assertEquals(3.0, formula.evaluate(Map.of("x", 3)));
+        assertThrows(RuntimeException.class, () -> formula.evaluate(Map.of("x", "abc")));
+    }
+
+    @Test
+    void unknownFunctionOrNameIsACompileError() {
+        assertTrue(compileError("missing(1)").contains("Unknown function missing"));
+        assertTrue(compileError("foo + 1").contains("Unknown name 'foo'"));
+    }
+
+    @Test
+    void malformedFormulasAreCompileErrors() {
+        assertTrue(compileError("1 +").contains("Unexpected end of formula"));
+        assertTrue(compileError("(1 + 2").contains("Expected ')'"));
+        assertTrue(compileError("1 2").contains("Unexpected '2'"));
+        assertTrue(compileError("'open").contains("Unclosed string"));
+        assertTrue(compileError("{{lead.name").contains("Unclosed {{"));
+        assertTrue(compileError("  ").contains("Formula is empty"));
+    }
+
+    @Test
+    void divisionByZeroFailsAtEvaluation() {
+        CompiledFormula formula = CompiledFormula.compile("1 / {{x}}", LOOKUP);
+
+        assertThrows(RuntimeException.class, () -> formula.evaluate(Map.of("x", 0)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.zen.workflow.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    private static HierarchicalTimingWheel<String> wheel() {
+        // 10ms ticks, 8 slots, 3 levels: spans 10 * 8 * 8 * 8 = 5120ms
+        return new HierarchicalTimingWheel<>(10, 8, 3, 0);
+    }
+
+    @Test
+    void spanCoversEveryLevel() {
+        assertEquals(5120, wheel().getSpanMs());
+    }
+
+    @Test
+    void invalidDimensionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<>(0, 8, 3, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<>(10, 1, 3, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<>(10, 8, 0, 0));
+    }
+
+    @Test
+    void timerBeyondTheSpanIsRefused() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+
+        assertFalse(wheel.add("late", 5120));
+        assertTrue(wheel.add("edge", 5119));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void timerFiresOnTheTickAfterItIsDue() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.add("t", 25);
+
+        assertTrue(wheel.advance(29).isEmpty());
+        assertEquals(List.of("t"), wheel.advance(30));
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.advance(100).isEmpty());
+    }
+
+    @Test
+    void higherLevelTimersCascadeDown() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.add("t", 700);
+
+        assertTrue(wheel.advance(700).isEmpty());
+        assertEquals(List.of("t"), wheel.advance(710));
+    }
+
+    @Test
+    void pastDueTimerFiresOnTheNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 3, 1000);
+        wheel.add("overdue", 400);
+
+        assertEquals(List.of("overdue"), wheel.advance(1000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void startTimeIsRoundedDownToATick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 3, 1005);
+        wheel.add("t", 1012);
+
+        assertTrue(wheel.advance(1019).isEmpty());
+        assertEquals(List.of("t"), wheel.advance(1020));
+    }
+
+    @Test
+    void timersFireNeverEarlyAndAtMostOneTickLate() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 8, 3, 0);
+        Random random = new Random(42L);
+        List<Long> pending = new ArrayList<>();
+        int fired = 0;
+
+        for (long now = 0; now <= 20_000; now += 1 + random.nextInt(15)) {
+            for (Long dueAt : wheel.advance(now)) {
+                assertTrue(dueAt <= now, "fired early: due " + dueAt + " at " + now);
+                pending.remove(dueAt);
+                fired++;
+            }
+            for (Long dueAt : pending) {
+                assertTrue(dueAt >= now - 10, "fired late: due " + dueAt + " still pending at " + now);
+            }
+            if (now < 14_000) {
+                long dueAt = now + random.nextInt(5000);
+                if (wheel.add(dueAt, dueAt)) {
+                    pending.add(dueAt);
+                }
+            }
+        }
+
+        assertTrue(pending.isEmpty());
+        assertTrue(fired > 0);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,129 @@
+package com.zen.workflow.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordIdSetTest {
+
+    @Test
+    void addContainsRemove() {
+        RecordIdSet ids = new RecordIdSet();
+
+        assertTrue(ids.add("42"));
+        assertFalse(ids.add("42"));
+        assertTrue(ids.contains("42"));
+        assertFalse(ids.contains("43"));
+        assertEquals(1, ids.size());
+
+        assertTrue(ids.remove("42"));
+        assertFalse(ids.remove("42"));
+        assertFalse(ids.contains("42"));
+        assertEquals(0, ids.size());
+    }
+
+    @Test
+    void nonNumericIdsAreKeptApart() {
+        RecordIdSet ids = new RecordIdSet();
+
+        assertTrue(ids.add("42"));
+        assertTrue(ids.add("042"));
+        assertTrue(ids.add("+42"));
+        assertTrue(ids.add("abc-1"));
+        assertTrue(ids.add("-0"));
+        assertTrue(ids.add("1234567890123456789"));
+        assertEquals(6, ids.size());
+
+        assertTrue(ids.remove("042"));
+        assertTrue(ids.contains("42"));
+        assertFalse(ids.contains("042"));
+        assertTrue(ids.contains("1234567890123456789"));
+        assertFalse(ids.contains("0"));
+    }
+
+    @Test
+    void negativeIdsAreNumeric() {
+        RecordIdSet ids = new RecordIdSet();
+
+        assertTrue(ids.add("-7"));
+        assertTrue(ids.add("7"));
+        assertTrue(ids.contains("-7"));
+        assertTrue(ids.remove("-7"));
+        assertTrue(ids.contains("7"));
+        assertEquals(1, ids.size());
+    }
+
+    @Test
+    void nullIsNeverAMember() {
+        RecordIdSet ids = new RecordIdSet();
+
+        assertFalse(ids.add(null));
+        assertFalse(ids.contains(null));
+        assertFalse(ids.remove(null));
+        assertTrue(ids.add(""));
+        assertTrue(ids.contains(""));
+    }
+
+    @Test
+    void growsFromTheSmallestTable() {
+        RecordIdSet ids = new RecordIdSet(1);
+
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(ids.add(Integer.toString(i * 16)));
+        }
+        assertEquals(100_000, ids.size());
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(ids.contains(Integer.toString(i * 16)), "missing " + i * 16);
+            assertFalse(ids.contains(Integer.toString(i * 16 + 1)));
+        }
+    }
+
+    @Test
+    void removeKeepsCollidingIdsReachable() {
+        RecordIdSet ids = new RecordIdSet(16);
+
+        // Dense runs collide in a 16-slot table and across every resize
+        for (int i = 0; i < 10; i++) {
+            ids.add(Integer.toString(i));
+        }
+        for (int i = 0; i < 10; i += 2) {
+            assertTrue(ids.remove(Integer.toString(i)));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i % 2 == 1, ids.contains(Integer.toString(i)), "id " + i);
+        }
+        assertEquals(5, ids.size());
+    }
+
+    @Test
+    void matchesHashSetUnderRandomOperations() {
+        Random random = new Random(20240117L);
+        RecordIdSet ids = new RecordIdSet();
+        Set<String> expected = new HashSet<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            String id = Integer.toString(random.nextInt(5_000));
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.add(id), ids.add(id), "add " + id);
+                    break;
+                case 1:
+                    assertEquals(expected.remove(id), ids.remove(id), "remove " + id);
+                    break;
+                default:
+                    assertEquals(expected.contains(id), ids.contains(id), "contains " + id);
+            }
+        }
+        assertEquals(expected.size(), ids.size());
+        for (int i = 0; i < 5_000; i++) {
+            String id = Integer.toString(i);
+            assertEquals(expected.contains(id), ids.contains(id), "final " + id);
+        }
+    }
+}
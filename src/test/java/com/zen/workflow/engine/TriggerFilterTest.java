@@ -0,0 +1,141 @@
+package com.zen.workflow.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TriggerFilterTest {
+
+    private static TriggerFilter filter(String subtype, Map<String, Object> triggerConfig) {
+        Map<String, Object> trigger = new HashMap<>();
+        trigger.put("id", "trigger-1");
+        trigger.put("type", "trigger");
+        trigger.put("subtype", subtype);
+        trigger.put("config", triggerConfig);
+        Map<String, Object> action = Map.of("id", "action-1", "type", "action", "subtype", "send_email");
+        return TriggerFilter.compile(CompiledWorkflow.compile(1L, 3, "leads", "record_updated",
+            Map.of("nodes", List.of(trigger, action))));
+    }
+
+    private static TriggerFilter guard(String field, String operator, Object value) {
+        Map<String, Object> guard = new HashMap<>();
+        guard.put("field", field);
+        guard.put("operator", operator);
+        guard.put("value", value);
+        return filter("record_updated", Map.of("guards", List.of(guard)));
+    }
+
+    private static Map<String, Object> record(Object... keysAndValues) {
+        Map<String, Object> record = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            record.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return record;
+    }
+
+    @Test
+    void workflowWithoutTriggerNodeAcceptsAll() {
+        TriggerFilter filter = TriggerFilter.compile(CompiledWorkflow.compile(1L, 7, "leads", "record_updated",
+            Map.of("nodes", List.of(Map.of("id", "action-1", "type", "action")))));
+
+        assertTrue(filter.isAcceptAll());
+        assertEquals(Integer.valueOf(7), filter.getVersion());
+        assertTrue(filter.matches(null));
+    }
+
+    @Test
+    void watchedFieldsUseChangedFieldsOrPreviousValues() {
+        TriggerFilter filter = filter("record_updated", Map.of("watchFields", List.of("status", "owner")));
+
+        assertEquals(Integer.valueOf(3), filter.getVersion());
+        assertTrue(filter.matches(record("changedFields", List.of("owner"))));
+        assertFalse(filter.matches(record("changedFields", List.of("phone"))));
+        assertTrue(filter.matches(record("status", "Won", "previousValues", Map.of("status", "Open"))));
+        assertFalse(filter.matches(record("status", "Won", "previousValues", Map.of("status", "Won"))));
+        // No change information - the workflow's own conditions decide
+        assertTrue(filter.matches(record("status", "Won")));
+        assertFalse(filter.matches(null));
+    }
+
+    @Test
+    void statusChangedWatchesStatusByDefault() {
+        TriggerFilter filter = filter("status_changed", Map.of());
+
+        assertTrue(filter.matches(record("changedFields", List.of("status"))));
+        assertFalse(filter.matches(record("changedFields", List.of("stage"))));
+    }
+
+    @Test
+    void equalityComparesNumbersByValue() {
+        TriggerFilter equals = guard("amount", "==", 5);
+
+        assertTrue(equals.matches(record("amount", 5.0)));
+        assertTrue(equals.matches(record("amount", "5.00")));
+        assertTrue(equals.matches(record("amount", 5L)));
+        assertFalse(equals.matches(record("amount", 5.5)));
+        assertFalse(equals.matches(record("amount", "five")));
+
+        TriggerFilter notEquals = guard("amount", "!=", "5.0");
+        assertFalse(notEquals.matches(record("amount", 5)));
+        assertTrue(notEquals.matches(record("amount", 6)));
+    }
+
+    @Test
+    void equalityKeepsTextAsText() {
+        TriggerFilter filter = guard("status", "equals", "Qualified");
+
+        assertTrue(filter.matches(record("status", "Qualified")));
+        assertFalse(filter.matches(record("status", "qualified")));
+    }
+
+    @Test
+    void inListMatchesNumbersByValue() {
+        TriggerFilter in = guard("priority", "in", List.of(1, 2, "High"));
+
+        assertTrue(in.matches(record("priority", 2.0)));
+        assertTrue(in.matches(record("priority", "1")));
+        assertTrue(in.matches(record("priority", "High")));
+        assertFalse(in.matches(record("priority", 3)));
+
+        TriggerFilter notIn = guard("stage", "not_in", "Won, Lost");
+        assertTrue(notIn.matches(record("stage", "Open")));
+        assertFalse(notIn.matches(record("stage", "Lost")));
+    }
+
+    @Test
+    void nestedFieldsAndMissingValues() {
+        TriggerFilter equals = guard("owner.region", "==", "EU");
+        assertTrue(equals.matches(record("owner", Map.of("region", "EU"))));
+        assertFalse(equals.matches(record("owner", "EU")));
+        assertFalse(equals.matches(record()));
+
+        assertTrue(guard("owner.region", "!=", "EU").matches(record()));
+        assertTrue(guard("stage", "not_in", List.of("Won")).matches(record()));
+        assertTrue(guard("email", "is_empty", null).matches(record("email", "")));
+        assertTrue(guard("email", "is_not_null", null).matches(record("email", "")));
+    }
+
+    @Test
+    void ordering() {
+        assertTrue(guard("amount", ">", 1000).matches(record("amount", "1500")));
+        assertFalse(guard("amount", ">=", 1000).matches(record("amount", 999.99)));
+        assertTrue(guard("amount", "<=", "10").matches(record("amount", 10)));
+    }
+
+    @Test
+    void guardsMustAllPass() {
+        Map<String, Object> status = Map.of("field", "status", "operator", "==", "value", "Won");
+        Map<String, Object> amount = Map.of("field", "amount", "operator", ">", "value", 100);
+        TriggerFilter filter = filter("record_updated", Map.of("guards", List.of(status, amount)));
+
+        assertTrue(filter.matches(record("status", "Won", "amount", 500)));
+        assertFalse(filter.matches(record("status", "Won", "amount", 50)));
+        assertFalse(filter.matches(record("status", "Lost", "amount", 500)));
+    }
+}
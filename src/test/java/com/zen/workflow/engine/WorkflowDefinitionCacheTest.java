@@ -0,0 +1,106 @@
+package com.zen.workflow.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zen.entities.tenant.Workflow;
+import com.zen.workflow.repository.WorkflowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WorkflowDefinitionCacheTest {
+
+    private static final String CONFIG = "{\"nodes\":[{\"id\":\"trigger-1\",\"type\":\"trigger\"}]}";
+
+    @Mock
+    private WorkflowRepository workflowRepository;
+
+    @InjectMocks
+    private WorkflowDefinitionCache definitionCache;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(definitionCache, "objectMapper", new ObjectMapper());
+    }
+
+    private static Workflow workflow(Integer version) {
+        Workflow workflow = mock(Workflow.class);
+        when(workflow.getId()).thenReturn(5L);
+        when(workflow.getVersion()).thenReturn(version);
+        when(workflow.getWorkflowConfig()).thenReturn(CONFIG);
+        when(workflow.getModuleType()).thenReturn("leads");
+        when(workflow.getTriggerType()).thenReturn("record_created");
+        return workflow;
+    }
+
+    @Test
+    void cachedDefinitionIsCheckedByVersionWithoutLoadingTheWorkflow() {
+        Workflow v1 = workflow(1);
+        when(workflowRepository.findById(5L)).thenReturn(Optional.of(v1));
+        when(workflowRepository.findVersionById(5L)).thenReturn(Optional.of(1));
+
+        CompiledWorkflow first = definitionCache.get("default", 5L);
+        CompiledWorkflow second = definitionCache.get("default", 5L);
+        CompiledWorkflow third = definitionCache.get("default", 5L);
+
+        assertSame(first, second);
+        assertSame(first, third);
+        assertEquals("trigger-1", first.getStartNodeId());
+        verify(workflowRepository, times(1)).findById(5L);
+        verify(workflowRepository, times(2)).findVersionById(5L);
+    }
+
+    @Test
+    void newVersionIsRecompiled() {
+        Workflow v1 = workflow(1);
+        Workflow v2 = workflow(2);
+        when(workflowRepository.findById(5L)).thenReturn(Optional.of(v1), Optional.of(v2));
+        when(workflowRepository.findVersionById(5L)).thenReturn(Optional.of(2));
+
+        CompiledWorkflow first = definitionCache.get("default", 5L);
+        CompiledWorkflow second = definitionCache.get("default", 5L);
+
+        assertNotSame(first, second);
+        assertEquals(Integer.valueOf(2), second.getVersion());
+        verify(workflowRepository, times(2)).findById(5L);
+    }
+
+    @Test
+    void tenantsDoNotShareDefinitions() {
+        Workflow v1 = workflow(1);
+        when(workflowRepository.findById(5L)).thenReturn(Optional.of(v1));
+
+        CompiledWorkflow tenantA = definitionCache.get("tenant-a", 5L);
+        CompiledWorkflow tenantB = definitionCache.get("tenant-b", 5L);
+
+        assertNotSame(tenantA, tenantB);
+        verify(workflowRepository, never()).findVersionById(5L);
+    }
+
+    @Test
+    void deletedWorkflowIsNotServedFromTheCache() {
+        Workflow v1 = workflow(1);
+        when(workflowRepository.findById(5L)).thenReturn(Optional.of(v1));
+        when(workflowRepository.findVersionById(5L)).thenReturn(Optional.empty());
+
+        definitionCache.get("default", 5L);
+
+        assertThrows(RuntimeException.class, () -> definitionCache.get("default", 5L));
+    }
+}
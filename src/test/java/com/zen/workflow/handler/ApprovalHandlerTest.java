@@ -0,0 +1,133 @@
+package com.zen.workflow.handler;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zen.workflow.engine.VariableResolver;
+import com.zen.workflow.model.ExecutionContext;
+import com.zen.workflow.model.ExecutionResult;
+import com.zen.workflow.model.NodeConfig;
+import com.zen.workflow.service.ApprovalService;
+import com.zen.workflow.service.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Node configs are parsed the way the engine reads them, so approver ids arrive
+ * as the Integer lists Jackson produces
+ */
+@ExtendWith(MockitoExtension.class)
+class ApprovalHandlerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Mock
+    private VariableResolver variableResolver;
+
+    @Mock
+    private ApprovalService approvalService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @InjectMocks
+    private ApprovalHandler approvalHandler;
+
+    private ExecutionContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = new ExecutionContext();
+        context.setExecutionId(100L);
+        lenient().when(approvalService.isApprovalServiceAvailable()).thenReturn(true);
+        lenient().when(variableResolver.resolve(anyString(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private NodeConfig node(String subtype, String json) throws Exception {
+        NodeConfig node = new NodeConfig();
+        node.setId("approval-1");
+        node.setType("approval");
+        node.setSubtype(subtype);
+        node.setConfig(MAPPER.readValue(json, new TypeReference<Map<String, Object>>() { }));
+        return node;
+    }
+
+    @Test
+    void singleApprovalPassesLongIds() throws Exception {
+        when(approvalService.createApprovalRequest(eq(100L), any(), any(), eq("SINGLE"), isNull()))
+            .thenReturn(Map.of("id", 42L));
+
+        ExecutionResult result = approvalHandler.execute(
+            node("approval_step", "{\"approvers\": [7, 8], \"title\": \"Discount\"}"), context);
+
+        assertTrue(result.isPaused());
+        verify(approvalService).createApprovalRequest(eq(100L), any(), eq(List.of(7L, 8L)), eq("SINGLE"), isNull());
+        verify(approvalService).sendApprovalNotifications(eq(42L), eq(List.of(7L, 8L)), any(), any());
+    }
+
+    @Test
+    void parallelApprovalPassesLongIdsAndRequiredCount() throws Exception {
+        when(approvalService.createParallelApproval(eq(100L), any(), any(), eq(1), isNull()))
+            .thenReturn(Map.of("id", 42L));
+
+        ExecutionResult result = approvalHandler.execute(
+            node("parallel_approval", "{\"approvers\": [7, \"8\"], \"requiredApprovals\": 1}"), context);
+
+        assertTrue(result.isPaused());
+        verify(approvalService).createParallelApproval(eq(100L), any(), eq(List.of(7L, 8L)), eq(1), isNull());
+    }
+
+    @Test
+    void multiStepApprovalPassesLongIdsPerStep() throws Exception {
+        when(approvalService.createMultiStepApproval(eq(100L), any(), any(), isNull()))
+            .thenReturn(Map.of("id", 42L));
+
+        ExecutionResult result = approvalHandler.execute(
+            node("multi_step_approval", "{\"steps\": [[7], [8, 9]], \"title\": \"Contract\"}"), context);
+
+        assertTrue(result.isPaused());
+        verify(approvalService).createMultiStepApproval(eq(100L), any(), eq(List.of(List.of(7L), List.of(8L, 9L))), isNull());
+        verify(approvalService).sendApprovalNotifications(eq(42L), eq(List.of(7L)), any(), any());
+    }
+
+    @Test
+    void reviewPassesLongIds() throws Exception {
+        when(approvalService.createApprovalRequest(eq(100L), any(), any(), eq("REVIEW"), isNull()))
+            .thenReturn(Map.of("id", 42L));
+
+        ExecutionResult result = approvalHandler.execute(
+            node("review_process", "{\"reviewers\": [9]}"), context);
+
+        assertTrue(result.isPaused());
+        verify(approvalService).createApprovalRequest(eq(100L), any(), eq(List.of(9L)), eq("REVIEW"), isNull());
+    }
+
+    @Test
+    void stepWithoutApproversFailsTheNode() throws Exception {
+        ExecutionResult result = approvalHandler.execute(
+            node("multi_step_approval", "{\"steps\": [[7], []]}"), context);
+
+        assertFalse(result.isSuccess());
+        assertEquals("Multi-step approval needs approvers on every step", result.getErrorMessage());
+        verify(approvalService).isApprovalServiceAvailable();
+        verifyNoInteractions(notificationService);
+    }
+}
@@ -0,0 +1,81 @@
+package com.zen.workflow.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WorkflowApprovalRepositoryTest {
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private WorkflowApprovalRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(statement.executeUpdate()).thenReturn(0);
+
+        repository = new WorkflowApprovalRepository(dataSource, new ObjectMapper());
+        ReflectionTestUtils.setField(repository, "commonSchemaName", "common");
+    }
+
+    private String preparedSql() throws Exception {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        return sql.getValue();
+    }
+
+    @Test
+    void findByIdIsScopedToTheTenant() throws Exception {
+        // Another tenant's approval with this id is simply not in the result
+        assertNull(repository.findById("tenant-b", 42L));
+
+        assertTrue(preparedSql().contains("WHERE id = ? AND tenant_id = ?"));
+        verify(statement).setObject(1, 42L);
+        verify(statement).setString(2, "tenant-b");
+    }
+
+    @Test
+    void votesAreScopedToTheTenant() throws Exception {
+        // No row in tenant-b matches, so the vote is not counted
+        assertFalse(repository.countVote("tenant-b", 42L, 0, true));
+
+        assertTrue(preparedSql().contains("WHERE id = ? AND tenant_id = ?"));
+        verify(statement).setObject(1, 42L);
+        verify(statement).setString(2, "tenant-b");
+    }
+
+    @Test
+    void closeStepSkipsOnlyThatStepsPendingAssignments() throws Exception {
+        repository.closeStep(42L, 0);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection, times(2)).prepareStatement(sql.capture());
+        assertTrue(sql.getAllValues().get(1).contains("SET status = 'SKIPPED'"));
+        assertTrue(sql.getAllValues().get(1).contains("WHERE approval_id = ? AND step = ? AND status = 'PENDING'"));
+        verify(statement, times(2)).setObject(1, 42L);
+        verify(statement, times(2)).setObject(2, 0);
+    }
+}
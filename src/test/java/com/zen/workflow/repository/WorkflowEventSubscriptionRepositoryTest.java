@@ -0,0 +1,63 @@
+package com.zen.workflow.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WorkflowEventSubscriptionRepositoryTest {
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private WorkflowEventSubscriptionRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+
+        repository = new WorkflowEventSubscriptionRepository(dataSource);
+        ReflectionTestUtils.setField(repository, "commonSchemaName", "common");
+    }
+
+    @Test
+    void cancelByExecutionOnlyTouchesTheCallersTenant() throws Exception {
+        assertEquals(1, repository.cancelByExecution("tenant-b", 42L));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        assertTrue(sql.getValue().contains("WHERE tenant_id = ? AND execution_id = ?"));
+        verify(statement).setString(1, "tenant-b");
+        verify(statement).setObject(2, 42L);
+    }
+
+    @Test
+    void findWaitingOnlyReadsSubscriptionsNotLoadedYet() throws Exception {
+        when(statement.executeQuery()).thenReturn(mock(ResultSet.class));
+
+        assertTrue(repository.findWaiting("tenant-b", "order.paid", "order-1", 500L).isEmpty());
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        assertTrue(sql.getValue().contains(
+            "WHERE tenant_id = ? AND event_type = ? AND correlation_key = ? AND status = 'WAITING' AND id > ?"));
+        verify(statement).setString(1, "tenant-b");
+        verify(statement).setObject(4, 500L);
+    }
+}
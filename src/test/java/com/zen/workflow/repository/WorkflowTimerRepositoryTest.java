@@ -0,0 +1,63 @@
+package com.zen.workflow.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WorkflowTimerRepositoryTest {
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private WorkflowTimerRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+
+        repository = new WorkflowTimerRepository(dataSource, new ObjectMapper());
+        ReflectionTestUtils.setField(repository, "commonSchemaName", "common");
+    }
+
+    private String preparedSql() throws Exception {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        return sql.getValue();
+    }
+
+    @Test
+    void cancelByExecutionOnlyTouchesTheCallersTenant() throws Exception {
+        assertEquals(1, repository.cancelByExecution("tenant-b", 42L));
+
+        assertTrue(preparedSql().contains("WHERE tenant_id = ? AND execution_id = ?"));
+        verify(statement).setString(1, "tenant-b");
+        verify(statement).setObject(2, 42L);
+    }
+
+    @Test
+    void cancelByExecutionAndTypeOnlyTouchesTheCallersTenant() throws Exception {
+        assertEquals(1, repository.cancelByExecutionAndType("tenant-b", 42L, "WAIT"));
+
+        assertTrue(preparedSql().contains("WHERE tenant_id = ? AND execution_id = ? AND timer_type = ?"));
+        verify(statement).setString(1, "tenant-b");
+        verify(statement).setObject(2, 42L);
+        verify(statement).setString(3, "WAIT");
+    }
+}
@@ -0,0 +1,104 @@
+package com.zen.workflow.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AliasSamplerTest {
+
+    private static final int DRAWS = 200_000;
+
+    private static Map<Long, Integer> draw(AliasSampler sampler) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int i = 0; i < DRAWS; i++) {
+            counts.merge(sampler.sample(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    void drawsFollowTheWeights() {
+        Map<Object, Object> weights = new LinkedHashMap<>();
+        weights.put(1L, 1);
+        weights.put(2L, 3);
+        weights.put(3L, 6);
+
+        Map<Long, Integer> counts = draw(AliasSampler.build(weights));
+
+        // Five standard deviations at 200k draws is well under 0.01
+        assertEquals(0.1, counts.getOrDefault(1L, 0) / (double) DRAWS, 0.01);
+        assertEquals(0.3, counts.getOrDefault(2L, 0) / (double) DRAWS, 0.01);
+        assertEquals(0.6, counts.getOrDefault(3L, 0) / (double) DRAWS, 0.01);
+    }
+
+    @Test
+    void manyUnevenWeightsKeepTheirShare() {
+        Map<Object, Object> weights = new LinkedHashMap<>();
+        double total = 0;
+        for (long userId = 1; userId <= 20; userId++) {
+            weights.put(userId, userId * userId);
+            total += userId * userId;
+        }
+
+        Map<Long, Integer> counts = draw(AliasSampler.build(weights));
+
+        for (long userId = 1; userId <= 20; userId++) {
+            assertEquals(userId * userId / total, counts.getOrDefault(userId, 0) / (double) DRAWS, 0.01,
+                "share of user " + userId);
+        }
+    }
+
+    @Test
+    void stringKeysFromJsonAreUserIds() {
+        AliasSampler sampler = AliasSampler.build(Map.of("7", 1.0, " 8 ", 1.0));
+
+        assertEquals(2, sampler.size());
+        for (int i = 0; i < 1000; i++) {
+            long userId = sampler.sample();
+            assertTrue(userId == 7 || userId == 8);
+        }
+    }
+
+    @Test
+    void nonPositiveAndNonNumericWeightsAreLeftOut() {
+        Map<Object, Object> weights = new HashMap<>();
+        weights.put(1L, 0);
+        weights.put(2L, -5);
+        weights.put(3L, "heavy");
+        weights.put("not-a-user", 10);
+        weights.put(4L, 2.5);
+
+        AliasSampler sampler = AliasSampler.build(weights);
+
+        assertEquals(1, sampler.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(4L, sampler.sample());
+        }
+    }
+
+    @Test
+    void noPositiveWeightGivesNoSampler() {
+        assertNull(AliasSampler.build(Map.of()));
+        assertNull(AliasSampler.build(Map.of(1L, 0, 2L, -1)));
+    }
+
+    @Test
+    void sameIdGivenAsNumberAndStringIsOneUser() {
+        Map<Object, Object> weights = new HashMap<>();
+        weights.put(5L, 1);
+        weights.put("5", 1);
+        weights.put(6L, 2);
+
+        AliasSampler sampler = AliasSampler.build(weights);
+        Map<Long, Integer> counts = draw(sampler);
+
+        assertEquals(2, sampler.size());
+        assertEquals(0.5, counts.getOrDefault(5L, 0) / (double) DRAWS, 0.01);
+    }
+}
@@ -0,0 +1,241 @@
+package com.zen.workflow.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zen.workflow.engine.ApprovalDecidedEvent;
+import com.zen.workflow.model.WorkflowApproval;
+import com.zen.workflow.repository.WorkflowApprovalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ApprovalServiceTest {
+
+    private static final String TENANT = "tenant-a";
+    private static final Long APPROVAL_ID = 42L;
+    private static final Long APPROVER_ID = 7L;
+
+    @Mock
+    private WorkflowApprovalRepository approvalRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @InjectMocks
+    private ApprovalService approvalService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(approvalService, "approvalEnabled", true);
+    }
+
+    private WorkflowApproval pending(int currentStep, int stepCount) {
+        WorkflowApproval approval = new WorkflowApproval();
+        approval.setId(APPROVAL_ID);
+        approval.setTenantId(TENANT);
+        approval.setExecutionId(100L);
+        approval.setNodeId("approval-1");
+        approval.setStatus(WorkflowApproval.STATUS_PENDING);
+        approval.setCurrentStep(currentStep);
+        approval.setStepCount(stepCount);
+        when(approvalRepository.findById(TENANT, APPROVAL_ID)).thenReturn(approval);
+        return approval;
+    }
+
+    private void voteCounted(int step, boolean approve, String status) {
+        when(approvalRepository.respond(TENANT, APPROVAL_ID, APPROVER_ID, step, status, "ok")).thenReturn(true);
+        when(approvalRepository.countVote(TENANT, APPROVAL_ID, step, approve)).thenReturn(true);
+    }
+
+    private ApprovalDecidedEvent publishedEvent() {
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        return (ApprovalDecidedEvent) event.getValue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void approverIdsParsedFromJsonAreStoredAsLongs() throws Exception {
+        // What Jackson gives for "approvers": [7, 8, 7] despite the declared List<Long>
+        List<Long> approvers = new ObjectMapper().readValue("[7, 8, 7]", List.class);
+        when(approvalRepository.insert(any())).thenReturn(APPROVAL_ID);
+
+        Map<String, Object> result = approvalService.createParallelApproval(100L, "approval-1", approvers, 1, null);
+
+        assertEquals(APPROVAL_ID, result.get("id"));
+        verify(approvalRepository).insertAssignments("default", APPROVAL_ID, List.of(List.of(7L, 8L)));
+    }
+
+    @Test
+    void approvalBelowQuorumStaysPending() {
+        pending(0, 1);
+        voteCounted(0, true, WorkflowApproval.STATUS_APPROVED);
+        when(approvalRepository.approveIfQuorum(APPROVAL_ID, 0)).thenReturn(false);
+
+        Map<String, Object> result = approvalService.approve(TENANT, APPROVAL_ID, APPROVER_ID, "ok");
+
+        assertEquals(true, result.get("approved"));
+        assertEquals(false, result.get("allApproved"));
+        assertEquals("PARTIALLY_APPROVED", result.get("status"));
+        verify(approvalRepository, never()).closePending(anyLong());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void voteThatReachesQuorumDecidesOnce() {
+        pending(0, 1);
+        voteCounted(0, true, WorkflowApproval.STATUS_APPROVED);
+        when(approvalRepository.approveIfQuorum(APPROVAL_ID, 0)).thenReturn(true);
+
+        Map<String, Object> result = approvalService.approve(TENANT, APPROVAL_ID, APPROVER_ID, "ok");
+
+        assertEquals(true, result.get("allApproved"));
+        assertEquals(WorkflowApproval.STATUS_APPROVED, result.get("status"));
+        verify(approvalRepository).closePending(APPROVAL_ID);
+        ApprovalDecidedEvent event = publishedEvent();
+        assertEquals(TENANT, event.getTenantId());
+        assertEquals(100L, event.getExecutionId());
+        assertEquals(WorkflowApproval.STATUS_APPROVED, event.getStatus());
+    }
+
+    @Test
+    void quorumOnAnEarlyStepMovesToTheNextStep() {
+        pending(0, 2);
+        voteCounted(0, true, WorkflowApproval.STATUS_APPROVED);
+        when(approvalRepository.countStepApprovers(APPROVAL_ID, 1)).thenReturn(3);
+        when(approvalRepository.advanceIfQuorum(APPROVAL_ID, 0, 3)).thenReturn(true);
+        when(approvalRepository.activateStep(APPROVAL_ID, 1)).thenReturn(List.of(8L, 9L, 10L));
+
+        Map<String, Object> result = approvalService.approve(TENANT, APPROVAL_ID, APPROVER_ID, "ok");
+
+        assertEquals(false, result.get("allApproved"));
+        verify(approvalRepository).closeStep(APPROVAL_ID, 0);
+        verify(approvalRepository).activateStep(APPROVAL_ID, 1);
+        verify(approvalRepository, never()).approveIfQuorum(anyLong(), anyInt());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void earlyStepBelowQuorumDoesNotAdvance() {
+        pending(0, 2);
+        voteCounted(0, true, WorkflowApproval.STATUS_APPROVED);
+        when(approvalRepository.countStepApprovers(APPROVAL_ID, 1)).thenReturn(3);
+        when(approvalRepository.advanceIfQuorum(APPROVAL_ID, 0, 3)).thenReturn(false);
+
+        approvalService.approve(TENANT, APPROVAL_ID, APPROVER_ID, "ok");
+
+        verify(approvalRepository, never()).closeStep(anyLong(), anyInt());
+        verify(approvalRepository, never()).activateStep(anyLong(), anyInt());
+    }
+
+    @Test
+    void lastStepOfAMultiStepApprovalDecides() {
+        pending(1, 2);
+        voteCounted(1, true, WorkflowApproval.STATUS_APPROVED);
+        when(approvalRepository.approveIfQuorum(APPROVAL_ID, 1)).thenReturn(true);
+
+        Map<String, Object> result = approvalService.approve(TENANT, APPROVAL_ID, APPROVER_ID, "ok");
+
+        assertEquals(true, result.get("allApproved"));
+        assertEquals(WorkflowApproval.STATUS_APPROVED, publishedEvent().getStatus());
+    }
+
+    @Test
+    void voteLandingAfterTheDecisionIsNotCounted() {
+        WorkflowApproval approval = pending(0, 1);
+        when(approvalRepository.respond(TENANT, APPROVAL_ID, APPROVER_ID, 0, WorkflowApproval.STATUS_APPROVED, "ok"))
+            .thenAnswer(invocation -> {
+                approval.setStatus(WorkflowApproval.STATUS_REJECTED);
+                return true;
+            });
+        when(approvalRepository.countVote(TENANT, APPROVAL_ID, 0, true)).thenReturn(false);
+
+        Map<String, Object> result = approvalService.approve(TENANT, APPROVAL_ID, APPROVER_ID, "ok");
+
+        assertEquals(false, result.get("approved"));
+        assertEquals("Approval is already REJECTED", result.get("reason"));
+        verify(approvalRepository, never()).approveIfQuorum(anyLong(), anyInt());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void decidedApprovalTakesNoMoreVotes() {
+        pending(0, 1).setStatus(WorkflowApproval.STATUS_APPROVED);
+
+        Map<String, Object> result = approvalService.approve(TENANT, APPROVAL_ID, APPROVER_ID, "ok");
+
+        assertEquals(false, result.get("approved"));
+        verify(approvalRepository, never()).respond(anyString(), anyLong(), anyLong(), anyInt(), anyString(), any());
+    }
+
+    @Test
+    void approverWithoutAPendingAssignmentIsRefused() {
+        pending(0, 1);
+        when(approvalRepository.respond(TENANT, APPROVAL_ID, APPROVER_ID, 0, WorkflowApproval.STATUS_APPROVED, "ok"))
+            .thenReturn(false);
+
+        Map<String, Object> result = approvalService.approve(TENANT, APPROVAL_ID, APPROVER_ID, "ok");
+
+        assertEquals(false, result.get("approved"));
+        assertEquals("No pending approval for user 7", result.get("reason"));
+        verify(approvalRepository, never()).countVote(anyString(), anyLong(), anyInt(), anyBoolean());
+    }
+
+    @Test
+    void approvalOfAnotherTenantIsNotFound() {
+        Map<String, Object> result = approvalService.approve("tenant-b", APPROVAL_ID, APPROVER_ID, "ok");
+
+        assertEquals(false, result.get("approved"));
+        assertEquals("Approval not found", result.get("reason"));
+        verify(approvalRepository).findById("tenant-b", APPROVAL_ID);
+        verify(approvalRepository, never()).respond(anyString(), anyLong(), anyLong(), anyInt(), anyString(), any());
+    }
+
+    @Test
+    void rejectionWhileQuorumIsStillReachableKeepsItPending() {
+        pending(0, 1);
+        voteCounted(0, false, WorkflowApproval.STATUS_REJECTED);
+        when(approvalRepository.rejectIfQuorumLost(APPROVAL_ID, 0)).thenReturn(false);
+
+        Map<String, Object> result = approvalService.reject(TENANT, APPROVAL_ID, APPROVER_ID, "ok");
+
+        assertEquals(true, result.get("rejected"));
+        assertEquals(WorkflowApproval.STATUS_PENDING, result.get("status"));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void rejectionThatLosesQuorumDecides() {
+        pending(0, 1);
+        voteCounted(0, false, WorkflowApproval.STATUS_REJECTED);
+        when(approvalRepository.rejectIfQuorumLost(APPROVAL_ID, 0)).thenReturn(true);
+
+        Map<String, Object> result = approvalService.reject(TENANT, APPROVAL_ID, APPROVER_ID, "ok");
+
+        assertEquals(WorkflowApproval.STATUS_REJECTED, result.get("status"));
+        verify(approvalRepository).closePending(APPROVAL_ID);
+        assertEquals(WorkflowApproval.STATUS_REJECTED, publishedEvent().getStatus());
+    }
+}
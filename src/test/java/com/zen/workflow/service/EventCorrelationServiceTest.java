@@ -0,0 +1,126 @@
+package com.zen.workflow.service;
+
+import com.zen.workflow.engine.CompiledWorkflow;
+import com.zen.workflow.engine.WorkflowExecutionEngine;
+import com.zen.workflow.model.EventSubscription;
+import com.zen.workflow.model.WorkflowTimer;
+import com.zen.workflow.repository.WorkflowEventSubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EventCorrelationServiceTest {
+
+    @Mock
+    private WorkflowEventSubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private WorkflowTimerService timerService;
+
+    @Mock
+    private WorkflowExecutionEngine executionEngine;
+
+    @Mock
+    private Executor workflowExecutor;
+
+    @InjectMocks
+    private EventCorrelationService eventCorrelationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(eventCorrelationService, "enabled", true);
+        when(subscriptionRepository.insert(any())).thenReturn(1L, 2L);
+
+        // The same execution id waiting on the same event in two tenants
+        eventCorrelationService.subscribe("tenant-a", 7L, "wait-1", "order.paid", "order-1");
+        eventCorrelationService.subscribe("tenant-b", 7L, "wait-1", "order.paid", "order-1");
+    }
+
+    @Test
+    void cancellingAnExecutionLeavesOtherTenantsWaiting() {
+        eventCorrelationService.cancelForExecution("tenant-b", 7L);
+
+        assertFalse(eventCorrelationService.hasWaiters("tenant-b", "order.paid", "order-1"));
+        assertTrue(eventCorrelationService.hasWaiters("tenant-a", "order.paid", "order-1"));
+        verify(subscriptionRepository).cancelByExecution("tenant-b", 7L);
+        verify(subscriptionRepository, never()).cancelByExecution(eq("tenant-a"), any());
+    }
+
+    @Test
+    void publishingResumesOnlyTheSameTenant() {
+        when(subscriptionRepository.claim(List.of(2L))).thenReturn(List.of(2L));
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(workflowExecutor).execute(any());
+
+        assertEquals(1, eventCorrelationService.publish("tenant-b", "ORDER.PAID", "order-1", Map.of("amount", 10)));
+
+        verify(timerService).cancelForExecution("tenant-b", 7L, WorkflowTimer.TYPE_EVENT_TIMEOUT);
+        verify(executionEngine).resumeExecution(eq("tenant-b"), eq(7L), eq("wait-1"), eq(CompiledWorkflow.NEXT), anyMap());
+        verify(executionEngine, never()).resumeExecution(eq("tenant-a"), any(), anyString(), anyString(), anyMap());
+        assertTrue(eventCorrelationService.hasWaiters("tenant-a", "order.paid", "order-1"));
+    }
+
+    @Test
+    void publishingInATenantWithNoWaitersClaimsNothing() {
+        assertEquals(0, eventCorrelationService.publish("tenant-c", "order.paid", "order-1", Map.of()));
+
+        verify(subscriptionRepository).findWaiting("tenant-c", "order.paid", "order-1", 0L);
+        verify(subscriptionRepository, never()).claim(any());
+    }
+
+    @Test
+    void publishingFindsSubscriptionsMadeOnOtherInstances() {
+        EventSubscription remote = subscription(5L, "tenant-c", 9L);
+        when(subscriptionRepository.findWaiting("tenant-c", "order.paid", "order-1", 0L)).thenReturn(List.of(remote));
+        when(subscriptionRepository.claim(List.of(5L))).thenReturn(List.of(5L));
+
+        assertEquals(1, eventCorrelationService.publish("tenant-c", "order.paid", "order-1", Map.of()));
+
+        verify(workflowExecutor).execute(any());
+    }
+
+    @Test
+    void subscriptionBothIndexedAndFoundIsClaimedOnce() {
+        EventSubscription reloaded = subscription(2L, "tenant-b", 7L);
+        when(subscriptionRepository.findWaiting("tenant-b", "order.paid", "order-1", 0L)).thenReturn(List.of(reloaded));
+        when(subscriptionRepository.claim(List.of(2L))).thenReturn(List.of(2L));
+
+        assertEquals(1, eventCorrelationService.publish("tenant-b", "order.paid", "order-1", Map.of()));
+
+        verify(workflowExecutor).execute(any());
+    }
+
+    private EventSubscription subscription(Long id, String tenantId, Long executionId) {
+        EventSubscription subscription = new EventSubscription();
+        subscription.setId(id);
+        subscription.setTenantId(tenantId);
+        subscription.setExecutionId(executionId);
+        subscription.setNodeId("wait-2");
+        subscription.setEventType("order.paid");
+        subscription.setCorrelationKey("order-1");
+        return subscription;
+    }
+}
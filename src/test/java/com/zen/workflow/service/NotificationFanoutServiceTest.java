@@ -0,0 +1,89 @@
+package com.zen.workflow.service;
+
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationFanoutServiceTest {
+
+    @Mock
+    private ChatService chatService;
+
+    @InjectMocks
+    private NotificationFanoutService fanoutService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fanoutService, "rateLimiterRegistry", RateLimiterRegistry.ofDefaults());
+        ReflectionTestUtils.setField(fanoutService, "threads", 1);
+        ReflectionTestUtils.setField(fanoutService, "timeoutSeconds", 1L);
+        fanoutService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fanoutService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void timeoutCancelsQueuedBatchesAndReportsRunningOnes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(chatService.postToChat(eq("SLACK"), eq("#sales"), any(), any())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return Map.of("sent", true);
+        });
+        List<Map<String, Object>> recipients = List.of(Map.of("slackChannel", "#sales"), Map.of("slackChannel", "#support"));
+
+        Map<String, Object> result = fanoutService.fanOut(recipients, Set.of(NotificationFanoutService.CHANNEL_SLACK),
+            "Deal won", "Deal won", "info", Map.of());
+        release.countDown();
+
+        Map<String, Object> slack = (Map<String, Object>) ((Map<String, Object>) result.get("channels"))
+            .get(NotificationFanoutService.CHANNEL_SLACK);
+        assertTrue((Boolean) result.get("timedOut"));
+        assertEquals(2, slack.get("batches"));
+        assertEquals(1, slack.get("inFlightBatches"));
+        assertEquals(1, slack.get("cancelledBatches"));
+
+        // The cancelled batch never reaches the provider once the pool frees up
+        ExecutorService senders = (ExecutorService) ReflectionTestUtils.getField(fanoutService, "senders");
+        senders.shutdown();
+        assertTrue(senders.awaitTermination(10, TimeUnit.SECONDS));
+        verify(chatService, never()).postToChat(eq("SLACK"), eq("#support"), any(), any());
+    }
+
+    @Test
+    void completedFanOutIsNotTimedOut() {
+        when(chatService.postToChat(eq("TEAMS"), eq("ops"), any(), any())).thenReturn(Map.of("sent", true));
+
+        Map<String, Object> result = fanoutService.fanOut(List.of(Map.of("teamsChannel", "ops")),
+            Set.of(NotificationFanoutService.CHANNEL_TEAMS), "Alert", "Disk full", "warning", Map.of());
+
+        assertFalse((Boolean) result.get("timedOut"));
+        assertEquals(1, result.get("sent"));
+    }
+}
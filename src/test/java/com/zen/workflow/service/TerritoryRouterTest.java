@@ -0,0 +1,133 @@
+package com.zen.workflow.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TerritoryRouterTest {
+
+    private static Map<String, Object> lead(String zipCode, String city, String state, String country) {
+        Map<String, Object> lead = new HashMap<>();
+        lead.put("zipCode", zipCode);
+        lead.put("city", city);
+        lead.put("state", state);
+        lead.put("country", country);
+        return lead;
+    }
+
+    private static Map<String, Object> lead(String zipCode) {
+        return lead(zipCode, null, null, null);
+    }
+
+    @SafeVarargs
+    private static TerritoryRouter territories(Map<String, Object>... territories) {
+        return TerritoryRouter.compile(Map.of("territories", List.of(territories)));
+    }
+
+    @Test
+    void longestZipPrefixWins() {
+        TerritoryRouter router = territories(
+            Map.of("userId", 1, "zips", List.of("9*")),
+            Map.of("userId", 2, "zips", List.of("941*")),
+            Map.of("userId", 3, "zips", List.of("94105")));
+
+        assertEquals(3L, router.route(lead("94105")));
+        assertEquals(2L, router.route(lead("94110")));
+        assertEquals(1L, router.route(lead("90210")));
+        assertNull(router.route(lead("10001")));
+    }
+
+    @Test
+    void fullZipCoversItsExtensions() {
+        TerritoryRouter router = territories(Map.of("userId", 3, "zips", List.of("94105")));
+
+        assertEquals(3L, router.route(lead("94105-1234")));
+        assertEquals(3L, router.route(lead("941051234")));
+        assertNull(router.route(lead("9410")));
+    }
+
+    @Test
+    void zipRangeCoversExactlyItsBounds() {
+        TerritoryRouter router = territories(Map.of("userId", 5, "zips", List.of("90210-90399")));
+
+        assertEquals(5L, router.route(lead("90210")));
+        assertEquals(5L, router.route(lead("90300")));
+        assertEquals(5L, router.route(lead("90399")));
+        assertNull(router.route(lead("90209")));
+        assertNull(router.route(lead("90400")));
+    }
+
+    @Test
+    void zipBeatsCityBeatsStateBeatsCountry() {
+        TerritoryRouter router = territories(
+            Map.of("userId", 1, "zips", List.of("787*")),
+            Map.of("userId", 2, "cities", List.of("Austin")),
+            Map.of("userId", 3, "states", List.of("TX")),
+            Map.of("userId", 4, "countries", List.of("US")));
+
+        assertEquals(1L, router.route(lead("78701", "Austin", "TX", "US")));
+        assertEquals(2L, router.route(lead("73301", "Austin", "TX", "US")));
+        assertEquals(3L, router.route(lead(null, "Dallas", "TX", "US")));
+        assertEquals(4L, router.route(lead(null, null, "CA", "US")));
+        assertNull(router.route(lead(null, null, null, "CA")));
+    }
+
+    @Test
+    void citiesMatchWholeValuesIgnoringCaseAndPunctuation() {
+        TerritoryRouter router = territories(Map.of("userId", 2, "cities", List.of("San Francisco")));
+
+        assertEquals(2L, router.route(lead(null, "san francisco", null, null)));
+        assertEquals(2L, router.route(lead(null, "SAN-FRANCISCO", null, null)));
+        assertNull(router.route(lead(null, "San", null, null)));
+        assertNull(router.route(lead(null, "San Francisco Bay", null, null)));
+    }
+
+    @Test
+    void mappingFormAndDefaultOwner() {
+        TerritoryRouter router = TerritoryRouter.compile(Map.of("territoryMapping", Map.of(
+            "zip_94105", 7,
+            "city_Austin", "8",
+            "state_CA", 9,
+            "country_US", 10,
+            "default", 11)));
+
+        assertEquals(7L, router.route(lead("94105")));
+        assertEquals(8L, router.route(lead(null, "austin", null, null)));
+        assertEquals(9L, router.route(lead(null, null, "ca", null)));
+        assertEquals(10L, router.route(lead(null, null, null, "us")));
+        assertEquals(11L, router.route(lead(null, null, null, null)));
+    }
+
+    @Test
+    void defaultUserOverridesMappingDefault() {
+        TerritoryRouter router = TerritoryRouter.compile(Map.of(
+            "territoryMapping", Map.of("default", 11),
+            "defaultUser", 12));
+
+        assertEquals(12L, router.route(lead("00000")));
+    }
+
+    @Test
+    void territoriesWithoutAUserAreIgnored() {
+        TerritoryRouter router = TerritoryRouter.compile(Map.of("territories", List.of(
+            Map.of("zips", List.of("9*")),
+            Map.of("userId", "nobody", "zips", List.of("9*")),
+            "not-a-territory")));
+
+        assertNull(router.route(lead("94105")));
+    }
+
+    @Test
+    void numericZipValuesAreRouted() {
+        TerritoryRouter router = territories(Map.of("userId", 1, "zips", List.of("941*")));
+        Map<String, Object> lead = new HashMap<>();
+        lead.put("zipCode", 94105);
+
+        assertEquals(1L, router.route(lead));
+    }
+}